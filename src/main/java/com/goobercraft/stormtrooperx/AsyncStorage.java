@@ -0,0 +1,265 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import com.goobercraft.stormtrooperx.scheduler.PluginScheduler;
+
+/**
+ * {@link CompletableFuture}-returning front for the blocking
+ * {@link DatabaseManager} calls, run on an executor the plugin owns.
+ *
+ * <p>{@link #bounded} gives every query a fixed set of threads — normally one
+ * per pooled connection, so a thread never parks waiting for a connection —
+ * and a bounded queue; {@link #virtual} does the same with a virtual thread
+ * per call on Java 21+. When MySQL stalls, work backs up in that queue instead
+ * of growing the server's shared async pool by one parked thread per call;
+ * once the queue is full, submissions fail fast with a
+ * {@link RejectedExecutionException} (see {@link #isSaturated}) and callers
+ * keep their work to retry later.</p>
+ *
+ * <p>{@link #onScheduler} keeps the old behavior of dispatching on
+ * {@link PluginScheduler#runAsync}, for callers that do not own an
+ * executor. Thread-safe.</p>
+ */
+final class AsyncStorage {
+
+    private final Logger logger;
+    private final DatabaseManager databaseManager;
+    private final Executor executor;
+    // Null when dispatching on the scheduler, which has no queue to report.
+    private final StorageExecutor pool;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param logger          Logger instance (must not be null)
+     * @param databaseManager Database manager to call (must not be null)
+     * @param executor        Runs each call (must not be null)
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    AsyncStorage(Logger logger, DatabaseManager databaseManager, Executor executor) {
+        if (logger == null) {
+            throw new IllegalArgumentException("logger cannot be null");
+        }
+        if (databaseManager == null) {
+            throw new IllegalArgumentException("databaseManager cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+        this.logger = logger;
+        this.databaseManager = databaseManager;
+        this.executor = executor;
+        this.pool = executor instanceof StorageExecutor ? (StorageExecutor) executor : null;
+    }
+
+    /**
+     * Creates storage backed by its own {@link PooledStorageExecutor}.
+     *
+     * @param threads       Worker threads (must be positive)
+     * @param queueCapacity Calls that may wait for a thread before new ones
+     *                      are rejected (must be positive)
+     * @throws IllegalArgumentException if threads or queueCapacity is not positive
+     */
+    static AsyncStorage bounded(Logger logger, DatabaseManager databaseManager, int threads, int queueCapacity) {
+        return new AsyncStorage(logger, databaseManager, new PooledStorageExecutor(threads, queueCapacity));
+    }
+
+    /**
+     * Creates storage that runs each call on its own virtual thread, with at
+     * most {@code threads} running at once (see
+     * {@link ThreadPerCallStorageExecutor}).
+     *
+     * @param threads       Calls that may run at once (must be positive)
+     * @param queueCapacity Calls that may wait before new ones are rejected (must be positive)
+     * @throws IllegalArgumentException if threads or queueCapacity is not positive
+     * @throws IllegalStateException if {@link VirtualThreads#isAvailable()} is false
+     */
+    static AsyncStorage virtual(Logger logger, DatabaseManager databaseManager, int threads, int queueCapacity) {
+        if (!VirtualThreads.isAvailable()) {
+            throw new IllegalStateException("Virtual threads need Java 21+");
+        }
+        return new AsyncStorage(logger, databaseManager, new ThreadPerCallStorageExecutor(
+            VirtualThreads.factory("StormtrooperX-DB-v"), true, threads, queueCapacity));
+    }
+
+    /**
+     * Creates storage that dispatches every call on the scheduler's async
+     * pool, unbounded.
+     */
+    static AsyncStorage onScheduler(Logger logger, DatabaseManager databaseManager, PluginScheduler scheduler) {
+        if (scheduler == null) {
+            throw new IllegalArgumentException("scheduler cannot be null");
+        }
+        return new AsyncStorage(logger, databaseManager, scheduler::runAsync);
+    }
+
+    /** See {@link DatabaseManager#isOptedOut(UUID)}. */
+    CompletableFuture<Boolean> isOptedOut(UUID playerUUID) {
+        return submit(() -> databaseManager.isOptedOut(playerUUID));
+    }
+
+    /** See {@link DatabaseManager#readOptedOut(UUID)}. */
+    CompletableFuture<Boolean> readOptedOut(UUID playerUUID) {
+        return submit(() -> databaseManager.readOptedOut(playerUUID));
+    }
+
+    /** See {@link DatabaseManager#getOptedOut(Collection)}. */
+    CompletableFuture<Set<UUID>> getOptedOut(Collection<UUID> playerUUIDs) {
+        return submit(() -> databaseManager.getOptedOut(playerUUIDs));
+    }
+
+    /** See {@link DatabaseManager#readAllOptedOut(Collection)}. */
+    CompletableFuture<Set<UUID>> readAllOptedOut(Collection<UUID> playerUUIDs) {
+        return submit(() -> databaseManager.readAllOptedOut(playerUUIDs));
+    }
+
+    /** See {@link DatabaseManager#forEachOptedOut(Consumer)}. */
+    CompletableFuture<Boolean> forEachOptedOut(Consumer<UUID> sink) {
+        return submit(() -> databaseManager.forEachOptedOut(sink));
+    }
+
+    /** See {@link DatabaseManager#getWatermark()}. */
+    CompletableFuture<OptOutSnapshot.Watermark> getWatermark() {
+        return submit(databaseManager::getWatermark);
+    }
+
+    /** See {@link DatabaseManager#getLatestChangeSeq()}. */
+    CompletableFuture<Long> getLatestChangeSeq() {
+        return submit(databaseManager::getLatestChangeSeq);
+    }
+
+    /** See {@link DatabaseManager#getChangesSince(long, int)}. */
+    CompletableFuture<List<OptOutChangeFeed.Change>> getChangesSince(long afterSeq, int limit) {
+        return submit(() -> databaseManager.getChangesSince(afterSeq, limit));
+    }
+
+    /** See {@link DatabaseManager#pruneChanges(long)}. */
+    CompletableFuture<Integer> pruneChanges(long retentionMinutes) {
+        return submit(() -> databaseManager.pruneChanges(retentionMinutes));
+    }
+
+    /** See {@link DatabaseManager#setOptOuts(Map)}. */
+    CompletableFuture<Boolean> setOptOuts(Map<UUID, Boolean> changes) {
+        return submit(() -> databaseManager.setOptOuts(changes));
+    }
+
+    /** See {@link DatabaseManager#runBackgroundMigrationChunk()}. */
+    CompletableFuture<Boolean> runBackgroundMigrationChunk() {
+        return submit(databaseManager::runBackgroundMigrationChunk);
+    }
+
+    /**
+     * Runs arbitrary database work, e.g. a write-behind flush, on this
+     * storage's executor.
+     */
+    CompletableFuture<Void> run(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        final CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.fine("Storage executor saturated (" + queueDepth() + " queued); rejected a database call");
+            return CompletableFuture.failedFuture(e);
+        }
+        submitted.increment();
+        return future;
+    }
+
+    /**
+     * Whether a future failed because the queue was full, i.e. the call never
+     * ran and should be retried later. False once {@link #shutdown} has been
+     * called, when retrying is pointless.
+     *
+     * @param error Failure passed to a {@code whenComplete}/{@code exceptionally} stage
+     */
+    boolean isSaturated(Throwable error) {
+        final Throwable cause = error instanceof CompletionException && error.getCause() != null
+            ? error.getCause() : error;
+        return cause instanceof RejectedExecutionException && !isShutdown();
+    }
+
+    /**
+     * Stops accepting calls and waits for queued and running ones to finish.
+     * No-op when dispatching on the scheduler.
+     *
+     * @return true if everything finished within the timeout
+     */
+    boolean shutdown(long timeout, TimeUnit unit) {
+        if (pool == null) {
+            return true;
+        }
+        pool.shutdown();
+        try {
+            if (pool.awaitTermination(timeout, unit)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        final int abandoned = pool.shutdownNow();
+        logger.warning("Storage executor did not finish in time; abandoned " + abandoned + " queued database calls");
+        return false;
+    }
+
+    /** Whether {@link #shutdown} has been called. Always false on the scheduler. */
+    boolean isShutdown() {
+        return pool != null && pool.isShutdown();
+    }
+
+    /** Calls waiting for a thread; 0 on the scheduler. */
+    int queueDepth() {
+        return pool == null ? 0 : pool.queueDepth();
+    }
+
+    /** Most calls that may wait for a thread; 0 on the scheduler. */
+    int queueCapacity() {
+        return pool == null ? 0 : pool.queueCapacity();
+    }
+
+    /** Threads currently running a call; 0 on the scheduler. */
+    int activeCount() {
+        return pool == null ? 0 : pool.activeCount();
+    }
+
+    /** Calls that may run at once; 0 on the scheduler, whose pool is not ours to size. */
+    int parallelism() {
+        return pool == null ? 0 : pool.parallelism();
+    }
+
+    /** Whether calls run on virtual threads. */
+    boolean usesVirtualThreads() {
+        return pool != null && pool.usesVirtualThreads();
+    }
+
+    /** Calls accepted since enable. */
+    long submittedCount() {
+        return submitted.sum();
+    }
+
+    /** Calls rejected because the queue was full or the executor shut down. */
+    long rejectedCount() {
+        return rejected.sum();
+    }
+}
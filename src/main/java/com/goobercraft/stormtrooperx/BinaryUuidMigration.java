@@ -0,0 +1,213 @@
+package com.goobercraft.stormtrooperx;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Schema V2: re-keys {@code player_optouts} from the 36-character UUID string
+ * to {@code BINARY(16)} — the UUID's two longs, big-endian — halving the key
+ * and index size and skipping string formatting/parsing on every query.
+ *
+ * <p>{@link #apply} only renames a string-keyed table to {@value #LEGACY_TABLE}
+ * and creates the binary one, so enable is never blocked on the copy. The
+ * rows are then moved over by {@link #migrateChunk}, {@value #CHUNK_SIZE} at a
+ * time in key order; {@code INSERT IGNORE} leaves rows written since the
+ * upgrade untouched, as they are newer. Until the legacy table is dropped,
+ * {@link DatabaseManager} falls back to it for players with no binary row.</p>
+ *
+ * <p>Servers sharing a MySQL database each run the copy, and the first to
+ * finish drops the table. The others notice through
+ * {@link #isMissingTable(SQLException)} when their next chunk or legacy read
+ * fails, and stop both.</p>
+ */
+final class BinaryUuidMigration implements SchemaMigration {
+
+    // Pre-V2 table keyed on VARCHAR(36) UUID strings.
+    static final String LEGACY_TABLE = "player_optouts_v1";
+    static final int CHUNK_SIZE = 1000;
+
+    private final Logger logger;
+
+    // True while player_optouts_v1 still exists; read by DatabaseManager on
+    // every lookup, so volatile.
+    private volatile boolean legacyTablePresent;
+    // Keyset cursor into the legacy table; only touched by the migration task.
+    private String cursor = "";
+    private long rowsMigrated;
+
+    BinaryUuidMigration(Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public int version() {
+        return 2;
+    }
+
+    @Override
+    public String description() {
+        return "Store opt-out UUIDs as BINARY(16)";
+    }
+
+    @Override
+    public void apply(Connection connection, boolean isH2) throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+        try (Statement statement = connection.createStatement()) {
+            if (tableExists(metaData, connection, "player_optouts") && hasStringKey(statement)) {
+                if (tableExists(metaData, connection, LEGACY_TABLE)) {
+                    throw new SQLException("Both a v1 player_optouts table and " + LEGACY_TABLE
+                        + " exist; resolve manually before upgrading");
+                }
+                statement.execute("ALTER TABLE player_optouts RENAME TO " + LEGACY_TABLE);
+                logger.info("Found v1 opt-out table (string UUIDs); renamed to " + LEGACY_TABLE
+                    + " and migrating to binary UUIDs in the background");
+            }
+            statement.execute(DatabaseManager.CREATE_OPTOUTS_TABLE);
+        }
+    }
+
+    @Override
+    public boolean hasBackgroundWork(Connection connection) throws SQLException {
+        legacyTablePresent = tableExists(connection.getMetaData(), connection, LEGACY_TABLE);
+        return legacyTablePresent;
+    }
+
+    /** Whether reads should fall back to {@value #LEGACY_TABLE}. */
+    boolean isLegacyTablePresent() {
+        return legacyTablePresent;
+    }
+
+    /**
+     * Records that {@value #LEGACY_TABLE} was dropped by another server
+     * sharing the database, which finished the copy first. Reads stop
+     * falling back to it and the background copy ends.
+     */
+    void legacyTableDropped() {
+        if (legacyTablePresent) {
+            legacyTablePresent = false;
+            logger.info(LEGACY_TABLE + " was dropped by another server sharing the database; "
+                + "binary UUID migration complete");
+        }
+    }
+
+    /**
+     * Whether a failure means the queried table does not exist: SQLSTATE
+     * 42S02, or the vendor codes for it (MySQL 1146, H2 42102-42104).
+     */
+    static boolean isMissingTable(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                final SQLException sql = (SQLException) cause;
+                final int code = sql.getErrorCode();
+                if ("42S02".equals(sql.getSQLState()) || code == 1146 || (code >= 42102 && code <= 42104)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the next {@value #CHUNK_SIZE} legacy rows in one transaction, or
+     * drops the legacy table once a chunk comes back empty. A restart resumes
+     * from the start of the table; already-copied rows are skipped.
+     */
+    @Override
+    public boolean migrateChunk(Connection connection) throws SQLException {
+        if (!legacyTablePresent) {
+            return false;
+        }
+        final String select = "SELECT uuid, opted_out, updated_at FROM " + LEGACY_TABLE
+                + " WHERE uuid > ? ORDER BY uuid LIMIT " + CHUNK_SIZE;
+        // INSERT IGNORE is native on MySQL and supported by H2 in MODE=MySQL.
+        final String insert = "INSERT IGNORE INTO player_optouts (uuid, opted_out, updated_at) VALUES (?, ?, ?)";
+
+        String lastKey = null;
+        int copied = 0;
+        connection.setAutoCommit(false);
+        try (PreparedStatement query = connection.prepareStatement(select);
+             PreparedStatement statement = connection.prepareStatement(insert)) {
+            query.setString(1, cursor);
+            try (ResultSet resultSet = query.executeQuery()) {
+                while (resultSet.next()) {
+                    lastKey = resultSet.getString("uuid");
+                    final UUID uuid;
+                    try {
+                        uuid = UUID.fromString(lastKey.trim());
+                    } catch (IllegalArgumentException e) {
+                        logger.warning("Skipping malformed UUID in " + LEGACY_TABLE + ": " + lastKey);
+                        continue;
+                    }
+                    final Timestamp updatedAt = resultSet.getTimestamp("updated_at");
+                    statement.setBytes(1, DatabaseManager.toBytes(uuid));
+                    statement.setBoolean(2, resultSet.getBoolean("opted_out"));
+                    statement.setTimestamp(3, updatedAt != null ? updatedAt : new Timestamp(System.currentTimeMillis()));
+                    statement.addBatch();
+                    copied++;
+                }
+            }
+            if (copied > 0) {
+                statement.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            if (isMissingTable(e)) {
+                // Another server finished the copy and dropped the table
+                legacyTableDropped();
+                return false;
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+
+        if (lastKey == null) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS " + LEGACY_TABLE);
+            }
+            legacyTablePresent = false;
+            logger.info("Binary UUID migration complete: " + rowsMigrated + " rows copied, "
+                + LEGACY_TABLE + " dropped");
+            return false;
+        }
+        cursor = lastKey;
+        rowsMigrated += copied;
+        logger.fine("Binary UUID migration: " + rowsMigrated + " rows copied so far");
+        return true;
+    }
+
+    private static boolean tableExists(DatabaseMetaData metaData, Connection connection, String table)
+            throws SQLException {
+        // H2 folds unquoted identifiers to upper case; MySQL keeps them as written.
+        for (String name : new String[] {table, table.toUpperCase(Locale.ROOT)}) {
+            try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, new String[] {"TABLE"})) {
+                if (tables.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasStringKey(Statement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery("SELECT uuid FROM player_optouts WHERE 1 = 0")) {
+            final int type = resultSet.getMetaData().getColumnType(1);
+            return type == Types.VARCHAR || type == Types.CHAR || type == Types.NVARCHAR
+                || type == Types.NCHAR || type == Types.LONGVARCHAR;
+        }
+    }
+}
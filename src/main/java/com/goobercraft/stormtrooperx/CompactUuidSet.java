@@ -0,0 +1,282 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Set of UUIDs stored as raw {@code long} pairs in one open-addressing table,
+ * for keeping every opted-out player in memory.
+ *
+ * <p>Each UUID takes two slots of a {@code long[]} (its most and least
+ * significant bits) — 16 bytes, at most 75% full — instead of a
+ * {@link java.util.concurrent.ConcurrentHashMap} node plus a {@link UUID}
+ * object, roughly 80 bytes. Collisions probe linearly; removal shifts the
+ * following entries back, so there are no tombstones to clean up. The nil
+ * UUID, whose pair marks an empty slot, is tracked in a flag.</p>
+ *
+ * <p>{@link #contains} is lock-free in the common case: it probes under a
+ * {@link StampedLock} optimistic read and only falls back to a read lock if
+ * a write raced it. Writes take the write lock. {@link #iterator()} walks a
+ * snapshot.</p>
+ */
+final class CompactUuidSet extends AbstractSet<UUID> {
+
+    static final int MIN_SLOTS = 16;
+    // Largest power-of-two slot count whose long[] length stays in int range.
+    static final int MAX_SLOTS = 1 << 29;
+
+    private final StampedLock lock = new StampedLock();
+    // Slot i is table[2i] (msb) and table[2i + 1] (lsb); (0, 0) = empty.
+    private long[] table;
+    private int entries;
+    private boolean containsNil;
+
+    /** Creates an empty set with the minimum capacity. */
+    CompactUuidSet() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize Entries to hold without resizing
+     */
+    CompactUuidSet(int expectedSize) {
+        this.table = new long[2 * slotsFor(expectedSize)];
+    }
+
+    private static int slotsFor(int size) {
+        final long needed = Math.max(MIN_SLOTS, (long) size * 4 / 3 + 1);
+        if (needed >= MAX_SLOTS) {
+            return MAX_SLOTS;
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb ^ (lsb * 0x9E3779B97F4A7C15L);
+        h ^= h >>> 31;
+        h *= 0xBF58476D1CE4E5B9L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof UUID)) {
+            return false;
+        }
+        final UUID uuid = (UUID) o;
+        final long msb = uuid.getMostSignificantBits();
+        final long lsb = uuid.getLeastSignificantBits();
+
+        long stamp = lock.tryOptimisticRead();
+        boolean found = msb == 0 && lsb == 0 ? containsNil : indexOf(table, msb, lsb) >= 0;
+        if (lock.validate(stamp)) {
+            return found;
+        }
+        stamp = lock.readLock();
+        try {
+            return msb == 0 && lsb == 0 ? containsNil : indexOf(table, msb, lsb) >= 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Slot holding the pair, or -1. Bounded by the slot count, so a probe
+     * racing a write (optimistic read) always terminates; the caller then
+     * discards the answer.
+     */
+    private static int indexOf(long[] table, long msb, long lsb) {
+        final int mask = (table.length >>> 1) - 1;
+        int slot = hash(msb, lsb) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            final long m = table[slot << 1];
+            final long l = table[(slot << 1) + 1];
+            if (m == msb && l == lsb) {
+                return slot;
+            }
+            if (m == 0 && l == 0) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean add(UUID uuid) {
+        final long msb = uuid.getMostSignificantBits();
+        final long lsb = uuid.getLeastSignificantBits();
+        final long stamp = lock.writeLock();
+        try {
+            if (msb == 0 && lsb == 0) {
+                if (containsNil) {
+                    return false;
+                }
+                containsNil = true;
+                return true;
+            }
+            if (indexOf(table, msb, lsb) >= 0) {
+                return false;
+            }
+            if ((long) (entries + 1) * 4 > (long) (table.length >>> 1) * 3 && (table.length >>> 1) < MAX_SLOTS) {
+                table = rehash(table, (table.length >>> 1) << 1);
+            }
+            insert(table, msb, lsb);
+            entries++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static void insert(long[] table, long msb, long lsb) {
+        final int mask = (table.length >>> 1) - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (table[slot << 1] != 0 || table[(slot << 1) + 1] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot << 1] = msb;
+        table[(slot << 1) + 1] = lsb;
+    }
+
+    private static long[] rehash(long[] old, int slots) {
+        final long[] grown = new long[2 * slots];
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != 0 || old[i + 1] != 0) {
+                insert(grown, old[i], old[i + 1]);
+            }
+        }
+        return grown;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof UUID)) {
+            return false;
+        }
+        final UUID uuid = (UUID) o;
+        final long msb = uuid.getMostSignificantBits();
+        final long lsb = uuid.getLeastSignificantBits();
+        final long stamp = lock.writeLock();
+        try {
+            if (msb == 0 && lsb == 0) {
+                final boolean removed = containsNil;
+                containsNil = false;
+                return removed;
+            }
+            final int slot = indexOf(table, msb, lsb);
+            if (slot < 0) {
+                return false;
+            }
+            shiftBack(slot);
+            entries--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Empties {@code hole}, moving back each later entry of the run whose
+     * home slot is not between the hole and its current slot.
+     */
+    private void shiftBack(int hole) {
+        final int mask = (table.length >>> 1) - 1;
+        int next = (hole + 1) & mask;
+        while (table[next << 1] != 0 || table[(next << 1) + 1] != 0) {
+            final int home = hash(table[next << 1], table[(next << 1) + 1]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole << 1] = table[next << 1];
+                table[(hole << 1) + 1] = table[(next << 1) + 1];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole << 1] = 0;
+        table[(hole << 1) + 1] = 0;
+    }
+
+    @Override
+    public void clear() {
+        final long stamp = lock.writeLock();
+        try {
+            table = new long[2 * MIN_SLOTS];
+            entries = 0;
+            containsNil = false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        final long stamp = lock.readLock();
+        try {
+            return entries + (containsNil ? 1 : 0);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Bytes held by the table, for {@code /stormtrooperx stats}. */
+    long tableBytes() {
+        final long stamp = lock.readLock();
+        try {
+            return (long) table.length * Long.BYTES;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Iterates a snapshot taken now; {@link Iterator#remove()} removes from the set. */
+    @Override
+    public Iterator<UUID> iterator() {
+        final List<UUID> snapshot;
+        final long stamp = lock.readLock();
+        try {
+            snapshot = new ArrayList<>(entries + 1);
+            if (containsNil) {
+                snapshot.add(new UUID(0, 0));
+            }
+            for (int i = 0; i < table.length; i += 2) {
+                if (table[i] != 0 || table[i + 1] != 0) {
+                    snapshot.add(new UUID(table[i], table[i + 1]));
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return new Iterator<UUID>() {
+            private int index;
+            private UUID last;
+
+            @Override
+            public boolean hasNext() {
+                return index < snapshot.size();
+            }
+
+            @Override
+            public UUID next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = snapshot.get(index++);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                CompactUuidSet.this.remove(last);
+                last = null;
+            }
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package com.goobercraft.stormtrooperx;
+
+import java.math.BigDecimal;
+import java.util.logging.Logger;
+
+/**
+ * Range checks shared by the {@code database.*} settings parsers. A value
+ * outside its range logs one warning naming the full config key and falls
+ * back to the default, so a typo never stops the plugin from enabling.
+ */
+final class ConfigRanges {
+
+    private ConfigRanges() {
+    }
+
+    /**
+     * @param logger       Receives the warning for an out-of-range value
+     * @param key          Config key below {@code database}, e.g. {@code sync.poll-interval-ms}
+     * @param value        The configured value
+     * @param min          Smallest allowed value
+     * @param max          Largest allowed value
+     * @param defaultValue Returned instead of an out-of-range value
+     * @return {@code value} if it lies in {@code [min, max]}, else {@code defaultValue}
+     */
+    static long validate(Logger logger, String key, long value, long min, long max, long defaultValue) {
+        if (value < min || value > max) {
+            logger.warning(String.format("Invalid database config '%s': %d (valid range: %d-%d). Using default: %d",
+                key, value, min, max, defaultValue));
+            return defaultValue;
+        }
+        return value;
+    }
+
+    /**
+     * Like {@link #validate(Logger, String, long, long, long, long)}, for
+     * fractional values; NaN is out of range.
+     */
+    static double validate(Logger logger, String key, double value, double min, double max, double defaultValue) {
+        if (!(value >= min && value <= max)) {
+            logger.warning(String.format("Invalid database config '%s': %s (valid range: %s-%s). Using default: %s",
+                key, plain(value), plain(min), plain(max), plain(defaultValue)));
+            return defaultValue;
+        }
+        return value;
+    }
+
+    /** {@code 0.0001} rather than {@code 1.0E-4}; NaN and infinities as-is. */
+    private static String plain(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return Double.toString(value);
+        }
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+}
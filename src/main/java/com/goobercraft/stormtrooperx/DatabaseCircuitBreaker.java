@@ -0,0 +1,265 @@
+package com.goobercraft.stormtrooperx;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * Circuit breaker and retry policy for {@link DatabaseManager}'s JDBC calls.
+ *
+ * <p>{@link State#CLOSED}: calls run normally. After {@code failureThreshold}
+ * consecutive failures the breaker trips to {@link State#OPEN}, and every call
+ * fails fast — {@link #allowRequest()} returns false without touching the
+ * pool, so an outage no longer costs a {@code connection-timeout} stall and a
+ * stack trace per call. Once {@code openMillis} have passed, the next call is
+ * let through as a probe ({@link State#HALF_OPEN}) while the rest keep
+ * failing fast; its success closes the breaker, its failure re-opens it for
+ * another {@code openMillis}.</p>
+ *
+ * <p>Transient errors (see {@link #isTransient}) are retried up to
+ * {@code retryAttempts} times while the breaker is closed, after a
+ * full-jitter exponential backoff starting at {@code retryBaseDelayMillis}.
+ * A probe is never retried. Thread-safe; the closed-state check is one
+ * volatile read.</p>
+ */
+final class DatabaseCircuitBreaker {
+
+    /** Breaker state, shown by {@code /stormtrooperx stats}. */
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    static final long DEFAULT_OPEN_MILLIS = 10_000;
+    static final int DEFAULT_RETRY_ATTEMPTS = 2;
+    static final long DEFAULT_RETRY_BASE_DELAY_MILLIS = 50;
+    // Caps a single backoff, however many attempts are configured.
+    static final long MAX_RETRY_DELAY_MILLIS = 2_000;
+
+    private final Logger logger;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final int retryAttempts;
+    private final long retryBaseDelayMillis;
+    private final LongSupplier nanoClock;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    // Written before the state flips to OPEN, so readers that see OPEN see it too.
+    private volatile long openedAtNanos;
+
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder trips = new LongAdder();
+
+    /**
+     * Creates a breaker with the default thresholds.
+     *
+     * @param logger Logger instance (must not be null)
+     */
+    DatabaseCircuitBreaker(Logger logger) {
+        this(logger, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS, DEFAULT_RETRY_ATTEMPTS,
+            DEFAULT_RETRY_BASE_DELAY_MILLIS, System::nanoTime);
+    }
+
+    /**
+     * @param logger               Logger instance (must not be null)
+     * @param failureThreshold     Consecutive failures that open the breaker (must be positive)
+     * @param openMillis           How long calls fail fast before a probe (must be positive)
+     * @param retryAttempts        Extra attempts for a transient error (must not be negative)
+     * @param retryBaseDelayMillis Backoff before the first retry; doubles per attempt (must be positive)
+     * @param nanoClock            Time source, {@link System#nanoTime()} outside tests (must not be null)
+     * @throws IllegalArgumentException if any parameter is null or out of range
+     */
+    DatabaseCircuitBreaker(Logger logger, int failureThreshold, long openMillis, int retryAttempts,
+                           long retryBaseDelayMillis, LongSupplier nanoClock) {
+        if (logger == null) {
+            throw new IllegalArgumentException("logger cannot be null");
+        }
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("failureThreshold must be positive, got: " + failureThreshold);
+        }
+        if (openMillis <= 0) {
+            throw new IllegalArgumentException("openMillis must be positive, got: " + openMillis);
+        }
+        if (retryAttempts < 0) {
+            throw new IllegalArgumentException("retryAttempts must not be negative, got: " + retryAttempts);
+        }
+        if (retryBaseDelayMillis <= 0) {
+            throw new IllegalArgumentException("retryBaseDelayMillis must be positive, got: " + retryBaseDelayMillis);
+        }
+        if (nanoClock == null) {
+            throw new IllegalArgumentException("nanoClock cannot be null");
+        }
+        this.logger = logger;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.retryAttempts = retryAttempts;
+        this.retryBaseDelayMillis = retryBaseDelayMillis;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Reads {@code failure-threshold}, {@code open-ms}, {@code retry-attempts}
+     * and {@code retry-base-delay-ms}; out-of-range values log a warning and
+     * fall back to the default.
+     *
+     * @param section The {@code database.circuit-breaker} section, or null for defaults
+     * @param logger  Logger instance (must not be null)
+     * @return The breaker
+     */
+    static DatabaseCircuitBreaker fromConfig(ConfigurationSection section, Logger logger) {
+        if (section == null) {
+            return new DatabaseCircuitBreaker(logger);
+        }
+        return new DatabaseCircuitBreaker(logger,
+            (int) ConfigRanges.validate(logger, "circuit-breaker.failure-threshold",
+                section.getInt("failure-threshold", DEFAULT_FAILURE_THRESHOLD), 1, 100, DEFAULT_FAILURE_THRESHOLD),
+            ConfigRanges.validate(logger, "circuit-breaker.open-ms",
+                section.getLong("open-ms", DEFAULT_OPEN_MILLIS), 100, 300_000, DEFAULT_OPEN_MILLIS),
+            (int) ConfigRanges.validate(logger, "circuit-breaker.retry-attempts",
+                section.getInt("retry-attempts", DEFAULT_RETRY_ATTEMPTS), 0, 5, DEFAULT_RETRY_ATTEMPTS),
+            ConfigRanges.validate(logger, "circuit-breaker.retry-base-delay-ms",
+                section.getLong("retry-base-delay-ms", DEFAULT_RETRY_BASE_DELAY_MILLIS), 1, 1_000,
+                DEFAULT_RETRY_BASE_DELAY_MILLIS),
+            System::nanoTime);
+    }
+
+    /**
+     * Whether a call may run now. While open, returns false (counted as
+     * rejected) until {@code openMillis} have passed; then exactly one caller
+     * gets true as the probe.
+     *
+     * @return true if the caller should go ahead and report the outcome
+     */
+    boolean allowRequest() {
+        final State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openNanos
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            logger.info("Probing the database after " + TimeUnit.NANOSECONDS.toMillis(openNanos)
+                + " ms with the circuit open");
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /** Reports a call that completed; closes the breaker if it was probing. */
+    void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (state.get() != State.CLOSED && state.getAndSet(State.CLOSED) != State.CLOSED) {
+            logger.info("Database reachable again; circuit closed");
+        }
+    }
+
+    /**
+     * Reports a call that failed after any retries. Opens the breaker on the
+     * threshold-th consecutive failure, or straight away if it was the probe.
+     */
+    void recordFailure() {
+        failures.increment();
+        final int consecutive = consecutiveFailures.incrementAndGet();
+        final State current = state.get();
+        if (current == State.HALF_OPEN) {
+            openedAtNanos = nanoClock.getAsLong();
+            if (state.compareAndSet(State.HALF_OPEN, State.OPEN)) {
+                trips.increment();
+                logger.warning("Database still unreachable; calls keep failing fast for another "
+                    + TimeUnit.NANOSECONDS.toMillis(openNanos) + " ms");
+            }
+        } else if (current == State.CLOSED && consecutive >= failureThreshold) {
+            openedAtNanos = nanoClock.getAsLong();
+            if (state.compareAndSet(State.CLOSED, State.OPEN)) {
+                trips.increment();
+                logger.warning("Database circuit opened after " + consecutive + " consecutive failures; "
+                    + "calls fail fast for " + TimeUnit.NANOSECONDS.toMillis(openNanos) + " ms before a probe");
+            }
+        }
+    }
+
+    /**
+     * Waits out the backoff before retry number {@code attempt + 1}, if one
+     * is allowed: the breaker is closed and attempts remain. The delay is
+     * drawn uniformly from {@code [0, base * 2^attempt]}, capped at
+     * {@value #MAX_RETRY_DELAY_MILLIS} ms, so callers failing together do
+     * not retry in lockstep.
+     *
+     * @param attempt Attempts already made, minus one (0 after the first failure)
+     * @return true if the caller should try again; false if it should give up
+     */
+    boolean awaitRetry(int attempt) {
+        if (attempt >= retryAttempts || state.get() != State.CLOSED) {
+            return false;
+        }
+        final long ceiling = Math.min(MAX_RETRY_DELAY_MILLIS, retryBaseDelayMillis << Math.min(attempt, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        retries.increment();
+        return true;
+    }
+
+    /**
+     * Whether retrying might succeed: serialization failures and deadlocks,
+     * lock timeouts, and a pooled connection that broke mid-call (the pool
+     * evicts it, so the retry borrows a fresh one). A pool timeout
+     * ({@link SQLTransientConnectionException}) is not retried, as it has
+     * already waited out {@code connection-timeout}.
+     *
+     * @param e The failure
+     * @return true if the call should be retried
+     */
+    static boolean isTransient(SQLException e) {
+        if (e instanceof SQLTransientConnectionException) {
+            return false;
+        }
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException) {
+            return true;
+        }
+        final String sqlState = e.getSQLState();
+        // 08: connection exception; 40: transaction rollback (deadlock, serialization)
+        return sqlState != null && (sqlState.startsWith("08") || sqlState.startsWith("40"));
+    }
+
+    /** Current state. */
+    State state() {
+        return state.get();
+    }
+
+    /** Calls that failed after their retries, since enable. */
+    long failureCount() {
+        return failures.sum();
+    }
+
+    /** Retries made after transient errors, since enable. */
+    long retryCount() {
+        return retries.sum();
+    }
+
+    /** Calls failed fast without touching the database, since enable. */
+    long rejectedCount() {
+        return rejected.sum();
+    }
+
+    /** Times the breaker opened (including failed probes), since enable. */
+    long tripCount() {
+        return trips.sum();
+    }
+}
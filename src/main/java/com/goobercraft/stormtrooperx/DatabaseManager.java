@@ -6,25 +6,79 @@
 
 import java.io.File;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Manages database operations for player opt-out preferences.
  * Supports both H2 (embedded) and MySQL (with HikariCP connection pooling).
+ *
+ * <p>Every query runs through a {@link DatabaseCircuitBreaker}: transient
+ * errors are retried with backoff, and during an outage calls fail fast with
+ * their usual default instead of each waiting out the pool's
+ * {@code connection-timeout}.</p>
+ *
+ * <p>Reads go through a {@link ReadCoalescer} unless it is disabled:
+ * concurrent reads of one player share a query, and point reads arriving
+ * together are batched into one {@code IN (...)} lookup.</p>
  */
 public class DatabaseManager {
 
+    static final int DEFAULT_H2_POOL_SIZE = 4;
+    static final int MAX_H2_POOL_SIZE = 32;
+    // Per connection; the hot path only uses a handful of distinct statements.
+    static final int STATEMENT_CACHE_CAPACITY = 16;
+
+    // Largest IN (...) list per bulk lookup; keeps each statement well under
+    // driver parameter limits.
+    static final int MAX_IN_PARAMS = 500;
+
+    // Rows per round-trip when streaming the whole table.
+    static final int PRELOAD_FETCH_SIZE = 1000;
+
+    // Current opt-out table. Idempotent; shared by schema steps V1 and V2.
+    // Since V3 only opted-out players have a row (see SparseOptOutMigration).
+    static final String CREATE_OPTOUTS_TABLE = "CREATE TABLE IF NOT EXISTS player_optouts ("
+            + "uuid BINARY(16) PRIMARY KEY, "
+            + "opted_out BOOLEAN NOT NULL DEFAULT TRUE, "
+            + "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP"
+            + ")";
+
+    // Every write since V4 when sync is enabled, in commit-visible order by seq
+    // (see OptOutChangeFeed). Pruned by age.
+    static final String CREATE_CHANGES_TABLE = "CREATE TABLE IF NOT EXISTS player_optout_changes ("
+            + "seq BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "uuid BINARY(16) NOT NULL, "
+            + "opted_out BOOLEAN NOT NULL, "
+            + "origin BIGINT NOT NULL, "
+            + "changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP"
+            + ")";
+
+    // Opt-in removes the row; only opted-out players are stored.
+    private static final String DELETE_SQL = "DELETE FROM player_optouts WHERE uuid = ?";
+
+    private static final String INSERT_CHANGE_SQL =
+        "INSERT INTO player_optout_changes (uuid, opted_out, origin) VALUES (?, ?, ?)";
+
     private final Logger logger;
     private final String databaseType;
     // Cached at construction so hot DB paths skip repeated string compares.
@@ -32,16 +86,33 @@ public class DatabaseManager {
     private final File dataFolder;
     private final ConfigurationSection mysqlConfig;
 
-    // Single long-lived H2 connection (no pool).
-    private Connection h2Connection;
-
-    // Serializes access to the shared H2 connection — JDBC Connections are not
-    // thread-safe and async tasks can otherwise race on it. The MySQL path uses
-    // HikariCP (a connection per thread) and needs no such lock.
-    private final Object h2Lock = new Object();
+    private final ConfigurationSection h2Config;
 
+    // Connection pool for both backends. Each caller borrows its own
+    // connection, so lookups run in parallel and each write batch is its own
+    // transaction; H2's MVStore gives row-level locking between them.
     private HikariDataSource hikariDataSource;
 
+    // Reuses the hot-path statements on the H2 pool's connections. Null on
+    // MySQL, where Connector/J caches them itself (cachePrepStmts).
+    private StatementCache statementCache;
+
+    // V2 step; also tells reads whether to fall back to the legacy table.
+    private final BinaryUuidMigration binaryUuidMigration;
+    // Append-only: released steps never change. See SchemaMigration.
+    private final SchemaMigrator schemaMigrator;
+
+    // Fails calls fast during an outage and retries transient errors.
+    private final DatabaseCircuitBreaker circuitBreaker;
+
+    // Shares and batches concurrent reads. Null when read-coalescing is disabled.
+    private final ReadCoalescer readCoalescer;
+
+    // Whether writes are appended to player_optout_changes for other servers.
+    private final boolean changeLog;
+    // Tags this instance's change-log entries, so its own feed skips them.
+    private final long changeOrigin = ThreadLocalRandom.current().nextLong();
+
     /**
      * Allowlist of MySQL Connector/J properties admins may set under
      * {@code database.mysql.properties}. Restricted to TLS, time/encoding,
@@ -74,7 +145,7 @@ public class DatabaseManager {
     // at connect time. Add it with a dedicated validator if ever needed.
 
     /**
-     * Creates a new database manager.
+     * Creates a new database manager with the default H2 pool size.
      *
      * @param logger Logger instance (must not be null)
      * @param dataFolder Plugin data folder (must not be null)
@@ -83,6 +154,26 @@ public class DatabaseManager {
      * @throws IllegalArgumentException if any required parameter is null or invalid
      */
     public DatabaseManager(Logger logger, File dataFolder, String databaseType, ConfigurationSection mysqlConfig) {
+        this(logger, dataFolder, databaseType, mysqlConfig, null,
+            logger == null ? null : new DatabaseCircuitBreaker(logger), OptOutSettings.defaults());
+    }
+
+    /**
+     * Creates a new database manager whose calls go through the given
+     * circuit breaker. Reads are coalesced, and writes appended to the
+     * change log for cross-server sync, as {@code settings} configure.
+     *
+     * @param logger Logger instance (must not be null)
+     * @param dataFolder Plugin data folder (must not be null)
+     * @param databaseType Database type: "h2" or "mysql" (must not be null)
+     * @param mysqlConfig MySQL configuration section (required if databaseType is "mysql")
+     * @param h2Config H2 configuration section (optional; defaults apply if null)
+     * @param circuitBreaker Fails calls fast during an outage (must not be null)
+     * @param settings Read coalescing and sync tuning (must not be null)
+     * @throws IllegalArgumentException if any required parameter is null or invalid
+     */
+    DatabaseManager(Logger logger, File dataFolder, String databaseType, ConfigurationSection mysqlConfig,
+                    ConfigurationSection h2Config, DatabaseCircuitBreaker circuitBreaker, OptOutSettings settings) {
         if (logger == null) {
             throw new IllegalArgumentException("logger cannot be null");
         }
@@ -98,6 +189,12 @@ public DatabaseManager(Logger logger, File dataFolder, String databaseType, Conf
         if (databaseType.equalsIgnoreCase("mysql") && mysqlConfig == null) {
             throw new IllegalArgumentException("mysqlConfig is required when databaseType is 'mysql'");
         }
+        if (circuitBreaker == null) {
+            throw new IllegalArgumentException("circuitBreaker cannot be null");
+        }
+        if (settings == null) {
+            throw new IllegalArgumentException("settings cannot be null");
+        }
 
         this.logger = logger;
         this.dataFolder = dataFolder;
@@ -105,10 +202,24 @@ public DatabaseManager(Logger logger, File dataFolder, String databaseType, Conf
         this.databaseType = databaseType.toLowerCase(Locale.ROOT);
         this.isH2 = this.databaseType.equals("h2");
         this.mysqlConfig = mysqlConfig;
+        this.h2Config = h2Config;
+        this.binaryUuidMigration = new BinaryUuidMigration(logger);
+        this.schemaMigrator = new SchemaMigrator(logger, List.of(
+            SchemaMigration.sql(1, "Create player_optouts", CREATE_OPTOUTS_TABLE),
+            binaryUuidMigration,
+            new SparseOptOutMigration(logger, binaryUuidMigration),
+            SchemaMigration.sql(4, "Create player_optout_changes", CREATE_CHANGES_TABLE)));
+        this.circuitBreaker = circuitBreaker;
+        final ReadCoalescer.Settings readCoalescing = settings.readCoalescing();
+        this.readCoalescer = readCoalescing.enabled()
+            ? new ReadCoalescer(this::isOptedOutInternal, this::getOptedOutInternal, readCoalescing.batchWindowNanos())
+            : null;
+        this.changeLog = settings.sync().enabled();
     }
 
     /**
-     * Initializes the database connection and creates tables.
+     * Initializes the database connection and migrates the schema to the
+     * latest version.
      */
     public void initialize() {
         try {
@@ -118,7 +229,7 @@ public void initialize() {
                 initializeMySQL();
             }
 
-            createTables();
+            migrateSchema();
 
             logger.info("Database initialized successfully (" + databaseType.toUpperCase() + ")");
         } catch (ClassNotFoundException e) {
@@ -131,6 +242,11 @@ public void initialize() {
     /**
      * Initializes H2 in <b>embedded</b> mode — file-backed, in-process, no TCP listener.
      *
+     * <p>Connections come from a small fixed-size HikariCP pool
+     * ({@code database.h2.pool-size}). All of them share one in-process
+     * database engine, so the pool only bounds concurrency; the
+     * {@code FILE_LOCK} still keeps other processes out.</p>
+     *
      * <p>Do not add {@code AUTO_SERVER=TRUE} or switch to {@code jdbc:h2:tcp://...}
      * without revisiting the hardcoded {@code sa}/empty password — it is only
      * safe because there is no network exposure here.</p>
@@ -142,7 +258,30 @@ private void initializeH2() throws ClassNotFoundException, SQLException {
         // gives MySQL grammar compatibility.
         final File databaseFile = new File(dataFolder, "players");
         final String url = "jdbc:h2:" + databaseFile.getAbsolutePath() + ";MODE=MySQL;FILE_LOCK=SOCKET";
-        h2Connection = DriverManager.getConnection(url, "sa", "");
+
+        final int poolSize = h2Config == null ? DEFAULT_H2_POOL_SIZE : validatePoolSize(
+            h2Config.getInt("pool-size", DEFAULT_H2_POOL_SIZE), "pool-size", 1, MAX_H2_POOL_SIZE, DEFAULT_H2_POOL_SIZE);
+
+        final HikariConfig config = new HikariConfig();
+        // Rewritten to the relocated class name by the shade plugin, as for MySQL.
+        config.setDriverClassName("org.h2.Driver");
+        config.setJdbcUrl(url);
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setPoolName("StormtrooperX-H2");
+        // Fixed size: embedded connections are cheap to keep and there is no
+        // server-side idle limit to respect.
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+
+        try {
+            hikariDataSource = new HikariDataSource(config);
+        } catch (RuntimeException e) {
+            // Hikari reports "file locked by another process" and the like unchecked
+            throw new SQLException("Could not open H2 database " + databaseFile.getAbsolutePath(), e);
+        }
+        statementCache = new StatementCache(logger, STATEMENT_CACHE_CAPACITY);
+        logger.fine("H2 connection pool started with " + poolSize + " connections");
     }
 
     /**
@@ -216,8 +355,8 @@ void validateMySQLProperty(String key, String value) {
     int validatePoolSize(int value, String name, int min, int max, int defaultValue) {
         if (value < min || value > max) {
             logger.warning(String.format(
-                "Invalid MySQL pool config '%s': %d (valid range: %d-%d). Using default: %d",
-                name, value, min, max, defaultValue));
+                "Invalid %s pool config '%s': %d (valid range: %d-%d). Using default: %d",
+                isH2 ? "H2" : "MySQL", name, value, min, max, defaultValue));
             return defaultValue;
         }
         return value;
@@ -328,51 +467,215 @@ private void initializeMySQL() throws SQLException {
     }
 
     /**
-     * Gets a connection from either H2 or MySQL pool.
+     * Borrows a connection from the pool.
      */
     private Connection getConnection() throws SQLException {
-        if (isH2) {
-            return h2Connection;
-        } else {
-            return hikariDataSource.getConnection();
+        return hikariDataSource.getConnection();
+    }
+
+    /**
+     * Prepares {@code sql}, reusing a cached statement on H2. Pair with
+     * {@link #release(PreparedStatement)} instead of closing the statement.
+     */
+    private PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        return statementCache != null ? statementCache.prepare(connection, sql) : connection.prepareStatement(sql);
+    }
+
+    /**
+     * Closes a statement from {@link #prepare}, unless the cache owns it.
+     */
+    private void release(PreparedStatement statement) throws SQLException {
+        if (statementCache == null) {
+            statement.close();
+        }
+    }
+
+    /**
+     * Drops the cached statements of a connection that just failed, so one
+     * left mid-batch or mid-result is never reused.
+     */
+    private void invalidateStatements(Connection connection) {
+        if (statementCache != null && connection != null) {
+            statementCache.invalidate(connection);
         }
     }
 
     /**
-     * Closes a connection. For H2, does nothing (single connection). For MySQL, returns to pool.
+     * Gets the H2 statement cache, for {@code /stormtrooperx stats}.
+     *
+     * @return the cache, or null on MySQL or before {@link #initialize()}
+     */
+    StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    /**
+     * Gets the circuit breaker, for {@code /stormtrooperx stats}.
+     *
+     * @return the breaker
+     */
+    DatabaseCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Gets the read coalescer, for {@code /stormtrooperx stats}.
+     *
+     * @return the coalescer, or null when read-coalescing is disabled
+     */
+    ReadCoalescer getReadCoalescer() {
+        return readCoalescer;
+    }
+
+    /**
+     * Tags this instance's change-log entries (random per start), so
+     * {@link OptOutChangeFeed} can skip its own writes.
+     *
+     * @return the origin
+     */
+    long changeOrigin() {
+        return changeOrigin;
+    }
+
+    /**
+     * Gets the connection pool's maximum size, which the storage executor
+     * matches by default.
+     *
+     * @return the pool size, or 1 before {@link #initialize()} or if it failed
+     */
+    int getPoolSize() {
+        return hikariDataSource == null ? 1 : hikariDataSource.getMaximumPoolSize();
+    }
+
+    /**
+     * Returns a borrowed connection to the pool.
      */
     private void closeConnection(Connection connection) {
-        if (!isH2 && connection != null) {
+        if (connection != null) {
             try {
                 connection.close(); // Returns connection to HikariCP pool
             } catch (SQLException e) {
-                logger.log(Level.WARNING, "Failed to close MySQL connection", e);
+                logger.log(Level.WARNING, "Failed to close " + (isH2 ? "H2" : "MySQL") + " connection", e);
             }
         }
-        // For H2, do nothing - we keep the single connection open
     }
 
     /**
-     * Creates the necessary database tables.
+     * Runs {@code call} on a borrowed connection through the circuit breaker.
+     *
+     * <p>While the breaker is open this returns {@code fallback} at once,
+     * without borrowing a connection or logging. A transient error is retried
+     * on a fresh connection after a jittered backoff (see
+     * {@link DatabaseCircuitBreaker#awaitRetry}); any other error, or the last
+     * retry's, is logged, counted towards opening the breaker, and answered
+     * with {@code fallback}.</p>
+     *
+     * @param call     The JDBC work; statements from {@link #prepare} are
+     *                 invalidated if it throws
+     * @param fallback Result when the call fails or is not attempted
+     * @param failure  Log message for a failure, built only when one happens
      */
-    private void createTables() throws SQLException {
-        final String createTableSQL = "CREATE TABLE IF NOT EXISTS player_optouts (" +
-                "uuid VARCHAR(36) PRIMARY KEY, " +
-                "opted_out BOOLEAN NOT NULL DEFAULT TRUE, " +
-                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-                ")";
+    private <T> T execute(SqlCall<T> call, T fallback, Supplier<String> failure) {
+        if (!circuitBreaker.allowRequest()) {
+            return fallback;
+        }
+        for (int attempt = 0; ; attempt++) {
+            SQLException error;
+            Connection connection = null;
+            try {
+                connection = getConnection();
+                final T result = call.run(connection);
+                circuitBreaker.recordSuccess();
+                return result;
+            } catch (SQLException e) {
+                invalidateStatements(connection);
+                error = e;
+            } finally {
+                closeConnection(connection);
+            }
+            // Back off with the connection returned, so the pool can hand it on.
+            if (!DatabaseCircuitBreaker.isTransient(error) || !circuitBreaker.awaitRetry(attempt)) {
+                final boolean probe = circuitBreaker.state() == DatabaseCircuitBreaker.State.HALF_OPEN;
+                circuitBreaker.recordFailure();
+                if (probe) {
+                    // The breaker logs the outcome; no stack trace per probe.
+                    logger.fine(failure.get() + ": " + error.getMessage());
+                } else {
+                    logger.log(Level.WARNING, failure.get(), error);
+                }
+                return fallback;
+            }
+        }
+    }
 
+    /** JDBC work run by {@link #execute} on a borrowed connection. */
+    @FunctionalInterface
+    private interface SqlCall<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Applies pending {@link SchemaMigration}s and queues their background work
+     * (see {@link #runBackgroundMigrationChunk()}).
+     */
+    private void migrateSchema() throws SQLException {
         Connection connection = null;
         try {
             connection = getConnection();
-            try (Statement statement = connection.createStatement()) {
-                statement.execute(createTableSQL);
-            }
+            final int version = schemaMigrator.migrate(connection, isH2);
+            logger.fine("Database schema at version " + version);
         } finally {
             closeConnection(connection);
         }
     }
 
+    /** Big-endian 16-byte form used as the v2 key. */
+    static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+            .putLong(uuid.getMostSignificantBits())
+            .putLong(uuid.getLeastSignificantBits())
+            .array();
+    }
+
+    /** Inverse of {@link #toBytes(UUID)}. */
+    static UUID fromBytes(byte[] bytes) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * Whether a schema step still has chunked work for
+     * {@link #runBackgroundMigrationChunk()}.
+     *
+     * @return true until every background step has finished
+     */
+    public boolean isBackgroundMigrationPending() {
+        return schemaMigrator.hasBackgroundWork();
+    }
+
+    /**
+     * Runs one chunk of outstanding background schema work, such as copying
+     * a legacy table into its new layout.
+     *
+     * <p>Call repeatedly from an async task until it returns false. Each call
+     * is one short transaction, so gameplay queries interleave.
+     * Safe to interrupt: steps resume on the next start.</p>
+     *
+     * @return true if more chunks remain; false when done, not needed, or
+     *         after a failure (logged; retried on next start)
+     */
+    public boolean runBackgroundMigrationChunk() {
+        if (!schemaMigrator.hasBackgroundWork() || !isConnectionReady()) {
+            return false;
+        }
+        return runBackgroundMigrationChunkInternal();
+    }
+
+    private boolean runBackgroundMigrationChunkInternal() {
+        return execute(schemaMigrator::migrateChunk, false,
+            () -> "Background schema migration failed; it resumes on next start");
+    }
+
     /**
      * Validates that the UUID is not null and the database connection is initialized.
      *
@@ -385,13 +688,17 @@ private boolean validateDatabaseOperation(UUID playerUUID) {
             return false;
         }
 
-        if (isH2 && h2Connection == null) {
-            logger.warning("H2 database connection not initialized");
-            return false;
-        }
+        return isConnectionReady();
+    }
 
-        if (!isH2 && hikariDataSource == null) {
-            logger.warning("MySQL database connection pool not initialized");
+    /**
+     * Checks that the connection pool has been initialized.
+     *
+     * @return true if the backend is ready, false otherwise (logged)
+     */
+    private boolean isConnectionReady() {
+        if (hikariDataSource == null) {
+            logger.warning((isH2 ? "H2" : "MySQL") + " database connection pool not initialized");
             return false;
         }
 
@@ -399,49 +706,391 @@ private boolean validateDatabaseOperation(UUID playerUUID) {
     }
 
     /**
-     * Checks if a player has opted out.
+     * Checks if a player has opted out. Shares a query already in flight for
+     * the player, or batches with concurrent reads for others (see
+     * {@link ReadCoalescer}).
      *
      * @param playerUUID Player's UUID
-     * @return true if opted out, false otherwise
+     * @return true if opted out, false otherwise (including on failure)
      */
     public boolean isOptedOut(UUID playerUUID) {
+        // Default to not opted out
+        return Boolean.TRUE.equals(readOptedOut(playerUUID));
+    }
+
+    /**
+     * Like {@link #isOptedOut(UUID)}, but tells a failed read apart from a
+     * player who is not opted out, for callers that cache the answer.
+     *
+     * @param playerUUID Player's UUID
+     * @return true if opted out, false if not, or null if the database is
+     *         unavailable, the circuit is open or the read failed
+     */
+    Boolean readOptedOut(UUID playerUUID) {
         if (!validateDatabaseOperation(playerUUID)) {
-            return false;
+            return null;
         }
-        if (isH2) {
-            synchronized (h2Lock) {
-                return isOptedOutInternal(playerUUID);
-            }
-        }
-        return isOptedOutInternal(playerUUID);
+        return readCoalescer == null ? isOptedOutInternal(playerUUID) : readCoalescer.read(playerUUID);
     }
 
-    private boolean isOptedOutInternal(UUID playerUUID) {
+    private Boolean isOptedOutInternal(UUID playerUUID) {
+        return execute(connection -> isOptedOutInternal(connection, playerUUID), null,
+            () -> "Failed to check opt-out status for " + playerUUID);
+    }
+
+    private boolean isOptedOutInternal(Connection connection, UUID playerUUID) throws SQLException {
         final String query = "SELECT opted_out FROM player_optouts WHERE uuid = ?";
 
-        Connection connection = null;
+        final PreparedStatement statement = prepare(connection, query);
         try {
-            connection = getConnection();
-            try (PreparedStatement statement = connection.prepareStatement(query)) {
-                statement.setString(1, playerUUID.toString());
+            statement.setBytes(1, toBytes(playerUUID));
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getBoolean("opted_out");
+                }
+            }
+        } finally {
+            release(statement);
+        }
+        if (binaryUuidMigration.isLegacyTablePresent()) {
+            return isOptedOutLegacy(connection, playerUUID);
+        }
+        return false;
+    }
+
+    /** Reads a row the background migration has not copied yet. */
+    private boolean isOptedOutLegacy(Connection connection, UUID playerUUID) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT opted_out FROM " + BinaryUuidMigration.LEGACY_TABLE + " WHERE uuid = ?")) {
+            statement.setString(1, playerUUID.toString());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean("opted_out");
+            }
+        } catch (SQLException e) {
+            // Dropped by the migration, here or on another server sharing the database
+            if (BinaryUuidMigration.isMissingTable(e)) {
+                binaryUuidMigration.legacyTableDropped();
+            }
+            if (!binaryUuidMigration.isLegacyTablePresent()) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Looks up many players at once and returns those who have opted out.
+     *
+     * <p>Runs one {@code SELECT ... WHERE uuid IN (...)} per
+     * {@value #MAX_IN_PARAMS} players, all on one pooled connection, instead
+     * of one round-trip per player. While the v1 migration is
+     * pending, players with no v2 row are looked up in the legacy table too.
+     * Null elements are skipped. Players whose read is already in flight share
+     * it instead. On a database error (after any retries) all players are
+     * treated as not opted out, as with {@link #isOptedOut(UUID)}.</p>
+     *
+     * @param playerUUIDs Players to look up
+     * @return The opted-out subset (mutable; empty if none or on failure)
+     */
+    public Set<UUID> getOptedOut(Collection<UUID> playerUUIDs) {
+        final Set<UUID> optedOut = readAllOptedOut(playerUUIDs);
+        return optedOut == null ? new HashSet<>() : optedOut;
+    }
+
+    /**
+     * Like {@link #getOptedOut(Collection)}, but tells a failed read apart
+     * from players who are not opted out, for callers that cache the answer.
+     *
+     * @param playerUUIDs Players to look up
+     * @return The opted-out subset (mutable; empty if none), or null if the
+     *         database is unavailable, the circuit is open or the read failed
+     */
+    Set<UUID> readAllOptedOut(Collection<UUID> playerUUIDs) {
+        if (playerUUIDs == null || playerUUIDs.isEmpty()) {
+            return new HashSet<>();
+        }
+        if (!isConnectionReady()) {
+            return null;
+        }
+        final List<UUID> uuids = new ArrayList<>(playerUUIDs.size());
+        for (UUID uuid : playerUUIDs) {
+            if (uuid != null) {
+                uuids.add(uuid);
+            }
+        }
+        return readCoalescer == null ? getOptedOutInternal(uuids) : readCoalescer.readAll(uuids);
+    }
+
+    /** @return the opted-out subset, or null if the read failed */
+    private Set<UUID> getOptedOutInternal(List<UUID> uuids) {
+        return execute(connection -> getOptedOutInternal(connection, uuids), null,
+            () -> "Failed to check opt-out status for " + uuids.size() + " players");
+    }
+
+    private Set<UUID> getOptedOutInternal(Connection connection, List<UUID> uuids) throws SQLException {
+        // Fresh per attempt, so a retry never sees a failed attempt's rows.
+        final Set<UUID> optedOut = new HashSet<>();
+        final boolean checkLegacy = binaryUuidMigration.isLegacyTablePresent();
+        final List<UUID> missing = checkLegacy ? new ArrayList<>() : null;
+        for (int from = 0; from < uuids.size(); from += MAX_IN_PARAMS) {
+            final List<UUID> chunk = uuids.subList(from, Math.min(uuids.size(), from + MAX_IN_PARAMS));
+            final Set<UUID> found = checkLegacy ? new HashSet<>() : null;
+            final String sql = inClauseSql("SELECT uuid, opted_out FROM player_optouts WHERE uuid IN (", chunk.size());
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setBytes(i + 1, toBytes(chunk.get(i)));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        final UUID uuid = fromBytes(resultSet.getBytes("uuid"));
+                        if (resultSet.getBoolean("opted_out")) {
+                            optedOut.add(uuid);
+                        }
+                        if (found != null) {
+                            found.add(uuid);
+                        }
+                    }
+                }
+                if (missing != null) {
+                    for (UUID uuid : chunk) {
+                        if (!found.contains(uuid)) {
+                            missing.add(uuid);
+                        }
+                    }
+                }
+            }
+        }
+        if (missing != null && !missing.isEmpty()) {
+            getOptedOutLegacy(connection, missing, optedOut);
+        }
+        return optedOut;
+    }
+
+    private void getOptedOutLegacy(Connection connection, List<UUID> uuids, Set<UUID> optedOut) {
+        for (int from = 0; from < uuids.size(); from += MAX_IN_PARAMS) {
+            final List<UUID> chunk = uuids.subList(from, Math.min(uuids.size(), from + MAX_IN_PARAMS));
+            final String sql = inClauseSql("SELECT uuid FROM " + BinaryUuidMigration.LEGACY_TABLE + " WHERE opted_out = TRUE AND uuid IN (",
+                chunk.size());
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setString(i + 1, chunk.get(i).toString());
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        optedOut.add(UUID.fromString(resultSet.getString("uuid").trim()));
+                    }
+                }
+            } catch (SQLException | IllegalArgumentException e) {
+                // A drop by the migration mid-lookup is expected; anything else is not
+                if (e instanceof SQLException && BinaryUuidMigration.isMissingTable((SQLException) e)) {
+                    binaryUuidMigration.legacyTableDropped();
+                    return;
+                }
+                if (binaryUuidMigration.isLegacyTablePresent()) {
+                    logger.log(Level.WARNING, "Failed to check legacy opt-out status for " + chunk.size() + " players", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the table's row count and latest {@code updated_at}, plus the
+     * newest change-log sequence number while sync keeps the log, which
+     * {@link OptOutSnapshot} compares to tell whether a snapshot is still
+     * current. With the log every change advances the sequence; without it,
+     * see {@link OptOutSnapshot.Watermark} for the one change it can miss.
+     *
+     * @return the watermark, or null if the database is unavailable or the read failed
+     */
+    OptOutSnapshot.Watermark getWatermark() {
+        if (!isConnectionReady()) {
+            return null;
+        }
+        final String query = changeLog
+            ? "SELECT COUNT(*), MAX(updated_at), (SELECT MAX(seq) FROM player_optout_changes) FROM player_optouts"
+            : "SELECT COUNT(*), MAX(updated_at) FROM player_optouts";
+        return execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(query);
+                 ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                final Timestamp latest = resultSet.getTimestamp(2);
+                // getLong reads an empty log's NULL as 0
+                return new OptOutSnapshot.Watermark(resultSet.getLong(1), latest == null ? 0
+                    : Math.floorDiv(latest.getTime(), 1000L) * 1_000_000_000L + latest.getNanos(),
+                    changeLog ? resultSet.getLong(3) : -1);
+            }
+        }, null, () -> "Failed to read the opt-out table's watermark");
+    }
+
+    /**
+     * Reads the newest change-log entry's sequence number, where
+     * {@link OptOutChangeFeed} starts.
+     *
+     * @return the sequence number, 0 if the log is empty, or -1 if the
+     *         database is unavailable or the read failed
+     */
+    long getLatestChangeSeq() {
+        if (!isConnectionReady()) {
+            return -1;
+        }
+        return execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT MAX(seq) FROM player_optout_changes");
+                 ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : 0L;
+            }
+        }, -1L, () -> "Failed to read the opt-out change log position");
+    }
+
+    /**
+     * Reads the change-log entries after {@code afterSeq}, oldest first, with
+     * one range query on the primary key.
+     *
+     * @param afterSeq Last entry already read
+     * @param limit    Most entries to return (must be positive)
+     * @return the entries, or null if the database is unavailable or the read failed
+     */
+    List<OptOutChangeFeed.Change> getChangesSince(long afterSeq, int limit) {
+        if (!isConnectionReady()) {
+            return null;
+        }
+        return execute(connection -> {
+            final List<OptOutChangeFeed.Change> changes = new ArrayList<>();
+            final PreparedStatement statement = prepare(connection,
+                "SELECT seq, uuid, opted_out, origin FROM player_optout_changes WHERE seq > ? ORDER BY seq LIMIT "
+                    + limit);
+            try {
+                statement.setLong(1, afterSeq);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        changes.add(new OptOutChangeFeed.Change(resultSet.getLong("seq"),
+                            fromBytes(resultSet.getBytes("uuid")), resultSet.getBoolean("opted_out"),
+                            resultSet.getLong("origin")));
+                    }
+                }
+            } finally {
+                release(statement);
+            }
+            return changes;
+        }, null, () -> "Failed to read opt-out changes after " + afterSeq);
+    }
+
+    /**
+     * Deletes change-log entries older than the retention. Finds the newest
+     * such entry first, so the delete is a primary-key range and does not
+     * lock the end of the log that writes append to.
+     *
+     * @param retentionMinutes Age past which entries are deleted
+     * @return entries deleted, or -1 if the database is unavailable or the delete failed
+     */
+    int pruneChanges(long retentionMinutes) {
+        if (!isConnectionReady()) {
+            return -1;
+        }
+        final Timestamp cutoff = new Timestamp(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes));
+        return execute(connection -> {
+            final long through;
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT MAX(seq) FROM player_optout_changes WHERE changed_at < ?")) {
+                statement.setTimestamp(1, cutoff);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    through = resultSet.next() ? resultSet.getLong(1) : 0;
+                }
+            }
+            if (through <= 0) {
+                return 0;
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM player_optout_changes WHERE seq <= ?")) {
+                statement.setLong(1, through);
+                return statement.executeUpdate();
+            }
+        }, -1, () -> "Failed to prune the opt-out change log");
+    }
 
+    /**
+     * Streams every opted-out player to {@code sink}, for preloading the full
+     * set at startup. While the v1 copy is pending, legacy rows for players
+     * with no v2 row are included too. On a retry the sink may see a player
+     * again.
+     *
+     * @param sink Receives each opted-out UUID, on the calling thread
+     * @return true if every row was read; false if the database is
+     *         unavailable or the read failed (the sink may have seen some)
+     */
+    public boolean forEachOptedOut(Consumer<UUID> sink) {
+        if (sink == null || !isConnectionReady()) {
+            return false;
+        }
+        return execute(connection -> {
+            final boolean checkLegacy = binaryUuidMigration.isLegacyTablePresent();
+            // Players with a v2 row, whose legacy row is stale; only kept mid-copy.
+            final Set<UUID> current = checkLegacy ? new HashSet<>() : null;
+            final String sql = checkLegacy
+                ? "SELECT uuid, opted_out FROM player_optouts"
+                : "SELECT uuid, opted_out FROM player_optouts WHERE opted_out = TRUE";
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setFetchSize(PRELOAD_FETCH_SIZE);
                 try (ResultSet resultSet = statement.executeQuery()) {
-                    if (resultSet.next()) {
-                        return resultSet.getBoolean("opted_out");
+                    while (resultSet.next()) {
+                        final UUID uuid = fromBytes(resultSet.getBytes("uuid"));
+                        if (resultSet.getBoolean("opted_out")) {
+                            sink.accept(uuid);
+                        }
+                        if (current != null) {
+                            current.add(uuid);
+                        }
+                    }
+                }
+            }
+            if (current != null) {
+                forEachLegacyOptedOut(connection, current, sink);
+            }
+            return true;
+        }, false, () -> "Failed to preload opted-out players");
+    }
+
+    private void forEachLegacyOptedOut(Connection connection, Set<UUID> current, Consumer<UUID> sink)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT uuid FROM " + BinaryUuidMigration.LEGACY_TABLE + " WHERE opted_out = TRUE")) {
+            statement.setFetchSize(PRELOAD_FETCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    final UUID uuid;
+                    try {
+                        uuid = UUID.fromString(resultSet.getString("uuid").trim());
+                    } catch (IllegalArgumentException e) {
+                        continue; // Logged and skipped by the migration as well
+                    }
+                    if (!current.contains(uuid)) {
+                        sink.accept(uuid);
                     }
                 }
             }
         } catch (SQLException e) {
-            logger.log(Level.WARNING, "Failed to check opt-out status for " + playerUUID, e);
-        } finally {
-            closeConnection(connection);
+            // Dropped by the migration mid-read, here or on another server; its rows are all in v2 by now
+            if (BinaryUuidMigration.isMissingTable(e)) {
+                binaryUuidMigration.legacyTableDropped();
+            }
+            if (binaryUuidMigration.isLegacyTablePresent()) {
+                throw e;
+            }
         }
+    }
 
-        return false; // Default to not opted out
+    private static String inClauseSql(String prefix, int count) {
+        final StringBuilder sql = new StringBuilder(prefix.length() + count * 3 + 1).append(prefix);
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')').toString();
     }
 
     /**
-     * Sets a player's opt-out status.
+     * Sets a player's opt-out status. Opting in deletes the player's row, as
+     * opted in is the default.
      *
      * @param playerUUID Player's UUID
      * @param optedOut Whether the player is opted out
@@ -450,37 +1099,170 @@ public void setOptOut(UUID playerUUID, boolean optedOut) {
         if (!validateDatabaseOperation(playerUUID)) {
             return;
         }
+        setOptOutInternal(playerUUID, optedOut);
+    }
+
+    /**
+     * Single-row upsert for the active backend. Syntax differs: H2 MERGE vs
+     * MySQL INSERT ... ON DUPLICATE KEY.
+     */
+    private String upsertSql() {
         if (isH2) {
-            synchronized (h2Lock) {
-                setOptOutInternal(playerUUID, optedOut);
+            return "MERGE INTO player_optouts (uuid, opted_out, updated_at) KEY(uuid) VALUES (?, ?, CURRENT_TIMESTAMP)";
+        }
+        return "INSERT INTO player_optouts (uuid, opted_out, updated_at) VALUES (?, ?, CURRENT_TIMESTAMP) " +
+                "ON DUPLICATE KEY UPDATE opted_out = VALUES(opted_out), updated_at = CURRENT_TIMESTAMP";
+    }
+
+    /**
+     * Whether an opt-in should store a {@code FALSE} row instead of deleting:
+     * only while the v1 copy is pending, where a missing row would fall back
+     * to a stale legacy row. {@link SparseOptOutMigration} removes them later.
+     */
+    private boolean storesOptIns() {
+        return binaryUuidMigration.isLegacyTablePresent();
+    }
+
+    private void setOptOutInternal(UUID playerUUID, boolean optedOut) {
+        if (changeLog) {
+            // The row and its change-log entry commit together
+            writeOptOuts(Map.of(playerUUID, optedOut));
+            if (readCoalescer != null) {
+                readCoalescer.forget(playerUUID);
             }
             return;
         }
-        setOptOutInternal(playerUUID, optedOut);
+        final boolean upsert = optedOut || storesOptIns();
+        execute(connection -> {
+            final PreparedStatement statement = prepare(connection, upsert ? upsertSql() : DELETE_SQL);
+            try {
+                statement.setBytes(1, toBytes(playerUUID));
+                if (upsert) {
+                    statement.setBoolean(2, optedOut);
+                }
+                statement.executeUpdate();
+            } finally {
+                release(statement);
+            }
+            return null;
+        }, null, () -> "Failed to set opt-out status for " + playerUUID);
+        if (readCoalescer != null) {
+            readCoalescer.forget(playerUUID);
+        }
     }
 
-    private void setOptOutInternal(UUID playerUUID, boolean optedOut) {
-        // Upsert syntax differs: H2 MERGE vs MySQL INSERT ... ON DUPLICATE KEY.
-        final String upsertSQL;
-        if (isH2) {
-            upsertSQL = "MERGE INTO player_optouts (uuid, opted_out, updated_at) KEY(uuid) VALUES (?, ?, CURRENT_TIMESTAMP)";
-        } else {
-            upsertSQL = "INSERT INTO player_optouts (uuid, opted_out, updated_at) VALUES (?, ?, CURRENT_TIMESTAMP) " +
-                    "ON DUPLICATE KEY UPDATE opted_out = VALUES(opted_out), updated_at = CURRENT_TIMESTAMP";
+    /**
+     * Writes many opt-out states as one JDBC batch in a single transaction.
+     *
+     * <p>Opt-outs are bound to one upsert and opt-ins to one delete, each sent
+     * with {@code executeBatch()}: MySQL's {@code rewriteBatchedStatements=true}
+     * turns each into one multi-row statement, and H2 runs both batches under
+     * one commit. With sync enabled, the changes are appended to the change
+     * log in the same commit. Either all changes land or none do.</p>
+     *
+     * @param changes Opt-out state by player; null keys or values are rejected
+     * @return true if the batch was committed (trivially true when empty),
+     *         false if the database is unavailable or the batch failed
+     */
+    public boolean setOptOuts(Map<UUID, Boolean> changes) {
+        if (changes == null || changes.isEmpty()) {
+            return true;
+        }
+        for (Map.Entry<UUID, Boolean> change : changes.entrySet()) {
+            if (change.getKey() == null || change.getValue() == null) {
+                logger.warning("Attempted batch opt-out write with a null UUID or state");
+                return false;
+            }
+        }
+        if (!isConnectionReady()) {
+            return false;
+        }
+        return setOptOutsInternal(changes);
+    }
+
+    private boolean setOptOutsInternal(Map<UUID, Boolean> changes) {
+        final boolean written = writeOptOuts(changes);
+        if (readCoalescer != null) {
+            for (UUID uuid : changes.keySet()) {
+                readCoalescer.forget(uuid);
+            }
         }
+        return written;
+    }
 
-        Connection connection = null;
-        try {
-            connection = getConnection();
-            try (PreparedStatement statement = connection.prepareStatement(upsertSQL)) {
-                statement.setString(1, playerUUID.toString());
-                statement.setBoolean(2, optedOut);
-                statement.executeUpdate();
+    private boolean writeOptOuts(Map<UUID, Boolean> changes) {
+        final boolean storeOptIns = storesOptIns();
+        int upsertCount = 0;
+        for (Boolean optedOut : changes.values()) {
+            if (optedOut || storeOptIns) {
+                upsertCount++;
+            }
+        }
+        final int upserts = upsertCount;
+        final int deletes = changes.size() - upserts;
+        return execute(connection -> {
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                if (upserts > 0) {
+                    final PreparedStatement statement = prepare(connection, upsertSql());
+                    try {
+                        for (Map.Entry<UUID, Boolean> change : changes.entrySet()) {
+                            if (change.getValue() || storeOptIns) {
+                                statement.setBytes(1, toBytes(change.getKey()));
+                                statement.setBoolean(2, change.getValue());
+                                statement.addBatch();
+                            }
+                        }
+                        statement.executeBatch();
+                    } finally {
+                        release(statement);
+                    }
+                }
+                if (deletes > 0) {
+                    final PreparedStatement statement = prepare(connection, DELETE_SQL);
+                    try {
+                        for (Map.Entry<UUID, Boolean> change : changes.entrySet()) {
+                            if (!change.getValue()) {
+                                statement.setBytes(1, toBytes(change.getKey()));
+                                statement.addBatch();
+                            }
+                        }
+                        statement.executeBatch();
+                    } finally {
+                        release(statement);
+                    }
+                }
+                if (changeLog) {
+                    final PreparedStatement statement = prepare(connection, INSERT_CHANGE_SQL);
+                    try {
+                        for (Map.Entry<UUID, Boolean> change : changes.entrySet()) {
+                            statement.setBytes(1, toBytes(change.getKey()));
+                            statement.setBoolean(2, change.getValue());
+                            statement.setLong(3, changeOrigin);
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                    } finally {
+                        release(statement);
+                    }
+                }
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                rollbackQuietly(connection);
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
             }
+        }, false, () -> "Failed to write batch of " + changes.size() + " opt-out changes");
+    }
+
+    private void rollbackQuietly(Connection connection) {
+        try {
+            connection.rollback();
         } catch (SQLException e) {
-            logger.log(Level.WARNING, "Failed to set opt-out status for " + playerUUID, e);
-        } finally {
-            closeConnection(connection);
+            logger.log(Level.WARNING, "Failed to roll back opt-out batch", e);
         }
     }
 
@@ -495,26 +1277,24 @@ public boolean toggleOptOut(UUID playerUUID) {
             return false;
         }
 
-        final boolean currentStatus = isOptedOut(playerUUID);
+        // Uncoalesced: a shared read may predate an earlier write
+        final boolean currentStatus = Boolean.TRUE.equals(isOptedOutInternal(playerUUID));
         final boolean newStatus = !currentStatus;
         setOptOut(playerUUID, newStatus);
         return newStatus;
     }
 
     /**
-     * Closes the database connection or pool.
+     * Closes the connection pool. For H2 this also closes the database file
+     * once the last connection is gone.
      */
     public void close() {
-        if (isH2 && h2Connection != null) {
-            try {
-                h2Connection.close();
-                logger.info("H2 database connection closed");
-            } catch (SQLException e) {
-                logger.log(Level.WARNING, "Failed to close H2 database connection", e);
-            }
-        } else if (!isH2 && hikariDataSource != null) {
+        if (statementCache != null) {
+            statementCache.clear();
+        }
+        if (hikariDataSource != null) {
             hikariDataSource.close();
-            logger.info("MySQL connection pool closed");
+            logger.info((isH2 ? "H2" : "MySQL") + " connection pool closed");
         }
     }
 }
@@ -0,0 +1,101 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.Map;
+
+import org.bukkit.entity.EntityType;
+
+/**
+ * Immutable, ordinal-indexed snapshot of the per-entity nerf settings.
+ *
+ * <p>{@code loadConfiguration} compiles its staging {@code EnumMap} of
+ * {@link StormtrooperX.EntityConfig} into this table and publishes it with one
+ * volatile write. The shot handler then resolves a shooter with a bit test on
+ * {@code enabled} and, only for nerfed types, one {@code double[]} load — no
+ * map probe, no {@code EntityConfig} dereference, no boxing.</p>
+ *
+ * <p>Both arrays are sized to {@code EntityType.values().length} at compile
+ * time, so every ordinal of the running server's {@link EntityType} is in
+ * bounds. Never mutated after construction; safe to read from any thread once
+ * published.</p>
+ */
+final class EntityConfigTable {
+
+    /** Table with every entity type disabled. */
+    static final EntityConfigTable EMPTY = compile(Map.of());
+
+    // Clamped accuracy per EntityType ordinal; 0.0 for types that are not enabled.
+    private final double[] accuracy;
+    // Bitset of enabled EntityType ordinals, 64 per word.
+    private final long[] enabled;
+
+    private EntityConfigTable(double[] accuracy, long[] enabled) {
+        this.accuracy = accuracy;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Compiles per-entity settings into a flat table.
+     *
+     * @param configs Settings keyed by entity type; entries whose
+     *                {@code isEnabled()} is false are left disabled
+     * @return A new immutable table
+     */
+    static EntityConfigTable compile(Map<EntityType, StormtrooperX.EntityConfig> configs) {
+        final int size = EntityType.values().length;
+        final double[] accuracy = new double[size];
+        final long[] enabled = new long[(size + 63) >>> 6];
+        for (Map.Entry<EntityType, StormtrooperX.EntityConfig> entry : configs.entrySet()) {
+            final StormtrooperX.EntityConfig config = entry.getValue();
+            if (config == null || !config.isEnabled()) {
+                continue;
+            }
+            final int ordinal = entry.getKey().ordinal();
+            accuracy[ordinal] = config.getAccuracy();
+            enabled[ordinal >>> 6] |= 1L << ordinal;
+        }
+        return new EntityConfigTable(accuracy, enabled);
+    }
+
+    /**
+     * Whether the entity type with this ordinal is nerfed.
+     *
+     * @param ordinal {@code EntityType.ordinal()}
+     * @return true if enabled
+     */
+    boolean isEnabled(int ordinal) {
+        // Shifts on long take the low six bits of the ordinal, selecting the bit within its word.
+        return (enabled[ordinal >>> 6] & (1L << ordinal)) != 0;
+    }
+
+    /**
+     * Clamped accuracy for the entity type with this ordinal. Only meaningful
+     * when {@link #isEnabled(int)} is true.
+     *
+     * @param ordinal {@code EntityType.ordinal()}
+     * @return accuracy in [0.0, 1.0]
+     */
+    double accuracy(int ordinal) {
+        return accuracy[ordinal];
+    }
+
+    /**
+     * Whether {@code entityType} is nerfed.
+     *
+     * @param entityType The entity type
+     * @return true if enabled
+     */
+    boolean isEnabled(EntityType entityType) {
+        return isEnabled(entityType.ordinal());
+    }
+
+    /**
+     * Clamped accuracy for {@code entityType}. Only meaningful when
+     * {@link #isEnabled(EntityType)} is true.
+     *
+     * @param entityType The entity type
+     * @return accuracy in [0.0, 1.0]
+     */
+    double accuracy(EntityType entityType) {
+        return accuracy(entityType.ordinal());
+    }
+}
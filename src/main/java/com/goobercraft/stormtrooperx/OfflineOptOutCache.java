@@ -0,0 +1,279 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * Opt-out state of offline players, loaded on demand for PlaceholderAPI
+ * requests (leaderboards, web profiles) without ever blocking the caller.
+ *
+ * <p>{@link #get} answers from memory. A miss starts one load on
+ * {@link AsyncStorage} and returns null, so the caller shows a placeholder;
+ * requests for the same player while that load runs share it. An entry older
+ * than {@code expire-after-seconds} keeps answering with its old value while
+ * one reload runs. At most {@code max-entries} players are held, least
+ * recently used evicted first. A failed load is dropped, so the next request
+ * tries again.</p>
+ *
+ * <p>Thread-safe; the map is guarded by itself and the lock is never held
+ * across a database call.</p>
+ */
+final class OfflineOptOutCache {
+
+    private final Logger logger;
+    private final AsyncStorage storage;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    // Access-ordered for LRU eviction. Guarded by itself.
+    private final LinkedHashMap<UUID, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder merged = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param logger    Logger instance (must not be null)
+     * @param storage   Runs the loads (must not be null)
+     * @param settings  Size and TTL (must not be null)
+     * @param nanoClock Time source, {@link System#nanoTime()} outside tests (must not be null)
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    OfflineOptOutCache(Logger logger, AsyncStorage storage, Settings settings, LongSupplier nanoClock) {
+        if (logger == null) {
+            throw new IllegalArgumentException("logger cannot be null");
+        }
+        if (storage == null) {
+            throw new IllegalArgumentException("storage cannot be null");
+        }
+        if (settings == null) {
+            throw new IllegalArgumentException("settings cannot be null");
+        }
+        if (nanoClock == null) {
+            throw new IllegalArgumentException("nanoClock cannot be null");
+        }
+        this.logger = logger;
+        this.storage = storage;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(settings.expireAfterSeconds());
+        this.nanoClock = nanoClock;
+        final int maxEntries = settings.maxEntries();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * The player's cached state, starting a load if there is none or it has
+     * expired. Never blocks on the database.
+     *
+     * @param playerUUID Player's UUID
+     * @return the cached (possibly expired) state, or null until the first load lands
+     */
+    Boolean get(UUID playerUUID) {
+        final long now = nanoClock.getAsLong();
+        final Entry loading;
+        synchronized (entries) {
+            final Entry entry = entries.get(playerUUID);
+            if (entry != null && entry.loading) {
+                merged.increment();
+                return entry.optedOut;
+            }
+            if (entry != null && now - entry.loadedAtNanos < ttlNanos) {
+                hits.increment();
+                return entry.optedOut;
+            }
+            loading = new Entry(entry == null ? null : entry.optedOut, true, 0);
+            entries.put(playerUUID, loading);
+        }
+        loads.increment();
+        storage.readOptedOut(playerUUID).whenComplete((optedOut, error) -> {
+            // Null: the database was unavailable or the circuit open, already logged
+            final boolean failed = error != null || optedOut == null;
+            synchronized (entries) {
+                // A put() since the load started is newer than what it read
+                if (entries.get(playerUUID) == loading) {
+                    if (failed) {
+                        entries.remove(playerUUID);
+                    } else {
+                        entries.put(playerUUID, new Entry(optedOut, false, nanoClock.getAsLong()));
+                    }
+                }
+            }
+            if (failed) {
+                failures.increment();
+            }
+            if (error != null && !storage.isSaturated(error)) {
+                logger.log(Level.WARNING, "Failed to load opt-out status for offline player " + playerUUID, error);
+            }
+        });
+        return loading.optedOut;
+    }
+
+    /**
+     * Records a change made on this server, replacing the cached state and
+     * any load still running for the player.
+     *
+     * @param playerUUID Player's UUID
+     * @param optedOut   The new state
+     */
+    void put(UUID playerUUID, boolean optedOut) {
+        synchronized (entries) {
+            entries.put(playerUUID, new Entry(optedOut, false, nanoClock.getAsLong()));
+        }
+    }
+
+    /** Drops every entry. */
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /** Players currently held, including loads in flight. */
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /** Requests answered from a fresh entry, since enable. */
+    long hitCount() {
+        return hits.sum();
+    }
+
+    /** Loads started, since enable. */
+    long loadCount() {
+        return loads.sum();
+    }
+
+    /** Requests that found a load already running and shared it, since enable. */
+    long mergedCount() {
+        return merged.sum();
+    }
+
+    /** Loads that failed, since enable. */
+    long failureCount() {
+        return failures.sum();
+    }
+
+    /** Entries evicted to stay within {@code max-entries}, since enable. */
+    long evictionCount() {
+        return evictions.sum();
+    }
+
+    /** A cached state, or a load in flight carrying the previous state if any. */
+    private static final class Entry {
+        final Boolean optedOut;
+        final boolean loading;
+        final long loadedAtNanos;
+
+        Entry(Boolean optedOut, boolean loading, long loadedAtNanos) {
+            this.optedOut = optedOut;
+            this.loading = loading;
+            this.loadedAtNanos = loadedAtNanos;
+        }
+    }
+
+    /**
+     * Offline-cache tuning, read from {@code database.offline-cache}.
+     * Immutable.
+     */
+    static final class Settings {
+
+        static final boolean DEFAULT_ENABLED = true;
+        static final int DEFAULT_MAX_ENTRIES = 10_000;
+        static final long DEFAULT_EXPIRE_AFTER_SECONDS = 60;
+        static final String DEFAULT_LOADING_PLACEHOLDER = "false";
+
+        private final boolean enabled;
+        private final int maxEntries;
+        private final long expireAfterSeconds;
+        private final String loadingPlaceholder;
+
+        /**
+         * @param enabled            Load offline players' state on request
+         * @param maxEntries         Players held at most (must be positive)
+         * @param expireAfterSeconds How long a loaded state is trusted (must be positive)
+         * @param loadingPlaceholder What {@code %stormtrooperx_optout%} shows until the
+         *                           first load lands (must not be null)
+         * @throws IllegalArgumentException if any parameter is null or out of range
+         */
+        Settings(boolean enabled, int maxEntries, long expireAfterSeconds, String loadingPlaceholder) {
+            if (maxEntries <= 0) {
+                throw new IllegalArgumentException("maxEntries must be positive, got: " + maxEntries);
+            }
+            if (expireAfterSeconds <= 0) {
+                throw new IllegalArgumentException("expireAfterSeconds must be positive, got: " + expireAfterSeconds);
+            }
+            if (loadingPlaceholder == null) {
+                throw new IllegalArgumentException("loadingPlaceholder cannot be null");
+            }
+            this.enabled = enabled;
+            this.maxEntries = maxEntries;
+            this.expireAfterSeconds = expireAfterSeconds;
+            this.loadingPlaceholder = loadingPlaceholder;
+        }
+
+        /** No offline loads: offline players read as not opted out. */
+        static Settings disabled() {
+            return new Settings(false, DEFAULT_MAX_ENTRIES, DEFAULT_EXPIRE_AFTER_SECONDS, DEFAULT_LOADING_PLACEHOLDER);
+        }
+
+        /**
+         * Reads {@code enabled}, {@code max-entries},
+         * {@code expire-after-seconds} and {@code loading-placeholder};
+         * out-of-range values log a warning and fall back to the default.
+         *
+         * @param section The {@code database.offline-cache} section, or null for defaults
+         * @param logger  Receives warnings for out-of-range values
+         * @return The parsed settings
+         */
+        static Settings fromConfig(ConfigurationSection section, Logger logger) {
+            if (section == null) {
+                return new Settings(DEFAULT_ENABLED, DEFAULT_MAX_ENTRIES, DEFAULT_EXPIRE_AFTER_SECONDS,
+                    DEFAULT_LOADING_PLACEHOLDER);
+            }
+            return new Settings(
+                section.getBoolean("enabled", DEFAULT_ENABLED),
+                (int) ConfigRanges.validate(logger, "offline-cache.max-entries",
+                    section.getInt("max-entries", DEFAULT_MAX_ENTRIES), 100, 1_000_000, DEFAULT_MAX_ENTRIES),
+                ConfigRanges.validate(logger, "offline-cache.expire-after-seconds",
+                    section.getLong("expire-after-seconds", DEFAULT_EXPIRE_AFTER_SECONDS), 1, 86_400,
+                    DEFAULT_EXPIRE_AFTER_SECONDS),
+                section.getString("loading-placeholder", DEFAULT_LOADING_PLACEHOLDER));
+        }
+
+        boolean enabled() {
+            return enabled;
+        }
+
+        int maxEntries() {
+            return maxEntries;
+        }
+
+        long expireAfterSeconds() {
+            return expireAfterSeconds;
+        }
+
+        String loadingPlaceholder() {
+            return loadingPlaceholder;
+        }
+    }
+}
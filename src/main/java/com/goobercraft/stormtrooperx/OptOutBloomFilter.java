@@ -0,0 +1,132 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over opted-out UUIDs: {@link #mightContain} never returns
+ * false for a UUID that was {@link #put}, and returns true for one that was
+ * not with roughly the configured false-positive rate.
+ *
+ * <p>Sized from the expected entries {@code n} and target rate {@code p}:
+ * {@code m = -n ln p / (ln 2)^2} bits, rounded up to whole {@code long}
+ * words, and {@code k = (m / n) ln 2} probes (about 9.6 bits and 7 probes per
+ * entry at 1%). Probe positions come from two 64-bit hashes of the UUID's
+ * bits combined as {@code h1 + i * h2} (Kirsch-Mitzenmacher), so a lookup
+ * allocates nothing.</p>
+ *
+ * <p>Entries cannot be removed; a player who opts back in stays a false
+ * positive until the filter is rebuilt (see {@link OptOutNegativeCache}).
+ * Thread-safe: bits live in an {@link AtomicLongArray} and are set with a
+ * CAS, so concurrent puts never lose one and readers need no lock.</p>
+ */
+final class OptOutBloomFilter {
+
+    static final int MAX_HASHES = 16;
+    // 2^24 words = 128 MiB, far above any sane expected-opt-outs.
+    static final int MAX_WORDS = 1 << 24;
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashes;
+
+    /**
+     * @param expectedInsertions Entries the filter is sized for (must be positive)
+     * @param falsePositiveRate  Target rate at that many entries (must be between 0 and 1, exclusive)
+     * @throws IllegalArgumentException if either parameter is out of range
+     */
+    OptOutBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive, got: " + expectedInsertions);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1, got: " + falsePositiveRate);
+        }
+        final double bits = -expectedInsertions * Math.log(falsePositiveRate) / (LN2 * LN2);
+        final int wordCount = (int) Math.min(MAX_WORDS, Math.max(1, (long) Math.ceil(bits / Long.SIZE)));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount * Long.SIZE;
+        this.hashes = (int) Math.max(1, Math.min(MAX_HASHES,
+            Math.round((double) bitSize / expectedInsertions * LN2)));
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Adds a UUID.
+     *
+     * @param uuid The UUID (must not be null)
+     */
+    void put(UUID uuid) {
+        final long h1 = mix(uuid.getMostSignificantBits() ^ mix(uuid.getLeastSignificantBits()));
+        final long h2 = mix(h1 + 0x9E3779B97F4A7C15L) | 1;
+        long combined = h1;
+        for (int i = 0; i < hashes; i++) {
+            final long bit = (combined & Long.MAX_VALUE) % bitSize;
+            final int index = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+            long word = words.get(index);
+            while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                word = words.get(index);
+            }
+            combined += h2;
+        }
+    }
+
+    /**
+     * Whether a UUID may have been added.
+     *
+     * @param uuid The UUID (must not be null)
+     * @return false if it definitely was not added
+     */
+    boolean mightContain(UUID uuid) {
+        final long h1 = mix(uuid.getMostSignificantBits() ^ mix(uuid.getLeastSignificantBits()));
+        final long h2 = mix(h1 + 0x9E3779B97F4A7C15L) | 1;
+        long combined = h1;
+        for (int i = 0; i < hashes; i++) {
+            final long bit = (combined & Long.MAX_VALUE) % bitSize;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+            combined += h2;
+        }
+        return true;
+    }
+
+    /**
+     * False-positive rate at the current fill, {@code (set bits / m)^k}.
+     * Walks every word, so it is meant for {@code /stormtrooperx stats}, not
+     * the lookup path.
+     *
+     * @return the estimated rate, from 0 to 1
+     */
+    double expectedFalsePositiveRate() {
+        long setBits = 0;
+        for (int i = 0; i < words.length(); i++) {
+            setBits += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) setBits / bitSize, hashes);
+    }
+
+    /** Bits in the filter, {@code m}. */
+    long bitSize() {
+        return bitSize;
+    }
+
+    /** Probes per lookup, {@code k}. */
+    int hashCount() {
+        return hashes;
+    }
+
+    /** Bytes held by the bit array. */
+    long memoryBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+}
@@ -0,0 +1,411 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import com.goobercraft.stormtrooperx.scheduler.PluginScheduler;
+
+/**
+ * Applies opt-out changes made by other servers sharing the MySQL database,
+ * read from the {@code player_optout_changes} log (see
+ * {@link DatabaseManager#getChangesSince}).
+ *
+ * <p>Every write appends to the log in the same transaction, under an
+ * {@code AUTO_INCREMENT} sequence. Every {@code poll-interval-ms} this reads
+ * the entries past its cursor with one primary-key range query and hands
+ * those written by other servers to the applier, in order. A full batch is
+ * followed by another poll straight away.</p>
+ *
+ * <p>Sequence numbers are allocated at insert but become visible at commit,
+ * so a gap may be a write still committing. The cursor stops before a gap
+ * for up to {@value #GAP_TIMEOUT_MILLIS} ms, re-reading the entries after it
+ * (applied once, and again in order if the gap fills); a gap older than that
+ * was rolled back or pruned and is skipped. Within a batch only each
+ * player's last entry is applied, so a replay never lets an older change,
+ * or another server's change that this server's own later write replaced,
+ * overwrite the newer state. Every {@value #PRUNE_INTERVAL_MINUTES} minutes,
+ * entries older than {@code retention-minutes} are deleted.</p>
+ *
+ * <p>Some gaps never fill: a rolled-back write batch, or the steps left by
+ * {@code auto_increment_increment > 1} (Galera, multi-primary). Each costs
+ * one {@value #GAP_TIMEOUT_MILLIS} ms stall, so they are logged at
+ * {@code FINE} and counted as missed.</p>
+ *
+ * <p>Polls run one at a time on the storage executor; the counters are safe
+ * to read from any thread.</p>
+ */
+final class OptOutChangeFeed {
+
+    static final long GAP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    static final long PRUNE_INTERVAL_MINUTES = 10;
+
+    private final Logger logger;
+    private final AsyncStorage storage;
+    private final PluginScheduler scheduler;
+    private final Settings settings;
+    private final long origin;
+    private final BiConsumer<UUID, Boolean> applier;
+    private final LongSupplier clock;
+
+    // Every entry up to here has been applied or skipped; -1 until the start position is read.
+    private volatile long cursor = -1;
+    // Highest entry handed to the applier. Only touched by the poll in progress.
+    private long appliedThrough;
+    // First missing entry the cursor waits at, and since when; -1 when none.
+    private long gapStart = -1;
+    private long gapSinceNanos;
+    private long lastPruneNanos;
+    private volatile boolean closed;
+
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder failedPolls = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder own = new LongAdder();
+    private final LongAdder missed = new LongAdder();
+
+    /**
+     * @param logger    Logger instance (must not be null)
+     * @param storage   Runs the polls (must not be null)
+     * @param scheduler Schedules the next poll (must not be null)
+     * @param settings  Poll interval, batch size and retention (must not be null)
+     * @param origin    This server's {@link DatabaseManager#changeOrigin()}; its own entries are skipped
+     * @param applier   Receives each other server's change, on the storage executor (must not be null)
+     * @param clock     Nanosecond clock for gap timeouts and pruning (must not be null)
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    OptOutChangeFeed(Logger logger, AsyncStorage storage, PluginScheduler scheduler, Settings settings, long origin,
+                     BiConsumer<UUID, Boolean> applier, LongSupplier clock) {
+        if (logger == null) {
+            throw new IllegalArgumentException("logger cannot be null");
+        }
+        if (storage == null) {
+            throw new IllegalArgumentException("storage cannot be null");
+        }
+        if (scheduler == null) {
+            throw new IllegalArgumentException("scheduler cannot be null");
+        }
+        if (settings == null) {
+            throw new IllegalArgumentException("settings cannot be null");
+        }
+        if (applier == null) {
+            throw new IllegalArgumentException("applier cannot be null");
+        }
+        if (clock == null) {
+            throw new IllegalArgumentException("clock cannot be null");
+        }
+        this.logger = logger;
+        this.storage = storage;
+        this.scheduler = scheduler;
+        this.settings = settings;
+        this.origin = origin;
+        this.applier = applier;
+        this.clock = clock;
+        this.lastPruneNanos = clock.getAsLong();
+    }
+
+    /**
+     * Reads the log's current end as the starting cursor, then schedules the
+     * first poll. Loads that must not miss a change (a preload) should start
+     * once the returned future completes. If the end cannot be read, the
+     * first poll tries again.
+     *
+     * @return completes, never exceptionally, once the start position is read or failed to be
+     */
+    CompletableFuture<Void> start() {
+        return storage.getLatestChangeSeq().handle((latest, error) -> {
+            if (error == null && latest != null && latest >= 0) {
+                cursor = latest;
+                appliedThrough = latest;
+                logger.fine("Opt-out change feed starting after change " + latest);
+            } else {
+                logger.warning("Could not read the opt-out change log; changes made on other servers are "
+                    + "applied once it can be read");
+            }
+            schedule(false);
+            return null;
+        });
+    }
+
+    /** Stops polling. A poll already running completes but schedules no other. */
+    void close() {
+        closed = true;
+    }
+
+    private void schedule(boolean immediately) {
+        if (closed) {
+            return;
+        }
+        if (immediately) {
+            scheduler.runAsync(this::poll);
+        } else {
+            scheduler.runAsyncLater(this::poll, settings.pollIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void poll() {
+        if (closed) {
+            return;
+        }
+        if (cursor < 0) {
+            storage.getLatestChangeSeq().whenComplete((latest, error) -> {
+                if (error == null && latest != null && latest >= 0) {
+                    cursor = latest;
+                    appliedThrough = latest;
+                    logger.info("Opt-out change feed started after change " + latest);
+                }
+                schedule(false);
+            });
+            return;
+        }
+        storage.getChangesSince(cursor, settings.maxChangesPerPoll()).whenComplete((changes, error) -> {
+            boolean more = false;
+            if (error == null && changes != null) {
+                polls.increment();
+                more = apply(changes);
+            } else {
+                failedPolls.increment();
+                if (error != null && !storage.isSaturated(error)) {
+                    logger.log(Level.WARNING, "Failed to poll the opt-out change log", error);
+                }
+            }
+            prune();
+            schedule(more);
+        });
+    }
+
+    /**
+     * Hands the entries to the applier and advances the cursor up to the
+     * first gap still within its timeout.
+     *
+     * @param changes Entries past the cursor, in sequence order
+     * @return true if the batch was full and the cursor moved past it, so more may be waiting
+     */
+    boolean apply(List<Change> changes) {
+        final long now = clock.getAsLong();
+        // The entry the cursor waited at has committed: re-apply what follows it in order
+        final boolean replay = !changes.isEmpty() && changes.get(0).seq() == gapStart;
+        // Each player's last entry in the batch; earlier ones are superseded
+        final Map<UUID, Long> latest = new HashMap<>(changes.size() * 2);
+        for (Change change : changes) {
+            latest.put(change.playerUUID(), change.seq());
+        }
+        long next = cursor;
+        boolean stalled = false;
+        for (Change change : changes) {
+            if (!stalled && change.seq() > next + 1) {
+                if (gapStart != next + 1) {
+                    gapStart = next + 1;
+                    gapSinceNanos = now;
+                }
+                if (now - gapSinceNanos < TimeUnit.MILLISECONDS.toNanos(GAP_TIMEOUT_MILLIS)) {
+                    stalled = true;
+                } else {
+                    missed.add(change.seq() - next - 1);
+                    logger.fine("Skipped opt-out changes " + (next + 1) + "-" + (change.seq() - 1)
+                        + ", missing for " + TimeUnit.MILLISECONDS.toSeconds(GAP_TIMEOUT_MILLIS)
+                        + " s (rolled back, stepped over by auto_increment_increment, or pruned before "
+                        + "this server read them)");
+                }
+            }
+            if (!stalled) {
+                next = change.seq();
+            }
+            final boolean unseen = change.seq() > appliedThrough;
+            if (unseen || replay) {
+                if (change.origin() == origin) {
+                    if (unseen) {
+                        own.increment();
+                    }
+                } else if (latest.get(change.playerUUID()) == change.seq()) {
+                    applier.accept(change.playerUUID(), change.optedOut());
+                    applied.increment();
+                }
+                appliedThrough = Math.max(appliedThrough, change.seq());
+            }
+        }
+        if (!stalled) {
+            gapStart = -1;
+        }
+        cursor = next;
+        return !stalled && changes.size() >= settings.maxChangesPerPoll();
+    }
+
+    private void prune() {
+        final long now = clock.getAsLong();
+        if (now - lastPruneNanos < TimeUnit.MINUTES.toNanos(PRUNE_INTERVAL_MINUTES)) {
+            return;
+        }
+        lastPruneNanos = now;
+        storage.pruneChanges(settings.retentionMinutes()).whenComplete((deleted, error) -> {
+            if (error == null && deleted != null && deleted > 0) {
+                logger.fine("Pruned " + deleted + " opt-out change log entries older than "
+                    + settings.retentionMinutes() + " minutes");
+            }
+        });
+    }
+
+    /** Last entry applied or skipped, or -1 before the start position is read. */
+    long cursor() {
+        return cursor;
+    }
+
+    /** Successful polls, since enable. */
+    long pollCount() {
+        return polls.sum();
+    }
+
+    /** Polls that could not read the log, since enable. */
+    long failedPollCount() {
+        return failedPolls.sum();
+    }
+
+    /** Other servers' changes applied here, since enable. */
+    long appliedCount() {
+        return applied.sum();
+    }
+
+    /** This server's own changes read back and skipped, since enable. */
+    long ownCount() {
+        return own.sum();
+    }
+
+    /** Entries skipped because they never appeared, since enable. */
+    long missedCount() {
+        return missed.sum();
+    }
+
+    /** One entry of the change log. Immutable. */
+    static final class Change {
+        private final long seq;
+        private final UUID playerUUID;
+        private final boolean optedOut;
+        private final long origin;
+
+        /**
+         * @param seq        Position in the log
+         * @param playerUUID Player whose status changed
+         * @param optedOut   Their new status
+         * @param origin     {@link DatabaseManager#changeOrigin()} of the server that wrote it
+         */
+        Change(long seq, UUID playerUUID, boolean optedOut, long origin) {
+            this.seq = seq;
+            this.playerUUID = playerUUID;
+            this.optedOut = optedOut;
+            this.origin = origin;
+        }
+
+        long seq() {
+            return seq;
+        }
+
+        UUID playerUUID() {
+            return playerUUID;
+        }
+
+        boolean optedOut() {
+            return optedOut;
+        }
+
+        long origin() {
+            return origin;
+        }
+    }
+
+    /**
+     * Cross-server sync tuning, read from {@code database.sync}. Immutable.
+     */
+    static final class Settings {
+
+        static final boolean DEFAULT_ENABLED = false;
+        static final long DEFAULT_POLL_INTERVAL_MILLIS = 1000;
+        static final int DEFAULT_MAX_CHANGES_PER_POLL = 1000;
+        static final long DEFAULT_RETENTION_MINUTES = 1440;
+
+        private final boolean enabled;
+        private final long pollIntervalMillis;
+        private final int maxChangesPerPoll;
+        private final long retentionMinutes;
+
+        /**
+         * @param enabled            Log every write and apply other servers' changes
+         * @param pollIntervalMillis Time between polls (must be positive)
+         * @param maxChangesPerPoll  Entries read per poll (must be positive)
+         * @param retentionMinutes   How long entries are kept (must be positive)
+         * @throws IllegalArgumentException if any parameter is out of range
+         */
+        Settings(boolean enabled, long pollIntervalMillis, int maxChangesPerPoll, long retentionMinutes) {
+            if (pollIntervalMillis <= 0) {
+                throw new IllegalArgumentException("pollIntervalMillis must be positive, got: " + pollIntervalMillis);
+            }
+            if (maxChangesPerPoll <= 0) {
+                throw new IllegalArgumentException("maxChangesPerPoll must be positive, got: " + maxChangesPerPoll);
+            }
+            if (retentionMinutes <= 0) {
+                throw new IllegalArgumentException("retentionMinutes must be positive, got: " + retentionMinutes);
+            }
+            this.enabled = enabled;
+            this.pollIntervalMillis = pollIntervalMillis;
+            this.maxChangesPerPoll = maxChangesPerPoll;
+            this.retentionMinutes = retentionMinutes;
+        }
+
+        /** No sync: writes are not logged and changes elsewhere are seen on the next join. */
+        static Settings disabled() {
+            return new Settings(false, DEFAULT_POLL_INTERVAL_MILLIS, DEFAULT_MAX_CHANGES_PER_POLL,
+                DEFAULT_RETENTION_MINUTES);
+        }
+
+        /**
+         * Reads {@code enabled}, {@code poll-interval-ms},
+         * {@code max-changes-per-poll} and {@code retention-minutes};
+         * out-of-range values log a warning and fall back to the default.
+         *
+         * @param section The {@code database.sync} section, or null for defaults
+         * @param logger  Receives warnings for out-of-range values
+         * @return The parsed settings
+         */
+        static Settings fromConfig(ConfigurationSection section, Logger logger) {
+            if (section == null) {
+                return disabled();
+            }
+            return new Settings(
+                section.getBoolean("enabled", DEFAULT_ENABLED),
+                ConfigRanges.validate(logger, "sync.poll-interval-ms",
+                    section.getLong("poll-interval-ms", DEFAULT_POLL_INTERVAL_MILLIS), 100, 60_000,
+                    DEFAULT_POLL_INTERVAL_MILLIS),
+                (int) ConfigRanges.validate(logger, "sync.max-changes-per-poll",
+                    section.getLong("max-changes-per-poll", DEFAULT_MAX_CHANGES_PER_POLL), 10, 100_000,
+                    DEFAULT_MAX_CHANGES_PER_POLL),
+                ConfigRanges.validate(logger, "sync.retention-minutes",
+                    section.getLong("retention-minutes", DEFAULT_RETENTION_MINUTES), 5, 10_080,
+                    DEFAULT_RETENTION_MINUTES));
+        }
+
+        boolean enabled() {
+            return enabled;
+        }
+
+        long pollIntervalMillis() {
+            return pollIntervalMillis;
+        }
+
+        int maxChangesPerPoll() {
+            return maxChangesPerPoll;
+        }
+
+        long retentionMinutes() {
+            return retentionMinutes;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.entity.Player;
+
+import com.goobercraft.stormtrooperx.scheduler.PluginScheduler;
+
+/**
+ * Batches join-time opt-out lookups.
+ *
+ * <p>After a restart hundreds of players rejoin within seconds; one query per
+ * join would tie up a pooled connection per player. Instead, joins are collected
+ * for {@code windowMillis} and resolved together with
+ * {@link DatabaseManager#readAllOptedOut(java.util.Collection)} — one
+ * {@code WHERE uuid IN (...)} query per 500 players — on
+ * {@link AsyncStorage}'s executor. The whole batch is then handed to the
+ * {@code onLoaded} callback. If the executor is saturated, the players go back
+ * in the queue for the next window.</p>
+ *
+ * <p>A batch the database could not answer (SQL error or open circuit) is
+ * never reported as "nobody opted out": that would cache every player as a
+ * negative. The players stay unresolved — treated as not opted out, the safe
+ * default — and are retried after {@value #RETRY_BASE_MILLIS} ms, doubling per
+ * consecutive failure up to {@value #RETRY_MAX_MILLIS} ms. Players who left
+ * meanwhile are dropped from the retry.</p>
+ */
+final class OptOutJoinLoader {
+
+    static final long RETRY_BASE_MILLIS = 1000;
+    static final long RETRY_MAX_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final Logger logger;
+    private final AsyncStorage storage;
+    private final PluginScheduler scheduler;
+    private final long windowMillis;
+    private final BiConsumer<List<Player>, Set<UUID>> onLoaded;
+
+    private final ConcurrentLinkedQueue<Player> pending = new ConcurrentLinkedQueue<>();
+    // Set while a load is armed, so a burst of joins shares one query.
+    private final AtomicBoolean loadArmed = new AtomicBoolean();
+    // Failed loads since the last success; sets the retry delay.
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    /**
+     * @param storage  Runs the queries
+     * @param scheduler Arms the batch window
+     * @param onLoaded Receives the joined players and the opted-out subset of
+     *                 their UUIDs, on the storage thread that ran the query
+     */
+    OptOutJoinLoader(Logger logger, AsyncStorage storage, PluginScheduler scheduler,
+                     long windowMillis, BiConsumer<List<Player>, Set<UUID>> onLoaded) {
+        this.logger = logger;
+        this.storage = storage;
+        this.scheduler = scheduler;
+        this.windowMillis = windowMillis;
+        this.onLoaded = onLoaded;
+    }
+
+    /**
+     * Queues a joined player for the next batched lookup.
+     *
+     * @param player The player who joined
+     */
+    void enqueue(Player player) {
+        pending.add(player);
+        armLoad();
+    }
+
+    private void armLoad() {
+        if (loadArmed.compareAndSet(false, true)) {
+            scheduler.runAsyncLater(this::load, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void load() {
+        // Cleared before draining: a join landing mid-load arms the next batch.
+        loadArmed.set(false);
+        final List<Player> players = new ArrayList<>();
+        for (Player player; (player = pending.poll()) != null; ) {
+            players.add(player);
+        }
+        if (players.isEmpty()) {
+            return;
+        }
+
+        final Set<UUID> uuids = new LinkedHashSet<>(players.size() * 2);
+        for (Player player : players) {
+            uuids.add(player.getUniqueId());
+        }
+
+        storage.readAllOptedOut(uuids).whenComplete((optedOut, error) -> {
+            if (error == null && optedOut != null) {
+                consecutiveFailures.set(0);
+                logger.fine("Loaded opt-out status for " + players.size() + " joining players ("
+                    + optedOut.size() + " opted out)");
+                onLoaded.accept(players, optedOut);
+            } else if (error != null && storage.isSaturated(error)) {
+                // Executor saturated: retry with the next window's joins
+                pending.addAll(players);
+                armLoad();
+            } else {
+                final long delayMillis = retryDelayMillis(consecutiveFailures.getAndIncrement());
+                final String message = "Failed to load opt-out status for " + players.size()
+                    + " joining players; retrying in " + delayMillis + " ms";
+                if (error != null) {
+                    logger.log(Level.WARNING, message, error);
+                } else {
+                    logger.warning(message);
+                }
+                scheduler.runAsyncLater(() -> retry(players), delayMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    /** Re-queues the players of a failed batch who are still online. */
+    private void retry(List<Player> players) {
+        for (Player player : players) {
+            if (player.isOnline()) {
+                pending.add(player);
+            }
+        }
+        if (!pending.isEmpty()) {
+            armLoad();
+        }
+    }
+
+    /**
+     * @param failures Failed loads before this one
+     * @return {@value #RETRY_BASE_MILLIS} ms doubled per earlier failure,
+     *         capped at {@value #RETRY_MAX_MILLIS} ms
+     */
+    static long retryDelayMillis(int failures) {
+        return Math.min(RETRY_MAX_MILLIS, RETRY_BASE_MILLIS << Math.min(failures, 5));
+    }
+    }
+}
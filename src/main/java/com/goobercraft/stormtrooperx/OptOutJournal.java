@@ -0,0 +1,221 @@
+package com.goobercraft.stormtrooperx;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only local journal of opt-out changes the database did not accept,
+ * so they survive a restart during an outage.
+ *
+ * <p>The file is a 4-byte magic followed by fixed-size records: the UUID's
+ * two longs, a state byte and a CRC32 of those 17 bytes. Each
+ * {@link #append} writes its whole batch with one {@link FileChannel#write}
+ * and one {@link FileChannel#force} — one fsync per failed batch, not per
+ * change. On open, a torn or corrupt tail (a crash mid-append) is cut off
+ * and everything before it is recovered; later records win.</p>
+ *
+ * <p>{@link #compact} rewrites the file with only the still-unwritten
+ * changes (via a temporary file and an atomic rename), or truncates it when
+ * there are none. Methods are synchronized; callers are the write-behind
+ * flush and the shutdown drain, never a gameplay thread.</p>
+ */
+final class OptOutJournal implements AutoCloseable {
+
+    static final int MAGIC = 0x53544A31; // "STJ1"
+    static final int HEADER_BYTES = Integer.BYTES;
+    static final int RECORD_BYTES = 2 * Long.BYTES + 1 + Integer.BYTES;
+
+    private final Logger logger;
+    private final Path file;
+    private final Map<UUID, Boolean> recovered;
+    private FileChannel channel;
+    private long records;
+
+    /**
+     * Opens (or creates) the journal and reads back what it holds.
+     *
+     * @param logger Logger instance (must not be null)
+     * @param file   Journal file; its directory must exist
+     * @throws IllegalArgumentException if logger or file is null
+     * @throws IOException if the file cannot be opened, read or repaired
+     */
+    OptOutJournal(Logger logger, Path file) throws IOException {
+        if (logger == null) {
+            throw new IllegalArgumentException("logger cannot be null");
+        }
+        if (file == null) {
+            throw new IllegalArgumentException("file cannot be null");
+        }
+        this.logger = logger;
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            this.recovered = Collections.unmodifiableMap(recover());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private Map<UUID, Boolean> recover() throws IOException {
+        final Map<UUID, Boolean> changes = new LinkedHashMap<>();
+        final long size = channel.size();
+        if (size < HEADER_BYTES) {
+            // New file, or a crash before the header made it to disk
+            channel.truncate(0);
+            writeFully(channel, header(), 0);
+            channel.force(true);
+            channel.position(HEADER_BYTES);
+            return changes;
+        }
+
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(header, 0);
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not an opt-out journal: " + file);
+        }
+
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        final CRC32 crc = new CRC32();
+        long position = HEADER_BYTES;
+        while (position + RECORD_BYTES <= size) {
+            record.clear();
+            readFully(record, position);
+            crc.reset();
+            crc.update(record.array(), 0, RECORD_BYTES - Integer.BYTES);
+            if ((int) crc.getValue() != record.getInt(RECORD_BYTES - Integer.BYTES)) {
+                break;
+            }
+            final UUID uuid = new UUID(record.getLong(0), record.getLong(Long.BYTES));
+            // Re-insert so iteration order follows the latest change
+            changes.remove(uuid);
+            changes.put(uuid, record.get(2 * Long.BYTES) != 0);
+            position += RECORD_BYTES;
+            records++;
+        }
+        if (position < size) {
+            logger.warning("Opt-out journal " + file.getFileName() + " has a torn or corrupt tail; discarding "
+                + (size - position) + " bytes after " + records + " records");
+            channel.truncate(position);
+            channel.force(true);
+        }
+        channel.position(position);
+        return changes;
+    }
+
+    /**
+     * Changes read back on open, latest state per player, oldest first.
+     * Not updated by later appends.
+     */
+    Map<UUID, Boolean> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Appends the changes and fsyncs once for the whole batch.
+     *
+     * @param changes Player UUID to opt-out state
+     * @throws IOException if the write or fsync fails
+     */
+    synchronized void append(Map<UUID, Boolean> changes) throws IOException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(changes.size() * RECORD_BYTES);
+        putRecords(buffer, changes);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        records += changes.size();
+    }
+
+    /**
+     * Replaces the journal's contents with {@code live}, dropping every
+     * record that was written to the database or superseded.
+     *
+     * @param live Changes still not in the database
+     * @throws IOException if the rewrite fails; the old journal is then intact
+     */
+    synchronized void compact(Map<UUID, Boolean> live) throws IOException {
+        if (live.isEmpty()) {
+            channel.truncate(HEADER_BYTES);
+            channel.position(HEADER_BYTES);
+            channel.force(true);
+            records = 0;
+            return;
+        }
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + live.size() * RECORD_BYTES);
+            buffer.putInt(MAGIC);
+            putRecords(buffer, live);
+            buffer.flip();
+            writeFully(out, buffer, 0);
+            out.force(true);
+        }
+        channel.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        records = live.size();
+    }
+
+    /** Records in the file, including ones a later record supersedes. */
+    synchronized long recordCount() {
+        return records;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private static ByteBuffer header() {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC);
+        header.flip();
+        return header;
+    }
+
+    private static void putRecords(ByteBuffer buffer, Map<UUID, Boolean> changes) {
+        final CRC32 crc = new CRC32();
+        for (Map.Entry<UUID, Boolean> entry : changes.entrySet()) {
+            final int start = buffer.position();
+            buffer.putLong(entry.getKey().getMostSignificantBits());
+            buffer.putLong(entry.getKey().getLeastSignificantBits());
+            buffer.put(entry.getValue() ? (byte) 1 : (byte) 0);
+            crc.reset();
+            crc.update(buffer.array(), start, RECORD_BYTES - Integer.BYTES);
+            buffer.putInt((int) crc.getValue());
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of " + file);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+}
@@ -1,16 +1,26 @@
 package com.goobercraft.stormtrooperx;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
@@ -18,21 +28,85 @@
 
 /**
  * Facade over {@link DatabaseManager} backed by an in-memory cache: opt-out
- * status is loaded on player join, evicted on quit, and all DB I/O runs async
- * so the main thread is never blocked.
+ * status is prefetched during pre-login, promoted into the cache on join,
+ * evicted on quit, and all DB I/O runs off the main thread, on an
+ * {@link AsyncStorage} executor. Writes go through
+ * an {@link OptOutWriteQueue}, which coalesces them into periodic batches;
+ * joins that missed the prefetch load through an {@link OptOutJoinLoader},
+ * which batches them into bulk queries.
  *
- * <p>Thread-safe — the cache is a {@link ConcurrentHashMap}-backed {@link Set},
- * so reads are lock-free and safe from any thread.</p>
+ * <p>With {@code preload-opt-outs} on, every opted-out player is streamed
+ * into a {@link CompactUuidSet} at startup instead, and kept there across
+ * quits. Once that load lands, joins need no query at all and
+ * {@link #isOptedOut} answers for offline players too; until then joins
+ * load as usual.</p>
+ *
+ * <p>Without preloading, an {@link OptOutNegativeCache} (if enabled) answers
+ * "definitely not opted out" for most joining players from a Bloom filter,
+ * so their pre-login and join lookups skip the database.</p>
+ *
+ * <p>{@link #resolveOptOut} also answers for offline players, loading them
+ * through an {@link OfflineOptOutCache} (if enabled) without blocking.</p>
+ *
+ * <p>With an {@link OptOutSnapshot} from the last shutdown, joins are
+ * answered from it until the database confirms it is current (a preload
+ * then takes it as its result) or shows it is stale (players answered from
+ * it are looked up again). A new snapshot is written on shutdown.</p>
+ *
+ * <p>With {@code sync} on, an {@link OptOutChangeFeed} applies changes made
+ * by other servers sharing the database to the cache as they commit,
+ * instead of on the player's next join.</p>
+ *
+ * <p>Thread-safe — the cache is a {@link ConcurrentHashMap}-backed {@link Set}
+ * (or a {@link CompactUuidSet} when preloading), so reads are lock-free and
+ * safe from any thread.</p>
  */
 public class OptOutManager implements Listener {
 
+    /** How long a pre-login prefetch waits for its join before it is dropped. */
+    static final long PREFETCH_TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+    /** Delay before a failed preload is tried again. */
+    static final long PRELOAD_RETRY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
     private final Logger logger;
     private final DatabaseManager databaseManager;
     private final PluginScheduler scheduler;
     private final Set<UUID> optedOutCache;
+    // Pre-login results awaiting their join.
+    private final ConcurrentHashMap<UUID, Prefetched> prefetched = new ConcurrentHashMap<>();
+    private volatile long lastPrefetchSweepNanos = System.nanoTime();
+    private final OptOutWriteQueue writeQueue;
+    private final OptOutJoinLoader joinLoader;
+    private final long shutdownTimeoutMillis;
+    private final AsyncStorage storage;
+
+    // Preload mode: the cache holds every opted-out player, online or not.
+    private final boolean preloadMode;
+    // Set once the preload has been merged into the cache.
+    private volatile boolean preloaded;
+    private volatile boolean closed;
+    // Changes made while the preload runs; they are newer than what it read.
+    // Guarded by itself, which also orders cache writes against the merge.
+    private final Map<UUID, Boolean> changedDuringPreload = new HashMap<>();
+    // Null when disabled or preloading.
+    private final OptOutNegativeCache negativeCache;
+    private final OfflineOptOutCache offlineCache;
+    // Written on shutdown; null for none.
+    private final OptOutSnapshot snapshot;
+    // The last shutdown's snapshot while it answers joins; null once the
+    // database has confirmed or refuted it.
+    private volatile OptOutSnapshot warmSnapshot;
+    private volatile SnapshotState snapshotState = SnapshotState.NONE;
+    // Online players answered from warmSnapshot, looked up again if it is stale.
+    private final Set<UUID> servedFromSnapshot = ConcurrentHashMap.newKeySet();
+    // Null when sync is disabled.
+    private final OptOutChangeFeed changeFeed;
+    // Players online here, whose cache entries a synced opt-out may add.
+    // Null unless syncing without preload, where the cache holds only them.
+    private final Set<UUID> onlinePlayers;
 
     /**
-     * Creates a new opt-out manager.
+     * Creates a new opt-out manager with default write-behind settings.
      *
      * @param logger Logger instance (must not be null)
      * @param databaseManager Database manager for persistence (must not be null)
@@ -42,6 +116,30 @@ public class OptOutManager implements Listener {
      */
     public OptOutManager(Logger logger, DatabaseManager databaseManager,
                          PluginScheduler scheduler, int maxPlayers) {
+        this(logger, databaseManager, scheduler, maxPlayers, OptOutSettings.defaults(), null, null, null);
+    }
+
+    /**
+     * Creates a new opt-out manager whose database calls run on the given
+     * storage. The caller owns the storage, the journal and the snapshot and
+     * closes them after {@link #shutdown()}. Changes recovered from the
+     * journal are queued for writing straight away.
+     *
+     * @param logger Logger instance (must not be null)
+     * @param databaseManager Database manager for persistence (must not be null;
+     *                        must log writes too when sync is enabled)
+     * @param scheduler Scheduler abstraction for timers and global-thread tasks (must not be null)
+     * @param maxPlayers Maximum number of players on the server (must be positive)
+     * @param settings Write-behind, preload, cache and sync tuning (must not be null)
+     * @param storage Executor for database calls, or null to dispatch them on
+     *                the scheduler's async pool
+     * @param journal Keeps unwritten changes across restarts, or null for none
+     * @param snapshot Warm-restart snapshot: answers joins if one was loaded,
+     *                 and is rewritten on shutdown; or null for none
+     * @throws IllegalArgumentException if any required parameter is null or maxPlayers is not positive
+     */
+    OptOutManager(Logger logger, DatabaseManager databaseManager, PluginScheduler scheduler, int maxPlayers,
+                  OptOutSettings settings, AsyncStorage storage, OptOutJournal journal, OptOutSnapshot snapshot) {
         if (logger == null) {
             throw new IllegalArgumentException("logger cannot be null");
         }
@@ -54,37 +152,368 @@ public OptOutManager(Logger logger, DatabaseManager databaseManager,
         if (maxPlayers <= 0) {
             throw new IllegalArgumentException("maxPlayers must be positive, got: " + maxPlayers);
         }
+        if (settings == null) {
+            throw new IllegalArgumentException("settings cannot be null");
+        }
 
         this.logger = logger;
         this.databaseManager = databaseManager;
         this.scheduler = scheduler;
+        this.shutdownTimeoutMillis = settings.shutdownTimeoutMillis();
 
         // Size for ~25% of max players; floor 16, cap 16384 (misconfigured maxPlayers).
         final int initialCapacity = Math.min(Math.max(16, maxPlayers / 4), 16384);
-        this.optedOutCache = Collections.newSetFromMap(new ConcurrentHashMap<>(initialCapacity));
+        this.preloadMode = settings.preload();
+        this.optedOutCache = preloadMode
+            ? new CompactUuidSet(initialCapacity)
+            : Collections.newSetFromMap(new ConcurrentHashMap<>(initialCapacity));
+        final AsyncStorage dispatch = storage != null
+            ? storage : AsyncStorage.onScheduler(logger, databaseManager, scheduler);
+        this.storage = dispatch;
+        this.writeQueue = new OptOutWriteQueue(logger, databaseManager, scheduler, dispatch, settings, journal);
+        final OptOutNegativeCache.Settings negativeCacheSettings = settings.negativeCache();
+        final OfflineOptOutCache.Settings offlineCacheSettings = settings.offlineCache();
+        final OptOutChangeFeed.Settings syncSettings = settings.sync();
+        // The preloaded cache already answers every lookup
+        this.negativeCache = negativeCacheSettings.enabled() && !preloadMode
+            ? new OptOutNegativeCache(logger, dispatch, scheduler, negativeCacheSettings) : null;
+        this.offlineCache = offlineCacheSettings.enabled() && !preloadMode
+            ? new OfflineOptOutCache(logger, dispatch, offlineCacheSettings, System::nanoTime) : null;
+        this.snapshot = snapshot;
+        this.changeFeed = syncSettings.enabled()
+            ? new OptOutChangeFeed(logger, dispatch, scheduler, syncSettings, databaseManager.changeOrigin(),
+                this::applyRemoteChange, System::nanoTime)
+            : null;
+        this.onlinePlayers = changeFeed != null && !preloadMode ? ConcurrentHashMap.newKeySet() : null;
+        if (journal != null && !journal.recovered().isEmpty()) {
+            logger.info("Replaying " + journal.recovered().size()
+                + " opt-out changes from the journal that were not written before the last shutdown");
+            writeQueue.recover(journal.recovered());
+            if (preloadMode) {
+                // Not in the database yet, so the preload would miss or contradict them
+                journal.recovered().forEach(this::setCached);
+            }
+            if (negativeCache != null) {
+                journal.recovered().forEach((playerUUID, optedOut) -> {
+                    if (optedOut) {
+                        negativeCache.recordOptOut(playerUUID);
+                    }
+                });
+            }
+        }
+        this.joinLoader = new OptOutJoinLoader(logger, dispatch, scheduler,
+            settings.joinBatchWindowMillis(), this::applyJoinBatch);
 
         logger.fine("OptOutManager cache initialized with capacity: " + initialCapacity + " (thread-safe)");
+        if (snapshot != null && snapshot.isLoaded()) {
+            logger.info("Loaded opt-out snapshot generation " + snapshot.generation() + " (" + snapshot.size()
+                + " players); answering joins from it until the database confirms it");
+            warmSnapshot = snapshot;
+            snapshotState = SnapshotState.UNVERIFIED;
+        }
+        if (changeFeed != null) {
+            // Feed position first, so no change falls between it and what the load reads
+            changeFeed.start().whenComplete((ignored, error) -> startLoad());
+        } else {
+            startLoad();
+        }
+        if (negativeCache != null) {
+            negativeCache.start();
+        }
+    }
+
+    /** Checks the warm-restart snapshot, or preloads if there is none. */
+    private void startLoad() {
+        if (warmSnapshot != null) {
+            // The preload waits: a current snapshot is its result
+            verifySnapshot();
+        } else if (preloadMode) {
+            preload();
+        }
+    }
+
+    /**
+     * Streams every opted-out player into a staging set on the storage
+     * executor, then merges it into the cache (see {@link #mergePreload}).
+     * A failure is retried after {@value #PRELOAD_RETRY_MILLIS} ms; joins load
+     * their own status meanwhile.
+     */
+    private void preload() {
+        if (closed) {
+            return;
+        }
+        final long start = System.nanoTime();
+        final CompactUuidSet loaded = new CompactUuidSet();
+        storage.forEachOptedOut(loaded::add).whenComplete((complete, error) -> {
+            if (error == null && complete) {
+                mergePreload(loaded);
+                logger.info("Preloaded " + loaded.size() + " opted-out players in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms ("
+                    + optedOutCache.size() + " cached, " + preloadTableBytes() / 1024 + " KiB)");
+                return;
+            }
+            if (closed) {
+                return;
+            }
+            if (error != null && !storage.isSaturated(error)) {
+                logger.log(Level.WARNING, "Failed to preload opted-out players", error);
+            }
+            logger.warning("Opt-out preload incomplete; joins query the database until it is retried in "
+                + TimeUnit.MILLISECONDS.toSeconds(PRELOAD_RETRY_MILLIS) + " s");
+            scheduler.runAsyncLater(this::preload, PRELOAD_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * Compares the snapshot's watermark with the table's. If they match the
+     * snapshot is current: a preload takes it as its result. Otherwise the
+     * players answered from it are looked up again and a preload reads the
+     * database as usual. Either way joins go back to the normal path. While
+     * the database cannot be reached, the snapshot keeps answering and the
+     * check is retried after {@value #PRELOAD_RETRY_MILLIS} ms.
+     */
+    private void verifySnapshot() {
+        final OptOutSnapshot current = warmSnapshot;
+        if (closed || current == null) {
+            return;
+        }
+        storage.getWatermark().whenComplete((watermark, error) -> {
+            if (closed) {
+                return;
+            }
+            if (error != null || watermark == null) {
+                if (error != null && !storage.isSaturated(error)) {
+                    logger.log(Level.WARNING, "Failed to check the opt-out snapshot against the database", error);
+                }
+                logger.warning("Could not check the opt-out snapshot against the database; joins are answered "
+                    + "from it until it is retried in " + TimeUnit.MILLISECONDS.toSeconds(PRELOAD_RETRY_MILLIS) + " s");
+                scheduler.runAsyncLater(this::verifySnapshot, PRELOAD_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                return;
+            }
+            final boolean fresh = watermark.equals(current.watermark());
+            if (fresh && preloadMode) {
+                final CompactUuidSet loaded = new CompactUuidSet(current.size());
+                current.forEach(loaded::add);
+                mergePreload(loaded);
+            }
+            warmSnapshot = null;
+            snapshotState = fresh ? SnapshotState.CURRENT : SnapshotState.STALE;
+            if (fresh) {
+                servedFromSnapshot.clear();
+                logger.info("Opt-out snapshot generation " + current.generation() + " is current"
+                    + (preloadMode ? "; preloaded " + current.size() + " opted-out players from it" : ""));
+            } else {
+                logger.info("Opt-out snapshot generation " + current.generation() + " is stale (snapshot: "
+                    + current.watermark() + "; database: " + watermark + "); using the database");
+                recheckServed();
+                if (preloadMode) {
+                    preload();
+                }
+            }
+            current.release();
+        });
+    }
+
+    /**
+     * Looks up the online players a stale snapshot answered and corrects
+     * their cached status. Players who quit or changed their status here
+     * since are left alone. If the database cannot answer, they keep the
+     * snapshot's status and the re-check is retried after
+     * {@value #PRELOAD_RETRY_MILLIS} ms.
+     */
+    private void recheckServed() {
+        final List<UUID> served = new ArrayList<>(servedFromSnapshot);
+        if (closed || served.isEmpty()) {
+            return;
+        }
+        storage.readAllOptedOut(served).whenComplete((optedOut, error) -> {
+            if (closed) {
+                return;
+            }
+            if (error != null || optedOut == null) {
+                if (error != null && !storage.isSaturated(error)) {
+                    logger.log(Level.WARNING, "Failed to re-check players answered from a stale opt-out snapshot", error);
+                }
+                logger.warning("Could not re-check " + served.size() + " players answered from a stale opt-out "
+                    + "snapshot; retrying in " + TimeUnit.MILLISECONDS.toSeconds(PRELOAD_RETRY_MILLIS) + " s");
+                scheduler.runAsyncLater(this::recheckServed, PRELOAD_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                return;
+            }
+            for (UUID playerUUID : served) {
+                if (servedFromSnapshot.remove(playerUUID) && writeQueue.pendingState(playerUUID) == null) {
+                    updateCache(playerUUID, optedOut.contains(playerUUID));
+                }
+            }
+        });
+    }
+
+    /**
+     * Adds the preloaded players to the cache, except those whose status
+     * changed while the load ran, and switches joins to cache-only.
+     */
+    private void mergePreload(CompactUuidSet loaded) {
+        synchronized (changedDuringPreload) {
+            for (UUID uuid : loaded) {
+                if (!changedDuringPreload.containsKey(uuid)) {
+                    optedOutCache.add(uuid);
+                }
+            }
+            changedDuringPreload.clear();
+            preloaded = true;
+        }
+    }
+
+    /**
+     * Updates the cache for a change made here, recording it while a preload
+     * is running so the preload cannot overwrite it.
+     */
+    private void setCached(UUID playerUUID, boolean optedOut) {
+        if (preloadMode && !preloaded) {
+            synchronized (changedDuringPreload) {
+                if (!preloaded) {
+                    changedDuringPreload.put(playerUUID, optedOut);
+                }
+                updateCache(playerUUID, optedOut);
+            }
+            return;
+        }
+        updateCache(playerUUID, optedOut);
+    }
+
+    /**
+     * Applies a change another server committed, read from the change log.
+     * A change still queued here is newer and wins. Without preloading, an
+     * opt-out is only cached for a player online here; a pending pre-login
+     * prefetch takes the new status too.
+     */
+    private void applyRemoteChange(UUID playerUUID, boolean optedOut) {
+        if (closed || writeQueue.pendingState(playerUUID) != null) {
+            return;
+        }
+        prefetched.computeIfPresent(playerUUID,
+            (uuid, prefetch) -> new Prefetched(optedOut, prefetch.expiresAtNanos, false));
+        // Newer than anything a stale snapshot re-check would read
+        servedFromSnapshot.remove(playerUUID);
+        if (preloadMode) {
+            setCached(playerUUID, optedOut);
+        } else if (!optedOut || onlinePlayers.contains(playerUUID)) {
+            updateCache(playerUUID, optedOut);
+        }
+        if (optedOut && negativeCache != null) {
+            negativeCache.recordOptOut(playerUUID);
+        }
+        if (offlineCache != null) {
+            offlineCache.put(playerUUID, optedOut);
+        }
+    }
+
+    private void updateCache(UUID playerUUID, boolean optedOut) {
+        if (optedOut) {
+            optedOutCache.add(playerUUID);
+        } else {
+            optedOutCache.remove(playerUUID);
+        }
     }
 
     /**
-     * Shuts down the opt-out manager and clears the cache.
+     * Shuts down the opt-out manager: stops the write-behind timers, writes
+     * the queued changes in one batch within the configured shutdown timeout
+     * (see {@link OptOutWriteQueue#drain}), writes the warm-restart snapshot
+     * if enabled and the timeout has time left, then clears the cache.
      */
     public void shutdown() {
+        closed = true;
+        warmSnapshot = null;
+        if (changeFeed != null) {
+            changeFeed.close();
+        }
+        if (negativeCache != null) {
+            negativeCache.close();
+        }
+        final OptOutWriteQueue.DrainResult drained = writeQueue.drain(shutdownTimeoutMillis);
+        if (drained.dropped() > 0) {
+            logger.warning("Could not persist " + drained.dropped() + " of " + drained.queued()
+                + " queued opt-out changes on shutdown (" + drained.flushed() + " flushed, "
+                + drained.journaled() + " journaled for the next start; "
+                + (drained.timedOut() ? "timed out after " + drained.elapsedMillis() + " ms" : "write failed") + ")");
+        } else if (drained.queued() > 0) {
+            logger.info("Flushed " + drained.flushed() + " queued opt-out changes on shutdown in "
+                + drained.elapsedMillis() + " ms");
+        }
+        if (snapshot != null) {
+            final long remainingMillis = shutdownTimeoutMillis - drained.elapsedMillis();
+            if (drained.timedOut() || remainingMillis <= 0) {
+                logger.warning("Skipped the warm-restart snapshot: the shutdown drain used up its "
+                    + shutdownTimeoutMillis + " ms; keeping the previous one");
+            } else if (databaseManager.getCircuitBreaker().state() != DatabaseCircuitBreaker.State.CLOSED) {
+                logger.warning("Skipped the warm-restart snapshot: the database circuit is not closed; "
+                    + "keeping the previous one");
+            } else {
+                writeSnapshot(remainingMillis);
+            }
+        }
         optedOutCache.clear();
+        prefetched.clear();
+        if (offlineCache != null) {
+            offlineCache.clear();
+        }
         logger.info("OptOutManager shut down, cache cleared");
     }
 
+    /**
+     * Writes every opted-out player to a new snapshot generation, read
+     * straight from the database after the drain. The watermark is read
+     * first, so a change that lands in between makes the snapshot look stale
+     * on the next start rather than current. The reads run on the storage
+     * executor and are waited for at most {@code timeoutMillis}, what is left
+     * of the shutdown timeout. If the database cannot be read in time, the
+     * previous snapshot is kept.
+     */
+    private void writeSnapshot(long timeoutMillis) {
+        final long start = System.nanoTime();
+        // Only read here once the future completes; a read cut off by the timeout may still be adding
+        final List<UUID> optedOut = new ArrayList<>();
+        final OptOutSnapshot.Watermark watermark;
+        try {
+            watermark = storage.getWatermark()
+                .thenCompose(read -> read == null ? CompletableFuture.<OptOutSnapshot.Watermark>completedFuture(null)
+                    : storage.forEachOptedOut(optedOut::add).thenApply(complete -> complete ? read : null))
+                .get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warning("Reading opted-out players for the warm-restart snapshot took over " + timeoutMillis
+                + " ms; keeping the previous one");
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            logger.log(Level.WARNING, "Failed to read opted-out players for the warm-restart snapshot", e.getCause());
+            return;
+        }
+        if (watermark == null) {
+            logger.warning("Could not read opted-out players for the warm-restart snapshot; keeping the previous one");
+            return;
+        }
+        final long generation = snapshot.write(optedOut, watermark);
+        if (generation > 0) {
+            logger.info("Wrote opt-out snapshot generation " + generation + " (" + optedOut.size() + " players) in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        }
+    }
+
     /**
      * Checks if a player has opted out.
      *
-     * <p><b>Online-only:</b> consults only the in-memory cache (populated on
-     * join, cleared on quit), so an offline player always reads {@code false}
-     * regardless of persisted state. Callers needing persisted state should
-     * query {@link DatabaseManager#isOptedOut(UUID)}. Lock-free, safe from any
+     * <p><b>Online-only</b> unless preloading: consults only the in-memory
+     * cache (populated on join, cleared on quit), so an offline player always
+     * reads {@code false} regardless of persisted state. Once a preload has
+     * landed ({@link #isPreloaded()}), the cache holds every opted-out player
+     * and offline players resolve too. Otherwise callers needing persisted
+     * state should use {@link #resolveOptOut}. Lock-free, safe from any
      * thread.</p>
      *
      * @param playerUUID Player's UUID
-     * @return true if online and cached as opted out
+     * @return true if cached as opted out
      */
     public boolean isOptedOut(UUID playerUUID) {
         if (playerUUID == null) {
@@ -94,13 +523,49 @@ public boolean isOptedOut(UUID playerUUID) {
         return optedOutCache.contains(playerUUID);
     }
 
+    /**
+     * Resolves a player's opt-out status whether or not they are online,
+     * without blocking. Online players (and everyone, once preloaded) are
+     * answered by {@link #isOptedOut}. For an offline player, a change still
+     * queued for writing wins, then the warm-restart snapshot while it is
+     * unverified, then a negative-cache "definitely not", then the
+     * {@link OfflineOptOutCache}, which loads the player in the background on
+     * a miss. Without the offline cache or a snapshot, offline players read
+     * {@code false} as before.
+     *
+     * @param playerUUID Player's UUID
+     * @param online Whether the player is online
+     * @return the status, or null while the player's first offline load is running
+     */
+    public Boolean resolveOptOut(UUID playerUUID, boolean online) {
+        if (playerUUID == null) {
+            logger.warning("Attempted to resolve opt-out status with null UUID");
+            return false;
+        }
+        final OptOutSnapshot warm = warmSnapshot;
+        if (online || preloaded || (offlineCache == null && warm == null)) {
+            return optedOutCache.contains(playerUUID);
+        }
+        final Boolean queued = writeQueue.pendingState(playerUUID);
+        if (queued != null) {
+            return queued;
+        }
+        if (warm != null) {
+            return warm.contains(playerUUID);
+        }
+        if (negativeCache != null && !negativeCache.mightBeOptedOut(playerUUID)) {
+            return false;
+        }
+        return offlineCache.get(playerUUID);
+    }
+
     /**
      * Sets a player's opt-out status: updates the cache synchronously, then
-     * persists asynchronously so gameplay is never blocked on DB I/O.
+     * queues the change for the next write-behind flush so gameplay is never
+     * blocked on DB I/O.
      *
-     * <p>Thread-safe. Concurrent calls for the same player converge to a
-     * consistent cache state; DB write order is not guaranteed (last write
-     * wins).</p>
+     * <p>Thread-safe. Repeated changes for a player before the flush collapse
+     * into the latest one, which is what reaches the database.</p>
      *
      * @param playerUUID Player's UUID
      * @param optedOut Whether the player is opted out
@@ -111,21 +576,17 @@ public void setOptOut(UUID playerUUID, boolean optedOut) {
             return;
         }
 
-        if (optedOut) {
-            optedOutCache.add(playerUUID);
-        } else {
-            optedOutCache.remove(playerUUID);
+        setCached(playerUUID, optedOut);
+        // Newer than anything a stale snapshot re-check would read
+        servedFromSnapshot.remove(playerUUID);
+        if (optedOut && negativeCache != null) {
+            negativeCache.recordOptOut(playerUUID);
+        }
+        if (offlineCache != null) {
+            offlineCache.put(playerUUID, optedOut);
         }
 
-        scheduler.runAsync(() -> {
-            try {
-                databaseManager.setOptOut(playerUUID, optedOut);
-                logger.fine("Async DB write completed for player " + playerUUID + ": opted out = " + optedOut);
-            } catch (Exception e) {
-                logger.log(Level.WARNING, "Failed to write opt-out status to database for " + playerUUID, e);
-                // Cache already updated, so gameplay is unaffected; DB resyncs on next write.
-            }
-        });
+        writeQueue.enqueue(playerUUID, optedOut);
     }
 
     /**
@@ -147,53 +608,184 @@ public boolean toggleOptOut(UUID playerUUID) {
     }
 
     /**
-     * Loads the player's opt-out status from the database asynchronously on join.
-     * Until the query completes the player is treated as not opted out (safe default).
+     * Prefetches the player's opt-out status while the login is still being
+     * processed. Bukkit already runs this event off the main thread and waits
+     * for it, so the query runs here directly rather than through the storage
+     * executor and is done before the join. A player the negative cache rules
+     * out is prefetched as not opted out without a query, and so is everyone
+     * while the warm-restart snapshot answers. A read the database could not
+     * answer is not prefetched, so the join falls back to the batched load.
+     * Runs at {@code MONITOR} so logins denied by other plugins are skipped.
+     *
+     * @param event Async pre-login event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED || preloaded) {
+            return;
+        }
+        final UUID playerUUID = event.getUniqueId();
+        try {
+            final OptOutSnapshot warm = warmSnapshot;
+            final Boolean optedOut;
+            if (warm != null) {
+                optedOut = warm.contains(playerUUID);
+            } else if (negativeCache != null && !negativeCache.mightBeOptedOut(playerUUID)) {
+                optedOut = false;
+            } else {
+                optedOut = databaseManager.readOptedOut(playerUUID);
+            }
+            if (optedOut == null) {
+                // The database could not answer; the join falls back to the batched load
+                logger.fine("Could not prefetch opt-out status for " + event.getName());
+                return;
+            }
+            final long now = System.nanoTime();
+            prefetched.put(playerUUID, new Prefetched(optedOut, now + PREFETCH_TTL_NANOS, warm != null));
+            if (now - lastPrefetchSweepNanos > PREFETCH_TTL_NANOS) {
+                lastPrefetchSweepNanos = now;
+                expirePrefetches(now);
+            }
+        } catch (Exception e) {
+            // The join falls back to the batched load
+            logger.log(Level.WARNING, "Failed to prefetch opt-out status for " + event.getName(), e);
+        }
+    }
+
+    /**
+     * Promotes the player's pre-login prefetch into the cache with no database
+     * round-trip. On a miss (no prefetch, or it expired) the status is queued
+     * for the next batched load (see {@link OptOutJoinLoader}); until that
+     * completes the player is treated as not opted out (safe default). A
+     * player the negative cache rules out needs no load, nor does anyone
+     * while the warm-restart snapshot answers. Once preloaded, the cache
+     * already has the answer.
      *
      * @param event Player join event
      */
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         final Player player = event.getPlayer();
+        if (onlinePlayers != null) {
+            onlinePlayers.add(player.getUniqueId());
+        }
+        if (preloaded) {
+            final UUID playerUUID = player.getUniqueId();
+            applyJoinBatch(List.of(player), optedOutCache.contains(playerUUID) ? Set.of(playerUUID) : Set.of());
+            return;
+        }
+        final Prefetched prefetch = prefetched.remove(player.getUniqueId());
+        if (prefetch != null && prefetch.expiresAtNanos - System.nanoTime() > 0) {
+            if (!prefetch.fromSnapshot) {
+                applyJoinBatch(List.of(player), prefetch.optedOut ? Set.of(player.getUniqueId()) : Set.of());
+                return;
+            }
+            if (joinFromSnapshot(player, prefetch.optedOut)) {
+                return;
+            }
+        }
+        final OptOutSnapshot warm = warmSnapshot;
+        if (warm != null && joinFromSnapshot(player, warm.contains(player.getUniqueId()))) {
+            return;
+        }
+        if (negativeCache != null && !negativeCache.mightBeOptedOut(player.getUniqueId())) {
+            applyJoinBatch(List.of(player), Set.of());
+            return;
+        }
+        joinLoader.enqueue(player);
+    }
+
+    /**
+     * Answers a join from the warm-restart snapshot, recording the player for
+     * a re-check in case it proves stale.
+     *
+     * @return false if the snapshot was checked meanwhile, so the join should
+     *         load as usual
+     */
+    private boolean joinFromSnapshot(Player player, boolean optedOut) {
         final UUID playerUUID = player.getUniqueId();
-        final String playerName = player.getName();
-
-        scheduler.runAsync(() -> {
-            try {
-                final boolean optedOut = databaseManager.isOptedOut(playerUUID);
-
-                if (optedOut) {
-                    optedOutCache.add(playerUUID);
-                    logger.fine("Player " + playerName + " joined (opted out, added to cache)");
-
-                    // Notify on the global thread (Folia-safe); isOnline guards against
-                    // the async query finishing after the player disconnects.
-                    scheduler.runGlobal(() -> {
-                        if (player.isOnline()) {
-                            player.sendMessage(ChatColor.GRAY
-                                + "Reminder: you are opted out of StormtrooperX mob accuracy nerfs. Use "
-                                + ChatColor.YELLOW + "/stormtrooperx optin"
-                                + ChatColor.GRAY + " to opt back in.");
-                        }
-                    });
-                } else {
-                    logger.fine("Player " + playerName + " joined (not opted out)");
+        servedFromSnapshot.add(playerUUID);
+        // Recorded before this check, so a re-check starting later includes the player
+        if (warmSnapshot == null) {
+            servedFromSnapshot.remove(playerUUID);
+            return false;
+        }
+        applyJoinBatch(List.of(player), optedOut ? Set.of(playerUUID) : Set.of());
+        return true;
+    }
+
+    /**
+     * Drops prefetches whose login never reached the join (kicked later in
+     * the login, disconnected, or denied by a proxy).
+     *
+     * @param nowNanos Current {@link System#nanoTime()}
+     */
+    void expirePrefetches(long nowNanos) {
+        prefetched.values().removeIf(prefetch -> prefetch.expiresAtNanos - nowNanos <= 0);
+    }
+
+    /** Prefetches awaiting their join (for tests and monitoring). */
+    int getPrefetchCount() {
+        return prefetched.size();
+    }
+
+    /**
+     * Fans a batched join lookup into the cache, then sends the opted-out
+     * players their reminder in one global-thread task.
+     */
+    private void applyJoinBatch(List<Player> players, Set<UUID> optedOutUUIDs) {
+        final List<Player> reminders = new ArrayList<>();
+        for (Player player : players) {
+            final UUID playerUUID = player.getUniqueId();
+            // A change still in the write-behind queue is newer than the row.
+            final Boolean queued = writeQueue.pendingState(playerUUID);
+            final boolean optedOut = queued != null ? queued : optedOutUUIDs.contains(playerUUID);
+            if (negativeCache != null) {
+                negativeCache.recordResolved(playerUUID, optedOut);
+            }
+
+            if (optedOut) {
+                optedOutCache.add(playerUUID);
+                reminders.add(player);
+                logger.fine("Player " + player.getName() + " joined (opted out, added to cache)");
+            } else {
+                logger.fine("Player " + player.getName() + " joined (not opted out)");
+            }
+        }
+        if (reminders.isEmpty()) {
+            return;
+        }
+
+        // Notify on the global thread (Folia-safe); isOnline guards against
+        // the async query finishing after the player disconnects.
+        scheduler.runGlobal(() -> {
+            for (Player player : reminders) {
+                if (player.isOnline()) {
+                    player.sendMessage(ChatColor.GRAY
+                        + "Reminder: you are opted out of StormtrooperX mob accuracy nerfs. Use "
+                        + ChatColor.YELLOW + "/stormtrooperx optin"
+                        + ChatColor.GRAY + " to opt back in.");
                 }
-            } catch (Exception e) {
-                logger.log(Level.WARNING, "Failed to load opt-out status for " + playerName, e);
-                // Player will be treated as not opted out (safe default)
             }
         });
     }
 
     /**
-     * Evicts the player from the cache on quit to free memory.
+     * Evicts the player from the cache on quit to free memory, unless the
+     * cache holds every opted-out player (preload mode).
      *
      * @param event Player quit event
      */
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         final UUID playerUUID = event.getPlayer().getUniqueId();
+        servedFromSnapshot.remove(playerUUID);
+        if (onlinePlayers != null) {
+            onlinePlayers.remove(playerUUID);
+        }
+        if (preloadMode) {
+            return;
+        }
 
         final boolean wasInCache = optedOutCache.remove(playerUUID);
 
@@ -210,4 +802,104 @@ public void onPlayerQuit(PlayerQuitEvent event) {
     public int getCacheSize() {
         return optedOutCache.size();
     }
+
+    /**
+     * Whether every opted-out player has been loaded into the cache, so
+     * {@link #isOptedOut} also answers for offline players.
+     *
+     * @return true once a preload has landed; always false without preload mode
+     */
+    public boolean isPreloaded() {
+        return preloaded;
+    }
+
+    /**
+     * Bytes held by the preloaded set, for {@code /stormtrooperx stats}.
+     *
+     * @return the table size, or -1 without preload mode
+     */
+    long preloadTableBytes() {
+        return preloadMode ? ((CompactUuidSet) optedOutCache).tableBytes() : -1;
+    }
+
+    /**
+     * Where the warm-restart snapshot loaded at startup stands, for
+     * {@code /stormtrooperx stats}.
+     *
+     * @return the state; {@link SnapshotState#NONE} if none was loaded
+     */
+    SnapshotState getSnapshotState() {
+        return snapshotState;
+    }
+
+    /**
+     * Gets the warm-restart snapshot, for {@code /stormtrooperx stats}.
+     *
+     * @return the snapshot, or null for none
+     */
+    OptOutSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets the cross-server change feed, for {@code /stormtrooperx stats}.
+     *
+     * @return the feed, or null when sync is disabled
+     */
+    OptOutChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    /**
+     * Gets the negative cache, for {@code /stormtrooperx stats}.
+     *
+     * @return the cache, or null when disabled or preloading
+     */
+    OptOutNegativeCache getNegativeCache() {
+        return negativeCache;
+    }
+
+    /**
+     * Gets the offline-player cache, for {@code /stormtrooperx stats}.
+     *
+     * @return the cache, or null when disabled or preloading
+     */
+    OfflineOptOutCache getOfflineCache() {
+        return offlineCache;
+    }
+
+    /**
+     * Gets the write-behind queue, for {@code /stormtrooperx stats}.
+     *
+     * @return the queue
+     */
+    OptOutWriteQueue getWriteQueue() {
+        return writeQueue;
+    }
+
+    /** Where the warm-restart snapshot loaded at startup stands. */
+    enum SnapshotState {
+        /** None was loaded. */
+        NONE,
+        /** Answering joins until the database can confirm it. */
+        UNVERIFIED,
+        /** Matched the database. */
+        CURRENT,
+        /** The database had changed since it was written. */
+        STALE
+    }
+
+    /** A pre-login lookup result and when it stops being trusted. */
+    private static final class Prefetched {
+        final boolean optedOut;
+        final long expiresAtNanos;
+        // Answered by the warm-restart snapshot, not the database
+        final boolean fromSnapshot;
+
+        Prefetched(boolean optedOut, long expiresAtNanos, boolean fromSnapshot) {
+            this.optedOut = optedOut;
+            this.expiresAtNanos = expiresAtNanos;
+            this.fromSnapshot = fromSnapshot;
+        }
+    }
 }
@@ -0,0 +1,347 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import com.goobercraft.stormtrooperx.scheduler.PluginScheduler;
+
+/**
+ * Answers "definitely not opted out" for most joining players without a
+ * database query, from an {@link OptOutBloomFilter} of every opted-out UUID.
+ *
+ * <p>The filter is built at startup by streaming the opted-out players
+ * ({@link AsyncStorage#forEachOptedOut}) and rebuilt every
+ * {@code rebuild-interval-minutes}: a Bloom filter cannot forget, so players
+ * who opted back in stay false positives until then, and on MySQL shared by
+ * several servers an opt-out made elsewhere is only seen by the next build.
+ * Each rebuild is sized for twice the players the last one loaded, or
+ * {@code expected-opt-outs} if that is more. Until the first build lands,
+ * {@link #mightBeOptedOut} answers true and every lookup queries as before;
+ * a failed build is retried after {@value #RETRY_MILLIS} ms.</p>
+ *
+ * <p>Opt-outs made here go into the live filter and the one being built.
+ * They are also fed into the next build, since a change still being written
+ * is not in the rows that build streams; a change still queued is covered by
+ * {@link OptOutWriteQueue#pendingState} at join.</p>
+ */
+final class OptOutNegativeCache {
+
+    static final long RETRY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final Logger logger;
+    private final AsyncStorage storage;
+    private final PluginScheduler scheduler;
+    private final Settings settings;
+
+    private final Object lock = new Object();
+    // Null until the first build lands. Written under lock.
+    private volatile OptOutBloomFilter active;
+    // Guarded by lock.
+    private OptOutBloomFilter building;
+    private Set<UUID> optedOutSinceLastBuild = new HashSet<>();
+    private long lastLoadedCount;
+    private volatile boolean closed;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder negatives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder builds = new LongAdder();
+
+    /**
+     * @param logger    Logger instance (must not be null)
+     * @param storage   Runs the builds (must not be null)
+     * @param scheduler Schedules rebuilds and retries (must not be null)
+     * @param settings  Sizing and rebuild interval (must not be null)
+     * @throws IllegalArgumentException if any parameter is null
+     */
+    OptOutNegativeCache(Logger logger, AsyncStorage storage, PluginScheduler scheduler, Settings settings) {
+        if (logger == null) {
+            throw new IllegalArgumentException("logger cannot be null");
+        }
+        if (storage == null) {
+            throw new IllegalArgumentException("storage cannot be null");
+        }
+        if (scheduler == null) {
+            throw new IllegalArgumentException("scheduler cannot be null");
+        }
+        if (settings == null) {
+            throw new IllegalArgumentException("settings cannot be null");
+        }
+        this.logger = logger;
+        this.storage = storage;
+        this.scheduler = scheduler;
+        this.settings = settings;
+    }
+
+    /** Starts the first build; later ones schedule themselves. */
+    void start() {
+        build();
+    }
+
+    /** Stops rebuilding and drops the filter, so every lookup queries. */
+    void close() {
+        closed = true;
+        synchronized (lock) {
+            active = null;
+            building = null;
+        }
+    }
+
+    private void build() {
+        if (closed) {
+            return;
+        }
+        final long start = System.nanoTime();
+        final OptOutBloomFilter next;
+        final Set<UUID> seeded;
+        synchronized (lock) {
+            next = new OptOutBloomFilter(Math.max(settings.expectedOptOuts(), lastLoadedCount * 2),
+                settings.falsePositiveRate());
+            // Possibly still being written, so possibly missing from the rows this build reads
+            seeded = optedOutSinceLastBuild;
+            seeded.forEach(next::put);
+            optedOutSinceLastBuild = new HashSet<>();
+            building = next;
+        }
+        final AtomicLong loaded = new AtomicLong();
+        storage.forEachOptedOut(uuid -> {
+            next.put(uuid);
+            loaded.incrementAndGet();
+        }).whenComplete((complete, error) -> {
+            final boolean built = error == null && complete;
+            synchronized (lock) {
+                if (building == next) {
+                    building = null;
+                }
+                if (built && !closed) {
+                    active = next;
+                    lastLoadedCount = loaded.get();
+                } else {
+                    optedOutSinceLastBuild.addAll(seeded);
+                }
+            }
+            if (closed) {
+                return;
+            }
+            if (built) {
+                builds.increment();
+                if (loaded.get() > settings.expectedOptOuts()) {
+                    logger.info("Opt-out negative cache holds " + loaded.get() + " players, more than "
+                        + "database.negative-cache.expected-opt-outs (" + settings.expectedOptOuts()
+                        + "); rebuilds size for twice the loaded count");
+                }
+                logger.fine("Built opt-out negative cache from " + loaded.get() + " players in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms ("
+                    + next.memoryBytes() / 1024 + " KiB, " + next.hashCount() + " hashes)");
+                scheduler.runAsyncLater(this::build, settings.rebuildIntervalMinutes(), TimeUnit.MINUTES);
+                return;
+            }
+            if (error != null && !storage.isSaturated(error)) {
+                logger.log(Level.WARNING, "Failed to build the opt-out negative cache", error);
+            }
+            logger.warning("Opt-out negative cache " + (active == null ? "build" : "rebuild")
+                + " incomplete; retrying in " + TimeUnit.MILLISECONDS.toSeconds(RETRY_MILLIS) + " s");
+            scheduler.runAsyncLater(this::build, RETRY_MILLIS, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * Whether a lookup for this player is needed. Lock-free.
+     *
+     * @param playerUUID Player's UUID
+     * @return false if the player is definitely not opted out; true if they
+     *         may be, or no filter has been built yet
+     */
+    boolean mightBeOptedOut(UUID playerUUID) {
+        final OptOutBloomFilter filter = active;
+        if (filter == null) {
+            return true;
+        }
+        lookups.increment();
+        if (filter.mightContain(playerUUID)) {
+            return true;
+        }
+        skipped.increment();
+        return false;
+    }
+
+    /**
+     * Records an opt-out made on this server, so no filter answers "no" for
+     * the player.
+     *
+     * @param playerUUID Player's UUID
+     */
+    void recordOptOut(UUID playerUUID) {
+        synchronized (lock) {
+            if (active != null) {
+                active.put(playerUUID);
+            }
+            if (building != null) {
+                building.put(playerUUID);
+            }
+            optedOutSinceLastBuild.add(playerUUID);
+        }
+    }
+
+    /**
+     * Records a joining player's resolved state, for the observed
+     * false-positive rate: a player who is not opted out but passes the
+     * filter is a false positive.
+     *
+     * @param playerUUID Player's UUID
+     * @param optedOut   The player's state
+     */
+    void recordResolved(UUID playerUUID, boolean optedOut) {
+        final OptOutBloomFilter filter = active;
+        if (filter == null || optedOut) {
+            return;
+        }
+        negatives.increment();
+        if (filter.mightContain(playerUUID)) {
+            falsePositives.increment();
+        }
+    }
+
+    /** The filter answering lookups, or null before the first build. */
+    OptOutBloomFilter filter() {
+        return active;
+    }
+
+    /** Target false-positive rate at {@code expected-opt-outs}. */
+    double targetFalsePositiveRate() {
+        return settings.falsePositiveRate();
+    }
+
+    /** Lookups answered by a built filter, since enable. */
+    long lookupCount() {
+        return lookups.sum();
+    }
+
+    /** Lookups the filter answered "definitely not", skipping the database, since enable. */
+    long skippedCount() {
+        return skipped.sum();
+    }
+
+    /** Joined players who were not opted out, checked against a built filter, since enable. */
+    long negativeCount() {
+        return negatives.sum();
+    }
+
+    /** Of {@link #negativeCount()}, those the filter let through, since enable. */
+    long falsePositiveCount() {
+        return falsePositives.sum();
+    }
+
+    /**
+     * Observed false-positive rate among joining players who were not opted out.
+     *
+     * @return the rate, or 0 before any such join
+     */
+    double observedFalsePositiveRate() {
+        final long total = negatives.sum();
+        return total == 0 ? 0 : (double) falsePositives.sum() / total;
+    }
+
+    /** Completed builds, including the first, since enable. */
+    long buildCount() {
+        return builds.sum();
+    }
+
+    /**
+     * Negative-cache tuning, read from {@code database.negative-cache}.
+     * Immutable.
+     */
+    static final class Settings {
+
+        static final boolean DEFAULT_ENABLED = true;
+        static final long DEFAULT_EXPECTED_OPT_OUTS = 10_000;
+        static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+        static final long DEFAULT_REBUILD_INTERVAL_MINUTES = 10;
+
+        private final boolean enabled;
+        private final long expectedOptOuts;
+        private final double falsePositiveRate;
+        private final long rebuildIntervalMinutes;
+
+        /**
+         * @param enabled                Put the filter in front of join lookups
+         * @param expectedOptOuts        Opted-out players the first build is sized for (must be positive)
+         * @param falsePositiveRate      Target rate at that size (must be between 0 and 1, exclusive)
+         * @param rebuildIntervalMinutes Time between rebuilds (must be positive)
+         * @throws IllegalArgumentException if any parameter is out of range
+         */
+        Settings(boolean enabled, long expectedOptOuts, double falsePositiveRate, long rebuildIntervalMinutes) {
+            if (expectedOptOuts <= 0) {
+                throw new IllegalArgumentException("expectedOptOuts must be positive, got: " + expectedOptOuts);
+            }
+            if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+                throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1, got: " + falsePositiveRate);
+            }
+            if (rebuildIntervalMinutes <= 0) {
+                throw new IllegalArgumentException("rebuildIntervalMinutes must be positive, got: " + rebuildIntervalMinutes);
+            }
+            this.enabled = enabled;
+            this.expectedOptOuts = expectedOptOuts;
+            this.falsePositiveRate = falsePositiveRate;
+            this.rebuildIntervalMinutes = rebuildIntervalMinutes;
+        }
+
+        /** No filter: every join lookup queries the database. */
+        static Settings disabled() {
+            return new Settings(false, DEFAULT_EXPECTED_OPT_OUTS, DEFAULT_FALSE_POSITIVE_RATE,
+                DEFAULT_REBUILD_INTERVAL_MINUTES);
+        }
+
+        /**
+         * Reads {@code enabled}, {@code expected-opt-outs},
+         * {@code false-positive-rate} and {@code rebuild-interval-minutes};
+         * out-of-range values log a warning and fall back to the default.
+         *
+         * @param section The {@code database.negative-cache} section, or null for defaults
+         * @param logger  Receives warnings for out-of-range values
+         * @return The parsed settings
+         */
+        static Settings fromConfig(ConfigurationSection section, Logger logger) {
+            if (section == null) {
+                return new Settings(DEFAULT_ENABLED, DEFAULT_EXPECTED_OPT_OUTS, DEFAULT_FALSE_POSITIVE_RATE,
+                    DEFAULT_REBUILD_INTERVAL_MINUTES);
+            }
+            return new Settings(
+                section.getBoolean("enabled", DEFAULT_ENABLED),
+                ConfigRanges.validate(logger, "negative-cache.expected-opt-outs",
+                    section.getLong("expected-opt-outs", DEFAULT_EXPECTED_OPT_OUTS), 100, 10_000_000,
+                    DEFAULT_EXPECTED_OPT_OUTS),
+                ConfigRanges.validate(logger, "negative-cache.false-positive-rate",
+                    section.getDouble("false-positive-rate", DEFAULT_FALSE_POSITIVE_RATE), 0.0001, 0.5,
+                    DEFAULT_FALSE_POSITIVE_RATE),
+                ConfigRanges.validate(logger, "negative-cache.rebuild-interval-minutes",
+                    section.getLong("rebuild-interval-minutes", DEFAULT_REBUILD_INTERVAL_MINUTES), 1, 1_440,
+                    DEFAULT_REBUILD_INTERVAL_MINUTES));
+        }
+
+        boolean enabled() {
+            return enabled;
+        }
+
+        long expectedOptOuts() {
+            return expectedOptOuts;
+        }
+
+        double falsePositiveRate() {
+            return falsePositiveRate;
+        }
+
+        long rebuildIntervalMinutes() {
+            return rebuildIntervalMinutes;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+
+/**
+ * Tuning for opt-out persistence, read from the {@code database} config
+ * section at enable: write-behind, the storage executor, preloading, and
+ * the settings of the optional read paths and sync. Immutable; the
+ * {@code with*} methods return modified copies.
+ *
+ * <p>Out-of-range values log a warning and fall back to the default (see
+ * {@link ConfigRanges}), matching how {@link DatabaseManager} treats the
+ * MySQL pool settings.</p>
+ */
+final class OptOutSettings {
+
+    static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+    static final int DEFAULT_BATCH_SIZE = 100;
+    static final long DEFAULT_SHUTDOWN_TIMEOUT_MILLIS = 5000;
+    static final long DEFAULT_JOIN_BATCH_WINDOW_MILLIS = 50;
+    /** Storage threads; 0 matches the connection pool size. */
+    static final int DEFAULT_STORAGE_THREADS = 0;
+    static final int DEFAULT_STORAGE_QUEUE_CAPACITY = 1000;
+    static final boolean DEFAULT_STORAGE_VIRTUAL_THREADS = true;
+    static final boolean DEFAULT_PRELOAD = false;
+
+    private final long flushIntervalMillis;
+    private final int batchSize;
+    private final long shutdownTimeoutMillis;
+    private final long joinBatchWindowMillis;
+    private final int storageThreads;
+    private final int storageQueueCapacity;
+    private final boolean storageVirtualThreads;
+    private final boolean preload;
+    private final OptOutNegativeCache.Settings negativeCache;
+    private final OfflineOptOutCache.Settings offlineCache;
+    private final ReadCoalescer.Settings readCoalescing;
+    private final OptOutChangeFeed.Settings sync;
+
+    /**
+     * @param flushIntervalMillis Longest a change waits in the write-behind
+     *                            queue before it is flushed (0 = next tick)
+     * @param batchSize           Pending changes that trigger an immediate
+     *                            flush; also the rows per JDBC batch
+     * @param shutdownTimeoutMillis How long disable waits to write the queued
+     *                              changes (and finish other database calls)
+     * @param joinBatchWindowMillis How long joins are collected before their
+     *                              opt-out states are loaded in one query
+     * @param storageThreads        Threads running database calls (see
+     *                              {@link AsyncStorage}); 0 = one per pooled
+     *                              connection
+     * @param storageQueueCapacity  Database calls that may wait for a thread
+     *                              before new ones are rejected
+     * @param storageVirtualThreads Run each database call on a virtual thread
+     *                              when the runtime supports it (Java 21+)
+     * @param preload               Load every opted-out player at startup and
+     *                              keep them all in memory, so joins need no
+     *                              query and offline players resolve too
+     * @param negativeCache         Bloom filter in front of join lookups
+     *                              (must not be null; ignored when preloading)
+     * @param offlineCache          Loads for offline players (must not be
+     *                              null; ignored when preloading)
+     * @param readCoalescing        Whether and how database reads are shared
+     *                              and batched (must not be null)
+     * @param sync                  Cross-server change log and feed (must not be null)
+     */
+    private OptOutSettings(long flushIntervalMillis, int batchSize, long shutdownTimeoutMillis,
+                           long joinBatchWindowMillis, int storageThreads, int storageQueueCapacity,
+                           boolean storageVirtualThreads, boolean preload,
+                           OptOutNegativeCache.Settings negativeCache, OfflineOptOutCache.Settings offlineCache,
+                           ReadCoalescer.Settings readCoalescing, OptOutChangeFeed.Settings sync) {
+        if (flushIntervalMillis < 0) {
+            throw new IllegalArgumentException("flushIntervalMillis must not be negative, got: " + flushIntervalMillis);
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive, got: " + batchSize);
+        }
+        if (shutdownTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("shutdownTimeoutMillis must be positive, got: " + shutdownTimeoutMillis);
+        }
+        if (joinBatchWindowMillis < 0) {
+            throw new IllegalArgumentException("joinBatchWindowMillis must not be negative, got: " + joinBatchWindowMillis);
+        }
+        if (storageThreads < 0) {
+            throw new IllegalArgumentException("storageThreads must not be negative, got: " + storageThreads);
+        }
+        if (storageQueueCapacity <= 0) {
+            throw new IllegalArgumentException("storageQueueCapacity must be positive, got: " + storageQueueCapacity);
+        }
+        if (negativeCache == null) {
+            throw new IllegalArgumentException("negativeCache cannot be null");
+        }
+        if (offlineCache == null) {
+            throw new IllegalArgumentException("offlineCache cannot be null");
+        }
+        if (readCoalescing == null) {
+            throw new IllegalArgumentException("readCoalescing cannot be null");
+        }
+        if (sync == null) {
+            throw new IllegalArgumentException("sync cannot be null");
+        }
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.batchSize = batchSize;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.joinBatchWindowMillis = joinBatchWindowMillis;
+        this.storageThreads = storageThreads;
+        this.storageQueueCapacity = storageQueueCapacity;
+        this.storageVirtualThreads = storageVirtualThreads;
+        this.preload = preload;
+        this.negativeCache = negativeCache;
+        this.offlineCache = offlineCache;
+        this.readCoalescing = readCoalescing;
+        this.sync = sync;
+    }
+
+    /**
+     * Default tuning with the negative cache, offline loads and sync off;
+     * used when the config is not consulted.
+     */
+    static OptOutSettings defaults() {
+        return new OptOutSettings(DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_BATCH_SIZE, DEFAULT_SHUTDOWN_TIMEOUT_MILLIS,
+            DEFAULT_JOIN_BATCH_WINDOW_MILLIS, DEFAULT_STORAGE_THREADS, DEFAULT_STORAGE_QUEUE_CAPACITY,
+            DEFAULT_STORAGE_VIRTUAL_THREADS, DEFAULT_PRELOAD, OptOutNegativeCache.Settings.disabled(),
+            OfflineOptOutCache.Settings.disabled(), ReadCoalescer.Settings.defaults(),
+            OptOutChangeFeed.Settings.disabled());
+    }
+
+    /**
+     * Reads {@code write-behind.*}, {@code join-batch-window-ms},
+     * {@code executor.*} and {@code preload-opt-outs} from the
+     * {@code database} section, and the {@code negative-cache},
+     * {@code offline-cache}, {@code read-coalescing} and {@code sync}
+     * subsections through their own parsers.
+     *
+     * @param database The {@code database} config section, or null for defaults
+     * @param logger   Receives warnings for out-of-range values
+     * @return The parsed settings
+     */
+    static OptOutSettings fromConfig(ConfigurationSection database, Logger logger) {
+        // No section: every key and subsection reads as its default
+        final ConfigurationSection section = database != null ? database : new MemoryConfiguration();
+        return new OptOutSettings(
+            ConfigRanges.validate(logger, "write-behind.flush-interval-ms",
+                section.getLong("write-behind.flush-interval-ms", DEFAULT_FLUSH_INTERVAL_MILLIS), 0, 60_000,
+                DEFAULT_FLUSH_INTERVAL_MILLIS),
+            (int) ConfigRanges.validate(logger, "write-behind.batch-size",
+                section.getInt("write-behind.batch-size", DEFAULT_BATCH_SIZE), 1, 1_000, DEFAULT_BATCH_SIZE),
+            ConfigRanges.validate(logger, "write-behind.shutdown-timeout-ms",
+                section.getLong("write-behind.shutdown-timeout-ms", DEFAULT_SHUTDOWN_TIMEOUT_MILLIS), 100, 60_000,
+                DEFAULT_SHUTDOWN_TIMEOUT_MILLIS),
+            ConfigRanges.validate(logger, "join-batch-window-ms",
+                section.getLong("join-batch-window-ms", DEFAULT_JOIN_BATCH_WINDOW_MILLIS), 0, 1_000,
+                DEFAULT_JOIN_BATCH_WINDOW_MILLIS),
+            (int) ConfigRanges.validate(logger, "executor.threads",
+                section.getInt("executor.threads", DEFAULT_STORAGE_THREADS), 0, 64, DEFAULT_STORAGE_THREADS),
+            (int) ConfigRanges.validate(logger, "executor.queue-capacity",
+                section.getInt("executor.queue-capacity", DEFAULT_STORAGE_QUEUE_CAPACITY), 10, 100_000,
+                DEFAULT_STORAGE_QUEUE_CAPACITY),
+            section.getBoolean("executor.virtual-threads", DEFAULT_STORAGE_VIRTUAL_THREADS),
+            section.getBoolean("preload-opt-outs", DEFAULT_PRELOAD),
+            OptOutNegativeCache.Settings.fromConfig(section.getConfigurationSection("negative-cache"), logger),
+            OfflineOptOutCache.Settings.fromConfig(section.getConfigurationSection("offline-cache"), logger),
+            ReadCoalescer.Settings.fromConfig(section.getConfigurationSection("read-coalescing"), logger),
+            OptOutChangeFeed.Settings.fromConfig(section.getConfigurationSection("sync"), logger));
+    }
+
+    /** A copy that flushes after {@code flushIntervalMillis} or {@code batchSize} changes. */
+    OptOutSettings withWriteBehind(long flushIntervalMillis, int batchSize) {
+        return new OptOutSettings(flushIntervalMillis, batchSize, shutdownTimeoutMillis, joinBatchWindowMillis,
+            storageThreads, storageQueueCapacity, storageVirtualThreads, preload, negativeCache, offlineCache,
+            readCoalescing, sync);
+    }
+
+    /** A copy with the full opt-out preload on or off. */
+    OptOutSettings withPreload(boolean preload) {
+        return new OptOutSettings(flushIntervalMillis, batchSize, shutdownTimeoutMillis, joinBatchWindowMillis,
+            storageThreads, storageQueueCapacity, storageVirtualThreads, preload, negativeCache, offlineCache,
+            readCoalescing, sync);
+    }
+
+    /** A copy with the given negative cache settings. */
+    OptOutSettings withNegativeCache(OptOutNegativeCache.Settings negativeCache) {
+        return new OptOutSettings(flushIntervalMillis, batchSize, shutdownTimeoutMillis, joinBatchWindowMillis,
+            storageThreads, storageQueueCapacity, storageVirtualThreads, preload, negativeCache, offlineCache,
+            readCoalescing, sync);
+    }
+
+    /** A copy with the given offline cache settings. */
+    OptOutSettings withOfflineCache(OfflineOptOutCache.Settings offlineCache) {
+        return new OptOutSettings(flushIntervalMillis, batchSize, shutdownTimeoutMillis, joinBatchWindowMillis,
+            storageThreads, storageQueueCapacity, storageVirtualThreads, preload, negativeCache, offlineCache,
+            readCoalescing, sync);
+    }
+
+    /** A copy with the given read coalescing settings. */
+    OptOutSettings withReadCoalescing(ReadCoalescer.Settings readCoalescing) {
+        return new OptOutSettings(flushIntervalMillis, batchSize, shutdownTimeoutMillis, joinBatchWindowMillis,
+            storageThreads, storageQueueCapacity, storageVirtualThreads, preload, negativeCache, offlineCache,
+            readCoalescing, sync);
+    }
+
+    /** A copy with the given sync settings. */
+    OptOutSettings withSync(OptOutChangeFeed.Settings sync) {
+        return new OptOutSettings(flushIntervalMillis, batchSize, shutdownTimeoutMillis, joinBatchWindowMillis,
+            storageThreads, storageQueueCapacity, storageVirtualThreads, preload, negativeCache, offlineCache,
+            readCoalescing, sync);
+    }
+
+    long flushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    int batchSize() {
+        return batchSize;
+    }
+
+    long shutdownTimeoutMillis() {
+        return shutdownTimeoutMillis;
+    }
+
+    long joinBatchWindowMillis() {
+        return joinBatchWindowMillis;
+    }
+
+    int storageThreads() {
+        return storageThreads;
+    }
+
+    int storageQueueCapacity() {
+        return storageQueueCapacity;
+    }
+
+    boolean storageVirtualThreads() {
+        return storageVirtualThreads;
+    }
+
+    boolean preload() {
+        return preload;
+    }
+
+    OptOutNegativeCache.Settings negativeCache() {
+        return negativeCache;
+    }
+
+    OfflineOptOutCache.Settings offlineCache() {
+        return offlineCache;
+    }
+
+    ReadCoalescer.Settings readCoalescing() {
+        return readCoalescing;
+    }
+
+    OptOutChangeFeed.Settings sync() {
+        return sync;
+    }
+}
@@ -0,0 +1,412 @@
+package com.goobercraft.stormtrooperx;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Warm-restart snapshot of every opted-out player, written on disable and
+ * memory-mapped on the next enable so joins can be answered before the
+ * database is reachable.
+ *
+ * <p>Each file is a 48-byte header (magic, format version, generation, the
+ * table's {@link Watermark}, entry count and a CRC32 of everything else)
+ * followed by the UUIDs as sorted pairs of longs, 16 bytes each.
+ * {@link #contains} binary-searches the mapped entries with absolute reads,
+ * so it allocates nothing and is safe from any thread.</p>
+ *
+ * <p>Two slot files alternate: a write goes to the slot that is not mapped,
+ * and loading picks the valid slot with the highest generation. A crash
+ * mid-write therefore leaves the previous snapshot intact, and a mapped
+ * file is never truncated or replaced (which Windows refuses).</p>
+ */
+final class OptOutSnapshot {
+
+    static final int MAGIC = 0x53545853; // "STXS"
+    // 2 added the change-log sequence to the watermark
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 2 * Integer.BYTES + 4 * Long.BYTES + 2 * Integer.BYTES;
+    static final int ENTRY_BYTES = 2 * Long.BYTES;
+    static final String[] SLOT_FILES = {"optout-snapshot-0.dat", "optout-snapshot-1.dat"};
+
+    // Largest entry count a single mapping can hold
+    private static final int MAX_ENTRIES = (Integer.MAX_VALUE - HEADER_BYTES) / ENTRY_BYTES;
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    private static final Comparator<UUID> ORDER = Comparator.comparingLong(UUID::getMostSignificantBits)
+        .thenComparingLong(UUID::getLeastSignificantBits);
+
+    private final Logger logger;
+    private final Path directory;
+
+    // Entries of the loaded snapshot; null when none was loaded or it was released.
+    private volatile MappedByteBuffer entries;
+    private int loadedSlot = -1;
+    private int size;
+    private long generation;
+    private Watermark watermark;
+    // Highest generation seen in either slot, valid or not
+    private long latestGeneration;
+
+    /**
+     * Maps the newest valid snapshot in {@code directory}, if any. Missing
+     * slots are skipped silently; corrupt ones with a warning.
+     *
+     * @param logger    Logger instance (must not be null)
+     * @param directory Folder holding the slot files; must exist
+     * @throws IllegalArgumentException if logger or directory is null
+     */
+    OptOutSnapshot(Logger logger, Path directory) {
+        if (logger == null) {
+            throw new IllegalArgumentException("logger cannot be null");
+        }
+        if (directory == null) {
+            throw new IllegalArgumentException("directory cannot be null");
+        }
+        this.logger = logger;
+        this.directory = directory;
+        load();
+    }
+
+    private void load() {
+        final Header[] headers = new Header[SLOT_FILES.length];
+        for (int slot = 0; slot < SLOT_FILES.length; slot++) {
+            headers[slot] = readHeader(directory.resolve(SLOT_FILES[slot]));
+            if (headers[slot] != null) {
+                latestGeneration = Math.max(latestGeneration, headers[slot].generation);
+            }
+        }
+        // Newest first; fall back to the older slot if the newer one is corrupt
+        final int newer = headers[1] != null && (headers[0] == null || headers[1].generation > headers[0].generation)
+            ? 1 : 0;
+        for (int slot : new int[] {newer, 1 - newer}) {
+            if (headers[slot] != null && map(slot, headers[slot])) {
+                return;
+            }
+        }
+    }
+
+    private Header readHeader(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(HEADER_BYTES, channel.size()));
+            readFully(channel, buffer, 0);
+            if (buffer.remaining() >= 2 * Integer.BYTES && buffer.getInt(0) == MAGIC
+                    && buffer.getInt(Integer.BYTES) != VERSION) {
+                // Written by another plugin version; the next disable writes a current one
+                logger.info("Ignoring opt-out snapshot " + file.getFileName() + " in format version "
+                    + buffer.getInt(Integer.BYTES));
+                return null;
+            }
+            final Header header = buffer.remaining() < HEADER_BYTES ? null : Header.read(buffer);
+            if (header == null || channel.size() != HEADER_BYTES + (long) header.count * ENTRY_BYTES) {
+                logger.warning("Ignoring opt-out snapshot " + file.getFileName() + ": bad header or size");
+                return null;
+            }
+            return header;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Ignoring unreadable opt-out snapshot " + file.getFileName(), e);
+            return null;
+        }
+    }
+
+    /** Checks the slot's CRC with plain reads, then maps its entries. */
+    private boolean map(int slot, Header header) {
+        final Path file = directory.resolve(SLOT_FILES[slot]);
+        final MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final CRC32 crc = new CRC32();
+            header.updateChecksum(crc);
+            final long end = HEADER_BYTES + (long) header.count * ENTRY_BYTES;
+            final ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES);
+            for (long position = HEADER_BYTES; position < end; position += chunk.limit()) {
+                chunk.clear().limit((int) Math.min(CHUNK_BYTES, end - position));
+                readFully(channel, chunk, position);
+                crc.update(chunk.array(), 0, chunk.limit());
+            }
+            if ((int) crc.getValue() != header.checksum) {
+                logger.warning("Ignoring opt-out snapshot " + file.getFileName() + ": checksum mismatch");
+                return false;
+            }
+            // Stays valid after the channel is closed
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, end - HEADER_BYTES);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Ignoring unreadable opt-out snapshot " + file.getFileName(), e);
+            return false;
+        }
+        loadedSlot = slot;
+        size = header.count;
+        generation = header.generation;
+        watermark = header.watermark;
+        // Published last: the volatile write makes the fields above visible
+        entries = mapped;
+        return true;
+    }
+
+    /** Whether a valid snapshot was mapped at construction and not yet released. */
+    boolean isLoaded() {
+        return entries != null;
+    }
+
+    /**
+     * Whether the snapshot lists the player as opted out.
+     *
+     * @param playerUUID Player's UUID
+     * @return true if present; false if absent or nothing is loaded
+     */
+    boolean contains(UUID playerUUID) {
+        final MappedByteBuffer mapped = entries;
+        if (mapped == null) {
+            return false;
+        }
+        final long msb = playerUUID.getMostSignificantBits();
+        final long lsb = playerUUID.getLeastSignificantBits();
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int offset = mid * ENTRY_BYTES;
+            int cmp = Long.compare(mapped.getLong(offset), msb);
+            if (cmp == 0) {
+                cmp = Long.compare(mapped.getLong(offset + Long.BYTES), lsb);
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Passes every player in the loaded snapshot to {@code sink}, in order.
+     *
+     * @param sink Receives each UUID
+     */
+    void forEach(Consumer<UUID> sink) {
+        final MappedByteBuffer mapped = entries;
+        if (mapped == null) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            final int offset = i * ENTRY_BYTES;
+            sink.accept(new UUID(mapped.getLong(offset), mapped.getLong(offset + Long.BYTES)));
+        }
+    }
+
+    /**
+     * Drops the mapping once nothing answers from it any more. The OS unmaps
+     * it when the buffer is collected.
+     */
+    void release() {
+        entries = null;
+    }
+
+    /** Players in the loaded snapshot. */
+    int size() {
+        return size;
+    }
+
+    /** Generation of the loaded snapshot, or 0 if none was loaded. */
+    long generation() {
+        return generation;
+    }
+
+    /** Table state the loaded snapshot was taken at, or null if none was loaded. */
+    Watermark watermark() {
+        return watermark;
+    }
+
+    /**
+     * Writes a new generation to the slot that is not mapped and fsyncs it.
+     * Sorts (and deduplicates) {@code optedOut} in place.
+     *
+     * @param optedOut  Every opted-out player, read no earlier than {@code watermark}
+     * @param watermark Table state read just before {@code optedOut}
+     * @return the new generation, or -1 if the write failed (logged; the previous
+     *         snapshot stays the newest valid one)
+     */
+    synchronized long write(List<UUID> optedOut, Watermark watermark) {
+        optedOut.sort(ORDER);
+        int count = 0;
+        for (int i = 0; i < optedOut.size(); i++) {
+            if (count == 0 || !optedOut.get(i).equals(optedOut.get(count - 1))) {
+                optedOut.set(count++, optedOut.get(i));
+            }
+        }
+        if (count > MAX_ENTRIES) {
+            logger.warning("Not writing an opt-out snapshot: " + count + " players exceed the limit of " + MAX_ENTRIES);
+            return -1;
+        }
+
+        final long nextGeneration = latestGeneration + 1;
+        final int slot = loadedSlot < 0 ? (int) (nextGeneration % 2) : 1 - loadedSlot;
+        final Path file = directory.resolve(SLOT_FILES[slot]);
+        final Header header = new Header(nextGeneration, watermark, count, 0);
+        final CRC32 crc = new CRC32();
+        header.updateChecksum(crc);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES);
+            long position = HEADER_BYTES;
+            for (int i = 0; i < count; i++) {
+                chunk.putLong(optedOut.get(i).getMostSignificantBits());
+                chunk.putLong(optedOut.get(i).getLeastSignificantBits());
+                if (!chunk.hasRemaining() || i == count - 1) {
+                    chunk.flip();
+                    crc.update(chunk.array(), 0, chunk.limit());
+                    position += writeFully(channel, chunk, position);
+                    chunk.clear();
+                }
+            }
+            // Header last: a crash before this leaves a slot that fails validation
+            final ByteBuffer headerBytes = new Header(nextGeneration, watermark, count, (int) crc.getValue()).write();
+            writeFully(channel, headerBytes, 0);
+            channel.force(true);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to write opt-out snapshot " + file.getFileName(), e);
+            return -1;
+        }
+        latestGeneration = nextGeneration;
+        return nextGeneration;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Unexpected end of opt-out snapshot");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        final int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+        return length;
+    }
+
+    /**
+     * State of {@code player_optouts} a snapshot was taken at: row count,
+     * latest {@code updated_at}, and the newest change-log sequence number
+     * when cross-server sync keeps the log. Every write advances the
+     * sequence. Without the log, a write or delete changes the count or the
+     * timestamp, except for a delete plus an insert within the same
+     * {@code updated_at} tick: one second on MySQL, whose {@code TIMESTAMP}
+     * has no fraction. Immutable.
+     */
+    static final class Watermark {
+        private final long rowCount;
+        private final long maxUpdatedNanos;
+        private final long changeSeq;
+
+        /** A watermark of a database that keeps no change log. */
+        Watermark(long rowCount, long maxUpdatedNanos) {
+            this(rowCount, maxUpdatedNanos, -1);
+        }
+
+        /**
+         * @param rowCount        Rows in the table
+         * @param maxUpdatedNanos Latest {@code updated_at} as epoch nanoseconds, 0 if empty
+         * @param changeSeq       Newest change-log sequence number, 0 if the log is
+         *                        empty, or -1 if no change log is kept
+         */
+        Watermark(long rowCount, long maxUpdatedNanos, long changeSeq) {
+            this.rowCount = rowCount;
+            this.maxUpdatedNanos = maxUpdatedNanos;
+            this.changeSeq = changeSeq;
+        }
+
+        long rowCount() {
+            return rowCount;
+        }
+
+        long maxUpdatedNanos() {
+            return maxUpdatedNanos;
+        }
+
+        long changeSeq() {
+            return changeSeq;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Watermark watermark
+                && watermark.rowCount == rowCount && watermark.maxUpdatedNanos == maxUpdatedNanos
+                && watermark.changeSeq == changeSeq;
+        }
+
+        @Override
+        public int hashCode() {
+            return (Long.hashCode(rowCount) * 31 + Long.hashCode(maxUpdatedNanos)) * 31 + Long.hashCode(changeSeq);
+        }
+
+        @Override
+        public String toString() {
+            return rowCount + " rows, last updated at " + maxUpdatedNanos
+                + (changeSeq < 0 ? "" : ", change " + changeSeq);
+        }
+    }
+
+    /** The fixed-size file header. */
+    private static final class Header {
+        final long generation;
+        final Watermark watermark;
+        final int count;
+        final int checksum;
+
+        Header(long generation, Watermark watermark, int count, int checksum) {
+            this.generation = generation;
+            this.watermark = watermark;
+            this.count = count;
+            this.checksum = checksum;
+        }
+
+        /** Parses a header, or returns null if it is not one this version wrote. */
+        static Header read(ByteBuffer buffer) {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            final long generation = buffer.getLong();
+            final Watermark watermark = new Watermark(buffer.getLong(), buffer.getLong(), buffer.getLong());
+            final int count = buffer.getInt();
+            if (count < 0 || count > MAX_ENTRIES) {
+                return null;
+            }
+            return new Header(generation, watermark, count, buffer.getInt());
+        }
+
+        ByteBuffer write() {
+            final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(generation)
+                .putLong(watermark.rowCount).putLong(watermark.maxUpdatedNanos).putLong(watermark.changeSeq)
+                .putInt(count).putInt(checksum);
+            return buffer.flip();
+        }
+
+        /** Feeds every header field but the checksum itself. */
+        void updateChecksum(CRC32 crc) {
+            final ByteBuffer bytes = write();
+            crc.update(bytes.array(), 0, HEADER_BYTES - Integer.BYTES);
+        }
+    }
+}
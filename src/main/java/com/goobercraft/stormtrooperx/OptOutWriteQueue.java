@@ -0,0 +1,520 @@
+package com.goobercraft.stormtrooperx;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.goobercraft.stormtrooperx.scheduler.PluginScheduler;
+
+/**
+ * Write-behind queue for opt-out persistence.
+ *
+ * <p>Changes are coalesced per player — only the latest state is kept — and
+ * flushed asynchronously as JDBC batches through
+ * {@link DatabaseManager#setOptOuts(Map)}. A flush is triggered when
+ * {@code batchSize} players are pending, or {@code flushIntervalMillis} after
+ * the first change since the last flush, whichever comes first. Toggle spam
+ * therefore costs one row per player per flush instead of one round-trip per
+ * click. Flushes run on {@link AsyncStorage}'s executor; if it is saturated
+ * the changes simply stay queued until the next interval.</p>
+ *
+ * <p>Flushes are serialized on one lock so a newer state can never be
+ * overwritten by an older flush still in flight. A failed batch is put back
+ * unless a newer change for the same player arrived meanwhile, and retried on
+ * the next flush.</p>
+ *
+ * <p>A change stays visible to {@link #pendingState} until its batch has
+ * committed or been put back: it moves from the queue to an in-flight map
+ * before the queue entry is removed, and leaves that map only afterwards.
+ * So a lookup that reads the database while the batch is being written,
+ * retries included, still sees the queued change win.</p>
+ *
+ * <p>With an {@link OptOutJournal}, a failed batch is also appended to the
+ * local journal, so a database outage followed by a restart loses nothing:
+ * {@link #recover} queues the journaled changes again on the next start,
+ * and the journal is compacted once they are written. Each player's change is
+ * journaled once per state, not on every retry.</p>
+ *
+ * <p>On disable, {@link #drain} stops all further async flushes and writes
+ * whatever is pending as one batch, giving up after a deadline so a dead
+ * database cannot stall the shutdown.</p>
+ */
+final class OptOutWriteQueue {
+
+    private final Logger logger;
+    private final DatabaseManager databaseManager;
+    private final PluginScheduler scheduler;
+    private final AsyncStorage storage;
+    private final long flushIntervalMillis;
+    private final int batchSize;
+    private final OptOutJournal journal;
+
+    private final ConcurrentHashMap<UUID, Boolean> pending = new ConcurrentHashMap<>();
+    // Changes taken from pending whose batch has not committed or been put back yet.
+    private final ConcurrentHashMap<UUID, Boolean> inFlight = new ConcurrentHashMap<>();
+    // Set while a delayed flush is armed, so a burst of changes arms one timer.
+    private final AtomicBoolean flushArmed = new AtomicBoolean();
+    // Set while a size-triggered flush is queued, so a burst dispatches one task.
+    private final AtomicBoolean sizeFlushQueued = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    // Guarded by flushLock; stops an inline scheduler from re-entering flush().
+    private boolean flushing;
+    // Guarded by flushLock; a flush wrote journaled changes, so compact after it.
+    private boolean journalStale;
+    // Set by drain(); timers and size triggers then stop dispatching flushes.
+    private volatile boolean closed;
+    // Latest journaled state per player not yet written to the database.
+    // Updates that touch the journal file lock it, so the file follows the map.
+    private final ConcurrentHashMap<UUID, Boolean> journaled = new ConcurrentHashMap<>();
+    // Set when drain() gives up on an in-flight batch; from then on the journal
+    // is only appended to, so that batch cannot compact away later changes.
+    private volatile boolean abandoned;
+    // Guarded by journaled; written states that differ from a journaled one.
+    private final Map<UUID, Boolean> superseded = new HashMap<>();
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder flushNanosTotal = new LongAdder();
+    private volatile long lastFlushNanos;
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    /**
+     * @param scheduler Arms the interval timer
+     * @param storage   Runs the flushes
+     */
+    OptOutWriteQueue(Logger logger, DatabaseManager databaseManager, PluginScheduler scheduler,
+                     AsyncStorage storage, OptOutSettings settings) {
+        this(logger, databaseManager, scheduler, storage, settings, null);
+    }
+
+    /**
+     * @param scheduler Arms the interval timer
+     * @param storage   Runs the flushes
+     * @param journal   Keeps failed changes across restarts, or null to keep
+     *                  them in memory only
+     */
+    OptOutWriteQueue(Logger logger, DatabaseManager databaseManager, PluginScheduler scheduler,
+                     AsyncStorage storage, OptOutSettings settings, OptOutJournal journal) {
+        this.logger = logger;
+        this.databaseManager = databaseManager;
+        this.scheduler = scheduler;
+        this.storage = storage;
+        this.flushIntervalMillis = settings.flushIntervalMillis();
+        this.batchSize = settings.batchSize();
+        this.journal = journal;
+    }
+
+    /**
+     * Queues changes recovered from the journal on startup. A change queued
+     * since then for the same player wins. They are written in regular
+     * batches, and are not journaled again if the database is still down.
+     *
+     * @param changes Player UUID to opt-out state
+     */
+    void recover(Map<UUID, Boolean> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        journaled.putAll(changes);
+        for (Map.Entry<UUID, Boolean> entry : changes.entrySet()) {
+            if (pending.putIfAbsent(entry.getKey(), entry.getValue()) == null) {
+                enqueued.increment();
+            }
+        }
+        armFlush();
+    }
+
+    /**
+     * Queues a player's new state, replacing any not-yet-flushed state.
+     *
+     * @param playerUUID Player's UUID (must not be null)
+     * @param optedOut   New opt-out state
+     */
+    void enqueue(UUID playerUUID, boolean optedOut) {
+        enqueued.increment();
+        if (pending.put(playerUUID, optedOut) != null) {
+            coalesced.increment();
+        }
+        if (closed) {
+            // Only drain() writes from here on
+            return;
+        }
+        if (pending.size() >= batchSize) {
+            if (sizeFlushQueued.compareAndSet(false, true)) {
+                storage.run(() -> {
+                    sizeFlushQueued.set(false);
+                    if (!closed) {
+                        flush();
+                    }
+                }).whenComplete((ignored, error) -> {
+                    if (error != null && storage.isSaturated(error)) {
+                        // Executor saturated: leave it to the interval flush
+                        sizeFlushQueued.set(false);
+                        armFlush();
+                    }
+                });
+            }
+            return;
+        }
+        armFlush();
+    }
+
+    private void armFlush() {
+        if (!closed && flushArmed.compareAndSet(false, true)) {
+            scheduler.runAsyncLater(() -> {
+                flushArmed.set(false);
+                if (closed) {
+                    return;
+                }
+                storage.run(this::flush).whenComplete((ignored, error) -> {
+                    if (error != null && storage.isSaturated(error)) {
+                        armFlush();
+                    }
+                });
+            }, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes every pending change, in batches of at most {@code batchSize}.
+     * Blocks while another flush is in progress. Safe from any thread.
+     *
+     * @return true if nothing failed
+     */
+    boolean flush() {
+        return flush(batchSize);
+    }
+
+    private boolean flush(int maxBatch) {
+        boolean failed = false;
+        synchronized (flushLock) {
+            if (flushing) {
+                // Re-entered from a failed flush's retry on an inline scheduler;
+                // the batch stays queued for the next change or shutdown.
+                return false;
+            }
+            flushing = true;
+            try {
+                Map<UUID, Boolean> batch = new LinkedHashMap<>();
+                for (Map.Entry<UUID, Boolean> entry : pending.entrySet()) {
+                    // In flight before it leaves pending, so pendingState never misses it
+                    inFlight.put(entry.getKey(), entry.getValue());
+                    // remove(key, value) skips entries that changed since iteration
+                    // read them; the newer state stays pending for the next flush.
+                    if (pending.remove(entry.getKey(), entry.getValue())) {
+                        batch.put(entry.getKey(), entry.getValue());
+                    } else {
+                        inFlight.remove(entry.getKey(), entry.getValue());
+                    }
+                    if (batch.size() >= maxBatch) {
+                        failed |= !writeBatch(batch);
+                        batch = new LinkedHashMap<>();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    failed |= !writeBatch(batch);
+                }
+                if (journalStale) {
+                    compactJournal();
+                }
+                if (failed) {
+                    // Armed while still flushing: an inline scheduler's retry hits
+                    // the guard above instead of recursing on a dead database.
+                    armFlush();
+                }
+            } finally {
+                flushing = false;
+            }
+        }
+        return !failed;
+    }
+
+    /**
+     * Stops async flushing for good, then writes every pending change in a
+     * single batch on a dedicated thread — after any flush already in
+     * flight — and waits at most {@code timeoutMillis} for it.
+     *
+     * <p>A batch still running at the deadline is left to finish or fail on
+     * its own; its changes are reported as dropped, since the caller is
+     * about to close the pool underneath it. With a journal, every change not
+     * confirmed written is journaled before returning, for the next start.</p>
+     *
+     * @param timeoutMillis Longest to wait (must be positive)
+     * @return what was written and what was not
+     */
+    DrainResult drain(long timeoutMillis) {
+        closed = true;
+        final long start = System.nanoTime();
+        final int queued = pending.size();
+        final long rowsBefore = rowsWritten.sum();
+        final Map<UUID, Boolean> snapshot = journal == null ? Map.of() : new HashMap<>(pending);
+
+        final CompletableFuture<Boolean> written = new CompletableFuture<>();
+        final Thread drainer = new Thread(() -> {
+            try {
+                written.complete(flush(Integer.MAX_VALUE));
+            } catch (RuntimeException e) {
+                written.completeExceptionally(e);
+            }
+        }, "StormtrooperX-drain");
+        drainer.setDaemon(true);
+        drainer.start();
+
+        boolean timedOut = false;
+        try {
+            written.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            timedOut = true;
+        } catch (ExecutionException e) {
+            logger.log(Level.WARNING, "Failed to drain queued opt-out changes", e.getCause());
+        }
+
+        final long flushed = rowsWritten.sum() - rowsBefore;
+        // Mid-batch at the deadline: nothing unconfirmed counts as written.
+        final long dropped = timedOut ? Math.max(0, queued - flushed) : pending.size();
+        long saved = 0;
+        if (journal != null && dropped > 0) {
+            final Map<UUID, Boolean> unconfirmed = new LinkedHashMap<>();
+            if (timedOut) {
+                synchronized (journaled) {
+                    abandoned = true;
+                }
+                unconfirmed.putAll(snapshot);
+            }
+            // Changes queued since close() are newer than the snapshot
+            unconfirmed.putAll(pending);
+            saved = Math.min(dropped, journal(unconfirmed));
+        }
+        return new DrainResult(queued, flushed, dropped, saved, timedOut,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private boolean writeBatch(Map<UUID, Boolean> batch) {
+        final long start = System.nanoTime();
+        boolean written;
+        try {
+            written = databaseManager.setOptOuts(batch);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Failed to write batch of " + batch.size() + " opt-out changes", e);
+            written = false;
+        }
+        final long elapsed = System.nanoTime() - start;
+        batches.increment();
+        flushNanosTotal.add(elapsed);
+        lastFlushNanos = elapsed;
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+
+        if (written) {
+            rowsWritten.add(batch.size());
+            if (!journaled.isEmpty()) {
+                synchronized (journaled) {
+                    if (!abandoned) {
+                        // The written state supersedes any older journaled one
+                        for (Map.Entry<UUID, Boolean> entry : batch.entrySet()) {
+                            final Boolean old = journaled.remove(entry.getKey());
+                            if (old != null) {
+                                journalStale = true;
+                                if (!old.equals(entry.getValue())) {
+                                    superseded.put(entry.getKey(), entry.getValue());
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            batch.forEach(inFlight::remove);
+            logger.fine("Flushed " + batch.size() + " opt-out changes in " + elapsed / 1_000_000 + " ms");
+            return true;
+        }
+        failedBatches.increment();
+        // Put the batch back unless a newer change for that player is already pending.
+        for (Map.Entry<UUID, Boolean> entry : batch.entrySet()) {
+            pending.putIfAbsent(entry.getKey(), entry.getValue());
+            inFlight.remove(entry.getKey(), entry.getValue());
+        }
+        journal(batch);
+        logger.warning("Opt-out batch of " + batch.size() + " changes was not written; will retry");
+        return false;
+    }
+
+    /**
+     * Appends the changes whose state is not journaled yet, with one fsync.
+     *
+     * @return how many of the changes are now in the journal
+     */
+    private int journal(Map<UUID, Boolean> changes) {
+        if (journal == null) {
+            return 0;
+        }
+        synchronized (journaled) {
+            final Map<UUID, Boolean> fresh = new LinkedHashMap<>();
+            for (Map.Entry<UUID, Boolean> entry : changes.entrySet()) {
+                if (!entry.getValue().equals(journaled.put(entry.getKey(), entry.getValue()))) {
+                    fresh.put(entry.getKey(), entry.getValue());
+                }
+            }
+            try {
+                journal.append(fresh);
+                return changes.size();
+            } catch (IOException e) {
+                // Forget them so the next failure tries again
+                fresh.keySet().forEach(journaled::remove);
+                logger.log(Level.WARNING, "Failed to journal " + fresh.size() + " opt-out changes", e);
+                return changes.size() - fresh.size();
+            }
+        }
+    }
+
+    private void compactJournal() {
+        synchronized (journaled) {
+            if (abandoned) {
+                return;
+            }
+            try {
+                journal.compact(new HashMap<>(journaled));
+                journalStale = false;
+                superseded.clear();
+            } catch (IOException e) {
+                // Retried after the next flush. Meanwhile a restart replays the
+                // stale records, so make their latest state the one written.
+                try {
+                    journal.append(superseded);
+                    superseded.clear();
+                } catch (IOException appendFailure) {
+                    e.addSuppressed(appendFailure);
+                }
+                logger.log(Level.WARNING, "Failed to compact the opt-out journal", e);
+            }
+        }
+    }
+
+    /**
+     * Latest state for a player not yet committed, whether still queued or
+     * in a batch being written, or null if there is none.
+     *
+     * @param playerUUID Player's UUID
+     * @return the state awaiting its commit, or null
+     */
+    Boolean pendingState(UUID playerUUID) {
+        // Queued first: a change there is newer than the one in flight
+        final Boolean queued = pending.get(playerUUID);
+        return queued != null ? queued : inFlight.get(playerUUID);
+    }
+
+    /** Players with a change not yet written. */
+    int queueDepth() {
+        return pending.size();
+    }
+
+    /** Changes accepted since enable. */
+    long enqueuedCount() {
+        return enqueued.sum();
+    }
+
+    /** Changes that replaced a still-pending change for the same player. */
+    long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    /** JDBC batches attempted. */
+    long batchCount() {
+        return batches.sum();
+    }
+
+    /** Rows committed. */
+    long rowsWrittenCount() {
+        return rowsWritten.sum();
+    }
+
+    /** Batches that failed and were re-queued. */
+    long failedBatchCount() {
+        return failedBatches.sum();
+    }
+
+    /** Duration of the most recent batch, in nanoseconds. */
+    long lastFlushNanos() {
+        return lastFlushNanos;
+    }
+
+    /** Longest batch so far, in nanoseconds. */
+    long maxFlushNanos() {
+        return maxFlushNanos.get();
+    }
+
+    /** Changes in the journal that are not in the database yet. */
+    int journaledCount() {
+        return journaled.size();
+    }
+
+    /** Mean batch duration in nanoseconds, or 0 before the first batch. */
+    long meanFlushNanos() {
+        final long count = batches.sum();
+        return count == 0 ? 0 : flushNanosTotal.sum() / count;
+    }
+
+    /** Outcome of {@link #drain}. */
+    static final class DrainResult {
+        private final int queued;
+        private final long flushed;
+        private final long dropped;
+        private final long journaled;
+        private final boolean timedOut;
+        private final long elapsedMillis;
+
+        DrainResult(int queued, long flushed, long dropped, long journaled, boolean timedOut, long elapsedMillis) {
+            this.queued = queued;
+            this.flushed = flushed;
+            this.dropped = dropped;
+            this.journaled = journaled;
+            this.timedOut = timedOut;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /** Players with a change pending when the drain started. */
+        int queued() {
+            return queued;
+        }
+
+        /** Rows committed during the drain, including a flush already in flight. */
+        long flushed() {
+            return flushed;
+        }
+
+        /** Changes not confirmed written by the deadline. */
+        long dropped() {
+            return dropped;
+        }
+
+        /** Dropped changes saved to the journal, to be written on the next start. */
+        long journaled() {
+            return journaled;
+        }
+
+        /** Whether the deadline passed with the batch still running. */
+        boolean timedOut() {
+            return timedOut;
+        }
+
+        long elapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link StorageExecutor} over a fixed pool of daemon platform threads named
+ * {@code StormtrooperX-DB-n} and an {@link ArrayBlockingQueue}. Idle threads
+ * exit after a minute.
+ */
+final class PooledStorageExecutor implements StorageExecutor {
+
+    private final ThreadPoolExecutor pool;
+    private final int queueCapacity;
+
+    /**
+     * @param threads       Worker threads (must be positive)
+     * @param queueCapacity Calls that may wait for a thread (must be positive)
+     * @throws IllegalArgumentException if threads or queueCapacity is not positive
+     */
+    PooledStorageExecutor(int threads, int queueCapacity) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive, got: " + threads);
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be positive, got: " + queueCapacity);
+        }
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ThreadFactory threadFactory = task -> {
+            final Thread thread = new Thread(task, "StormtrooperX-DB-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        pool.execute(task);
+    }
+
+    @Override
+    public int queueDepth() {
+        return pool.getQueue().size();
+    }
+
+    @Override
+    public int queueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public int activeCount() {
+        return pool.getActiveCount();
+    }
+
+    @Override
+    public int parallelism() {
+        return pool.getMaximumPoolSize();
+    }
+
+    @Override
+    public boolean usesVirtualThreads() {
+        return false;
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public int shutdownNow() {
+        return pool.shutdownNow().size();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return pool.isShutdown();
+    }
+}
@@ -1,40 +1,139 @@
 package com.goobercraft.stormtrooperx;
 
-import java.util.function.Supplier;
-
 import org.bukkit.util.Vector;
 
+import com.goobercraft.stormtrooperx.random.RandomSource;
+
 /**
  * Pure-function helper for the projectile-accuracy nerf.
  *
  * <p>Perturbs a projectile direction while preserving its original speed. The
- * random source is injected so the math is deterministically testable without
- * a live Bukkit server; production callers pass {@code Vector::getRandom}.</p>
+ * math runs on primitive {@code x/y/z} scalars held in a per-thread
+ * {@link Scratch}, so a shot allocates nothing here; the only {@link Vector}
+ * touched is the scratch's reusable write-back vector. The {@link RandomSource}
+ * is injected so the math is deterministically testable without a live Bukkit
+ * server; production callers pass the plugin's configured per-thread source.</p>
  */
 final class ProjectileNerf {
 
+    // One scratch per thread: Folia fires EntityShootBowEvent on many regional
+    // threads at once, and a Scratch is only ever used by the thread holding it.
+    // A thread's entry pins this plugin's classloader until it is removed; see
+    // clearScratch().
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
     private ProjectileNerf() {
     }
 
+    /**
+     * Reusable per-thread working state for {@link #perturb(Scratch, double, RandomSource)}.
+     *
+     * <p>Holds the velocity as three primitive doubles plus a single
+     * write-back {@link Vector}. Never share an instance across threads and
+     * never retain the vector returned by {@link #toVector()} past the call
+     * that consumes it — the next shot on the same thread overwrites it.</p>
+     */
+    static final class Scratch {
+        double x;
+        double y;
+        double z;
+        private final Vector vector = new Vector();
+
+        private Scratch() {
+        }
+
+        /**
+         * Copies {@code velocity}'s components into this scratch.
+         *
+         * @return this scratch
+         */
+        Scratch load(Vector velocity) {
+            this.x = velocity.getX();
+            this.y = velocity.getY();
+            this.z = velocity.getZ();
+            return this;
+        }
+
+        /** Squared length of the held velocity; zero iff the vector is zero-length. */
+        double lengthSquared() {
+            return x * x + y * y + z * z;
+        }
+
+        /**
+         * Writes the held components into the reusable write-back vector.
+         *
+         * @return the per-thread write-back vector (overwritten by the next call)
+         */
+        Vector toVector() {
+            return vector.setX(x).setY(y).setZ(z);
+        }
+    }
+
+    /**
+     * Returns the calling thread's scratch state.
+     */
+    static Scratch scratch() {
+        return SCRATCH.get();
+    }
+
+    /**
+     * Drops the calling thread's scratch, so a {@code /reload} does not keep
+     * the old plugin classloader reachable from the server thread. Called from
+     * {@code onDisable}. Only the calling thread's entry can be removed: on
+     * Paper and Spigot that is the main thread, which fires every shot event;
+     * on Folia each region thread keeps its scratch (one small object) until
+     * it exits, which is acceptable because Folia does not support reloading.
+     */
+    static void clearScratch() {
+        SCRATCH.remove();
+    }
+
+    /**
+     * Apply an accuracy-scaled random deviation to the velocity held in
+     * {@code scratch}, then rescale so the result has the same length as the
+     * input. Allocation-free.
+     *
+     * @param scratch      holds the velocity (mutated in place)
+     * @param accuracy     deviation factor; callers should clamp to [0.0, 1.0]
+     * @param randomSource supplies uniform doubles in [0.0, 1.0); drawn x, y, z in order
+     * @return {@code false} if the velocity was zero-length and left untouched
+     */
+    static boolean perturb(Scratch scratch, double accuracy, RandomSource randomSource) {
+        final double speedSquared = scratch.lengthSquared();
+        if (speedSquared == 0) {
+            return false;
+        }
+        final double x = scratch.x + randomSource.nextDouble() * accuracy;
+        final double y = scratch.y + randomSource.nextDouble() * accuracy;
+        final double z = scratch.z + randomSource.nextDouble() * accuracy;
+        // normalize().multiply(speed) folded into a single scale factor.
+        final double scale = Math.sqrt(speedSquared) / Math.sqrt(x * x + y * y + z * z);
+        scratch.x = x * scale;
+        scratch.y = y * scale;
+        scratch.z = z * scale;
+        return true;
+    }
+
     /**
      * Apply an accuracy-scaled random deviation to {@code velocity}, then
      * renormalize so the resulting vector has the same length as the input.
      *
      * <p>The input vector is mutated in place to match Bukkit {@link Vector}
-     * semantics, and the same instance is returned.</p>
+     * semantics, and the same instance is returned. Convenience overload for
+     * callers that already hold a {@link Vector}; the shot handler uses the
+     * allocation-free {@link #perturb(Scratch, double, RandomSource)}, which
+     * this delegates to through the calling thread's scratch.</p>
      *
      * @param velocity     the projectile velocity (mutated in place)
      * @param accuracy     deviation factor; callers should clamp to [0.0, 1.0]
-     * @param randomSource supplies a fresh random unit-cube vector per call
+     * @param randomSource supplies uniform doubles in [0.0, 1.0); drawn x, y, z in order
      * @return {@code velocity}, mutated
      */
-    static Vector perturb(Vector velocity, double accuracy, Supplier<Vector> randomSource) {
-        final double originalSpeed = velocity.length();
-        if (originalSpeed == 0) {
-            return velocity;
+    static Vector perturb(Vector velocity, double accuracy, RandomSource randomSource) {
+        final Scratch scratch = scratch().load(velocity);
+        if (perturb(scratch, accuracy, randomSource)) {
+            velocity.setX(scratch.x).setY(scratch.y).setZ(scratch.z);
         }
-        final Vector deviation = randomSource.get().multiply(accuracy);
-        velocity.add(deviation).normalize().multiply(originalSpeed);
         return velocity;
     }
 }
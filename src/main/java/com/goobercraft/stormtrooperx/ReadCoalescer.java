@@ -0,0 +1,317 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * Single-flight layer in front of {@link DatabaseManager}'s opt-out reads.
+ *
+ * <p>A read for a player whose query is already in flight waits for that
+ * query and shares its result instead of issuing its own. Point reads of
+ * different players that arrive within {@code batch-window-ms} of each other
+ * are grouped: the first one waits out the window, then runs one
+ * {@code IN (...)} lookup for everyone who joined it. A lone read still uses
+ * the point lookup. Bulk reads register their players too, so a point read
+ * for a player in a running join batch shares it.</p>
+ *
+ * <p>Thread-safe. Callers block until their result is in, as with the
+ * uncoalesced reads. A failed query answers null to every read sharing it.
+ * A write should call {@link #forget} once committed, so later reads do not
+ * share a query that started before it.</p>
+ */
+final class ReadCoalescer {
+
+    private final Function<UUID, Boolean> pointRead;
+    private final Function<List<UUID>, Set<UUID>> bulkRead;
+    private final long batchWindowNanos;
+
+    // Reads issued or waiting to be, by player
+    private final ConcurrentHashMap<UUID, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+    private final Object batchLock = new Object();
+    // Point reads collecting behind a leader; null when none is. Guarded by batchLock.
+    private List<Read> collecting;
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+    private final LongAdder batched = new LongAdder();
+
+    /**
+     * @param pointRead        Looks up one player, returning null if the query failed (must not be null)
+     * @param bulkRead         Looks up many players, returning the opted-out subset, or null if the
+     *                         query failed (must not be null)
+     * @param batchWindowNanos How long a point read waits for others to join it (must not be negative)
+     * @throws IllegalArgumentException if any parameter is null or out of range
+     */
+    ReadCoalescer(Function<UUID, Boolean> pointRead, Function<List<UUID>, Set<UUID>> bulkRead, long batchWindowNanos) {
+        if (pointRead == null) {
+            throw new IllegalArgumentException("pointRead cannot be null");
+        }
+        if (bulkRead == null) {
+            throw new IllegalArgumentException("bulkRead cannot be null");
+        }
+        if (batchWindowNanos < 0) {
+            throw new IllegalArgumentException("batchWindowNanos must not be negative, got: " + batchWindowNanos);
+        }
+        this.pointRead = pointRead;
+        this.bulkRead = bulkRead;
+        this.batchWindowNanos = batchWindowNanos;
+    }
+
+    /**
+     * Reads one player's state, sharing a query already in flight for them or
+     * batching with reads for other players.
+     *
+     * @param playerUUID Player's UUID (must not be null)
+     * @return true if opted out, or null if the query failed
+     */
+    Boolean read(UUID playerUUID) {
+        reads.increment();
+        final Read read = new Read(playerUUID);
+        final CompletableFuture<Boolean> existing = inFlight.putIfAbsent(playerUUID, read.result);
+        if (existing != null) {
+            shared.increment();
+            return await(existing);
+        }
+
+        final List<Read> batch;
+        final boolean leader;
+        synchronized (batchLock) {
+            leader = collecting == null;
+            if (leader) {
+                collecting = new ArrayList<>();
+            }
+            collecting.add(read);
+            batch = collecting;
+        }
+        if (!leader) {
+            batched.increment();
+            return await(read.result);
+        }
+
+        // parkNanos may return early; an interrupt just ends the window
+        final long deadline = System.nanoTime() + batchWindowNanos;
+        for (long remaining = batchWindowNanos; remaining > 0 && !Thread.currentThread().isInterrupted();
+                remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+        synchronized (batchLock) {
+            // Closed: nobody adds to this batch any more
+            collecting = null;
+        }
+        run(batch);
+        return await(read.result);
+    }
+
+    /**
+     * Reads many players with one bulk lookup, sharing queries already in
+     * flight for any of them.
+     *
+     * @param playerUUIDs Players to look up (no null elements)
+     * @return The opted-out subset (mutable), or null if any query failed
+     */
+    Set<UUID> readAll(Collection<UUID> playerUUIDs) {
+        final Set<UUID> unique = new LinkedHashSet<>(playerUUIDs);
+        reads.add(unique.size());
+        final List<Read> own = new ArrayList<>(unique.size());
+        final List<CompletableFuture<Boolean>> others = new ArrayList<>();
+        final List<UUID> otherUUIDs = new ArrayList<>();
+        for (UUID uuid : unique) {
+            final Read read = new Read(uuid);
+            final CompletableFuture<Boolean> existing = inFlight.putIfAbsent(uuid, read.result);
+            if (existing == null) {
+                own.add(read);
+            } else {
+                shared.increment();
+                others.add(existing);
+                otherUUIDs.add(uuid);
+            }
+        }
+
+        final Set<UUID> optedOut = new HashSet<>();
+        boolean failed = false;
+        // Ours first: never wait on another query while holding players others wait on
+        if (!own.isEmpty()) {
+            run(own);
+            for (Read read : own) {
+                final Boolean result = await(read.result);
+                failed |= result == null;
+                if (Boolean.TRUE.equals(result)) {
+                    optedOut.add(read.playerUUID);
+                }
+            }
+        }
+        for (int i = 0; i < others.size(); i++) {
+            final Boolean result = await(others.get(i));
+            failed |= result == null;
+            if (Boolean.TRUE.equals(result)) {
+                optedOut.add(otherUUIDs.get(i));
+            }
+        }
+        return failed ? null : optedOut;
+    }
+
+    /**
+     * Stops later reads for a player from sharing a query already in flight.
+     * Called after a write for them commits.
+     *
+     * @param playerUUID Player's UUID
+     */
+    void forget(UUID playerUUID) {
+        inFlight.remove(playerUUID);
+    }
+
+    private void run(List<Read> batch) {
+        queries.increment();
+        try {
+            if (batch.size() == 1) {
+                final Read read = batch.get(0);
+                read.result.complete(pointRead.apply(read.playerUUID));
+            } else {
+                final List<UUID> uuids = new ArrayList<>(batch.size());
+                for (Read read : batch) {
+                    uuids.add(read.playerUUID);
+                }
+                final Set<UUID> optedOut = bulkRead.apply(uuids);
+                for (Read read : batch) {
+                    read.result.complete(optedOut == null ? null : optedOut.contains(read.playerUUID));
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            for (Read read : batch) {
+                read.result.completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            for (Read read : batch) {
+                inFlight.remove(read.playerUUID, read.result);
+            }
+        }
+    }
+
+    private static Boolean await(CompletableFuture<Boolean> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /** Players asked for, since enable. */
+    long readCount() {
+        return reads.sum();
+    }
+
+    /** Queries issued for them, since enable. */
+    long queryCount() {
+        return queries.sum();
+    }
+
+    /** Reads that shared a query already in flight for the same player, since enable. */
+    long sharedCount() {
+        return shared.sum();
+    }
+
+    /** Point reads that joined another read's batched lookup, since enable. */
+    long batchedCount() {
+        return batched.sum();
+    }
+
+    /** Reads that issued no query of their own, since enable. */
+    long savedCount() {
+        return sharedCount() + batchedCount();
+    }
+
+    /** A point or bulk read's player and the result its waiters share. */
+    private static final class Read {
+        final UUID playerUUID;
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        Read(UUID playerUUID) {
+            this.playerUUID = playerUUID;
+        }
+    }
+
+    /**
+     * Read-coalescing tuning, read from {@code database.read-coalescing}.
+     * Immutable.
+     */
+    static final class Settings {
+
+        static final boolean DEFAULT_ENABLED = true;
+        static final long DEFAULT_BATCH_WINDOW_MILLIS = 1;
+
+        private final boolean enabled;
+        private final long batchWindowMillis;
+
+        /**
+         * @param enabled           Coalesce reads at all
+         * @param batchWindowMillis How long a point read waits for others to join
+         *                          its lookup; 0 only shares reads of the same player
+         * @throws IllegalArgumentException if batchWindowMillis is negative
+         */
+        Settings(boolean enabled, long batchWindowMillis) {
+            if (batchWindowMillis < 0) {
+                throw new IllegalArgumentException("batchWindowMillis must not be negative, got: " + batchWindowMillis);
+            }
+            this.enabled = enabled;
+            this.batchWindowMillis = batchWindowMillis;
+        }
+
+        /** Defaults, used when no section is configured. */
+        static Settings defaults() {
+            return new Settings(DEFAULT_ENABLED, DEFAULT_BATCH_WINDOW_MILLIS);
+        }
+
+        /**
+         * Reads {@code enabled} and {@code batch-window-ms}; an out-of-range
+         * window logs a warning and falls back to the default.
+         *
+         * @param section The {@code database.read-coalescing} section, or null for defaults
+         * @param logger  Receives warnings for out-of-range values
+         * @return The parsed settings
+         */
+        static Settings fromConfig(ConfigurationSection section, Logger logger) {
+            if (section == null) {
+                return defaults();
+            }
+            return new Settings(section.getBoolean("enabled", DEFAULT_ENABLED),
+                ConfigRanges.validate(logger, "read-coalescing.batch-window-ms",
+                    section.getLong("batch-window-ms", DEFAULT_BATCH_WINDOW_MILLIS), 0, 50, DEFAULT_BATCH_WINDOW_MILLIS));
+        }
+
+        boolean enabled() {
+            return enabled;
+        }
+
+        long batchWindowMillis() {
+            return batchWindowMillis;
+        }
+
+        long batchWindowNanos() {
+            return TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+        }
+    }
+}
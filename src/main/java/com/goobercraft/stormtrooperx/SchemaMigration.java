@@ -0,0 +1,90 @@
+package com.goobercraft.stormtrooperx;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * One ordered step of the opt-out schema, applied by {@link SchemaMigrator}.
+ *
+ * <p>Versions are append-only: once released, a step's version and effect
+ * never change; fixes ship as a new step. {@link #apply} runs during enable
+ * and must be idempotent — MySQL commits DDL implicitly, so a crash between
+ * the change and its {@code schema_version} row replays the step on the next
+ * start. Work that grows with table size belongs in {@link #migrateChunk},
+ * which the plugin drives from an async task after enable.</p>
+ */
+interface SchemaMigration {
+
+    /** Position in the migration order, starting at 1 with no gaps. */
+    int version();
+
+    /** Short human-readable summary, logged and stored in {@code schema_version}. */
+    String description();
+
+    /**
+     * Applies the fast, blocking part of the step.
+     *
+     * @param connection Connection to migrate (auto-commit on)
+     * @param isH2       true for embedded H2, false for MySQL
+     * @throws SQLException if the step fails; enable aborts and the version is not recorded
+     */
+    void apply(Connection connection, boolean isH2) throws SQLException;
+
+    /**
+     * Whether chunked background work is outstanding. Checked on every start
+     * for every step, applied or not, so an interrupted copy resumes.
+     *
+     * @param connection Connection to inspect
+     * @return true if {@link #migrateChunk} has work to do
+     * @throws SQLException if the check fails
+     */
+    default boolean hasBackgroundWork(Connection connection) throws SQLException {
+        return false;
+    }
+
+    /**
+     * Performs one bounded chunk of background work.
+     *
+     * @param connection Connection to migrate (auto-commit on)
+     * @return true if more chunks remain
+     * @throws SQLException if the chunk fails; it is retried on the next start
+     */
+    default boolean migrateChunk(Connection connection) throws SQLException {
+        return false;
+    }
+
+    /**
+     * A step made of plain DDL statements. Each statement must be idempotent
+     * on its own ({@code CREATE TABLE IF NOT EXISTS} and the like).
+     *
+     * @param version     Step version
+     * @param description Step summary
+     * @param statements  SQL run in order, valid on both H2 (MySQL mode) and MySQL
+     * @return the step
+     */
+    static SchemaMigration sql(int version, String description, String... statements) {
+        final List<String> sql = List.of(statements);
+        return new SchemaMigration() {
+            @Override
+            public int version() {
+                return version;
+            }
+
+            @Override
+            public String description() {
+                return description;
+            }
+
+            @Override
+            public void apply(Connection connection, boolean isH2) throws SQLException {
+                try (Statement statement = connection.createStatement()) {
+                    for (String each : sql) {
+                        statement.execute(each);
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,180 @@
+package com.goobercraft.stormtrooperx;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Logger;
+
+/**
+ * Brings the database up to the latest {@link SchemaMigration} and tracks
+ * the result in a {@code schema_version} table (one row per applied step).
+ *
+ * <p>{@link #migrate} runs the pending steps in version order on enable. On
+ * MySQL it holds a named {@code GET_LOCK} for the duration, so servers sharing
+ * one database upgrade it once instead of racing; embedded H2 is already
+ * single-process. A database stamped with a version newer than this build
+ * knows is refused rather than written to with an older schema.</p>
+ *
+ * <p>Background chunks queued by {@link #migrate} are run one at a time
+ * through {@link #migrateChunk}, oldest step first.</p>
+ */
+final class SchemaMigrator {
+
+    static final String VERSION_TABLE = "schema_version";
+    // Named lock serializing migrations across servers sharing a MySQL database.
+    private static final String MYSQL_LOCK_NAME = "stormtrooperx_schema";
+    private static final int MYSQL_LOCK_TIMEOUT_SECONDS = 60;
+
+    private final Logger logger;
+    private final List<SchemaMigration> migrations;
+    private final ConcurrentLinkedQueue<SchemaMigration> background = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param logger     Logger instance (must not be null)
+     * @param migrations Steps in order, versions 1..n with no gaps (must not be null or empty)
+     * @throws IllegalArgumentException if any parameter is null or the versions are out of order
+     */
+    SchemaMigrator(Logger logger, List<SchemaMigration> migrations) {
+        if (logger == null) {
+            throw new IllegalArgumentException("logger cannot be null");
+        }
+        if (migrations == null || migrations.isEmpty()) {
+            throw new IllegalArgumentException("migrations cannot be null or empty");
+        }
+        for (int i = 0; i < migrations.size(); i++) {
+            if (migrations.get(i).version() != i + 1) {
+                throw new IllegalArgumentException("Migration at index " + i + " must be version " + (i + 1)
+                    + ", got: " + migrations.get(i).version());
+            }
+        }
+        this.logger = logger;
+        this.migrations = List.copyOf(migrations);
+    }
+
+    /** Version of the newest known step. */
+    int latestVersion() {
+        return migrations.size();
+    }
+
+    /**
+     * Applies every step newer than the recorded version, records each one as
+     * it completes, then queues the outstanding background work.
+     *
+     * @param connection Connection to migrate (auto-commit on)
+     * @param isH2       true for embedded H2, false for MySQL
+     * @return the schema version now in effect
+     * @throws SQLException if a step fails, the MySQL lock times out, or the
+     *                      database is newer than this build
+     */
+    int migrate(Connection connection, boolean isH2) throws SQLException {
+        if (!isH2) {
+            acquireLock(connection);
+        }
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS " + VERSION_TABLE + " ("
+                    + "version INT PRIMARY KEY, "
+                    + "description VARCHAR(200) NOT NULL, "
+                    + "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP"
+                    + ")");
+            }
+
+            final int current = currentVersion(connection);
+            if (current > latestVersion()) {
+                throw new SQLException("Database schema version " + current + " is newer than this build supports ("
+                    + latestVersion() + "); upgrade StormtrooperX instead of downgrading");
+            }
+            for (SchemaMigration migration : migrations) {
+                if (migration.version() <= current) {
+                    continue;
+                }
+                logger.info("Applying schema migration V" + migration.version() + ": " + migration.description());
+                migration.apply(connection, isH2);
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO " + VERSION_TABLE + " (version, description) VALUES (?, ?)")) {
+                    insert.setInt(1, migration.version());
+                    insert.setString(2, migration.description());
+                    insert.executeUpdate();
+                }
+            }
+
+            background.clear();
+            for (SchemaMigration migration : migrations) {
+                if (migration.hasBackgroundWork(connection)) {
+                    background.add(migration);
+                }
+            }
+            return latestVersion();
+        } finally {
+            if (!isH2) {
+                releaseLock(connection);
+            }
+        }
+    }
+
+    /**
+     * Highest version recorded in {@code schema_version}.
+     *
+     * @param connection Connection to read
+     * @return the version, or 0 for a database no step has touched
+     * @throws SQLException if the table cannot be read
+     */
+    static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MAX(version) FROM " + VERSION_TABLE)) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    /** Whether {@link #migrateChunk} has work left. */
+    boolean hasBackgroundWork() {
+        return !background.isEmpty();
+    }
+
+    /**
+     * Runs one chunk of the oldest outstanding background step.
+     *
+     * @param connection Connection to migrate (auto-commit on)
+     * @return true if more chunks remain, in this step or a later one
+     * @throws SQLException if the chunk fails; the step stays queued
+     */
+    boolean migrateChunk(Connection connection) throws SQLException {
+        final SchemaMigration migration = background.peek();
+        if (migration == null) {
+            return false;
+        }
+        if (!migration.migrateChunk(connection)) {
+            background.poll();
+            logger.info("Background schema migration V" + migration.version() + " complete");
+        }
+        return !background.isEmpty();
+    }
+
+    private static void acquireLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            statement.setString(1, MYSQL_LOCK_NAME);
+            statement.setInt(2, MYSQL_LOCK_TIMEOUT_SECONDS);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next() || resultSet.getInt(1) != 1) {
+                    throw new SQLException("Timed out after " + MYSQL_LOCK_TIMEOUT_SECONDS
+                        + "s waiting for another server to finish migrating the schema");
+                }
+            }
+        }
+    }
+
+    private void releaseLock(Connection connection) {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, MYSQL_LOCK_NAME);
+            statement.executeQuery().close();
+        } catch (SQLException e) {
+            // MySQL frees it when the pool retires this connection; until then
+            // other servers wait out their lock timeout on enable.
+            logger.warning("Failed to release schema migration lock: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bukkit.entity.EntityType;
+
+/**
+ * Runtime counters for {@code onBowShoot}, reported by {@code /stormtrooperx stats}.
+ *
+ * <p>Every counter is a striped {@link LongAdder}: Folia region threads each
+ * land on their own cell, so recording a shot never contends on a shared
+ * atomic. Reads ({@link #snapshot()}) sum the cells and are only weakly
+ * consistent with concurrent writers, which is fine for a status readout.</p>
+ *
+ * <p>Handler latency goes into a log-linear histogram: four sub-buckets per
+ * power of two, giving percentile estimates within 25% of the true value with
+ * a fixed 256-adder footprint and no per-shot allocation.</p>
+ */
+final class ShotStats {
+
+    /** How a shot left the handler. */
+    enum Outcome {
+        /** Shooter type not enabled in the config table. */
+        NOT_CONFIGURED,
+        /** Target player had opted out. */
+        OPTED_OUT,
+        /** Projectile had zero velocity; nothing to perturb. */
+        ZERO_VELOCITY,
+        /** Velocity was perturbed. */
+        NERFED
+    }
+
+    // 2 bits of mantissa below the leading one: 4 sub-buckets per octave.
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final LongAdder[] outcomes = newAdders(Outcome.values().length);
+    private final LongAdder[] byEntityType = newAdders(EntityType.values().length);
+    private final LongAdder[] latencyBuckets = newAdders(BUCKETS);
+    private final LongAdder latencyTotalNanos = new LongAdder();
+    private volatile long sinceMillis = System.currentTimeMillis();
+
+    private static LongAdder[] newAdders(int count) {
+        final LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Records one handled shot.
+     *
+     * @param entityType   The shooter's type
+     * @param outcome      How the handler exited
+     * @param elapsedNanos Time spent in the handler
+     */
+    void record(EntityType entityType, Outcome outcome, long elapsedNanos) {
+        outcomes[outcome.ordinal()].increment();
+        byEntityType[entityType.ordinal()].increment();
+        latencyBuckets[bucketOf(elapsedNanos)].increment();
+        latencyTotalNanos.add(elapsedNanos);
+    }
+
+    /** Zeroes every counter and restarts the collection window. */
+    void reset() {
+        for (LongAdder adder : outcomes) {
+            adder.reset();
+        }
+        for (LongAdder adder : byEntityType) {
+            adder.reset();
+        }
+        for (LongAdder adder : latencyBuckets) {
+            adder.reset();
+        }
+        latencyTotalNanos.reset();
+        sinceMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Sums the counters into an immutable view.
+     *
+     * @return the current totals
+     */
+    Snapshot snapshot() {
+        final long[] outcomeCounts = sum(outcomes);
+        final long[] entityCounts = sum(byEntityType);
+        final long[] buckets = sum(latencyBuckets);
+        return new Snapshot(sinceMillis, outcomeCounts, entityCounts, buckets, latencyTotalNanos.sum());
+    }
+
+    private static long[] sum(LongAdder[] adders) {
+        final long[] sums = new long[adders.length];
+        for (int i = 0; i < adders.length; i++) {
+            sums[i] = adders[i].sum();
+        }
+        return sums;
+    }
+
+    /**
+     * Histogram bucket for a duration: values below {@code SUB_BUCKETS} map to
+     * themselves; above that, the octave (position of the highest set bit)
+     * picks a group of {@code SUB_BUCKETS} and the next bits pick within it.
+     */
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(0, nanos);
+        }
+        final int octave = 63 - Long.numberOfLeadingZeros(nanos);
+        final int sub = (int) (nanos >>> (octave - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (octave - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /** Largest duration that {@link #bucketOf} maps to {@code bucket}. */
+    static long bucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int octave = bucket / SUB_BUCKETS - 1 + SUB_BUCKET_BITS;
+        final int sub = bucket % SUB_BUCKETS;
+        final long lower = (1L << octave) | ((long) sub << (octave - SUB_BUCKET_BITS));
+        return lower + (1L << (octave - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /** Point-in-time totals. */
+    static final class Snapshot {
+        private final long sinceMillis;
+        private final long[] outcomes;
+        private final long[] byEntityType;
+        private final long[] latencyBuckets;
+        private final long latencyTotalNanos;
+        private final long shots;
+
+        private Snapshot(long sinceMillis, long[] outcomes, long[] byEntityType, long[] latencyBuckets,
+                         long latencyTotalNanos) {
+            this.sinceMillis = sinceMillis;
+            this.outcomes = outcomes;
+            this.byEntityType = byEntityType;
+            this.latencyBuckets = latencyBuckets;
+            this.latencyTotalNanos = latencyTotalNanos;
+            long total = 0;
+            for (long count : latencyBuckets) {
+                total += count;
+            }
+            this.shots = total;
+        }
+
+        /** Wall-clock time the window started (plugin enable or last reset). */
+        long sinceMillis() {
+            return sinceMillis;
+        }
+
+        /** Shots that reached the handler. */
+        long shotsSeen() {
+            return shots;
+        }
+
+        long count(Outcome outcome) {
+            return outcomes[outcome.ordinal()];
+        }
+
+        long count(EntityType entityType) {
+            return byEntityType[entityType.ordinal()];
+        }
+
+        /** Mean handler time in nanoseconds, or 0 with no shots. */
+        long meanNanos() {
+            return shots == 0 ? 0 : latencyTotalNanos / shots;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given quantile.
+         *
+         * @param quantile in (0, 1]
+         * @return nanoseconds, or 0 with no shots
+         */
+        long percentileNanos(double quantile) {
+            if (shots == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(quantile * shots));
+            long seen = 0;
+            for (int bucket = 0; bucket < latencyBuckets.length; bucket++) {
+                seen += latencyBuckets[bucket];
+                if (seen >= rank) {
+                    return bucketUpperBound(bucket);
+                }
+            }
+            return bucketUpperBound(latencyBuckets.length - 1);
+        }
+    }
+}
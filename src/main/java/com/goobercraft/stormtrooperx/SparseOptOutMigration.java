@@ -0,0 +1,122 @@
+package com.goobercraft.stormtrooperx;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Schema V3: {@code player_optouts} only holds opted-out players. Opted in is
+ * the default, so since this step {@link DatabaseManager} deletes a player's
+ * row when they opt back in instead of storing {@code opted_out = FALSE}.
+ *
+ * <p>{@link #apply} changes nothing; the rows written as {@code FALSE} by
+ * earlier releases are deleted by {@link #migrateChunk}, {@value #CHUNK_SIZE}
+ * at a time in key order. Each delete re-checks {@code opted_out = FALSE}, so
+ * a player who opted out again since the chunk was read keeps their row.
+ * While the v1 table is still being copied (see {@link BinaryUuidMigration}),
+ * this step waits: it runs after V2, and the copy brings its own
+ * {@code FALSE} rows along.</p>
+ */
+final class SparseOptOutMigration implements SchemaMigration {
+
+    static final int CHUNK_SIZE = 1000;
+
+    private final Logger logger;
+    private final BinaryUuidMigration binaryUuidMigration;
+
+    // Keyset cursor; only touched by the migration task.
+    private byte[] cursor = new byte[0];
+    private long rowsDeleted;
+
+    /**
+     * @param logger              Logger instance
+     * @param binaryUuidMigration The V2 step, whose copy may still add opted-in rows
+     */
+    SparseOptOutMigration(Logger logger, BinaryUuidMigration binaryUuidMigration) {
+        this.logger = logger;
+        this.binaryUuidMigration = binaryUuidMigration;
+    }
+
+    @Override
+    public int version() {
+        return 3;
+    }
+
+    @Override
+    public String description() {
+        return "Store only opted-out players";
+    }
+
+    @Override
+    public void apply(Connection connection, boolean isH2) throws SQLException {
+        // Data-only step; see migrateChunk
+    }
+
+    @Override
+    public boolean hasBackgroundWork(Connection connection) throws SQLException {
+        // Called after V2's check, so the legacy flag is current.
+        if (binaryUuidMigration.isLegacyTablePresent()) {
+            return true;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                 "SELECT 1 FROM player_optouts WHERE opted_out = FALSE LIMIT 1")) {
+            return resultSet.next();
+        }
+    }
+
+    /**
+     * Deletes the next {@value #CHUNK_SIZE} opted-in rows in one transaction.
+     *
+     * @return false once a chunk comes back short, i.e. the table is sparse
+     */
+    @Override
+    public boolean migrateChunk(Connection connection) throws SQLException {
+        final List<byte[]> keys = new ArrayList<>(CHUNK_SIZE);
+        try (PreparedStatement query = connection.prepareStatement("SELECT uuid FROM player_optouts "
+                + "WHERE opted_out = FALSE AND uuid > ? ORDER BY uuid LIMIT " + CHUNK_SIZE)) {
+            query.setBytes(1, cursor);
+            try (ResultSet resultSet = query.executeQuery()) {
+                while (resultSet.next()) {
+                    keys.add(resultSet.getBytes("uuid"));
+                }
+            }
+        }
+
+        if (!keys.isEmpty()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM player_optouts WHERE uuid = ? AND opted_out = FALSE")) {
+                for (byte[] key : keys) {
+                    delete.setBytes(1, key);
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            cursor = keys.get(keys.size() - 1);
+            rowsDeleted += keys.size();
+        }
+
+        if (keys.size() < CHUNK_SIZE) {
+            logger.info("Opt-out table compaction complete: " + rowsDeleted + " opted-in rows removed");
+            return false;
+        }
+        logger.fine("Opt-out table compaction: " + rowsDeleted + " opted-in rows removed so far");
+        return true;
+    }
+}
@@ -0,0 +1,166 @@
+package com.goobercraft.stormtrooperx;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reuses prepared statements across calls, per physical connection.
+ *
+ * <p>Statements are prepared on the connection underneath the pool's proxy
+ * ({@link Connection#unwrap}), because HikariCP closes every statement made
+ * through a proxy when it goes back to the pool. A physical connection is
+ * only ever borrowed by one thread at a time, so its statements need no
+ * locking of their own; only the connection-to-cache map is synchronized.
+ * When the pool hands out a connection this cache has not seen (a reconnect
+ * or lifetime rotation), caches belonging to closed connections are dropped.
+ * Each connection keeps at most {@code capacity} statements, evicting the
+ * least recently used.</p>
+ *
+ * <p>Callers must not close a statement obtained here; on an
+ * {@link SQLException} they should {@link #invalidate} the connection so a
+ * half-used statement is never handed out again.</p>
+ */
+final class StatementCache {
+
+    private final Logger logger;
+    private final int capacity;
+    // Guarded by itself
+    private final Map<Connection, Map<String, PreparedStatement>> byConnection = new IdentityHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param logger   Logger instance (must not be null)
+     * @param capacity Statements kept per connection (must be positive)
+     * @throws IllegalArgumentException if logger is null or capacity is not positive
+     */
+    StatementCache(Logger logger, int capacity) {
+        if (logger == null) {
+            throw new IllegalArgumentException("logger cannot be null");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive, got: " + capacity);
+        }
+        this.logger = logger;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns a cached statement for {@code sql} on this connection, with its
+     * parameters cleared, or prepares and caches a new one.
+     *
+     * @param connection Borrowed (possibly pooled-proxy) connection
+     * @param sql        Statement text
+     * @return a statement the caller must not close
+     * @throws SQLException if preparing fails
+     */
+    PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        final Connection physical = connection.unwrap(Connection.class);
+        final Map<String, PreparedStatement> statements = statementsFor(physical);
+        PreparedStatement statement = statements.get(sql);
+        if (statement != null && !statement.isClosed()) {
+            hits.increment();
+            statement.clearParameters();
+            return statement;
+        }
+        misses.increment();
+        statement = physical.prepareStatement(sql);
+        statements.put(sql, statement);
+        return statement;
+    }
+
+    private Map<String, PreparedStatement> statementsFor(Connection physical) throws SQLException {
+        synchronized (byConnection) {
+            Map<String, PreparedStatement> statements = byConnection.get(physical);
+            if (statements == null) {
+                dropClosedConnections();
+                statements = new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                        if (size() > capacity) {
+                            closeQuietly(eldest.getValue());
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+                byConnection.put(physical, statements);
+            }
+            return statements;
+        }
+    }
+
+    private void dropClosedConnections() throws SQLException {
+        final Iterator<Connection> connections = byConnection.keySet().iterator();
+        while (connections.hasNext()) {
+            // Closing a connection closes its statements, so just forget them
+            if (connections.next().isClosed()) {
+                connections.remove();
+            }
+        }
+    }
+
+    /**
+     * Closes and forgets every statement cached for this connection.
+     *
+     * @param connection Borrowed (possibly pooled-proxy) connection
+     */
+    void invalidate(Connection connection) {
+        final Map<String, PreparedStatement> statements;
+        try {
+            synchronized (byConnection) {
+                statements = byConnection.remove(connection.unwrap(Connection.class));
+            }
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Could not unwrap connection to invalidate its statements", e);
+            return;
+        }
+        if (statements != null) {
+            statements.values().forEach(this::closeQuietly);
+        }
+    }
+
+    /** Closes every cached statement, e.g. before the pool shuts down. */
+    void clear() {
+        synchronized (byConnection) {
+            for (Map<String, PreparedStatement> statements : byConnection.values()) {
+                statements.values().forEach(this::closeQuietly);
+            }
+            byConnection.clear();
+        }
+    }
+
+    private void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Failed to close cached statement", e);
+        }
+    }
+
+    /** Lookups served from the cache. */
+    long hitCount() {
+        return hits.sum();
+    }
+
+    /** Lookups that had to prepare a statement. */
+    long missCount() {
+        return misses.sum();
+    }
+
+    /** Hits over all lookups, 0.0 before the first one. */
+    double hitRate() {
+        final long hit = hits.sum();
+        final long total = hit + misses.sum();
+        return total == 0 ? 0.0 : (double) hit / total;
+    }
+}
@@ -0,0 +1,53 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded {@link Executor} for {@link AsyncStorage}: at most
+ * {@link #parallelism()} calls run at once, at most {@link #queueCapacity()}
+ * wait, and {@link #execute} throws {@link RejectedExecutionException} beyond
+ * that or after {@link #shutdown()}.
+ *
+ * <p>{@link PooledStorageExecutor} runs calls on a fixed pool of platform
+ * threads; {@link ThreadPerCallStorageExecutor} starts a (virtual, on Java
+ * 21+) thread per call.</p>
+ */
+interface StorageExecutor extends Executor {
+
+    /** Calls waiting to start. */
+    int queueDepth();
+
+    /** Most calls that may wait before new ones are rejected. */
+    int queueCapacity();
+
+    /** Calls currently running. */
+    int activeCount();
+
+    /** Most calls that run at once. */
+    int parallelism();
+
+    /** Whether calls run on virtual threads. */
+    boolean usesVirtualThreads();
+
+    /** Stops accepting calls; queued and running ones still finish. */
+    void shutdown();
+
+    /**
+     * Waits for every accepted call to finish after {@link #shutdown()}.
+     *
+     * @return true if they finished within the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Drops queued calls and interrupts running ones.
+     *
+     * @return the number of queued calls that will never run
+     */
+    int shutdownNow();
+
+    boolean isShutdown();
+}
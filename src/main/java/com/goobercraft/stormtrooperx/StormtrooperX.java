@@ -1,10 +1,16 @@
 package com.goobercraft.stormtrooperx;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.bstats.bukkit.Metrics;
@@ -24,13 +30,14 @@
 import org.bukkit.util.Vector;
 import org.jetbrains.annotations.NotNull;
 
+import com.goobercraft.stormtrooperx.random.RandomSource;
 import com.goobercraft.stormtrooperx.scheduler.PluginScheduler;
 
 /**
  * StormtrooperX — a Minecraft plugin that nerfs the accuracy of ranged mobs.
  *
- * <p>JavaPlugin entry point: owns config, the per-entity {@link EntityConfig}
- * map, the {@code /stormtrooperx} command, and the {@code EntityShootBowEvent}
+ * <p>JavaPlugin entry point: owns config, the per-entity
+ * {@link EntityConfigTable}, the {@code /stormtrooperx} command, and the {@code EntityShootBowEvent}
  * handler. A refactor of byteful's original Stormtrooper
  * (https://github.com/byteful/Stormtrooper).</p>
  *
@@ -42,23 +49,43 @@ public final class StormtrooperX extends JavaPlugin implements Listener, TabComp
 
     // volatile + atomic-swap: the event handler reads on Folia regional threads
     // while reload runs on the global thread. loadConfiguration() never mutates
-    // a published map — it builds a fresh EnumMap and assigns it in one
-    // reference write, so readers always see a consistent snapshot, lock-free.
-    private volatile java.util.Map<EntityType, EntityConfig> entityConfigs = new EnumMap<>(EntityType.class);
+    // a published table — it stages into a fresh EnumMap, compiles that into an
+    // immutable ordinal-indexed table, and assigns it in one reference write, so
+    // readers always see a consistent snapshot, lock-free.
+    private volatile EntityConfigTable entityConfigTable = EntityConfigTable.EMPTY;
     private volatile boolean debug = false;
+    // Per-thread random streams for the nerf; swapped on reload like entityConfigTable.
+    private volatile RandomSource randomSource = RandomSource.threadLocal();
+    // LongAdder-striped counters around onBowShoot, read by /stormtrooperx stats.
+    private final ShotStats shotStats = new ShotStats();
     private DatabaseManager databaseManager;
+    private AsyncStorage storage;
     private OptOutManager optOutManager;
+    private OptOutJournal journal;
+    // Budget for disable: draining queued writes plus in-flight database calls.
+    private long shutdownTimeoutMillis = OptOutSettings.DEFAULT_SHUTDOWN_TIMEOUT_MILLIS;
     private PluginScheduler scheduler;
 
     // Subcommand pools by required permission, pre-sorted at class load so
     // per-keystroke tab completion can skip Collections.sort.
     private static final List<String> TAB_PUBLIC = List.of("help");
-    private static final List<String> TAB_ADMIN = List.of("reload");
+    private static final List<String> TAB_ADMIN = List.of("reload", "stats");
     private static final List<String> TAB_OPTOUT = List.of("optin", "optout");
     private static final List<String> TAB_TOGGLE = List.of("toggle");
+    private static final List<String> TAB_STATS = List.of("cache", "db", "reset", "shots", "storage");
+
+    // Window line for the stats sections that "stats reset" leaves alone.
+    private static final String SINCE_ENABLE = "Counted since the plugin was enabled; stats reset does not clear these";
+
+    // Pause between background schema migration chunks (one tick).
+    private static final long MIGRATION_CHUNK_PAUSE_MILLIS = 50;
+    // Opt-out changes the database has not accepted yet, in the data folder.
+    private static final String JOURNAL_FILE = "optout-journal.dat";
 
     /**
-     * Configuration for a specific entity type.
+     * Configuration for a specific entity type, as staged by
+     * {@code loadConfiguration} before it is compiled into the
+     * {@link EntityConfigTable} the shot handler reads.
      *
      * <p>Package-private so tests in the same package can instantiate it
      * directly without reflection.</p>
@@ -95,13 +122,36 @@ public void onEnable() {
         scheduler = PluginScheduler.create(this);
 
         final String databaseType = getConfig().getString("database.type", "h2");
-        databaseManager = new DatabaseManager(logger, getDataFolder(), databaseType, getConfig().getConfigurationSection("database.mysql"));
+        OptOutSettings settings = OptOutSettings.fromConfig(getConfig().getConfigurationSection("database"), logger);
+        if (settings.sync().enabled() && !databaseType.equalsIgnoreCase("mysql")) {
+            logger.warning("database.sync only applies to MySQL shared by several servers; ignoring it for "
+                + databaseType);
+            settings = settings.withSync(OptOutChangeFeed.Settings.disabled());
+        }
+        databaseManager = new DatabaseManager(logger, getDataFolder(), databaseType,
+            getConfig().getConfigurationSection("database.mysql"), getConfig().getConfigurationSection("database.h2"),
+            DatabaseCircuitBreaker.fromConfig(getConfig().getConfigurationSection("database.circuit-breaker"), logger),
+            settings);
         databaseManager.initialize();
 
-        optOutManager = new OptOutManager(logger, databaseManager, scheduler, getServer().getMaxPlayers());
+        shutdownTimeoutMillis = settings.shutdownTimeoutMillis();
+        final int storageThreads = settings.storageThreads() > 0
+            ? settings.storageThreads() : databaseManager.getPoolSize();
+        storage = settings.storageVirtualThreads() && VirtualThreads.isAvailable()
+            ? AsyncStorage.virtual(logger, databaseManager, storageThreads, settings.storageQueueCapacity())
+            : AsyncStorage.bounded(logger, databaseManager, storageThreads, settings.storageQueueCapacity());
+        logger.fine("Storage executor: " + storageThreads + (storage.usesVirtualThreads() ? " virtual" : "")
+            + " threads, queue capacity " + settings.storageQueueCapacity());
+        startBackgroundMigration();
+
+        journal = openJournal();
+        final OptOutSnapshot snapshot = getConfig().getBoolean("database.warm-restart-snapshot", true)
+            ? openSnapshot() : null;
+        optOutManager = new OptOutManager(logger, databaseManager, scheduler, getServer().getMaxPlayers(),
+            settings, storage, journal, snapshot);
         this.getServer().getPluginManager().registerEvents(optOutManager, this);
 
-        registerPlaceholderApiExpansion();
+        registerPlaceholderApiExpansion(settings.offlineCache().loadingPlaceholder());
 
         this.logger.info("========================================");
         this.logger.info("  StormtrooperX v" + getDescription().getVersion());
@@ -119,13 +169,29 @@ public void onEnable() {
 
     @Override
     public void onDisable() {
+        // One deadline for the whole drain, so a slow database delays disable
+        // by at most the configured timeout.
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis);
         if (optOutManager != null) {
             optOutManager.shutdown();
         }
 
+        if (storage != null) {
+            storage.shutdown(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to close the opt-out journal", e);
+            }
+        }
+
         if (databaseManager != null) {
             databaseManager.close();
         }
+        ProjectileNerf.clearScratch();
 
         this.logger.info("========================================");
         this.logger.info("  StormtrooperX v" + getDescription().getVersion());
@@ -133,16 +199,73 @@ public void onDisable() {
         this.logger.info("========================================");
     }
 
+    /**
+     * Maps the warm-restart snapshot written by the last shutdown, if any.
+     *
+     * @return the snapshot (loaded or empty), or null if the data folder cannot be created
+     */
+    private OptOutSnapshot openSnapshot() {
+        final Path directory = getDataFolder().toPath();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not create " + directory + "; no warm-restart snapshot", e);
+            return null;
+        }
+        return new OptOutSnapshot(logger, directory);
+    }
+
+    /**
+     * Opens the local opt-out journal. Without it, changes the database
+     * rejects are still retried, but only until shutdown.
+     *
+     * @return the journal, or null if it cannot be opened
+     */
+    private OptOutJournal openJournal() {
+        final Path file = getDataFolder().toPath().resolve(JOURNAL_FILE);
+        try {
+            Files.createDirectories(file.getParent());
+            return new OptOutJournal(logger, file);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not open the opt-out journal " + file
+                + "; changes that fail to write will not survive a restart", e);
+            return null;
+        }
+    }
+
+    /**
+     * Runs the chunked part of schema migrations (e.g. copying a v1 table into
+     * the binary layout, or deleting opted-in rows) one chunk per storage task, pausing between chunks so
+     * the connection pool stays available to gameplay queries.
+     * No-op when nothing is pending.
+     */
+    private void startBackgroundMigration() {
+        if (databaseManager.isBackgroundMigrationPending()) {
+            runMigrationChunk();
+        }
+    }
+
+    private void runMigrationChunk() {
+        storage.runBackgroundMigrationChunk().whenComplete((more, error) -> {
+            // A saturated executor means gameplay queries go first; try again later.
+            if (error == null ? more : storage.isSaturated(error)) {
+                scheduler.runAsyncLater(this::runMigrationChunk, MIGRATION_CHUNK_PAUSE_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
     /**
      * Registers the PlaceholderAPI expansion if PAPI is installed.
      * Failure to register is logged but never aborts plugin enable — PAPI is a soft dependency.
+     *
+     * @param loadingPlaceholder Shown for an offline player until their opt-out status loads
      */
-    private void registerPlaceholderApiExpansion() {
+    private void registerPlaceholderApiExpansion(String loadingPlaceholder) {
         if (getServer().getPluginManager().getPlugin("PlaceholderAPI") == null) {
             return;
         }
         try {
-            final boolean registered = new StormtrooperXExpansion(this, optOutManager).register();
+            final boolean registered = new StormtrooperXExpansion(this, optOutManager, loadingPlaceholder).register();
             if (registered) {
                 logger.info("PlaceholderAPI detected; registered %stormtrooperx_optout%");
             } else {
@@ -185,9 +308,10 @@ private void loadConfiguration() {
         }
 
         debug = getConfig().getBoolean("debug", false);
+        randomSource = loadRandomSource();
 
-        // Build into a staging map and publish in one write — Folia event
-        // threads must never see a partially populated map.
+        // Build into a staging map, compile, and publish in one write — Folia
+        // event threads must never see a partially populated table.
         final java.util.Map<EntityType, EntityConfig> staging = new EnumMap<>(EntityType.class);
         loadEntityConfig(staging, "skeleton", EntityType.SKELETON);
         loadEntityConfig(staging, "stray", EntityType.STRAY);
@@ -195,7 +319,20 @@ private void loadConfiguration() {
         loadEntityConfig(staging, "parched", "PARCHED", "1.21.11+");
         loadEntityConfig(staging, "pillager", "PILLAGER", "1.14+");
         loadEntityConfig(staging, "piglin", "PIGLIN", "1.16+");
-        entityConfigs = staging;
+        entityConfigTable = EntityConfigTable.compile(staging);
+    }
+
+    /**
+     * Selects the nerf's random source: seeded (reproducible) when
+     * {@code random-seed} is set, per-thread {@code ThreadLocalRandom} otherwise.
+     */
+    private RandomSource loadRandomSource() {
+        if (!getConfig().isSet("random-seed")) {
+            return RandomSource.threadLocal();
+        }
+        final long seed = getConfig().getLong("random-seed");
+        this.logger.info("Using seeded random source (random-seed: " + seed + "); shot deviations are reproducible");
+        return RandomSource.seeded(seed);
     }
 
     /**
@@ -345,9 +482,9 @@ private static String capitalize(String str) {
      * @param displayName The display name
      */
     private void displayEntityStatus(CommandSender sender, EntityType entityType, String displayName) {
-        final EntityConfig config = entityConfigs.get(entityType);
-        if (config != null && config.isEnabled()) {
-            sender.sendMessage(ChatColor.WHITE + "  - " + displayName + ": " + ChatColor.GREEN + "Enabled " + ChatColor.GRAY + "(accuracy: " + String.format("%.2f", config.getAccuracy()) + ")");
+        final EntityConfigTable table = entityConfigTable;
+        if (table.isEnabled(entityType)) {
+            sender.sendMessage(ChatColor.WHITE + "  - " + displayName + ": " + ChatColor.GREEN + "Enabled " + ChatColor.GRAY + "(accuracy: " + String.format("%.2f", table.accuracy(entityType)) + ")");
         } else {
             sender.sendMessage(ChatColor.WHITE + "  - " + displayName + ": " + ChatColor.RED + "Disabled");
         }
@@ -384,7 +521,7 @@ public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Comman
             final boolean canSelfOptout = sender instanceof Player && sender.hasPermission("stormtrooperx.optout");
             final boolean canAdminOptout = sender.hasPermission("stormtrooperx.optout.others");
 
-            final List<String> available = new ArrayList<>(5);
+            final List<String> available = new ArrayList<>(6);
             available.addAll(TAB_PUBLIC);
             if (canSelfOptout || canAdminOptout) {
                 available.addAll(TAB_OPTOUT);
@@ -401,6 +538,12 @@ public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Comman
             return matches;
         }
 
+        if (args.length == 2 && args[0].equalsIgnoreCase("stats") && sender.hasPermission("stormtrooperx.admin")) {
+            final List<String> matches = new ArrayList<>();
+            StringUtil.copyPartialMatches(args[1], TAB_STATS, matches);
+            return matches;
+        }
+
         // Second arg: online player names for admin variants of optout/optin
         if (args.length == 2 && sender.hasPermission("stormtrooperx.optout.others")) {
             final String sub = args[0].toLowerCase();
@@ -439,6 +582,9 @@ public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command
             case "reload":
                 handleReload(sender);
                 return true;
+            case "stats":
+                handleStats(sender, args.length >= 2 ? args[1].toLowerCase(Locale.ROOT) : "shots");
+                return true;
             case "optout":
                 if (args.length >= 2) {
                     handleAdminSet(sender, args[1], true);
@@ -491,6 +637,8 @@ private void sendHelp(CommandSender sender) {
         sender.sendMessage(ChatColor.YELLOW + "/stormtrooperx help" + ChatColor.GRAY + " - Show this help");
         if (sender.hasPermission("stormtrooperx.admin")) {
             sender.sendMessage(ChatColor.YELLOW + "/stormtrooperx reload" + ChatColor.GRAY + " - Reload configuration");
+            sender.sendMessage(ChatColor.YELLOW + "/stormtrooperx stats [shots|storage|cache|db]" + ChatColor.GRAY + " - Show statistics");
+            sender.sendMessage(ChatColor.YELLOW + "/stormtrooperx stats reset" + ChatColor.GRAY + " - Reset the shot counters");
         }
         if (sender instanceof Player && sender.hasPermission("stormtrooperx.optout")) {
             sender.sendMessage(ChatColor.YELLOW + "/stormtrooperx optout" + ChatColor.GRAY + " - Opt yourself out of mob accuracy nerfs");
@@ -514,6 +662,256 @@ private void handleReload(CommandSender sender) {
         sender.sendMessage(ChatColor.GREEN + "Configuration reloaded successfully!");
     }
 
+    private void handleStats(CommandSender sender, String section) {
+        if (!sender.hasPermission("stormtrooperx.admin")) {
+            sender.sendMessage(ChatColor.RED + "You don't have permission to view statistics!");
+            return;
+        }
+        switch (section) {
+            case "shots":
+                sendShotStats(sender);
+                break;
+            case "storage":
+                sendStatsHeader(sender, "Storage", SINCE_ENABLE);
+                boolean storageShown = sendWriteQueueStats(sender);
+                storageShown |= sendStorageExecutorStats(sender);
+                if (!storageShown) {
+                    sender.sendMessage(ChatColor.GRAY + "  (database storage is not running)");
+                }
+                break;
+            case "cache":
+                sendStatsHeader(sender, "Opt-out caches", SINCE_ENABLE);
+                boolean cacheShown = sendPreloadStats(sender);
+                cacheShown |= sendSnapshotStats(sender);
+                cacheShown |= sendNegativeCacheStats(sender);
+                cacheShown |= sendOfflineCacheStats(sender);
+                if (!cacheShown) {
+                    sender.sendMessage(ChatColor.GRAY + "  (no opt-out caches enabled)");
+                }
+                break;
+            case "db":
+                sendStatsHeader(sender, "Database", SINCE_ENABLE);
+                boolean databaseShown = sendCircuitStats(sender);
+                databaseShown |= sendReadCoalescingStats(sender);
+                databaseShown |= sendStatementCacheStats(sender);
+                databaseShown |= sendSyncStats(sender);
+                if (!databaseShown) {
+                    sender.sendMessage(ChatColor.GRAY + "  (database is not running)");
+                }
+                break;
+            case "reset":
+                shotStats.reset();
+                sender.sendMessage(ChatColor.GREEN + "Shot statistics reset. Storage, cache and database "
+                    + "counters are kept; they count since the plugin was enabled.");
+                break;
+            default:
+                sender.sendMessage(ChatColor.RED + "Unknown statistics section. Use "
+                    + String.join(", ", TAB_STATS) + ".");
+                break;
+        }
+    }
+
+    /**
+     * Header shared by the {@code stats} sections, with a line saying what
+     * window the counters cover. Only the shot counters can be reset.
+     */
+    private static void sendStatsHeader(CommandSender sender, String title, String window) {
+        sender.sendMessage(ChatColor.GOLD + "========================================");
+        sender.sendMessage(ChatColor.GOLD + "  StormtrooperX Statistics: " + title);
+        sender.sendMessage(ChatColor.GOLD + "========================================");
+        sender.sendMessage(ChatColor.GRAY + window);
+    }
+
+    private void sendShotStats(CommandSender sender) {
+        final ShotStats.Snapshot stats = shotStats.snapshot();
+        final long seconds = Math.max(0, (System.currentTimeMillis() - stats.sinceMillis()) / 1000);
+        sendStatsHeader(sender, "Shots", "Collected over the last " + formatDuration(seconds)
+            + " (since enable or last reset)");
+        sender.sendMessage(ChatColor.YELLOW + "Shots seen: " + ChatColor.WHITE + stats.shotsSeen());
+        sender.sendMessage(ChatColor.WHITE + "  - Nerfed: " + stats.count(ShotStats.Outcome.NERFED));
+        sender.sendMessage(ChatColor.WHITE + "  - Opt-out skips: " + stats.count(ShotStats.Outcome.OPTED_OUT));
+        sender.sendMessage(ChatColor.WHITE + "  - Zero-velocity skips: " + stats.count(ShotStats.Outcome.ZERO_VELOCITY));
+        sender.sendMessage(ChatColor.WHITE + "  - Not configured: " + stats.count(ShotStats.Outcome.NOT_CONFIGURED));
+
+        sender.sendMessage(ChatColor.YELLOW + "By entity type:");
+        boolean any = false;
+        for (EntityType entityType : EntityType.values()) {
+            final long count = stats.count(entityType);
+            if (count > 0) {
+                sender.sendMessage(ChatColor.WHITE + "  - " + entityType.name().toLowerCase(Locale.ROOT) + ": " + count);
+                any = true;
+            }
+        }
+        if (!any) {
+            sender.sendMessage(ChatColor.GRAY + "  (no shots yet)");
+        }
+
+        sender.sendMessage(ChatColor.YELLOW + "Handler latency: " + ChatColor.WHITE
+            + "mean " + stats.meanNanos() + " ns, p50 " + stats.percentileNanos(0.50)
+            + " ns, p99 " + stats.percentileNanos(0.99) + " ns, p99.9 " + stats.percentileNanos(0.999) + " ns");
+        sender.sendMessage(ChatColor.GRAY + "Use " + ChatColor.YELLOW + "/stormtrooperx stats reset" + ChatColor.GRAY
+            + " to clear these shot counters, or " + ChatColor.YELLOW + "stats storage|cache|db" + ChatColor.GRAY
+            + " for the opt-out database.");
+    }
+
+    private boolean sendWriteQueueStats(CommandSender sender) {
+        final OptOutWriteQueue writeQueue = optOutManager == null ? null : optOutManager.getWriteQueue();
+        if (writeQueue == null) {
+            return false;
+        }
+        sender.sendMessage(ChatColor.YELLOW + "Write-behind queue:");
+        sender.sendMessage(ChatColor.WHITE + "  - Queue depth: " + writeQueue.queueDepth());
+        sender.sendMessage(ChatColor.WHITE + "  - Changes: " + writeQueue.enqueuedCount()
+            + " (" + writeQueue.coalescedCount() + " coalesced)");
+        sender.sendMessage(ChatColor.WHITE + "  - Rows written: " + writeQueue.rowsWrittenCount()
+            + " in " + writeQueue.batchCount() + " batches (" + writeQueue.failedBatchCount() + " failed)");
+        if (journal != null) {
+            sender.sendMessage(ChatColor.WHITE + "  - Journaled: " + writeQueue.journaledCount()
+                + " changes awaiting the database (" + journal.recordCount() + " records on disk)");
+        }
+        sender.sendMessage(ChatColor.WHITE + "  - Flush latency: last " + formatMillis(writeQueue.lastFlushNanos())
+            + ", mean " + formatMillis(writeQueue.meanFlushNanos())
+            + ", max " + formatMillis(writeQueue.maxFlushNanos()));
+        return true;
+    }
+
+    private boolean sendStorageExecutorStats(CommandSender sender) {
+        if (storage == null) {
+            return false;
+        }
+        sender.sendMessage(ChatColor.YELLOW + "Storage executor"
+            + (storage.usesVirtualThreads() ? " (virtual threads)" : "") + ": " + ChatColor.WHITE
+            + storage.activeCount() + "/" + storage.parallelism() + " threads busy, queue "
+            + storage.queueDepth() + "/" + storage.queueCapacity() + ", "
+            + storage.submittedCount() + " calls (" + storage.rejectedCount() + " rejected)");
+        return true;
+    }
+
+    private boolean sendPreloadStats(CommandSender sender) {
+        if (optOutManager == null || optOutManager.preloadTableBytes() < 0) {
+            return false;
+        }
+        sender.sendMessage(ChatColor.YELLOW + "Opt-out preload: " + ChatColor.WHITE
+            + (optOutManager.isPreloaded() ? "loaded, " : "loading, ") + optOutManager.getCacheSize()
+            + " players in memory (" + optOutManager.preloadTableBytes() / 1024 + " KiB)");
+        return true;
+    }
+
+    private boolean sendSnapshotStats(CommandSender sender) {
+        final OptOutSnapshot snapshot = optOutManager == null ? null : optOutManager.getSnapshot();
+        if (snapshot == null) {
+            return false;
+        }
+        final OptOutManager.SnapshotState state = optOutManager.getSnapshotState();
+        sender.sendMessage(ChatColor.YELLOW + "Warm-restart snapshot: " + ChatColor.WHITE
+            + (state == OptOutManager.SnapshotState.NONE ? "none loaded at startup"
+                : "generation " + snapshot.generation() + " (" + snapshot.size() + " players), "
+                    + (state == OptOutManager.SnapshotState.UNVERIFIED ? "answering joins until the database confirms it"
+                        : state.name().toLowerCase(Locale.ROOT))));
+        return true;
+    }
+
+    private boolean sendNegativeCacheStats(CommandSender sender) {
+        final OptOutNegativeCache negativeCache = optOutManager == null ? null : optOutManager.getNegativeCache();
+        if (negativeCache == null) {
+            return false;
+        }
+        final OptOutBloomFilter filter = negativeCache.filter();
+        if (filter == null) {
+            sender.sendMessage(ChatColor.YELLOW + "Negative cache: " + ChatColor.WHITE + "building");
+            return true;
+        }
+        sender.sendMessage(ChatColor.YELLOW + "Negative cache: " + ChatColor.WHITE
+            + filter.memoryBytes() / 1024 + " KiB, " + filter.hashCount() + " hashes, "
+            + negativeCache.skippedCount() + "/" + negativeCache.lookupCount()
+            + " lookups skipped, built " + negativeCache.buildCount() + " times");
+        sender.sendMessage(ChatColor.WHITE + "  - False positives: "
+            + String.format(Locale.ROOT, "%.2f%% estimated, %.2f%% observed (%d of %d), %.2f%% target",
+                filter.expectedFalsePositiveRate() * 100, negativeCache.observedFalsePositiveRate() * 100,
+                negativeCache.falsePositiveCount(), negativeCache.negativeCount(),
+                negativeCache.targetFalsePositiveRate() * 100));
+        return true;
+    }
+
+    private boolean sendOfflineCacheStats(CommandSender sender) {
+        final OfflineOptOutCache offlineCache = optOutManager == null ? null : optOutManager.getOfflineCache();
+        if (offlineCache == null) {
+            return false;
+        }
+        sender.sendMessage(ChatColor.YELLOW + "Offline-player cache: " + ChatColor.WHITE
+            + offlineCache.size() + " players, " + offlineCache.hitCount() + " hits, "
+            + offlineCache.loadCount() + " loads (" + offlineCache.mergedCount() + " requests shared a load, "
+            + offlineCache.failureCount() + " failed), " + offlineCache.evictionCount() + " evicted");
+        return true;
+    }
+
+    private boolean sendCircuitStats(CommandSender sender) {
+        if (databaseManager == null) {
+            return false;
+        }
+        final DatabaseCircuitBreaker breaker = databaseManager.getCircuitBreaker();
+        sender.sendMessage(ChatColor.YELLOW + "Database circuit: " + ChatColor.WHITE
+            + breaker.state().name().toLowerCase(Locale.ROOT).replace('_', '-') + " ("
+            + breaker.failureCount() + " failed calls, " + breaker.retryCount() + " retries, "
+            + breaker.rejectedCount() + " failed fast, opened " + breaker.tripCount() + " times)");
+        return true;
+    }
+
+    private boolean sendReadCoalescingStats(CommandSender sender) {
+        final ReadCoalescer readCoalescer = databaseManager == null ? null : databaseManager.getReadCoalescer();
+        if (readCoalescer == null) {
+            return false;
+        }
+        sender.sendMessage(ChatColor.YELLOW + "Read coalescing: " + ChatColor.WHITE
+            + readCoalescer.readCount() + " reads, " + readCoalescer.queryCount() + " queries, "
+            + readCoalescer.savedCount() + " reads saved (" + readCoalescer.sharedCount()
+            + " shared an in-flight query, " + readCoalescer.batchedCount() + " joined a batch)");
+        return true;
+    }
+
+    private boolean sendStatementCacheStats(CommandSender sender) {
+        final StatementCache statementCache = databaseManager == null ? null : databaseManager.getStatementCache();
+        if (statementCache == null) {
+            return false;
+        }
+        sender.sendMessage(ChatColor.YELLOW + "H2 statement cache: " + ChatColor.WHITE
+            + statementCache.hitCount() + " hits, " + statementCache.missCount() + " misses ("
+            + String.format(Locale.ROOT, "%.1f", statementCache.hitRate() * 100) + "% hit rate)");
+        return true;
+    }
+
+    private boolean sendSyncStats(CommandSender sender) {
+        final OptOutChangeFeed changeFeed = optOutManager == null ? null : optOutManager.getChangeFeed();
+        if (changeFeed == null) {
+            return false;
+        }
+        sender.sendMessage(ChatColor.YELLOW + "Cross-server sync: " + ChatColor.WHITE
+            + (changeFeed.cursor() < 0 ? "waiting for the change log" : "at change " + changeFeed.cursor())
+            + ", " + changeFeed.appliedCount() + " changes from other servers applied ("
+            + changeFeed.ownCount() + " own skipped, " + changeFeed.missedCount() + " missed), "
+            + changeFeed.pollCount() + " polls (" + changeFeed.failedPollCount() + " failed)");
+        return true;
+    }
+
+    /** Formats nanoseconds as milliseconds with one decimal, e.g. {@code 2.5 ms}. */
+    static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f ms", nanos / 1_000_000.0);
+    }
+
+    /** Formats whole seconds as e.g. {@code 1h 2m 3s}. */
+    static String formatDuration(long seconds) {
+        final long hours = seconds / 3600;
+        final long minutes = (seconds % 3600) / 60;
+        final long secs = seconds % 60;
+        if (hours > 0) {
+            return hours + "h " + minutes + "m " + secs + "s";
+        }
+        if (minutes > 0) {
+            return minutes + "m " + secs + "s";
+        }
+        return secs + "s";
+    }
+
     private void handleSelfSet(CommandSender sender, boolean optedOut) {
         if (!(sender instanceof Player player)) {
             sender.sendMessage(ChatColor.RED + "Only players can use this command without a target!");
@@ -595,16 +993,31 @@ private void sendOptOutConfirmation(CommandSender sender, boolean optedOut) {
 
     @EventHandler(ignoreCancelled = true)
     public void onBowShoot(EntityShootBowEvent event) {
-        // Hot path — cache the shooter/type/config locals.
+        final long start = System.nanoTime();
+        // Hot path — cache the shooter/type locals.
         final org.bukkit.entity.Entity shooter = event.getEntity();
         final EntityType entityType = shooter.getType();
+        final ShotStats.Outcome outcome = nerfShot(event, shooter, entityType);
+        shotStats.record(entityType, outcome, System.nanoTime() - start);
+    }
+
+    /**
+     * Applies the accuracy nerf to one shot.
+     *
+     * @return how the shot left the handler, for {@link ShotStats}
+     */
+    private ShotStats.Outcome nerfShot(EntityShootBowEvent event, org.bukkit.entity.Entity shooter,
+                                       EntityType entityType) {
         // volatile read of the published snapshot — Folia regional-thread safe.
-        final EntityConfig config = entityConfigs.get(entityType);
+        final EntityConfigTable table = entityConfigTable;
+        final int ordinal = entityType.ordinal();
 
-        // Cheap null check first: non-configured shots cost almost nothing.
-        if (config == null || !config.isEnabled()) {
-            return;
+        // Cheap bit test first: non-configured shots cost almost nothing.
+        if (!table.isEnabled(ordinal)) {
+            return ShotStats.Outcome.NOT_CONFIGURED;
         }
+        // Clamped to [0.0, 1.0] by the EntityConfig ctor before compilation.
+        final double accuracy = table.accuracy(ordinal);
 
         if (debug) {
             logger.info("EntityShootBowEvent -- " + entityType + ": " + event.getProjectile().getVelocity());
@@ -618,30 +1031,34 @@ public void onBowShoot(EntityShootBowEvent event) {
                     if (debug) {
                         logger.info("Skipping nerf for " + player.getName() + " (opted out)");
                     }
-                    return;
+                    return ShotStats.Outcome.OPTED_OUT;
                 }
             }
         }
 
         // getProjectile() returns Entity in this Spigot API version; cache it.
         final org.bukkit.entity.Entity projectile = event.getProjectile();
-        final Vector velocity = projectile.getVelocity();
+        // getVelocity() hands back a fresh copy; read it once into the per-thread
+        // scratch and do the math on primitives from there.
+        final ProjectileNerf.Scratch scratch = ProjectileNerf.scratch().load(projectile.getVelocity());
         // lengthSquared() avoids a sqrt; zero iff the vector is zero-length.
-        if (velocity.lengthSquared() == 0) {
+        if (scratch.lengthSquared() == 0) {
             if (debug) {
                 logger.info("Skipping projectile with zero velocity from " + entityType);
             }
-            return;
+            return ShotStats.Outcome.ZERO_VELOCITY;
         }
 
-        // accuracy is already clamped to [0.0, 1.0] by the EntityConfig ctor.
-        ProjectileNerf.perturb(velocity, config.getAccuracy(), Vector::getRandom);
+        ProjectileNerf.perturb(scratch, accuracy, randomSource);
+        // setVelocity copies the components, so the reusable write-back vector is safe here.
+        final Vector velocity = scratch.toVector();
         projectile.setVelocity(velocity);
 
         if (debug) {
             logger.info("Projectile from '" + entityType + "' launched with modified velocity '" + velocity +
-                "' (accuracy: " + String.format("%.2f", config.getAccuracy()) + ")");
+                "' (accuracy: " + String.format("%.2f", accuracy) + ")");
         }
+        return ShotStats.Outcome.NERFED;
     }
 
 }
@@ -11,24 +11,40 @@
  * {@code /papi reload}.
  *
  * <p>{@code %stormtrooperx_optout%} — {@code "true"}/{@code "false"} for whether
- * the player has opted out. <b>Online-only:</b> backed by
- * {@link OptOutManager#isOptedOut(java.util.UUID)}, so offline players resolve
- * to {@code "false"} regardless of persisted state.</p>
+ * the player has opted out. Backed by
+ * {@link OptOutManager#resolveOptOut(java.util.UUID, boolean)}: offline
+ * players are loaded in the background, and the configured loading
+ * placeholder is shown until their first load lands, so a request never
+ * waits on the database.</p>
  */
 public class StormtrooperXExpansion extends PlaceholderExpansion {
 
     private final StormtrooperX plugin;
     private final OptOutManager optOutManager;
+    private final String loadingPlaceholder;
 
     public StormtrooperXExpansion(StormtrooperX plugin, OptOutManager optOutManager) {
+        this(plugin, optOutManager, OfflineOptOutCache.Settings.DEFAULT_LOADING_PLACEHOLDER);
+    }
+
+    /**
+     * @param plugin             Owning plugin (must not be null)
+     * @param optOutManager      Opt-out state (must not be null)
+     * @param loadingPlaceholder Shown for an offline player until their status loads (must not be null)
+     */
+    public StormtrooperXExpansion(StormtrooperX plugin, OptOutManager optOutManager, String loadingPlaceholder) {
         if (plugin == null) {
             throw new IllegalArgumentException("plugin cannot be null");
         }
         if (optOutManager == null) {
             throw new IllegalArgumentException("optOutManager cannot be null");
         }
+        if (loadingPlaceholder == null) {
+            throw new IllegalArgumentException("loadingPlaceholder cannot be null");
+        }
         this.plugin = plugin;
         this.optOutManager = optOutManager;
+        this.loadingPlaceholder = loadingPlaceholder;
     }
 
     @Override
@@ -58,7 +74,8 @@ public String onRequest(OfflinePlayer player, @NotNull String params) {
             return "";
         }
         if (params.equalsIgnoreCase("optout")) {
-            return Boolean.toString(optOutManager.isOptedOut(player.getUniqueId()));
+            final Boolean optedOut = optOutManager.resolveOptOut(player.getUniqueId(), player.isOnline());
+            return optedOut == null ? loadingPlaceholder : Boolean.toString(optedOut);
         }
         // Unknown placeholder — return null so PAPI leaves the literal text in place
         return null;
@@ -0,0 +1,175 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link StorageExecutor} that starts a new thread per call — meant for
+ * virtual threads (see {@link VirtualThreads}), where a thread parked in
+ * blocking JDBC I/O releases its carrier instead of holding an OS thread.
+ *
+ * <p>Each thread waits on a fair semaphore of {@code parallelism} permits
+ * before running its call, so no more calls hit the database at once than
+ * there are pooled connections, and the waiting threads are the queue. At
+ * most {@code parallelism + queueCapacity} calls are accepted at a time;
+ * beyond that {@link #execute} rejects, exactly like
+ * {@link PooledStorageExecutor}'s full queue.</p>
+ */
+final class ThreadPerCallStorageExecutor implements StorageExecutor {
+
+    private final ThreadFactory threadFactory;
+    private final boolean virtual;
+    private final int parallelism;
+    private final int queueCapacity;
+    private final Semaphore permits;
+
+    // Calls accepted and not yet finished, waiting or running.
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final Object terminationLock = new Object();
+    private volatile boolean shutdown;
+
+    /**
+     * @param threadFactory Creates one thread per call (must not be null)
+     * @param virtual       Whether the factory makes virtual threads (reporting only)
+     * @param parallelism   Calls that may run at once (must be positive)
+     * @param queueCapacity Calls that may wait for a permit (must be positive)
+     * @throws IllegalArgumentException if threadFactory is null or a size is not positive
+     */
+    ThreadPerCallStorageExecutor(ThreadFactory threadFactory, boolean virtual, int parallelism, int queueCapacity) {
+        if (threadFactory == null) {
+            throw new IllegalArgumentException("threadFactory cannot be null");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive, got: " + parallelism);
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be positive, got: " + queueCapacity);
+        }
+        this.threadFactory = threadFactory;
+        this.virtual = virtual;
+        this.parallelism = parallelism;
+        this.queueCapacity = queueCapacity;
+        this.permits = new Semaphore(parallelism, true);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        final int limit = parallelism + queueCapacity;
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                throw new RejectedExecutionException("Storage executor saturated: " + current + " calls in flight");
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+
+        // Checked after reserving, so a shutdown racing this call either sees
+        // the reservation in awaitTermination or makes us back out.
+        if (shutdown) {
+            finished();
+            throw new RejectedExecutionException("Storage executor is shut down");
+        }
+        final Thread thread = threadFactory.newThread(() -> runGated(task));
+        if (thread == null) {
+            finished();
+            throw new RejectedExecutionException("Thread factory refused a storage thread");
+        }
+        threads.add(thread);
+        try {
+            thread.start();
+        } catch (RuntimeException | Error e) {
+            threads.remove(thread);
+            finished();
+            throw new RejectedExecutionException("Could not start a storage thread", e);
+        }
+    }
+
+    private void runGated(Runnable task) {
+        try {
+            permits.acquire();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            // shutdownNow() while waiting: the call is dropped, as a pool drops its queue
+            Thread.currentThread().interrupt();
+        } finally {
+            threads.remove(Thread.currentThread());
+            finished();
+        }
+    }
+
+    private void finished() {
+        if (inFlight.decrementAndGet() == 0) {
+            synchronized (terminationLock) {
+                terminationLock.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public int queueDepth() {
+        return Math.max(0, inFlight.get() - activeCount());
+    }
+
+    @Override
+    public int queueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public int activeCount() {
+        return parallelism - permits.availablePermits();
+    }
+
+    @Override
+    public int parallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public boolean usesVirtualThreads() {
+        return virtual;
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (terminationLock) {
+            while (inFlight.get() > 0) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(terminationLock, remaining);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int shutdownNow() {
+        shutdown = true;
+        final int queued = queueDepth();
+        threads.forEach(Thread::interrupt);
+        return queued;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+}
@@ -0,0 +1,69 @@
+package com.goobercraft.stormtrooperx;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual thread support, detected at runtime.
+ *
+ * <p>The plugin is compiled for Java 17, so {@code Thread.ofVirtual()} is
+ * looked up reflectively once, when this class loads. On Java 21+ it is
+ * found and a probe factory is built; before that, or on Java 19-20 where it
+ * is a preview API that throws unless enabled, virtual threads are reported
+ * unavailable. Resolving it here rather than in a multi-release class keeps
+ * it working under Spigot's plugin class loader, which does not read
+ * versioned JAR entries.</p>
+ */
+final class VirtualThreads {
+
+    // Thread.ofVirtual(), Thread.Builder.name(String, long) and Thread.Builder.factory(); null when unavailable
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            factory.invoke(name.invoke(ofVirtual.invoke(null), "probe-", 0L));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+            name = null;
+            factory = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /** Whether this runtime can start virtual threads. */
+    static boolean isAvailable() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Factory for virtual threads named {@code prefix} plus a counter.
+     *
+     * @param prefix Thread name prefix
+     * @return the factory, or null if {@link #isAvailable()} is false
+     */
+    static ThreadFactory factory(String prefix) {
+        if (!isAvailable()) {
+            return null;
+        }
+        try {
+            return (ThreadFactory) FACTORY.invoke(NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 1L));
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Failed to create a virtual thread factory", e);
+        }
+    }
+}
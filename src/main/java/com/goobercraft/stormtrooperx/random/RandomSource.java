@@ -0,0 +1,48 @@
+package com.goobercraft.stormtrooperx.random;
+
+/**
+ * Primitive random stream for the projectile-accuracy nerf.
+ *
+ * <p>Replaces the {@code Supplier<Vector>} seam fed by {@code Vector::getRandom},
+ * which allocated a vector per shot and drew from one static
+ * {@link java.util.Random} whose CAS'd seed every Folia region thread contended
+ * on. Implementations hand out independent per-thread streams, so concurrent
+ * shooters never touch shared state.</p>
+ *
+ * <p>Selected once per config load ({@link #seeded(long)} when
+ * {@code random-seed} is set, {@link #threadLocal()} otherwise) and published
+ * alongside the rest of the config snapshot.</p>
+ */
+@FunctionalInterface
+public interface RandomSource {
+
+    /**
+     * Returns the next uniform double in {@code [0.0, 1.0)} from the calling
+     * thread's stream. Allocation-free and safe from any thread.
+     *
+     * @return a uniform double in {@code [0.0, 1.0)}
+     */
+    double nextDouble();
+
+    /**
+     * Unseeded source backed by {@link java.util.concurrent.ThreadLocalRandom}.
+     * The production default.
+     *
+     * @return the shared thread-local source
+     */
+    static RandomSource threadLocal() {
+        return ThreadLocalRandomSource.INSTANCE;
+    }
+
+    /**
+     * Reproducible source: a root {@link java.util.SplittableRandom} seeded with
+     * {@code seed}, split once per thread on first use. A single thread (or a
+     * fixed thread start order) sees the same sequence on every run.
+     *
+     * @param seed Root seed
+     * @return A new seeded source
+     */
+    static RandomSource seeded(long seed) {
+        return new SeededRandomSource(seed);
+    }
+}
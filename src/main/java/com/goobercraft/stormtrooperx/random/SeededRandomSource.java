@@ -0,0 +1,32 @@
+package com.goobercraft.stormtrooperx.random;
+
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible {@link RandomSource}: one root {@link SplittableRandom} seeded
+ * from config, split into an independent child stream the first time each
+ * thread draws. {@code SplittableRandom} is not thread-safe, so the root is
+ * only touched under its own monitor (once per thread) and each child is
+ * confined to the thread that owns it.
+ */
+final class SeededRandomSource implements RandomSource {
+
+    private final SplittableRandom root;
+    private final ThreadLocal<SplittableRandom> streams;
+
+    SeededRandomSource(long seed) {
+        this.root = new SplittableRandom(seed);
+        this.streams = ThreadLocal.withInitial(this::split);
+    }
+
+    private SplittableRandom split() {
+        synchronized (root) {
+            return root.split();
+        }
+    }
+
+    @Override
+    public double nextDouble() {
+        return streams.get().nextDouble();
+    }
+}
@@ -0,0 +1,21 @@
+package com.goobercraft.stormtrooperx.random;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link RandomSource} backed by {@link ThreadLocalRandom}: each thread draws
+ * from its own seed field in {@link Thread}, so there is no shared CAS and no
+ * per-call allocation.
+ */
+final class ThreadLocalRandomSource implements RandomSource {
+
+    static final ThreadLocalRandomSource INSTANCE = new ThreadLocalRandomSource();
+
+    private ThreadLocalRandomSource() {
+    }
+
+    @Override
+    public double nextDouble() {
+        return ThreadLocalRandom.current().nextDouble();
+    }
+}
@@ -1,6 +1,7 @@
 package com.goobercraft.stormtrooperx.scheduler;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 
@@ -22,6 +23,7 @@ final class FoliaScheduler implements PluginScheduler {
     private static final Method GET_ASYNC_SCHEDULER;
     private static final Method GET_GLOBAL_REGION_SCHEDULER;
     private static final Method ASYNC_RUN_NOW;
+    private static final Method ASYNC_RUN_DELAYED;
     private static final Method GLOBAL_RUN;
 
     static {
@@ -33,6 +35,8 @@ final class FoliaScheduler implements PluginScheduler {
             final Class<?> globalSchedulerClass = Class.forName(
                     "io.papermc.paper.threadedregions.scheduler.GlobalRegionScheduler");
             ASYNC_RUN_NOW = asyncSchedulerClass.getMethod("runNow", Plugin.class, Consumer.class);
+            ASYNC_RUN_DELAYED = asyncSchedulerClass.getMethod("runDelayed", Plugin.class, Consumer.class,
+                    long.class, TimeUnit.class);
             GLOBAL_RUN = globalSchedulerClass.getMethod("run", Plugin.class, Consumer.class);
         } catch (ReflectiveOperationException e) {
             throw new IllegalStateException("Folia detected but its scheduler API is missing or changed", e);
@@ -62,6 +66,28 @@ public void runAsync(Runnable task) {
         }
     }
 
+    @Override
+    public void runAsyncLater(Runnable task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new IllegalArgumentException("task cannot be null");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+        if (delay <= 0) {
+            // runDelayed rejects non-positive delays.
+            runAsync(task);
+            return;
+        }
+        try {
+            final Object asyncScheduler = GET_ASYNC_SCHEDULER.invoke(null);
+            ASYNC_RUN_DELAYED.invoke(asyncScheduler, plugin, (Consumer<Object>) handle -> task.run(), delay, unit);
+        } catch (ReflectiveOperationException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to dispatch delayed async task via Folia scheduler", e);
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public void runGlobal(Runnable task) {
         if (task == null) {
@@ -1,5 +1,7 @@
 package com.goobercraft.stormtrooperx.scheduler;
 
+import java.util.concurrent.TimeUnit;
+
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
 
@@ -26,6 +28,23 @@ public void runAsync(Runnable task) {
         Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
     }
 
+    @Override
+    public void runAsyncLater(Runnable task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new IllegalArgumentException("task cannot be null");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit cannot be null");
+        }
+        Bukkit.getScheduler().runTaskLaterAsynchronously(plugin, task, toTicks(delay, unit));
+    }
+
+    /** Converts a delay to server ticks (50 ms), rounding up; never negative. */
+    static long toTicks(long delay, TimeUnit unit) {
+        final long millis = Math.max(0, unit.toMillis(delay));
+        return (millis + 49) / 50;
+    }
+
     @Override
     public void runGlobal(Runnable task) {
         if (task == null) {
@@ -1,5 +1,6 @@
 package com.goobercraft.stormtrooperx.scheduler;
 
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import org.bukkit.plugin.Plugin;
@@ -25,6 +26,17 @@ public interface PluginScheduler {
      */
     void runAsync(Runnable task);
 
+    /**
+     * Schedules a task to run asynchronously after a delay. The legacy
+     * scheduler works in 50 ms ticks, so the delay is rounded up to a whole
+     * tick there.
+     *
+     * @param task Task to run (must not be null)
+     * @param delay Delay before running; zero or negative runs as soon as possible
+     * @param unit Unit of {@code delay} (must not be null)
+     */
+    void runAsyncLater(Runnable task, long delay, TimeUnit unit);
+
     /**
      * Schedules a task to run on the global region thread (the closest analogue
      * to "the main thread" on Folia, and the actual main thread elsewhere).
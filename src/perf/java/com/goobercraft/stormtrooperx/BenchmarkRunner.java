@@ -0,0 +1,70 @@
+package com.goobercraft.stormtrooperx;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for {@code mvn -Pbenchmarks test-compile exec:exec}.
+ *
+ * <p>Runs the selected benchmarks once per thread count, to approximate a
+ * Folia server with that many region threads firing shots into the same
+ * listener. Each pass writes its own JSON file,
+ * {@code target/jmh/threads-<n>.json}, so runs from two releases can be
+ * compared count by count.</p>
+ *
+ * <p>Arguments are ordinary JMH command-line options (benchmark regex,
+ * {@code -f}, {@code -wi}, ...) and apply to every pass; {@code -t} and the
+ * result-file options are overridden per pass. Thread counts come from the
+ * {@code bench.threads} system property, default {@code 1,2,4,8}.</p>
+ */
+public final class BenchmarkRunner {
+
+    private static final String DEFAULT_THREADS = "1,2,4,8";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        final Options parent = new CommandLineOptions(args);
+        final int[] threadCounts = parseThreadCounts(System.getProperty("bench.threads", DEFAULT_THREADS));
+        final File outputDir = new File("target/jmh");
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalStateException("Could not create " + outputDir.getAbsolutePath());
+        }
+
+        for (int threads : threadCounts) {
+            final Options options = new OptionsBuilder()
+                .parent(parent)
+                .threads(threads)
+                .resultFormat(ResultFormatType.JSON)
+                .result(new File(outputDir, "threads-" + threads + ".json").getPath())
+                .build();
+            new Runner(options).run();
+        }
+    }
+
+    static int[] parseThreadCounts(String spec) {
+        final int[] counts = Arrays.stream(spec.split(","))
+            .map(String::trim)
+            .filter(s -> !s.isEmpty())
+            .mapToInt(Integer::parseInt)
+            .toArray();
+        for (int count : counts) {
+            if (count <= 0) {
+                throw new IllegalArgumentException("bench.threads entries must be positive, got: " + count);
+            }
+        }
+        if (counts.length == 0) {
+            throw new IllegalArgumentException("bench.threads is empty");
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,96 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Skeleton;
+import org.bukkit.event.entity.EntityShootBowEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.goobercraft.stormtrooperx.random.RandomSource;
+
+/**
+ * The full {@code StormtrooperX.onBowShoot} routing against stubbed entities:
+ * table lookup, target/opt-out check, velocity read, perturbation and
+ * write-back.
+ *
+ * <ul>
+ *   <li>{@code nerfedShot} — one skeleton at a player who has not opted out;
+ *       the full path on every call.</li>
+ *   <li>{@code mixedShots} — rotates through {@link PerfFixtures#mixedShots}:
+ *       several mob types, some targetless shooters and some opted-out
+ *       targets, so the early returns are weighted in.</li>
+ *   <li>{@code unconfiguredShooter} — a shooter type with no table entry; the
+ *       cost of the handler for every bow shot the plugin ignores.</li>
+ * </ul>
+ *
+ * <p>The plugin, table and opt-out cache are shared across JMH threads, as on
+ * a Folia server where every region thread hits the same listener; each
+ * thread rotates its own cursor.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BowShootBenchmark {
+
+    private static final int MIX_SIZE = 1024;
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        StormtrooperX plugin;
+        EntityShootBowEvent nerfed;
+        EntityShootBowEvent unconfigured;
+        EntityShootBowEvent[] mix;
+
+        @Setup
+        public void setUp() {
+            final OptOutManager optOutManager = PerfFixtures.optOutManager(0, new ArrayList<>());
+            plugin = PerfFixtures.plugin(PerfFixtures.defaultTable(), optOutManager, RandomSource.threadLocal());
+            nerfed = PerfFixtures.shot(PerfFixtures.shooter(Skeleton.class, EntityType.SKELETON,
+                PerfFixtures.player(UUID.randomUUID())));
+            // WITHER_SKELETON is absent from the table; any unconfigured type would do.
+            unconfigured = PerfFixtures.shot(PerfFixtures.shooter(Skeleton.class, EntityType.WITHER_SKELETON, null));
+            // 64 players, every fourth opted out.
+            mix = PerfFixtures.mixedShots(MIX_SIZE, 64, 4, optOutManager);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int advance() {
+            final int current = next;
+            next = (current + 1) & (MIX_SIZE - 1);
+            return current;
+        }
+    }
+
+    @Benchmark
+    public void nerfedShot(Shared shared) {
+        shared.plugin.onBowShoot(shared.nerfed);
+    }
+
+    @Benchmark
+    public void mixedShots(Shared shared, Cursor cursor) {
+        shared.plugin.onBowShoot(shared.mix[cursor.advance()]);
+    }
+
+    @Benchmark
+    public void unconfiguredShooter(Shared shared) {
+        shared.plugin.onBowShoot(shared.unconfigured);
+    }
+}
@@ -0,0 +1,79 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.entity.EntityType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-shot config resolution: the old {@code EnumMap<EntityType, EntityConfig>}
+ * probe against the ordinal-indexed {@link EntityConfigTable}.
+ *
+ * <p>Each invocation resolves one shooter from a fixed rotation mirroring a
+ * mixed mob farm — mostly skeletons, some strays/pillagers/piglins, plus one
+ * type that is not configured at all, so the miss path is measured too. Both
+ * variants return the accuracy, or {@code -1.0} when the type is not nerfed,
+ * and JMH consumes the return value.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityConfigLookupBenchmark {
+
+    private static final EntityType[] SHOOTERS = {
+        EntityType.SKELETON, EntityType.SKELETON, EntityType.STRAY, EntityType.SKELETON,
+        EntityType.PILLAGER, EntityType.SKELETON, EntityType.PIGLIN, EntityType.PLAYER,
+    };
+
+    private Map<EntityType, StormtrooperX.EntityConfig> enumMap;
+    private EntityConfigTable table;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        enumMap = new EnumMap<>(EntityType.class);
+        enumMap.put(EntityType.SKELETON, new StormtrooperX.EntityConfig(true, 0.7));
+        enumMap.put(EntityType.STRAY, new StormtrooperX.EntityConfig(true, 0.6));
+        enumMap.put(EntityType.PILLAGER, new StormtrooperX.EntityConfig(true, 0.5));
+        enumMap.put(EntityType.PIGLIN, new StormtrooperX.EntityConfig(false, 0.4));
+        table = EntityConfigTable.compile(enumMap);
+    }
+
+    private EntityType nextShooter() {
+        final EntityType shooter = SHOOTERS[cursor];
+        cursor = (cursor + 1) & (SHOOTERS.length - 1);
+        return shooter;
+    }
+
+    @Benchmark
+    public double enumMap() {
+        final StormtrooperX.EntityConfig config = enumMap.get(nextShooter());
+        if (config == null || !config.isEnabled()) {
+            return -1.0;
+        }
+        return config.getAccuracy();
+    }
+
+    @Benchmark
+    public double flatTable() {
+        final int ordinal = nextShooter().ordinal();
+        if (!table.isEnabled(ordinal)) {
+            return -1.0;
+        }
+        return table.accuracy(ordinal);
+    }
+}
@@ -0,0 +1,102 @@
+package com.goobercraft.stormtrooperx;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Join-load throughput of the embedded H2 backend by pool size.
+ *
+ * <p>{@code pointLookup} is the pre-login prefetch (one
+ * {@link DatabaseManager#isOptedOut(UUID)} per connecting player);
+ * {@code joinBatchLookup} is one {@link OptOutJoinLoader} batch of
+ * {@value #JOIN_BATCH} players. Run through {@link BenchmarkRunner} so each
+ * pool size is measured at every {@code bench.threads} count:
+ * {@code poolSize = 1} is the old single-connection behavior and stays flat
+ * as threads are added, larger pools should scale until they run out of
+ * threads or cores.</p>
+ *
+ * <p>The database lives in a fresh temp directory per trial, seeded with
+ * {@value #ROWS} rows (a quarter opted out).</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class H2PoolBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int JOIN_BATCH = 50;
+    private static final int PROBES = 4096;
+
+    @State(Scope.Benchmark)
+    public static class Database {
+        @Param({"1", "2", "4", "8"})
+        int poolSize;
+
+        Path directory;
+        DatabaseManager databaseManager;
+        UUID[] probes;
+
+        @Setup
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("stormtrooperx-h2-bench");
+            final List<UUID> players = new ArrayList<>(ROWS);
+            databaseManager = PerfFixtures.seededH2(directory, poolSize, ROWS, players);
+            probes = PerfFixtures.probes(players, PROBES);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            databaseManager.close();
+            PerfFixtures.deleteRecursively(directory);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int advance(int step) {
+            final int current = next;
+            next = (current + step) & (PROBES - 1);
+            return current;
+        }
+    }
+
+    @Benchmark
+    public boolean pointLookup(Database database, Cursor cursor) {
+        return database.databaseManager.isOptedOut(database.probes[cursor.advance(1)]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JOIN_BATCH)
+    public Set<UUID> joinBatchLookup(Database database, Cursor cursor) {
+        final int start = cursor.advance(JOIN_BATCH);
+        final List<UUID> batch = new ArrayList<>(JOIN_BATCH);
+        for (int i = 0; i < JOIN_BATCH; i++) {
+            batch.add(database.probes[(start + i) & (PROBES - 1)]);
+        }
+        return database.databaseManager.getOptedOut(batch);
+    }
+}
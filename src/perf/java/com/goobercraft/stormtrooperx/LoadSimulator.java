@@ -0,0 +1,293 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Mob;
+import org.bukkit.entity.Piglin;
+import org.bukkit.entity.Pillager;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Skeleton;
+import org.bukkit.entity.Stray;
+import org.bukkit.event.entity.EntityShootBowEvent;
+
+import com.goobercraft.stormtrooperx.random.RandomSource;
+
+/**
+ * Headless load simulator: fires synthetic {@link EntityShootBowEvent}s at
+ * {@code StormtrooperX.onBowShoot} from N threads and reports throughput and
+ * per-shot latency percentiles.
+ *
+ * <p>Run with {@code mvn -Pbenchmarks test-compile exec:exec@simulate}, passing
+ * options through {@code -Dsim.args="..."}:</p>
+ * <ul>
+ *   <li>{@code --threads=8} — shooting threads (think Folia region threads)</li>
+ *   <li>{@code --shots=2000000} — measured shots across all threads</li>
+ *   <li>{@code --warmup=500000} — unmeasured shots first, for the JIT</li>
+ *   <li>{@code --players=500} — distinct target players</li>
+ *   <li>{@code --opted-out=0.1} — fraction of players opted out</li>
+ *   <li>{@code --targetless=0.125} — fraction of shooters with no target</li>
+ *   <li>{@code --mix=skeleton:50,stray:20,pillager:20,piglin:10} — shooter weights</li>
+ *   <li>{@code --seed=1} — seed for building the event pool (shot deviations
+ *       use the plugin's normal thread-local source)</li>
+ * </ul>
+ *
+ * <p>The plugin runs against {@link PerfFixtures}: Proxy-stubbed entities and
+ * an {@link OptOutManager} whose database writes are never flushed, so only
+ * the in-memory read path is measured. Latencies are
+ * recorded per shot with {@link System#nanoTime()} into per-thread arrays, so
+ * the percentiles are exact; they include the stub and timer overhead, which
+ * is constant across releases.</p>
+ */
+public final class LoadSimulator {
+
+    /** Events pre-built per thread and replayed round-robin; a power of two. */
+    private static final int POOL_SIZE = 4096;
+
+    private LoadSimulator() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final Settings settings = Settings.parse(args);
+        System.out.println("StormtrooperX load simulator");
+        System.out.println("  " + settings);
+
+        final OptOutManager optOutManager = PerfFixtures.optOutManager(0, new ArrayList<>());
+        final SplittableRandom random = new SplittableRandom(settings.seed);
+        final List<Player> players = new ArrayList<>(settings.players);
+        for (int i = 0; i < settings.players; i++) {
+            final Player player = PerfFixtures.player(new UUID(random.nextLong(), random.nextLong()));
+            if (random.nextDouble() < settings.optedOut) {
+                optOutManager.setOptOut(player.getUniqueId(), true);
+            }
+            players.add(player);
+        }
+        final StormtrooperX plugin = PerfFixtures.plugin(PerfFixtures.defaultTable(), optOutManager,
+            RandomSource.threadLocal());
+
+        final EntityShootBowEvent[][] pools = new EntityShootBowEvent[settings.threads][];
+        for (int t = 0; t < settings.threads; t++) {
+            pools[t] = buildPool(settings, players, random.split());
+        }
+
+        System.out.println("  opted-out players: " + optOutManager.getCacheSize() + " / " + settings.players);
+        final long warmupPerThread = Math.max(1, settings.warmup / settings.threads);
+        run(plugin, pools, warmupPerThread, null);
+
+        final long shotsPerThread = Math.max(1, settings.shots / settings.threads);
+        final long[][] latencies = new long[settings.threads][(int) shotsPerThread];
+        final long elapsedNanos = run(plugin, pools, shotsPerThread, latencies);
+
+        report(settings.threads, shotsPerThread * settings.threads, elapsedNanos, merge(latencies));
+    }
+
+    private static EntityShootBowEvent[] buildPool(Settings settings, List<Player> players, SplittableRandom random) {
+        final int totalWeight = settings.mix.values().stream().mapToInt(Integer::intValue).sum();
+        final EntityShootBowEvent[] pool = new EntityShootBowEvent[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            final Player target = random.nextDouble() < settings.targetless
+                ? null : players.get(random.nextInt(players.size()));
+            int pick = random.nextInt(totalWeight);
+            EntityType type = null;
+            for (Map.Entry<EntityType, Integer> entry : settings.mix.entrySet()) {
+                pick -= entry.getValue();
+                if (pick < 0) {
+                    type = entry.getKey();
+                    break;
+                }
+            }
+            pool[i] = PerfFixtures.shot(shooter(type, target));
+        }
+        return pool;
+    }
+
+    private static Mob shooter(EntityType type, Player target) {
+        return switch (type) {
+            case STRAY -> PerfFixtures.shooter(Stray.class, type, target);
+            case PILLAGER -> PerfFixtures.shooter(Pillager.class, type, target);
+            case PIGLIN -> PerfFixtures.shooter(Piglin.class, type, target);
+            default -> PerfFixtures.shooter(Skeleton.class, type, target);
+        };
+    }
+
+    /**
+     * Fires {@code shotsPerThread} events from each pool on its own thread,
+     * all released together.
+     *
+     * @param latencies per-thread latency sinks, or {@code null} to skip timing (warm-up)
+     * @return wall-clock nanos from release to the last thread finishing
+     */
+    private static long run(StormtrooperX plugin, EntityShootBowEvent[][] pools, long shotsPerThread,
+                            long[][] latencies) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(pools.length);
+        for (int t = 0; t < pools.length; t++) {
+            final EntityShootBowEvent[] pool = pools[t];
+            final long[] sink = latencies == null ? null : latencies[t];
+            final Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < shotsPerThread; i++) {
+                        final EntityShootBowEvent event = pool[i & (POOL_SIZE - 1)];
+                        if (sink == null) {
+                            plugin.onBowShoot(event);
+                        } else {
+                            final long begin = System.nanoTime();
+                            plugin.onBowShoot(event);
+                            sink[i] = System.nanoTime() - begin;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "sim-region-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        final long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+
+    private static long[] merge(long[][] latencies) {
+        final long[] all = new long[Arrays.stream(latencies).mapToInt(a -> a.length).sum()];
+        int offset = 0;
+        for (long[] perThread : latencies) {
+            System.arraycopy(perThread, 0, all, offset, perThread.length);
+            offset += perThread.length;
+        }
+        Arrays.sort(all);
+        return all;
+    }
+
+    private static void report(int threads, long shots, long elapsedNanos, long[] sorted) {
+        final double seconds = elapsedNanos / 1e9;
+        System.out.println();
+        System.out.printf(Locale.ROOT, "  threads       %d%n", threads);
+        System.out.printf(Locale.ROOT, "  shots         %,d in %.3f s%n", shots, seconds);
+        System.out.printf(Locale.ROOT, "  throughput    %,.0f shots/sec%n", shots / seconds);
+        System.out.println("  latency (ns)");
+        System.out.printf(Locale.ROOT, "    p50         %,d%n", percentile(sorted, 0.50));
+        System.out.printf(Locale.ROOT, "    p99         %,d%n", percentile(sorted, 0.99));
+        System.out.printf(Locale.ROOT, "    p999        %,d%n", percentile(sorted, 0.999));
+        System.out.printf(Locale.ROOT, "    max         %,d%n", sorted[sorted.length - 1]);
+    }
+
+    /** Nearest-rank percentile over an ascending array. */
+    static long percentile(long[] sorted, double quantile) {
+        final int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    /** Parsed {@code --key=value} options. */
+    static final class Settings {
+        int threads = 8;
+        long shots = 2_000_000;
+        long warmup = 500_000;
+        int players = 500;
+        double optedOut = 0.1;
+        double targetless = 0.125;
+        long seed = 1;
+        Map<EntityType, Integer> mix = parseMix("skeleton:50,stray:20,pillager:20,piglin:10");
+
+        static Settings parse(String[] args) {
+            final Settings settings = new Settings();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                    throw new IllegalArgumentException("Expected --key=value, got: " + arg);
+                }
+                final String key = arg.substring(2, arg.indexOf('='));
+                final String value = arg.substring(arg.indexOf('=') + 1);
+                switch (key) {
+                    case "threads" -> settings.threads = positive(key, Integer.parseInt(value));
+                    case "shots" -> settings.shots = positive(key, Long.parseLong(value));
+                    case "warmup" -> settings.warmup = Long.parseLong(value);
+                    case "players" -> settings.players = positive(key, Integer.parseInt(value));
+                    case "opted-out" -> settings.optedOut = fraction(key, Double.parseDouble(value));
+                    case "targetless" -> settings.targetless = fraction(key, Double.parseDouble(value));
+                    case "seed" -> settings.seed = Long.parseLong(value);
+                    case "mix" -> settings.mix = parseMix(value);
+                    default -> throw new IllegalArgumentException("Unknown option: --" + key);
+                }
+            }
+            // Every measured shot keeps its latency for exact percentiles (8 bytes each).
+            if (settings.shots > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("--shots exceeds the latency buffer size");
+            }
+            return settings;
+        }
+
+        /** Parses {@code type:weight,...}; types are the four supported shooters. */
+        static Map<EntityType, Integer> parseMix(String spec) {
+            final Map<EntityType, Integer> mix = new EnumMap<>(EntityType.class);
+            for (String part : spec.split(",")) {
+                final String[] pair = part.trim().split(":");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("Expected type:weight in --mix, got: " + part);
+                }
+                final EntityType type = EntityType.valueOf(pair[0].trim().toUpperCase(Locale.ROOT));
+                if (type != EntityType.SKELETON && type != EntityType.STRAY
+                        && type != EntityType.PILLAGER && type != EntityType.PIGLIN) {
+                    throw new IllegalArgumentException("--mix supports skeleton, stray, pillager, piglin; got: "
+                        + pair[0]);
+                }
+                final int weight = Integer.parseInt(pair[1].trim());
+                if (weight < 0) {
+                    throw new IllegalArgumentException("--mix weights must be >= 0, got: " + part);
+                }
+                mix.put(type, weight);
+            }
+            if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+                throw new IllegalArgumentException("--mix needs at least one positive weight");
+            }
+            return mix;
+        }
+
+        private static int positive(String key, int value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("--" + key + " must be positive, got: " + value);
+            }
+            return value;
+        }
+
+        private static long positive(String key, long value) {
+            if (value <= 0) {
+                throw new IllegalArgumentException("--" + key + " must be positive, got: " + value);
+            }
+            return value;
+        }
+
+        private static double fraction(String key, double value) {
+            if (value < 0.0 || value > 1.0) {
+                throw new IllegalArgumentException("--" + key + " must be in [0, 1], got: " + value);
+            }
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            final Map<String, Object> view = new LinkedHashMap<>();
+            view.put("threads", threads);
+            view.put("shots", shots);
+            view.put("warmup", warmup);
+            view.put("players", players);
+            view.put("opted-out", optedOut);
+            view.put("targetless", targetless);
+            view.put("mix", mix);
+            view.put("seed", seed);
+            return view.toString();
+        }
+    }
+}
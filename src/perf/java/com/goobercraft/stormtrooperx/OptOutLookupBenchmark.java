@@ -0,0 +1,77 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link OptOutManager#isOptedOut(UUID)} against caches of increasing size.
+ *
+ * <p>The manager is shared by all JMH threads, like the single instance every
+ * region thread consults. Probes alternate between cached UUIDs and fresh
+ * ones, so hits and misses are measured half and half; with
+ * {@code cacheSize = 0} every probe misses.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptOutLookupBenchmark {
+
+    private static final int PROBES = 4096;
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        @Param({"0", "100", "1000", "10000"})
+        int cacheSize;
+
+        OptOutManager manager;
+        UUID[] probes;
+
+        @Setup
+        public void setUp() {
+            final List<UUID> cached = new ArrayList<>(cacheSize);
+            manager = PerfFixtures.optOutManager(cacheSize, cached);
+            probes = new UUID[PROBES];
+            for (int i = 0; i < PROBES; i++) {
+                final boolean hit = (i & 1) == 0 && !cached.isEmpty();
+                // Fresh UUID instances, so hits go through equals() as they would for a live Player.
+                probes[i] = hit ? copyOf(cached.get((i >>> 1) % cached.size())) : UUID.randomUUID();
+            }
+        }
+
+        private static UUID copyOf(UUID uuid) {
+            return new UUID(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int advance() {
+            final int current = next;
+            next = (current + 1) & (PROBES - 1);
+            return current;
+        }
+    }
+
+    @Benchmark
+    public boolean isOptedOut(Shared shared, Cursor cursor) {
+        return shared.manager.isOptedOut(shared.probes[cursor.advance()]);
+    }
+}
@@ -0,0 +1,290 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Mob;
+import org.bukkit.entity.Piglin;
+import org.bukkit.entity.Pillager;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Skeleton;
+import org.bukkit.entity.Stray;
+import org.bukkit.event.entity.EntityShootBowEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.util.Vector;
+import org.objenesis.ObjenesisStd;
+
+import com.goobercraft.stormtrooperx.random.RandomSource;
+import com.goobercraft.stormtrooperx.support.ManualPluginScheduler;
+import com.goobercraft.stormtrooperx.support.TestSupport;
+
+/**
+ * Server-free fixtures shared by the JMH benchmarks and the load simulator.
+ *
+ * <p>Entities are {@link Proxy} stubs rather than Mockito mocks: a mock
+ * invocation records itself and costs far more than the handler under test,
+ * while a proxy dispatch is a few nanoseconds. The stubs still add a small,
+ * constant overhead to every shot, so compare numbers across releases rather
+ * than reading them as absolute in-server costs.</p>
+ */
+final class PerfFixtures {
+
+    /** Arrow velocity the projectile stub reports — roughly a full-draw skeleton shot. */
+    static final double VELOCITY_X = 0.8;
+    static final double VELOCITY_Y = 0.3;
+    static final double VELOCITY_Z = 1.4;
+
+    private static final Logger LOGGER = quietLogger();
+
+    private PerfFixtures() {
+    }
+
+    private static Logger quietLogger() {
+        final Logger logger = Logger.getLogger("StormtrooperX-perf");
+        logger.setLevel(Level.WARNING);
+        return logger;
+    }
+
+    /** Logger for fixtures; INFO and below are suppressed so logging never skews a run. */
+    static Logger logger() {
+        return LOGGER;
+    }
+
+    /**
+     * Entity table matching the shipped {@code config.yml} defaults for the
+     * simulated shooter types, all at accuracy 0.7.
+     */
+    static EntityConfigTable defaultTable() {
+        final Map<EntityType, StormtrooperX.EntityConfig> configs = new EnumMap<>(EntityType.class);
+        configs.put(EntityType.SKELETON, new StormtrooperX.EntityConfig(true, 0.7));
+        configs.put(EntityType.STRAY, new StormtrooperX.EntityConfig(true, 0.7));
+        configs.put(EntityType.PILLAGER, new StormtrooperX.EntityConfig(true, 0.7));
+        configs.put(EntityType.PIGLIN, new StormtrooperX.EntityConfig(true, 0.7));
+        return EntityConfigTable.compile(configs);
+    }
+
+    /**
+     * Opt-out manager whose cache holds {@code optedOut} random UUIDs, backed
+     * by a stub-only mock {@link DatabaseManager} (never touched on the read
+     * path, and records no invocations, so long runs do not accumulate them).
+     * Its scheduler never runs queued tasks, so the setup writes sit in the
+     * write-behind queue instead of being flushed to the mock.
+     *
+     * @param optedOut Number of players to cache as opted out
+     * @param sink     Receives the cached UUIDs, in insertion order
+     */
+    static OptOutManager optOutManager(int optedOut, List<UUID> sink) {
+        final OptOutManager manager = new OptOutManager(LOGGER, mock(DatabaseManager.class, withSettings().stubOnly()),
+            new ManualPluginScheduler(), Math.max(1, optedOut * 4));
+        for (int i = 0; i < optedOut; i++) {
+            final UUID uuid = UUID.randomUUID();
+            manager.setOptOut(uuid, true);
+            sink.add(uuid);
+        }
+        return manager;
+    }
+
+    /**
+     * Embedded H2 database in {@code directory} with a {@code poolSize}
+     * connection pool, seeded with {@code rows} random players (a quarter
+     * opted out) in {@link DatabaseManager#MAX_IN_PARAMS}-row batches.
+     *
+     * @param sink Receives the seeded UUIDs, in insertion order
+     */
+    static DatabaseManager seededH2(Path directory, int poolSize, int rows, List<UUID> sink) {
+        final YamlConfiguration h2Config = new YamlConfiguration();
+        h2Config.set("pool-size", poolSize);
+        final DatabaseManager databaseManager = new DatabaseManager(LOGGER, directory.toFile(), "h2", null, h2Config,
+            new DatabaseCircuitBreaker(LOGGER), OptOutSettings.defaults());
+        databaseManager.initialize();
+
+        Map<UUID, Boolean> batch = new HashMap<>();
+        for (int i = 0; i < rows; i++) {
+            final UUID uuid = UUID.randomUUID();
+            sink.add(uuid);
+            batch.put(uuid, i % 4 == 0);
+            if (batch.size() == DatabaseManager.MAX_IN_PARAMS) {
+                databaseManager.setOptOuts(batch);
+                batch = new HashMap<>();
+            }
+        }
+        databaseManager.setOptOuts(batch);
+        return databaseManager;
+    }
+
+    /**
+     * {@code count} players drawn from {@code players} in a fixed scrambled
+     * order, so consecutive probes do not walk the index in key order.
+     */
+    static UUID[] probes(List<UUID> players, int count) {
+        final UUID[] probes = new UUID[count];
+        for (int i = 0; i < count; i++) {
+            probes[i] = players.get((int) ((i * 2654435761L) % players.size()));
+        }
+        return probes;
+    }
+
+    /** Deletes a benchmark's temp directory and everything in it. */
+    static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * A real {@link StormtrooperX} instance, created without running the
+     * {@code JavaPlugin} constructor (which needs a plugin class loader), with
+     * just the state {@code onBowShoot} reads injected.
+     */
+    static StormtrooperX plugin(EntityConfigTable table, OptOutManager optOutManager, RandomSource randomSource) {
+        final StormtrooperX plugin = new ObjenesisStd().newInstance(StormtrooperX.class);
+        TestSupport.inject(plugin, "logger", LOGGER);
+        TestSupport.inject(plugin, "entityConfigTable", table);
+        TestSupport.inject(plugin, "optOutManager", optOutManager);
+        TestSupport.inject(plugin, "randomSource", randomSource);
+        TestSupport.inject(plugin, "debug", false);
+        TestSupport.inject(plugin, "shotStats", new ShotStats());
+        return plugin;
+    }
+
+    /** Player stub answering {@code getUniqueId()} and {@code getName()}. */
+    static Player player(UUID uuid) {
+        final String name = "perf-" + uuid.toString().substring(0, 8);
+        return stub(Player.class, (method, args) -> switch (method) {
+            case "getUniqueId" -> uuid;
+            case "getName" -> name;
+            case "isOnline" -> true;
+            default -> null;
+        });
+    }
+
+    /**
+     * Arrow stub: {@code getVelocity()} returns a fresh vector per call, as
+     * Bukkit does, and {@code setVelocity} is accepted and discarded.
+     */
+    static Entity projectile() {
+        return stub(Entity.class, (method, args) -> switch (method) {
+            case "getVelocity" -> new Vector(VELOCITY_X, VELOCITY_Y, VELOCITY_Z);
+            case "getType" -> EntityType.ARROW;
+            default -> null;
+        });
+    }
+
+    /**
+     * Shooter stub of the given mob interface.
+     *
+     * @param type   Mob interface, e.g. {@code Skeleton.class}
+     * @param entity Entity type the stub reports
+     * @param target Current target, or {@code null} for none
+     */
+    static <T extends Mob> T shooter(Class<T> type, EntityType entity, LivingEntity target) {
+        return stub(type, (method, args) -> switch (method) {
+            case "getType" -> entity;
+            case "getTarget" -> target;
+            default -> null;
+        });
+    }
+
+    /** A bow event for {@code shooter} firing a fresh projectile stub. */
+    static EntityShootBowEvent shot(LivingEntity shooter) {
+        return new EntityShootBowEvent(shooter, null, null, projectile(), EquipmentSlot.HAND, 1.0f, false);
+    }
+
+    /**
+     * Realistic mob-farm shot mix over {@code players} targets: mostly
+     * skeletons, then strays, pillagers and piglins, with every eighth
+     * shooter left without a target. Every {@code optOutEvery}-th target is opted out in
+     * {@code optOutManager}; pass 0 to opt nobody out.
+     *
+     * @param count Number of events to build
+     */
+    static EntityShootBowEvent[] mixedShots(int count, int players, int optOutEvery, OptOutManager optOutManager) {
+        final List<Player> targets = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            final Player player = player(UUID.randomUUID());
+            if (optOutEvery > 0 && i % optOutEvery == 0) {
+                optOutManager.setOptOut(player.getUniqueId(), true);
+            }
+            targets.add(player);
+        }
+        final EntityShootBowEvent[] events = new EntityShootBowEvent[count];
+        for (int i = 0; i < count; i++) {
+            // Every eighth shooter has lost its target mid-draw.
+            final Player target = i % 8 == 7 ? null : targets.get(i % players);
+            final Mob shooter = switch (i % 10) {
+                case 0, 1, 2, 3, 4 -> shooter(Skeleton.class, EntityType.SKELETON, target);
+                case 5, 6 -> shooter(Stray.class, EntityType.STRAY, target);
+                case 7, 8 -> shooter(Pillager.class, EntityType.PILLAGER, target);
+                default -> shooter(Piglin.class, EntityType.PIGLIN, target);
+            };
+            events[i] = shot(shooter);
+        }
+        return events;
+    }
+
+    @FunctionalInterface
+    private interface Answers {
+        Object answer(String method, Object[] args);
+    }
+
+    private static <T> T stub(Class<T> type, Answers answers) {
+        final Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+            (self, method, args) -> {
+                switch (method.getName()) {
+                    case "hashCode":
+                        return System.identityHashCode(self);
+                    case "equals":
+                        return self == args[0];
+                    case "toString":
+                        return type.getSimpleName() + "Stub";
+                    default:
+                        break;
+                }
+                final Object answer = answers.answer(method.getName(), args);
+                return answer != null ? answer : defaultValue(method.getReturnType());
+            });
+        return type.cast(proxy);
+    }
+
+    private static Object defaultValue(Class<?> returnType) {
+        if (!returnType.isPrimitive() || returnType == void.class) {
+            return null;
+        }
+        if (returnType == boolean.class) {
+            return false;
+        }
+        if (returnType == char.class) {
+            return '\0';
+        }
+        if (returnType == float.class) {
+            return 0f;
+        }
+        if (returnType == double.class) {
+            return 0d;
+        }
+        if (returnType == long.class) {
+            return 0L;
+        }
+        return returnType == int.class ? 0 : returnType == short.class ? (short) 0 : (byte) 0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.goobercraft.stormtrooperx;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.goobercraft.stormtrooperx.random.RandomSource;
+
+/**
+ * The bare perturbation math: {@link ProjectileNerf#perturb} on the calling
+ * thread's scratch, with the default thread-local source and with the seeded
+ * {@code random-seed} source.
+ *
+ * <p>Each invocation reloads the same velocity so every call does identical
+ * work, and returns a component so the result cannot be dead-code eliminated.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectileNerfBenchmark {
+
+    private RandomSource threadLocal;
+    private RandomSource seeded;
+
+    @Setup
+    public void setUp() {
+        threadLocal = RandomSource.threadLocal();
+        seeded = RandomSource.seeded(12345L);
+    }
+
+    private static double perturb(RandomSource source) {
+        final ProjectileNerf.Scratch scratch = ProjectileNerf.scratch();
+        scratch.x = PerfFixtures.VELOCITY_X;
+        scratch.y = PerfFixtures.VELOCITY_Y;
+        scratch.z = PerfFixtures.VELOCITY_Z;
+        ProjectileNerf.perturb(scratch, 0.7, source);
+        return scratch.x;
+    }
+
+    @Benchmark
+    public double threadLocalSource() {
+        return perturb(threadLocal);
+    }
+
+    @Benchmark
+    public double seededSource() {
+        return perturb(seeded);
+    }
+}
@@ -0,0 +1,97 @@
+package com.goobercraft.stormtrooperx;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link AsyncStorage} dispatch under a join-storm burst: each invocation
+ * submits {@value #LOOKUPS} concurrent {@code isOptedOut} lookups against an
+ * embedded H2 database ({@value #ROWS} rows) and waits for all of them.
+ *
+ * <p>{@code platform} is {@link PooledStorageExecutor} ({@code poolSize}
+ * threads, the burst waiting in its queue); {@code virtual} is
+ * {@link ThreadPerCallStorageExecutor} on virtual threads (one per lookup,
+ * {@code poolSize} running at a time). Both allow as many concurrent calls
+ * as the H2 pool has connections, so the difference is the dispatch alone.
+ * The {@code virtual} trial needs a Java 21+ JVM; elsewhere it fails at
+ * setup.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageExecutorBenchmark {
+
+    private static final int LOOKUPS = 1000;
+    private static final int ROWS = 10_000;
+    private static final int PROBES = 4096;
+    // Room for a burst from every benchmark thread, so nothing is rejected.
+    private static final int QUEUE_CAPACITY = LOOKUPS * 64;
+
+    @State(Scope.Benchmark)
+    public static class Storage {
+        @Param({"platform", "virtual"})
+        String executor;
+
+        @Param({"4"})
+        int poolSize;
+
+        Path directory;
+        DatabaseManager databaseManager;
+        AsyncStorage storage;
+        UUID[] probes;
+
+        @Setup
+        public void setUp() throws IOException {
+            if (executor.equals("virtual") && !VirtualThreads.isAvailable()) {
+                throw new IllegalStateException("executor=virtual needs Java 21+");
+            }
+            directory = Files.createTempDirectory("stormtrooperx-storage-bench");
+            final List<UUID> players = new ArrayList<>(ROWS);
+            databaseManager = PerfFixtures.seededH2(directory, poolSize, ROWS, players);
+            probes = PerfFixtures.probes(players, PROBES);
+            storage = executor.equals("virtual")
+                ? AsyncStorage.virtual(PerfFixtures.logger(), databaseManager, poolSize, QUEUE_CAPACITY)
+                : AsyncStorage.bounded(PerfFixtures.logger(), databaseManager, poolSize, QUEUE_CAPACITY);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            storage.shutdown(10, TimeUnit.SECONDS);
+            databaseManager.close();
+            PerfFixtures.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public Boolean burst(Storage storage, H2PoolBenchmark.Cursor cursor) {
+        final CompletableFuture<?>[] lookups = new CompletableFuture<?>[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = storage.storage.isOptedOut(storage.probes[cursor.advance(1)]);
+        }
+        CompletableFuture.allOf(lookups).join();
+        return (Boolean) lookups[LOOKUPS - 1].join();
+    }
+}
@@ -0,0 +1,186 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.goobercraft.stormtrooperx.support.ManualPluginScheduler;
+
+/**
+ * Tests for {@link AsyncStorage}: futures completing on the storage threads,
+ * rejection once the bounded queue is full, the queue-depth metric, shutdown,
+ * and the scheduler-backed fallback.
+ */
+@DisplayName("AsyncStorage — bounded executor for database calls")
+class AsyncStorageTest {
+
+    private Logger logger;
+    private DatabaseManager databaseManager;
+    private AsyncStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        logger = mock(Logger.class);
+        databaseManager = mock(DatabaseManager.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (storage != null) {
+            storage.shutdown(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Nested
+    @DisplayName("bounded")
+    class Bounded {
+
+        @Test
+        @DisplayName("calls complete with the database result on a storage thread")
+        void completesOnStorageThread() throws Exception {
+            storage = AsyncStorage.bounded(logger, databaseManager, 2, 10);
+            final UUID player = UUID.randomUUID();
+            final AtomicReference<String> thread = new AtomicReference<>();
+            when(databaseManager.getOptedOut(any())).thenAnswer(invocation -> {
+                thread.set(Thread.currentThread().getName());
+                return Set.of(player);
+            });
+
+            assertThat(storage.getOptedOut(List.of(player)).get(5, TimeUnit.SECONDS)).containsExactly(player);
+            assertThat(thread.get()).startsWith("StormtrooperX-DB-");
+            assertThat(storage.parallelism()).isEqualTo(2);
+            assertThat(storage.queueCapacity()).isEqualTo(10);
+            assertThat(storage.submittedCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("once every thread is busy and the queue is full, calls are rejected without running")
+        void rejectsWhenSaturated() throws Exception {
+            storage = AsyncStorage.bounded(logger, databaseManager, 1, 1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final CompletableFuture<Void> running = storage.run(() -> awaitQuietly(release));
+            final CompletableFuture<Void> queued = storage.run(() -> { });
+
+            final CompletableFuture<Boolean> rejected = storage.isOptedOut(UUID.randomUUID());
+
+            assertThat(storage.queueDepth()).isEqualTo(1);
+            assertThat(rejected).isCompletedExceptionally();
+            assertThat(storage.rejectedCount()).isEqualTo(1);
+            assertThat(storage.submittedCount()).isEqualTo(2);
+            final Throwable error = catchFailure(rejected);
+            assertThat(storage.isSaturated(error)).isTrue();
+
+            release.countDown();
+            running.get(5, TimeUnit.SECONDS);
+            queued.get(5, TimeUnit.SECONDS);
+            assertThat(storage.queueDepth()).isZero();
+        }
+
+        @Test
+        @DisplayName("a database exception fails the future and is not mistaken for saturation")
+        void propagatesFailure() {
+            storage = AsyncStorage.bounded(logger, databaseManager, 1, 10);
+            when(databaseManager.setOptOuts(any())).thenThrow(new IllegalStateException("boom"));
+
+            final Throwable error = catchFailure(storage.setOptOuts(Map.of(UUID.randomUUID(), true)));
+
+            assertThat(error).isInstanceOf(IllegalStateException.class);
+            assertThat(storage.isSaturated(error)).isFalse();
+        }
+
+        @Test
+        @DisplayName("shutdown lets queued calls finish, then rejects new ones as not worth retrying")
+        void shutdown() {
+            storage = AsyncStorage.bounded(logger, databaseManager, 1, 10);
+            final CountDownLatch release = new CountDownLatch(1);
+            final CompletableFuture<Void> running = storage.run(() -> awaitQuietly(release));
+            final CompletableFuture<Boolean> queued = storage.runBackgroundMigrationChunk();
+            release.countDown();
+
+            assertThat(storage.shutdown(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(running).isCompleted();
+            assertThat(queued).isCompleted();
+            assertThat(storage.isShutdown()).isTrue();
+            final Throwable error = catchFailure(storage.run(() -> { }));
+            assertThat(storage.isSaturated(error)).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("on the scheduler, calls run when the scheduler does and no metrics are reported")
+    void onScheduler() {
+        final ManualPluginScheduler scheduler = new ManualPluginScheduler();
+        storage = AsyncStorage.onScheduler(logger, databaseManager, scheduler);
+        when(databaseManager.isOptedOut(any())).thenReturn(true);
+
+        final CompletableFuture<Boolean> result = storage.isOptedOut(UUID.randomUUID());
+        assertThat(result).isNotDone();
+
+        scheduler.runPending();
+
+        assertThat(result).isCompletedWithValue(true);
+        assertThat(storage.parallelism()).isZero();
+        assertThat(storage.queueDepth()).isZero();
+        assertThat(storage.shutdown(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("factories reject null arguments and non-positive sizes")
+    void validation() {
+        assertThatThrownBy(() -> new AsyncStorage(null, databaseManager, Runnable::run))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("logger cannot be null");
+        assertThatThrownBy(() -> new AsyncStorage(logger, null, Runnable::run))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("databaseManager cannot be null");
+        assertThatThrownBy(() -> AsyncStorage.onScheduler(logger, databaseManager, null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("scheduler cannot be null");
+        assertThatThrownBy(() -> AsyncStorage.bounded(logger, databaseManager, 0, 1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("threads must be positive, got: 0");
+        assertThatThrownBy(() -> AsyncStorage.bounded(logger, databaseManager, 1, 0))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("queueCapacity must be positive, got: 0");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Waits for a future that is expected to fail and returns its failure. */
+    private static Throwable catchFailure(CompletableFuture<?> future) {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (Exception e) {
+            throw new AssertionError("Expected the future to fail, got " + e, e);
+        }
+        throw new AssertionError("Expected the future to fail, but it completed");
+    }
+}
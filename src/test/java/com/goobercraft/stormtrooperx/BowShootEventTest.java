@@ -28,6 +28,7 @@
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.goobercraft.stormtrooperx.random.RandomSource;
 import com.goobercraft.stormtrooperx.support.TestSupport;
 
 /**
@@ -43,7 +44,8 @@
 class BowShootEventTest {
 
     private StormtrooperX plugin;
-    private EnumMap<EntityType, Object> entityConfigs;
+    private EnumMap<EntityType, StormtrooperX.EntityConfig> entityConfigs;
+    private ShotStats shotStats;
 
     @Mock
     private OptOutManager optOutManager;
@@ -52,13 +54,18 @@ class BowShootEventTest {
     void setUp() {
         plugin = mock(StormtrooperX.class, CALLS_REAL_METHODS);
         entityConfigs = new EnumMap<>(EntityType.class);
-        TestSupport.inject(plugin, "entityConfigs", entityConfigs);
+        TestSupport.inject(plugin, "entityConfigTable", EntityConfigTable.EMPTY);
         TestSupport.inject(plugin, "optOutManager", optOutManager);
         TestSupport.inject(plugin, "debug", false);
+        TestSupport.inject(plugin, "randomSource", RandomSource.threadLocal());
+        shotStats = new ShotStats();
+        TestSupport.inject(plugin, "shotStats", shotStats);
     }
 
+    /** Stages the entry and republishes the compiled table, mirroring loadConfiguration. */
     private void configureEntity(EntityType type, boolean enabled, double accuracy) {
         entityConfigs.put(type, new StormtrooperX.EntityConfig(enabled, accuracy));
+        TestSupport.inject(plugin, "entityConfigTable", EntityConfigTable.compile(entityConfigs));
     }
 
     // -------------------------------------------------------------------------
@@ -227,4 +234,83 @@ void mobNonPlayerTarget() {
             verify(projectile).setVelocity(any(Vector.class));
         }
     }
+
+    // -------------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("statistics — every exit path is recorded once")
+    class Statistics {
+
+        @Test
+        @DisplayName("unconfigured shooter -> NOT_CONFIGURED, counted under its entity type")
+        void notConfigured() {
+            final EntityShootBowEvent event = mock(EntityShootBowEvent.class);
+            final LivingEntity entity = mock(LivingEntity.class);
+            when(event.getEntity()).thenReturn(entity);
+            when(entity.getType()).thenReturn(EntityType.ZOMBIE);
+
+            plugin.onBowShoot(event);
+
+            final ShotStats.Snapshot stats = shotStats.snapshot();
+            assertThat(stats.shotsSeen()).isEqualTo(1);
+            assertThat(stats.count(ShotStats.Outcome.NOT_CONFIGURED)).isEqualTo(1);
+            assertThat(stats.count(EntityType.ZOMBIE)).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("opted-out target -> OPTED_OUT")
+        void optedOut() {
+            configureEntity(EntityType.SKELETON, true, 0.7);
+            final UUID playerUuid = UUID.randomUUID();
+            final EntityShootBowEvent event = mock(EntityShootBowEvent.class);
+            final Mob mob = mock(Mob.class);
+            final Player player = mock(Player.class);
+            when(event.getEntity()).thenReturn(mob);
+            when(mob.getType()).thenReturn(EntityType.SKELETON);
+            when(mob.getTarget()).thenReturn(player);
+            when(player.getUniqueId()).thenReturn(playerUuid);
+            when(optOutManager.isOptedOut(playerUuid)).thenReturn(true);
+
+            plugin.onBowShoot(event);
+
+            assertThat(shotStats.snapshot().count(ShotStats.Outcome.OPTED_OUT)).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("zero-velocity projectile -> ZERO_VELOCITY")
+        void zeroVelocity() {
+            configureEntity(EntityType.SKELETON, true, 0.7);
+            final EntityShootBowEvent event = mock(EntityShootBowEvent.class);
+            final LivingEntity entity = mock(LivingEntity.class);
+            final Entity projectile = mock(Entity.class);
+            when(event.getEntity()).thenReturn(entity);
+            when(entity.getType()).thenReturn(EntityType.SKELETON);
+            when(event.getProjectile()).thenReturn(projectile);
+            when(projectile.getVelocity()).thenReturn(new Vector(0, 0, 0));
+
+            plugin.onBowShoot(event);
+
+            assertThat(shotStats.snapshot().count(ShotStats.Outcome.ZERO_VELOCITY)).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("nerfed shot -> NERFED, counted under its entity type")
+        void nerfed() {
+            configureEntity(EntityType.STRAY, true, 0.7);
+            final EntityShootBowEvent event = mock(EntityShootBowEvent.class);
+            final LivingEntity entity = mock(LivingEntity.class);
+            final Entity projectile = mock(Entity.class);
+            when(event.getEntity()).thenReturn(entity);
+            when(entity.getType()).thenReturn(EntityType.STRAY);
+            when(event.getProjectile()).thenReturn(projectile);
+            when(projectile.getVelocity()).thenReturn(new Vector(1.0, 0.0, 0.0));
+
+            plugin.onBowShoot(event);
+
+            final ShotStats.Snapshot stats = shotStats.snapshot();
+            assertThat(stats.shotsSeen()).isEqualTo(1);
+            assertThat(stats.count(ShotStats.Outcome.NERFED)).isEqualTo(1);
+            assertThat(stats.count(EntityType.STRAY)).isEqualTo(1);
+        }
+    }
 }
@@ -0,0 +1,168 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link CompactUuidSet}: set semantics against a {@link HashSet}
+ * reference under heavy collisions, growth, the nil UUID, iteration, and
+ * reads racing writes.
+ */
+@DisplayName("CompactUuidSet — open-addressing set of UUID long pairs")
+class CompactUuidSetTest {
+
+    @Test
+    @DisplayName("matches HashSet through random adds and removes with many collisions")
+    void matchesReference() {
+        final CompactUuidSet set = new CompactUuidSet();
+        final Set<UUID> reference = new HashSet<>();
+        final Random random = new Random(42);
+        // A small key space forces long probe runs and back-shifting removals
+        final List<UUID> keys = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            keys.add(new UUID(random.nextInt(40), random.nextInt(40)));
+        }
+
+        for (int i = 0; i < 100_000; i++) {
+            final UUID key = keys.get(random.nextInt(keys.size()));
+            if (random.nextBoolean()) {
+                assertThat(set.add(key)).isEqualTo(reference.add(key));
+            } else {
+                assertThat(set.remove(key)).isEqualTo(reference.remove(key));
+            }
+            if (i % 5_000 == 0) {
+                for (UUID each : keys) {
+                    assertThat(set.contains(each)).isEqualTo(reference.contains(each));
+                }
+                assertThat(set).hasSameSizeAs(reference);
+            }
+        }
+        assertThat(new HashSet<>(set)).isEqualTo(reference);
+    }
+
+    @Test
+    @DisplayName("grows past its initial capacity and keeps every entry")
+    void grows() {
+        final CompactUuidSet set = new CompactUuidSet(4);
+        final long initialBytes = set.tableBytes();
+        final List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            final UUID uuid = UUID.randomUUID();
+            added.add(uuid);
+            set.add(uuid);
+        }
+
+        assertThat(set).hasSize(10_000);
+        assertThat(set.tableBytes()).isGreaterThan(initialBytes);
+        // At most 75% full: 16 bytes per entry plus the free slots
+        assertThat(set.tableBytes()).isLessThanOrEqualTo(10_000L * 16 * 8 / 3);
+        for (UUID uuid : added) {
+            assertThat(set.contains(uuid)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("stores the nil UUID, whose bits mark empty slots, separately")
+    void nilUuid() {
+        final CompactUuidSet set = new CompactUuidSet();
+        final UUID nil = new UUID(0, 0);
+
+        assertThat(set.contains(nil)).isFalse();
+        assertThat(set.add(nil)).isTrue();
+        assertThat(set.add(nil)).isFalse();
+        assertThat(set).containsExactly(nil);
+        assertThat(set.remove(nil)).isTrue();
+        assertThat(set).isEmpty();
+    }
+
+    @Test
+    @DisplayName("contains() of a non-UUID is false; clear() empties the set")
+    void otherTypesAndClear() {
+        final CompactUuidSet set = new CompactUuidSet();
+        set.add(UUID.randomUUID());
+
+        assertThat(set.contains("not a uuid")).isFalse();
+        set.clear();
+        assertThat(set).isEmpty();
+    }
+
+    @Test
+    @DisplayName("iterator walks a snapshot and its remove() removes from the set")
+    void iteratorRemove() {
+        final CompactUuidSet set = new CompactUuidSet();
+        final UUID a = UUID.randomUUID();
+        final UUID b = UUID.randomUUID();
+        set.add(a);
+        set.add(b);
+
+        final Iterator<UUID> iterator = set.iterator();
+        final UUID first = iterator.next();
+        iterator.remove();
+        set.add(UUID.randomUUID()); // not seen by the snapshot
+
+        assertThat(set.contains(first)).isFalse();
+        assertThat(iterator.next()).isIn(a, b);
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("readers never miss a stable entry while writers add and remove others")
+    void concurrentReads() throws Exception {
+        final CompactUuidSet set = new CompactUuidSet();
+        final List<UUID> stable = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            final UUID uuid = UUID.randomUUID();
+            stable.add(uuid);
+            set.add(uuid);
+        }
+
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            final Future<?> writer = pool.submit(() -> {
+                final List<UUID> churn = new ArrayList<>();
+                for (int i = 0; i < 50_000; i++) {
+                    final UUID uuid = UUID.randomUUID();
+                    churn.add(uuid);
+                    set.add(uuid);
+                    if (churn.size() > 500) {
+                        set.remove(churn.remove(0));
+                    }
+                }
+            });
+            final List<Future<Boolean>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(pool.submit(() -> {
+                    while (!writer.isDone()) {
+                        for (UUID uuid : stable) {
+                            if (!set.contains(uuid)) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }));
+            }
+
+            writer.get(30, TimeUnit.SECONDS);
+            for (Future<Boolean> reader : readers) {
+                assertThat(reader.get(30, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ConfigRanges}: values inside the range pass through, and
+ * values outside it fall back to the default with one warning.
+ */
+@DisplayName("ConfigRanges — database config range checks")
+class ConfigRangesTest {
+
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        logger = mock(Logger.class);
+    }
+
+    @Test
+    @DisplayName("keeps values inside the range, bounds included")
+    void inRange() {
+        assertThat(ConfigRanges.validate(logger, "sync.poll-interval-ms", 100, 100, 60_000, 1000)).isEqualTo(100);
+        assertThat(ConfigRanges.validate(logger, "sync.poll-interval-ms", 60_000, 100, 60_000, 1000)).isEqualTo(60_000);
+        assertThat(ConfigRanges.validate(logger, "negative-cache.false-positive-rate", 0.5, 0.0001, 0.5, 0.01))
+            .isEqualTo(0.5);
+
+        verifyNoInteractions(logger);
+    }
+
+    @Test
+    @DisplayName("falls back to the default with a warning naming the full key")
+    void outOfRange() {
+        assertThat(ConfigRanges.validate(logger, "sync.poll-interval-ms", 50, 100, 60_000, 1000)).isEqualTo(1000);
+
+        verify(logger).warning(
+            "Invalid database config 'sync.poll-interval-ms': 50 (valid range: 100-60000). Using default: 1000");
+    }
+
+    @Test
+    @DisplayName("prints fractional bounds in plain notation and rejects NaN")
+    void fractional() {
+        assertThat(ConfigRanges.validate(logger, "negative-cache.false-positive-rate", Double.NaN, 0.0001, 0.5, 0.01))
+            .isEqualTo(0.01);
+
+        verify(logger).warning("Invalid database config 'negative-cache.false-positive-rate': NaN "
+            + "(valid range: 0.0001-0.5). Using default: 0.01");
+    }
+}
@@ -0,0 +1,200 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link DatabaseCircuitBreaker}: the closed/open/half-open state
+ * machine on a manual clock, retry gating, transient-error classification,
+ * and config parsing.
+ */
+@DisplayName("DatabaseCircuitBreaker — fail fast during outages, retry transient errors")
+class DatabaseCircuitBreakerTest {
+
+    private final Logger logger = mock(Logger.class);
+    private final AtomicLong clock = new AtomicLong();
+
+    private DatabaseCircuitBreaker breaker(int threshold, int retryAttempts) {
+        return new DatabaseCircuitBreaker(logger, threshold, 1_000, retryAttempts, 1, clock::get);
+    }
+
+    private void advanceMillis(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Nested
+    @DisplayName("state machine")
+    class StateMachine {
+
+        @Test
+        @DisplayName("stays closed below the threshold, and a success resets the count")
+        void closedBelowThreshold() {
+            final DatabaseCircuitBreaker breaker = breaker(3, 0);
+
+            breaker.recordFailure();
+            breaker.recordFailure();
+            breaker.recordSuccess();
+            breaker.recordFailure();
+            breaker.recordFailure();
+
+            assertThat(breaker.state()).isEqualTo(DatabaseCircuitBreaker.State.CLOSED);
+            assertThat(breaker.allowRequest()).isTrue();
+            assertThat(breaker.failureCount()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("opens on the threshold-th consecutive failure and rejects calls")
+        void opensAtThreshold() {
+            final DatabaseCircuitBreaker breaker = breaker(3, 0);
+
+            for (int i = 0; i < 3; i++) {
+                breaker.recordFailure();
+            }
+
+            assertThat(breaker.state()).isEqualTo(DatabaseCircuitBreaker.State.OPEN);
+            assertThat(breaker.allowRequest()).isFalse();
+            assertThat(breaker.allowRequest()).isFalse();
+            assertThat(breaker.rejectedCount()).isEqualTo(2);
+            assertThat(breaker.tripCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("lets exactly one probe through once the open period has passed")
+        void singleProbe() {
+            final DatabaseCircuitBreaker breaker = breaker(1, 0);
+            breaker.recordFailure();
+
+            advanceMillis(999);
+            assertThat(breaker.allowRequest()).isFalse();
+            advanceMillis(1);
+
+            assertThat(breaker.allowRequest()).isTrue();
+            assertThat(breaker.state()).isEqualTo(DatabaseCircuitBreaker.State.HALF_OPEN);
+            assertThat(breaker.allowRequest()).isFalse();
+        }
+
+        @Test
+        @DisplayName("a successful probe closes the circuit")
+        void probeSuccessCloses() {
+            final DatabaseCircuitBreaker breaker = breaker(1, 0);
+            breaker.recordFailure();
+            advanceMillis(1_000);
+            assertThat(breaker.allowRequest()).isTrue();
+
+            breaker.recordSuccess();
+
+            assertThat(breaker.state()).isEqualTo(DatabaseCircuitBreaker.State.CLOSED);
+            assertThat(breaker.allowRequest()).isTrue();
+        }
+
+        @Test
+        @DisplayName("a failed probe re-opens the circuit for another open period")
+        void probeFailureReopens() {
+            final DatabaseCircuitBreaker breaker = breaker(5, 0);
+            for (int i = 0; i < 5; i++) {
+                breaker.recordFailure();
+            }
+            advanceMillis(1_000);
+            assertThat(breaker.allowRequest()).isTrue();
+
+            breaker.recordFailure();
+
+            assertThat(breaker.state()).isEqualTo(DatabaseCircuitBreaker.State.OPEN);
+            assertThat(breaker.tripCount()).isEqualTo(2);
+            advanceMillis(999);
+            assertThat(breaker.allowRequest()).isFalse();
+            advanceMillis(1);
+            assertThat(breaker.allowRequest()).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("retries")
+    class Retries {
+
+        @Test
+        @DisplayName("allows the configured number of retries while closed")
+        void boundedAttempts() {
+            final DatabaseCircuitBreaker breaker = breaker(5, 2);
+
+            assertThat(breaker.awaitRetry(0)).isTrue();
+            assertThat(breaker.awaitRetry(1)).isTrue();
+            assertThat(breaker.awaitRetry(2)).isFalse();
+            assertThat(breaker.retryCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("never retries while open or probing")
+        void noRetryWhenNotClosed() {
+            final DatabaseCircuitBreaker breaker = breaker(1, 3);
+            breaker.recordFailure();
+            assertThat(breaker.awaitRetry(0)).isFalse();
+
+            advanceMillis(1_000);
+            assertThat(breaker.allowRequest()).isTrue();
+            assertThat(breaker.awaitRetry(0)).isFalse();
+        }
+
+        @Test
+        @DisplayName("classifies deadlocks and dropped connections as transient, pool timeouts as not")
+        void transientClassification() {
+            assertThat(DatabaseCircuitBreaker.isTransient(new SQLTransactionRollbackException("deadlock"))).isTrue();
+            assertThat(DatabaseCircuitBreaker.isTransient(new SQLRecoverableException("reset"))).isTrue();
+            assertThat(DatabaseCircuitBreaker.isTransient(new SQLException("link failure", "08S01"))).isTrue();
+            assertThat(DatabaseCircuitBreaker.isTransient(new SQLException("serialization", "40001"))).isTrue();
+            assertThat(DatabaseCircuitBreaker.isTransient(
+                new SQLTransientConnectionException("request timed out", "08001"))).isFalse();
+            assertThat(DatabaseCircuitBreaker.isTransient(new SQLException("syntax", "42000"))).isFalse();
+            assertThat(DatabaseCircuitBreaker.isTransient(new SQLException("pool closed"))).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("configuration")
+    class Configuration {
+
+        @Test
+        @DisplayName("rejects out-of-range constructor arguments")
+        void rejectsInvalidArguments() {
+            assertThatThrownBy(() -> new DatabaseCircuitBreaker(logger, 0, 1_000, 0, 1, clock::get))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("failureThreshold");
+            assertThatThrownBy(() -> new DatabaseCircuitBreaker(logger, 1, 0, 0, 1, clock::get))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("openMillis");
+            assertThatThrownBy(() -> new DatabaseCircuitBreaker(logger, 1, 1_000, -1, 1, clock::get))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("retryAttempts");
+        }
+
+        @Test
+        @DisplayName("falls back to the default for out-of-range config values")
+        void invalidConfigFallsBack() {
+            final YamlConfiguration section = new YamlConfiguration();
+            section.set("failure-threshold", 0);
+            section.set("retry-attempts", 2);
+
+            final DatabaseCircuitBreaker breaker = DatabaseCircuitBreaker.fromConfig(section, logger);
+            for (int i = 0; i < DatabaseCircuitBreaker.DEFAULT_FAILURE_THRESHOLD - 1; i++) {
+                breaker.recordFailure();
+            }
+            assertThat(breaker.state()).isEqualTo(DatabaseCircuitBreaker.State.CLOSED);
+            breaker.recordFailure();
+            assertThat(breaker.state()).isEqualTo(DatabaseCircuitBreaker.State.OPEN);
+        }
+    }
+}
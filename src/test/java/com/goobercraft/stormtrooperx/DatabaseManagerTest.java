@@ -1,5 +1,6 @@
 package com.goobercraft.stormtrooperx;
 
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -7,7 +8,24 @@
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -253,4 +271,645 @@ void testConcurrentAccess_SequentialWrites() {
         assertFalse(databaseManager.isOptedOut(player1));
         assertTrue(databaseManager.isOptedOut(player2));
     }
+
+    @Test
+    void testConcurrentAccess_parallelReadersAndWriters() throws Exception {
+        // Pooled H2: each thread borrows its own connection
+        final int threads = 8;
+        final List<UUID> players = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            players.add(UUID.randomUUID());
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (UUID player : players) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        databaseManager.setOptOut(player, i % 2 == 0);
+                        databaseManager.isOptedOut(player);
+                        databaseManager.getOptedOut(players);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Last write per player was i = 49 -> not opted out
+        for (UUID player : players) {
+            assertFalse(databaseManager.isOptedOut(player));
+        }
+        assertTrue(databaseManager.getOptedOut(players).isEmpty());
+    }
+
+    @Test
+    void testReadCoalescing_concurrentReadsShareAndBatchQueries() throws Exception {
+        databaseManager.close();
+        databaseManager = new DatabaseManager(logger, tempDir, "h2", null, null, new DatabaseCircuitBreaker(logger),
+            OptOutSettings.defaults().withReadCoalescing(new ReadCoalescer.Settings(true, 20)));
+        databaseManager.initialize();
+        final List<UUID> players = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            players.add(UUID.randomUUID());
+            databaseManager.setOptOut(players.get(i), i % 2 == 0);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            final List<Future<Boolean>> futures = new ArrayList<>();
+            for (int round = 0; round < 2; round++) {
+                for (UUID player : players) {
+                    futures.add(executor.submit(() -> databaseManager.isOptedOut(player)));
+                }
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(i % players.size() % 2 == 0, futures.get(i).get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final ReadCoalescer coalescer = databaseManager.getReadCoalescer();
+        assertEquals(16, coalescer.readCount());
+        assertTrue(coalescer.queryCount() < 16, "concurrent reads should share or batch queries");
+        // Each point read either issued a query or was saved
+        assertEquals(16, coalescer.queryCount() + coalescer.savedCount());
+    }
+
+    @Test
+    void testReadCoalescing_disabled() {
+        databaseManager.close();
+        databaseManager = new DatabaseManager(logger, tempDir, "h2", null, null, new DatabaseCircuitBreaker(logger),
+            OptOutSettings.defaults().withReadCoalescing(new ReadCoalescer.Settings(false, 1)));
+        databaseManager.initialize();
+        UUID playerUUID = UUID.randomUUID();
+        databaseManager.setOptOut(playerUUID, true);
+
+        assertNull(databaseManager.getReadCoalescer());
+        assertTrue(databaseManager.isOptedOut(playerUUID));
+        assertEquals(Set.of(playerUUID), databaseManager.getOptedOut(List.of(playerUUID)));
+    }
+
+    @Test
+    void testReadOptedOut_nullWhenTheDatabaseCannotAnswer() {
+        UUID playerUUID = UUID.randomUUID();
+        databaseManager.setOptOut(playerUUID, true);
+        assertEquals(Boolean.TRUE, databaseManager.readOptedOut(playerUUID));
+        assertEquals(Boolean.FALSE, databaseManager.readOptedOut(UUID.randomUUID()));
+
+        databaseManager.close();
+        DatabaseCircuitBreaker breaker = new DatabaseCircuitBreaker(logger);
+        databaseManager = new DatabaseManager(logger, tempDir, "h2", null, null, breaker,
+            OptOutSettings.defaults());
+        databaseManager.initialize();
+        for (int i = 0; i < 5; i++) {
+            breaker.recordFailure();
+        }
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.state());
+
+        assertNull(databaseManager.readOptedOut(playerUUID), "Circuit open");
+        assertFalse(databaseManager.isOptedOut(playerUUID), "isOptedOut keeps its fallback");
+        assertNull(new DatabaseManager(logger, tempDir, "h2", null).readOptedOut(playerUUID), "Not initialized");
+    }
+
+    @Test
+    void testGetWatermark_changesWithEveryWrite() {
+        OptOutSnapshot.Watermark empty = databaseManager.getWatermark();
+        assertEquals(new OptOutSnapshot.Watermark(0, 0), empty);
+
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        databaseManager.setOptOut(first, true);
+        databaseManager.setOptOut(second, true);
+        OptOutSnapshot.Watermark afterOptOuts = databaseManager.getWatermark();
+        assertEquals(2, afterOptOuts.rowCount());
+        assertTrue(afterOptOuts.maxUpdatedNanos() > 0);
+
+        databaseManager.setOptOut(first, false);
+        assertEquals(1, databaseManager.getWatermark().rowCount(), "Opting in deletes the row");
+
+        assertNull(new DatabaseManager(logger, tempDir, "h2", null).getWatermark(), "Not initialized");
+    }
+
+    @Test
+    void testStatementCache_reusesHotPathStatements() {
+        UUID playerUUID = UUID.randomUUID();
+        StatementCache cache = databaseManager.getStatementCache();
+        assertNotNull(cache, "H2 should cache statements");
+        long missesBefore = cache.missCount();
+
+        for (int i = 0; i < 20; i++) {
+            databaseManager.setOptOut(playerUUID, i % 2 == 0);
+            databaseManager.isOptedOut(playerUUID);
+        }
+
+        // At most one prepare per statement per pooled connection
+        assertTrue(cache.missCount() - missesBefore <= 2L * DatabaseManager.DEFAULT_H2_POOL_SIZE);
+        assertTrue(cache.hitCount() >= 40 - 2L * DatabaseManager.DEFAULT_H2_POOL_SIZE);
+        assertFalse(databaseManager.isOptedOut(playerUUID));
+    }
+
+    @Test
+    void testH2PoolSize_outOfRange_fallsBackToDefault() {
+        databaseManager.close();
+        YamlConfiguration h2Config = new YamlConfiguration();
+        h2Config.set("pool-size", 0);
+
+        databaseManager = new DatabaseManager(logger, tempDir, "h2", null, h2Config,
+            new DatabaseCircuitBreaker(logger), OptOutSettings.defaults());
+        databaseManager.initialize();
+
+        UUID playerUUID = UUID.randomUUID();
+        databaseManager.setOptOut(playerUUID, true);
+        assertTrue(databaseManager.isOptedOut(playerUUID));
+    }
+
+    @Test
+    void testSetOptOuts_writesEveryRowInOneBatch() {
+        Map<UUID, Boolean> changes = new LinkedHashMap<>();
+        for (int i = 0; i < 250; i++) {
+            changes.put(UUID.randomUUID(), i % 3 == 0);
+        }
+
+        assertTrue(databaseManager.setOptOuts(changes));
+
+        changes.forEach((uuid, optedOut) ->
+            assertEquals(optedOut, databaseManager.isOptedOut(uuid), "Row for " + uuid));
+    }
+
+    @Test
+    void testSetOptOuts_updatesExistingRows() {
+        UUID playerUUID = UUID.randomUUID();
+        databaseManager.setOptOut(playerUUID, true);
+
+        assertTrue(databaseManager.setOptOuts(Map.of(playerUUID, false)));
+
+        assertFalse(databaseManager.isOptedOut(playerUUID));
+    }
+
+    @Test
+    void testSetOptOuts_emptyMap_isNoOp() {
+        assertTrue(databaseManager.setOptOuts(Map.of()));
+    }
+
+    @Test
+    void testSetOptOuts_nullEntry_rejectsWholeBatch() {
+        UUID playerUUID = UUID.randomUUID();
+        Map<UUID, Boolean> changes = new HashMap<>();
+        changes.put(playerUUID, true);
+        changes.put(null, true);
+
+        assertFalse(databaseManager.setOptOuts(changes));
+        assertFalse(databaseManager.isOptedOut(playerUUID), "No row should be written from a rejected batch");
+    }
+
+    @Test
+    void testSetOptOuts_afterClose_returnsFalse() {
+        databaseManager.close();
+
+        assertFalse(databaseManager.setOptOuts(Map.of(UUID.randomUUID(), true)));
+    }
+
+    @Test
+    void testCircuitBreaker_opensAfterRepeatedFailures_andFailsFast() {
+        databaseManager.close();
+        DatabaseCircuitBreaker breaker = databaseManager.getCircuitBreaker();
+
+        for (int i = 0; i < DatabaseCircuitBreaker.DEFAULT_FAILURE_THRESHOLD; i++) {
+            assertFalse(databaseManager.isOptedOut(UUID.randomUUID()));
+        }
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.state());
+
+        // Open: answered with the default, without touching the closed pool
+        assertFalse(databaseManager.setOptOuts(Map.of(UUID.randomUUID(), true)));
+        assertTrue(databaseManager.getOptedOut(List.of(UUID.randomUUID())).isEmpty());
+        assertEquals(2, breaker.rejectedCount());
+        assertEquals(DatabaseCircuitBreaker.DEFAULT_FAILURE_THRESHOLD, breaker.failureCount());
+    }
+
+    @Test
+    void testCircuitBreaker_successfulCallsKeepItClosed() {
+        UUID playerUUID = UUID.randomUUID();
+        databaseManager.setOptOut(playerUUID, true);
+        assertTrue(databaseManager.isOptedOut(playerUUID));
+
+        DatabaseCircuitBreaker breaker = databaseManager.getCircuitBreaker();
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(0, breaker.failureCount());
+    }
+
+    @Test
+    void testForEachOptedOut_streamsOnlyOptedOutPlayers() {
+        Set<UUID> optedOut = new HashSet<>();
+        Map<UUID, Boolean> changes = new LinkedHashMap<>();
+        for (int i = 0; i < DatabaseManager.PRELOAD_FETCH_SIZE + 10; i++) {
+            UUID uuid = UUID.randomUUID();
+            changes.put(uuid, i % 4 != 0);
+            if (i % 4 != 0) {
+                optedOut.add(uuid);
+            }
+        }
+        assertTrue(databaseManager.setOptOuts(changes));
+
+        Set<UUID> streamed = new HashSet<>();
+        assertTrue(databaseManager.forEachOptedOut(streamed::add));
+
+        assertEquals(optedOut, streamed);
+    }
+
+    @Test
+    void testForEachOptedOut_includesLegacyRowsDuringMigration() throws Exception {
+        Map<UUID, Boolean> rows = legacyRows(10);
+        createLegacyDatabase(rows);
+        databaseManager = new DatabaseManager(logger, tempDir, "h2", null);
+        databaseManager.initialize();
+        UUID optedBackIn = rows.entrySet().stream().filter(Map.Entry::getValue).findFirst().get().getKey();
+        databaseManager.setOptOut(optedBackIn, false);
+
+        Set<UUID> streamed = new HashSet<>();
+        assertTrue(databaseManager.forEachOptedOut(streamed::add));
+
+        Set<UUID> expected = new HashSet<>();
+        rows.forEach((uuid, optedOut) -> {
+            if (optedOut && !uuid.equals(optedBackIn)) {
+                expected.add(uuid);
+            }
+        });
+        assertEquals(expected, streamed, "v2 rows win over their legacy rows");
+    }
+
+    @Test
+    void testGetOptedOut_returnsOptedOutSubset() {
+        UUID optedOut = UUID.randomUUID();
+        UUID optedBackIn = UUID.randomUUID();
+        UUID unknown = UUID.randomUUID();
+        databaseManager.setOptOut(optedOut, true);
+        databaseManager.setOptOut(optedBackIn, false);
+
+        Set<UUID> result = databaseManager.getOptedOut(List.of(optedOut, optedBackIn, unknown));
+
+        assertEquals(Set.of(optedOut), result);
+    }
+
+    @Test
+    void testGetOptedOut_spansMultipleInClauses() {
+        List<UUID> players = new ArrayList<>();
+        Map<UUID, Boolean> rows = new LinkedHashMap<>();
+        for (int i = 0; i < DatabaseManager.MAX_IN_PARAMS * 2 + 7; i++) {
+            UUID uuid = UUID.randomUUID();
+            players.add(uuid);
+            rows.put(uuid, i % 2 == 0);
+        }
+        assertTrue(databaseManager.setOptOuts(rows));
+
+        Set<UUID> result = databaseManager.getOptedOut(players);
+
+        assertEquals(DatabaseManager.MAX_IN_PARAMS + 4, result.size());
+        rows.forEach((uuid, optedOut) -> assertEquals(optedOut, result.contains(uuid)));
+    }
+
+    @Test
+    void testGetOptedOut_emptyOrNullInput_returnsEmpty() {
+        assertTrue(databaseManager.getOptedOut(List.of()).isEmpty());
+        assertTrue(databaseManager.getOptedOut(null).isEmpty());
+    }
+
+    @Test
+    void testGetOptedOut_skipsNullElements() {
+        UUID playerUUID = UUID.randomUUID();
+        databaseManager.setOptOut(playerUUID, true);
+
+        assertEquals(Set.of(playerUUID), databaseManager.getOptedOut(Arrays.asList(null, playerUUID)));
+    }
+
+    @Test
+    void testUuidBytes_roundTrip() {
+        UUID uuid = UUID.fromString("550e8400-e29b-41d4-a716-446655440000");
+
+        byte[] bytes = DatabaseManager.toBytes(uuid);
+
+        assertEquals(16, bytes.length);
+        assertEquals((byte) 0x55, bytes[0]);
+        assertEquals(uuid, DatabaseManager.fromBytes(bytes));
+    }
+
+    @Test
+    void testFreshDatabase_hasNoBackgroundMigration() {
+        assertFalse(databaseManager.isBackgroundMigrationPending());
+        assertFalse(databaseManager.runBackgroundMigrationChunk());
+    }
+
+    /**
+     * Writes a v1 (VARCHAR-keyed) players.mv.db the way releases before the
+     * binary schema did, after closing the manager opened by setUp.
+     */
+    private void createLegacyDatabase(Map<UUID, Boolean> rows) throws Exception {
+        databaseManager.close();
+        databaseManager = null;
+        String url = "jdbc:h2:" + new File(tempDir, "players").getAbsolutePath() + ";MODE=MySQL;FILE_LOCK=SOCKET";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS player_optouts");
+                statement.execute("CREATE TABLE player_optouts (uuid VARCHAR(36) PRIMARY KEY, "
+                    + "opted_out BOOLEAN NOT NULL DEFAULT TRUE, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO player_optouts (uuid, opted_out) VALUES (?, ?)")) {
+                for (Map.Entry<UUID, Boolean> row : rows.entrySet()) {
+                    insert.setString(1, row.getKey().toString());
+                    insert.setBoolean(2, row.getValue());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    /** Counts rows with the given state, reopening the database after setUp's manager if needed. */
+    private long countRows(boolean optedOut) throws Exception {
+        String url = "jdbc:h2:" + new File(tempDir, "players").getAbsolutePath() + ";MODE=MySQL;FILE_LOCK=SOCKET";
+        databaseManager.close();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             PreparedStatement statement = connection.prepareStatement(
+                 "SELECT COUNT(*) FROM player_optouts WHERE opted_out = ?")) {
+            statement.setBoolean(1, optedOut);
+            try (java.sql.ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        } finally {
+            databaseManager = new DatabaseManager(logger, tempDir, "h2", null);
+            databaseManager.initialize();
+        }
+    }
+
+    @Test
+    void testOptIn_deletesRowInsteadOfStoringFalse() throws Exception {
+        UUID single = UUID.randomUUID();
+        UUID batched = UUID.randomUUID();
+        UUID stays = UUID.randomUUID();
+        databaseManager.setOptOut(single, true);
+        databaseManager.setOptOuts(Map.of(batched, true, stays, true));
+
+        databaseManager.setOptOut(single, false);
+        assertTrue(databaseManager.setOptOuts(Map.of(batched, false)));
+
+        assertFalse(databaseManager.isOptedOut(single));
+        assertFalse(databaseManager.isOptedOut(batched));
+        assertEquals(Set.of(stays), databaseManager.getOptedOut(List.of(single, batched, stays)));
+        assertEquals(0, countRows(false));
+        assertEquals(1, countRows(true));
+    }
+
+    @Test
+    void testCompaction_removesExistingOptedInRows() throws Exception {
+        String url = "jdbc:h2:" + new File(tempDir, "players").getAbsolutePath() + ";MODE=MySQL;FILE_LOCK=SOCKET";
+        UUID optedOut = UUID.randomUUID();
+        databaseManager.setOptOut(optedOut, true);
+        databaseManager.close();
+        // Rows an older release wrote on opt-in
+        List<UUID> optedIn = new ArrayList<>();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO player_optouts (uuid, opted_out) VALUES (?, FALSE)")) {
+            for (int i = 0; i < SparseOptOutMigration.CHUNK_SIZE + 5; i++) {
+                UUID uuid = UUID.randomUUID();
+                optedIn.add(uuid);
+                insert.setBytes(1, DatabaseManager.toBytes(uuid));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+
+        databaseManager = new DatabaseManager(logger, tempDir, "h2", null);
+        databaseManager.initialize();
+        assertTrue(databaseManager.isBackgroundMigrationPending());
+        assertTrue(databaseManager.runBackgroundMigrationChunk());
+        assertFalse(databaseManager.runBackgroundMigrationChunk());
+
+        assertFalse(databaseManager.isBackgroundMigrationPending());
+        assertEquals(0, countRows(false));
+        assertEquals(1, countRows(true));
+        assertTrue(databaseManager.isOptedOut(optedOut));
+        assertTrue(databaseManager.getOptedOut(optedIn).isEmpty());
+    }
+
+    private Map<UUID, Boolean> legacyRows(int count) {
+        Map<UUID, Boolean> rows = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            rows.put(UUID.randomUUID(), i % 2 == 0);
+        }
+        return rows;
+    }
+
+    @Test
+    void testLegacySchema_readsFallBackUntilMigrated() throws Exception {
+        Map<UUID, Boolean> rows = legacyRows(10);
+        createLegacyDatabase(rows);
+
+        databaseManager = new DatabaseManager(logger, tempDir, "h2", null);
+        databaseManager.initialize();
+
+        assertTrue(databaseManager.isBackgroundMigrationPending(), "v1 table should be queued for migration");
+        rows.forEach((uuid, optedOut) -> assertEquals(optedOut, databaseManager.isOptedOut(uuid)));
+        Set<UUID> expected = new HashSet<>();
+        rows.forEach((uuid, optedOut) -> {
+            if (optedOut) {
+                expected.add(uuid);
+            }
+        });
+        assertEquals(expected, databaseManager.getOptedOut(rows.keySet()));
+    }
+
+    @Test
+    void testLegacySchema_migratesInChunksAndDropsLegacyTable() throws Exception {
+        Map<UUID, Boolean> rows = legacyRows(BinaryUuidMigration.CHUNK_SIZE * 2 + 3);
+        createLegacyDatabase(rows);
+        databaseManager = new DatabaseManager(logger, tempDir, "h2", null);
+        databaseManager.initialize();
+
+        int chunks = 0;
+        while (databaseManager.runBackgroundMigrationChunk()) {
+            chunks++;
+        }
+
+        // V2: three copy chunks plus the empty one that drops the v1 table;
+        // V3: one full chunk of the 1,001 opted-in rows, then the last one
+        assertEquals(5, chunks);
+        assertEquals(0, countRows(false));
+        assertEquals(BinaryUuidMigration.CHUNK_SIZE + 2, countRows(true));
+        assertFalse(databaseManager.isBackgroundMigrationPending());
+        rows.forEach((uuid, optedOut) -> assertEquals(optedOut, databaseManager.isOptedOut(uuid)));
+
+        // Survives a restart without re-running the migration
+        databaseManager.close();
+        databaseManager = new DatabaseManager(logger, tempDir, "h2", null);
+        databaseManager.initialize();
+        assertFalse(databaseManager.isBackgroundMigrationPending());
+        rows.forEach((uuid, optedOut) -> assertEquals(optedOut, databaseManager.isOptedOut(uuid)));
+    }
+
+    @Test
+    void testLegacySchema_droppedByAnotherServer_stopsFallingBack() throws Exception {
+        Map<UUID, Boolean> rows = legacyRows(10);
+        createLegacyDatabase(rows);
+        databaseManager = new DatabaseManager(logger, tempDir, "h2", null);
+        databaseManager.initialize();
+        // A second server on the same database finishes the copy first and drops the v1 table
+        DatabaseManager other = new DatabaseManager(logger, tempDir, "h2", null);
+        other.initialize();
+        try {
+            while (other.runBackgroundMigrationChunk()) {
+                // drain
+            }
+        } finally {
+            other.close();
+        }
+
+        assertEquals(Boolean.FALSE, databaseManager.readOptedOut(UUID.randomUUID()),
+            "A missing legacy table means the copy is done, not a failed read");
+        rows.forEach((uuid, optedOut) -> assertEquals(optedOut, databaseManager.isOptedOut(uuid)));
+        while (databaseManager.runBackgroundMigrationChunk()) {
+            // drain
+        }
+        assertFalse(databaseManager.isBackgroundMigrationPending());
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, databaseManager.getCircuitBreaker().state());
+    }
+
+    @Test
+    void testLegacySchema_writeDuringMigration_isNotOverwritten() throws Exception {
+        UUID playerUUID = UUID.randomUUID();
+        createLegacyDatabase(Map.of(playerUUID, true));
+        databaseManager = new DatabaseManager(logger, tempDir, "h2", null);
+        databaseManager.initialize();
+
+        // The player opts back in before the background copy reaches their row
+        databaseManager.setOptOut(playerUUID, false);
+        while (databaseManager.runBackgroundMigrationChunk()) {
+            // drain
+        }
+
+        assertFalse(databaseManager.isOptedOut(playerUUID), "Newer v2 write must win over the v1 row");
+    }
+
+    /** A manager on setUp's H2 file with the change log enabled, standing in for another server. */
+    private DatabaseManager syncedManager() {
+        DatabaseManager manager = new DatabaseManager(logger, tempDir, "h2", null, null,
+            new DatabaseCircuitBreaker(logger),
+            OptOutSettings.defaults().withSync(new OptOutChangeFeed.Settings(true, 1000, 1000, 60)));
+        manager.initialize();
+        return manager;
+    }
+
+    @Test
+    void testChangeLog_twoServersSeeEachOthersWrites() {
+        databaseManager.close();
+        databaseManager = syncedManager();
+        DatabaseManager other = syncedManager();
+        try {
+            assertNotEquals(databaseManager.changeOrigin(), other.changeOrigin());
+            long start = databaseManager.getLatestChangeSeq();
+            assertEquals(0, start, "Empty log");
+
+            UUID first = UUID.randomUUID();
+            UUID second = UUID.randomUUID();
+            databaseManager.setOptOut(first, true);
+            Map<UUID, Boolean> batch = new LinkedHashMap<>();
+            batch.put(second, true);
+            batch.put(first, false);
+            assertTrue(other.setOptOuts(batch));
+
+            List<OptOutChangeFeed.Change> changes = other.getChangesSince(start, 100);
+            assertEquals(3, changes.size());
+            for (int i = 1; i < changes.size(); i++) {
+                assertTrue(changes.get(i).seq() > changes.get(i - 1).seq(), "Ordered by sequence");
+            }
+            OptOutChangeFeed.Change own = changes.get(0);
+            assertEquals(first, own.playerUUID());
+            assertTrue(own.optedOut());
+            assertEquals(databaseManager.changeOrigin(), own.origin());
+            Map<UUID, Boolean> fromOther = new HashMap<>();
+            for (OptOutChangeFeed.Change change : changes.subList(1, 3)) {
+                assertEquals(other.changeOrigin(), change.origin());
+                fromOther.put(change.playerUUID(), change.optedOut());
+            }
+            assertEquals(Map.of(second, true, first, false), fromOther, "Opt-ins are logged as false");
+
+            assertEquals(changes.get(2).seq(), databaseManager.getLatestChangeSeq());
+            assertEquals(changes.get(2).seq(),
+                databaseManager.getChangesSince(changes.get(1).seq(), 100).get(0).seq());
+            assertEquals(1, databaseManager.getChangesSince(start, 1).size(), "Limit applies");
+            assertTrue(databaseManager.getChangesSince(changes.get(2).seq(), 100).isEmpty());
+            assertFalse(databaseManager.isOptedOut(first));
+            assertTrue(databaseManager.isOptedOut(second));
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    void testGetWatermark_changeLogCatchesSwapWithinOneTick() throws Exception {
+        databaseManager.close();
+        databaseManager = syncedManager();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        databaseManager.setOptOut(first, true);
+        OptOutSnapshot.Watermark before = databaseManager.getWatermark();
+        assertEquals(databaseManager.getLatestChangeSeq(), before.changeSeq());
+
+        // One opt-in plus one opt-out that MySQL's whole-second TIMESTAMP stamps alike
+        databaseManager.setOptOut(second, true);
+        String url = "jdbc:h2:" + new File(tempDir, "players").getAbsolutePath() + ";MODE=MySQL;FILE_LOCK=SOCKET";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             PreparedStatement statement = connection.prepareStatement("UPDATE player_optouts SET updated_at = ?")) {
+            Timestamp tick = new Timestamp(Math.floorDiv(before.maxUpdatedNanos(), 1_000_000_000L) * 1000);
+            tick.setNanos((int) Math.floorMod(before.maxUpdatedNanos(), 1_000_000_000L));
+            statement.setTimestamp(1, tick);
+            statement.executeUpdate();
+        }
+        databaseManager.setOptOut(first, false);
+
+        OptOutSnapshot.Watermark after = databaseManager.getWatermark();
+        assertEquals(before.rowCount(), after.rowCount());
+        assertEquals(before.maxUpdatedNanos(), after.maxUpdatedNanos());
+        assertEquals(before.changeSeq() + 2, after.changeSeq());
+        assertNotEquals(before, after, "The change log tells the swap apart");
+    }
+
+    @Test
+    void testChangeLog_disabledByDefault() {
+        databaseManager.setOptOut(UUID.randomUUID(), true);
+
+        assertEquals(0, databaseManager.getLatestChangeSeq());
+        assertTrue(databaseManager.getChangesSince(0, 100).isEmpty());
+    }
+
+    @Test
+    void testPruneChanges_deletesOnlyOldEntries() throws Exception {
+        databaseManager.close();
+        databaseManager = syncedManager();
+        UUID old = UUID.randomUUID();
+        UUID recent = UUID.randomUUID();
+        databaseManager.setOptOut(old, true);
+        databaseManager.setOptOut(recent, true);
+        long oldSeq = databaseManager.getChangesSince(0, 100).get(0).seq();
+
+        String url = "jdbc:h2:" + new File(tempDir, "players").getAbsolutePath() + ";MODE=MySQL;FILE_LOCK=SOCKET";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             PreparedStatement statement = connection.prepareStatement(
+                 "UPDATE player_optout_changes SET changed_at = DATEADD('HOUR', -2, CURRENT_TIMESTAMP) WHERE seq = ?")) {
+            statement.setLong(1, oldSeq);
+            assertEquals(1, statement.executeUpdate());
+        }
+
+        assertEquals(1, databaseManager.pruneChanges(60));
+        List<OptOutChangeFeed.Change> left = databaseManager.getChangesSince(0, 100);
+        assertEquals(1, left.size());
+        assertEquals(recent, left.get(0).playerUUID());
+        assertEquals(0, databaseManager.pruneChanges(60));
+    }
 }
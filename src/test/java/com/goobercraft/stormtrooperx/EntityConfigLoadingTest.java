@@ -48,7 +48,7 @@ void setUp() {
 
         TestSupport.inject(plugin, "logger", Logger.getLogger("EntityConfigLoadingTest"));
         entityConfigs = new EnumMap<>(EntityType.class);
-        TestSupport.inject(plugin, "entityConfigs", entityConfigs);
+        TestSupport.inject(plugin, "entityConfigTable", EntityConfigTable.EMPTY);
 
         // doReturn() is mandatory under CALLS_REAL_METHODS — when/thenReturn would invoke
         // the real getConfig() during stub registration and NPE without a loaded plugin.
@@ -183,11 +183,11 @@ void negativeAccuracyClamps() {
     // -------------------------------------------------------------------------
 
     @Nested
-    @DisplayName("displayEntityStatus — disabled branch")
+    @DisplayName("displayEntityStatus — reads the published table")
     class DisplayEntityStatus {
 
         @Test
-        @DisplayName("entity not in map -> sender sees 'Disabled' message")
+        @DisplayName("entity not in table -> sender sees 'Disabled' message")
         void entityNotConfigured() {
             final CommandSender sender = mock(CommandSender.class);
 
@@ -197,5 +197,19 @@ void entityNotConfigured() {
             verify(sender).sendMessage(captor.capture());
             assertThat(captor.getValue()).contains("Disabled").contains("Skeleton");
         }
+
+        @Test
+        @DisplayName("enabled entity in table -> sender sees 'Enabled' with its accuracy")
+        void entityEnabled() {
+            entityConfigs.put(EntityType.SKELETON, new StormtrooperX.EntityConfig(true, 0.35));
+            TestSupport.inject(plugin, "entityConfigTable", EntityConfigTable.compile(entityConfigs));
+            final CommandSender sender = mock(CommandSender.class);
+
+            TestSupport.invokePrivate(plugin, "displayEntityStatus", sender, EntityType.SKELETON, "Skeleton");
+
+            final ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+            verify(sender).sendMessage(captor.capture());
+            assertThat(captor.getValue()).contains("Enabled").contains("Skeleton").contains("0.35");
+        }
     }
 }
@@ -0,0 +1,80 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.EnumMap;
+
+import org.bukkit.entity.EntityType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Tests for {@link EntityConfigTable} — the ordinal-indexed snapshot the shot
+ * handler reads instead of probing an {@code EnumMap}.
+ */
+@DisplayName("EntityConfigTable — ordinal-indexed per-entity settings")
+class EntityConfigTableTest {
+
+    @ParameterizedTest(name = "EMPTY reports {0} as disabled")
+    @EnumSource(EntityType.class)
+    void emptyDisablesEverything(EntityType type) {
+        assertThat(EntityConfigTable.EMPTY.isEnabled(type)).isFalse();
+    }
+
+    @Test
+    @DisplayName("enabled entries carry their clamped accuracy; others stay disabled")
+    void compilesEnabledEntries() {
+        final EnumMap<EntityType, StormtrooperX.EntityConfig> staging = new EnumMap<>(EntityType.class);
+        staging.put(EntityType.SKELETON, new StormtrooperX.EntityConfig(true, 0.4));
+        staging.put(EntityType.STRAY, new StormtrooperX.EntityConfig(true, 3.0));
+
+        final EntityConfigTable table = EntityConfigTable.compile(staging);
+
+        assertThat(table.isEnabled(EntityType.SKELETON)).isTrue();
+        assertThat(table.accuracy(EntityType.SKELETON)).isCloseTo(0.4, within(1e-9));
+        assertThat(table.isEnabled(EntityType.STRAY)).isTrue();
+        assertThat(table.accuracy(EntityType.STRAY)).isCloseTo(1.0, within(1e-9));
+        assertThat(table.isEnabled(EntityType.ZOMBIE)).isFalse();
+    }
+
+    @Test
+    @DisplayName("an entry staged as disabled is not enabled in the table")
+    void disabledEntryStaysDisabled() {
+        final EnumMap<EntityType, StormtrooperX.EntityConfig> staging = new EnumMap<>(EntityType.class);
+        staging.put(EntityType.PILLAGER, new StormtrooperX.EntityConfig(false, 0.7));
+
+        assertThat(EntityConfigTable.compile(staging).isEnabled(EntityType.PILLAGER)).isFalse();
+    }
+
+    @Test
+    @DisplayName("ordinal and EntityType lookups agree, including the last ordinal")
+    void ordinalLookupMatchesTypeLookup() {
+        final EntityType[] types = EntityType.values();
+        final EntityType last = types[types.length - 1];
+        final EnumMap<EntityType, StormtrooperX.EntityConfig> staging = new EnumMap<>(EntityType.class);
+        staging.put(last, new StormtrooperX.EntityConfig(true, 0.25));
+
+        final EntityConfigTable table = EntityConfigTable.compile(staging);
+
+        assertThat(table.isEnabled(last.ordinal())).isTrue();
+        assertThat(table.accuracy(last.ordinal())).isEqualTo(table.accuracy(last));
+        assertThat(table.isEnabled(types[0].ordinal())).isEqualTo(types[0] == last);
+    }
+
+    @Test
+    @DisplayName("compiling copies: later staging-map edits do not leak into a published table")
+    void compiledTableIsIndependentOfStaging() {
+        final EnumMap<EntityType, StormtrooperX.EntityConfig> staging = new EnumMap<>(EntityType.class);
+        staging.put(EntityType.SKELETON, new StormtrooperX.EntityConfig(true, 0.7));
+        final EntityConfigTable table = EntityConfigTable.compile(staging);
+
+        staging.remove(EntityType.SKELETON);
+        staging.put(EntityType.PIGLIN, new StormtrooperX.EntityConfig(true, 0.7));
+
+        assertThat(table.isEnabled(EntityType.SKELETON)).isTrue();
+        assertThat(table.isEnabled(EntityType.PIGLIN)).isFalse();
+    }
+}
@@ -0,0 +1,207 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link OfflineOptOutCache}: non-blocking misses, shared loads,
+ * TTL refresh, LRU bounds, local changes racing a load, failures, and config
+ * parsing. Loads run on a deferred executor driven by the test.
+ */
+@DisplayName("OfflineOptOutCache — non-blocking opt-out lookups for offline players")
+class OfflineOptOutCacheTest {
+
+    private Logger logger;
+    private DatabaseManager databaseManager;
+    private List<Runnable> deferred;
+    private AsyncStorage storage;
+    private final AtomicLong clock = new AtomicLong();
+    private final UUID player = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        logger = mock(Logger.class);
+        databaseManager = mock(DatabaseManager.class);
+        deferred = new ArrayList<>();
+        storage = new AsyncStorage(logger, databaseManager, deferred::add);
+    }
+
+    private OfflineOptOutCache cache(int maxEntries, long expireAfterSeconds) {
+        return new OfflineOptOutCache(logger, storage,
+            new OfflineOptOutCache.Settings(true, maxEntries, expireAfterSeconds, "false"), clock::get);
+    }
+
+    private void runDeferred() {
+        final List<Runnable> tasks = new ArrayList<>(deferred);
+        deferred.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Nested
+    @DisplayName("loading")
+    class Loading {
+
+        @Test
+        @DisplayName("a miss returns null at once and the load's result answers later requests")
+        void missThenHit() {
+            final OfflineOptOutCache cache = cache(100, 60);
+            when(databaseManager.readOptedOut(player)).thenReturn(true);
+
+            assertThat(cache.get(player)).isNull();
+            verify(databaseManager, times(0)).isOptedOut(any());
+
+            runDeferred();
+            assertThat(cache.get(player)).isTrue();
+            assertThat(cache.hitCount()).isEqualTo(1);
+            assertThat(cache.loadCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("requests while a load runs share it")
+        void concurrentRequestsShareOneLoad() {
+            final OfflineOptOutCache cache = cache(100, 60);
+
+            for (int i = 0; i < 5; i++) {
+                assertThat(cache.get(player)).isNull();
+            }
+
+            assertThat(deferred).hasSize(1);
+            assertThat(cache.loadCount()).isEqualTo(1);
+            assertThat(cache.mergedCount()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("an expired entry keeps answering with its old value while one reload runs")
+        void expiredServesStaleWhileReloading() {
+            final OfflineOptOutCache cache = cache(100, 60);
+            when(databaseManager.readOptedOut(player)).thenReturn(true);
+            cache.get(player);
+            runDeferred();
+
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+            when(databaseManager.readOptedOut(player)).thenReturn(false);
+
+            assertThat(cache.get(player)).isTrue();
+            assertThat(cache.get(player)).isTrue();
+            assertThat(deferred).hasSize(1);
+            runDeferred();
+            assertThat(cache.get(player)).isFalse();
+        }
+
+        @Test
+        @DisplayName("a change made here replaces a load still running")
+        void putWinsOverInFlightLoad() {
+            final OfflineOptOutCache cache = cache(100, 60);
+            when(databaseManager.readOptedOut(player)).thenReturn(false);
+            cache.get(player);
+
+            cache.put(player, true);
+            runDeferred();
+
+            assertThat(cache.get(player)).isTrue();
+        }
+
+        @Test
+        @DisplayName("a read the database could not answer is dropped, not cached as opted in")
+        void unansweredReadRetried() {
+            final OfflineOptOutCache cache = cache(100, 60);
+            // Null: database unavailable or circuit open
+            when(databaseManager.readOptedOut(player)).thenReturn(null, true);
+
+            assertThat(cache.get(player)).isNull();
+            runDeferred();
+
+            assertThat(cache.size()).isZero();
+            assertThat(cache.failureCount()).isEqualTo(1);
+            assertThat(cache.get(player)).as("loads again").isNull();
+            runDeferred();
+            assertThat(cache.get(player)).isTrue();
+        }
+
+        @Test
+        @DisplayName("a failed load is dropped so the next request tries again")
+        void failedLoadRetried() {
+            storage = new AsyncStorage(logger, databaseManager, task -> {
+                throw new RejectedExecutionException("queue full");
+            });
+            final OfflineOptOutCache cache = cache(100, 60);
+
+            assertThat(cache.get(player)).isNull();
+            assertThat(cache.get(player)).isNull();
+
+            assertThat(cache.failureCount()).isEqualTo(2);
+            assertThat(cache.loadCount()).isEqualTo(2);
+            assertThat(cache.size()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("holds at most max-entries players, evicting the least recently used")
+    void boundedLru() {
+        final OfflineOptOutCache cache = cache(2, 60);
+        final UUID a = UUID.randomUUID();
+        final UUID b = UUID.randomUUID();
+        final UUID c = UUID.randomUUID();
+        cache.put(a, true);
+        cache.put(b, true);
+
+        cache.get(a);
+        cache.put(c, true);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.evictionCount()).isEqualTo(1);
+        assertThat(cache.get(a)).isTrue();
+        assertThat(cache.get(c)).isTrue();
+        assertThat(cache.get(b)).as("evicted, so it loads again").isNull();
+    }
+
+    @Nested
+    @DisplayName("configuration")
+    class Configuration {
+
+        @Test
+        @DisplayName("defaults when the section is missing")
+        void defaults() {
+            final OfflineOptOutCache.Settings settings = OfflineOptOutCache.Settings.fromConfig(null, logger);
+
+            assertThat(settings.enabled()).isTrue();
+            assertThat(settings.maxEntries()).isEqualTo(OfflineOptOutCache.Settings.DEFAULT_MAX_ENTRIES);
+            assertThat(settings.loadingPlaceholder()).isEqualTo("false");
+        }
+
+        @Test
+        @DisplayName("falls back to the default for out-of-range values")
+        void invalidValuesFallBack() {
+            final YamlConfiguration section = new YamlConfiguration();
+            section.set("max-entries", 0);
+            section.set("expire-after-seconds", 300);
+            section.set("loading-placeholder", "...");
+
+            final OfflineOptOutCache.Settings settings = OfflineOptOutCache.Settings.fromConfig(section, logger);
+
+            assertThat(settings.maxEntries()).isEqualTo(OfflineOptOutCache.Settings.DEFAULT_MAX_ENTRIES);
+            assertThat(settings.expireAfterSeconds()).isEqualTo(300);
+            assertThat(settings.loadingPlaceholder()).isEqualTo("...");
+            verify(logger).warning(contains("offline-cache.max-entries"));
+        }
+    }
+}
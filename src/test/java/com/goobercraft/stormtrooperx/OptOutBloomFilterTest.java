@@ -0,0 +1,127 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link OptOutBloomFilter}: no false negatives, a false-positive
+ * rate near the target, sizing, and concurrent puts.
+ */
+@DisplayName("OptOutBloomFilter — Bloom filter over opted-out UUIDs")
+class OptOutBloomFilterTest {
+
+    private static List<UUID> uuids(Random random, int count) {
+        final List<UUID> uuids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            uuids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        return uuids;
+    }
+
+    @Test
+    @DisplayName("never answers false for a UUID it holds")
+    void noFalseNegatives() {
+        final OptOutBloomFilter filter = new OptOutBloomFilter(10_000, 0.01);
+        final List<UUID> added = uuids(new Random(1), 10_000);
+        added.forEach(filter::put);
+
+        for (UUID uuid : added) {
+            assertThat(filter.mightContain(uuid)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("false-positive rate at capacity stays near the target, and the estimate agrees")
+    void falsePositiveRate() {
+        final OptOutBloomFilter filter = new OptOutBloomFilter(10_000, 0.01);
+        uuids(new Random(2), 10_000).forEach(filter::put);
+
+        int falsePositives = 0;
+        final List<UUID> absent = uuids(new Random(3), 100_000);
+        for (UUID uuid : absent) {
+            if (filter.mightContain(uuid)) {
+                falsePositives++;
+            }
+        }
+        final double observed = (double) falsePositives / absent.size();
+
+        assertThat(observed).isBetween(0.005, 0.02);
+        assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.02);
+    }
+
+    @Test
+    @DisplayName("an empty filter rules everything out")
+    void empty() {
+        final OptOutBloomFilter filter = new OptOutBloomFilter(100, 0.01);
+
+        assertThat(filter.mightContain(UUID.randomUUID())).isFalse();
+        assertThat(filter.expectedFalsePositiveRate()).isZero();
+    }
+
+    @Test
+    @DisplayName("sizes about 9.6 bits and 7 probes per entry at 1%")
+    void sizing() {
+        final OptOutBloomFilter filter = new OptOutBloomFilter(10_000, 0.01);
+
+        assertThat(filter.bitSize()).isBetween(95_000L, 96_000L);
+        assertThat(filter.bitSize() % Long.SIZE).isZero();
+        assertThat(filter.hashCount()).isEqualTo(7);
+        assertThat(filter.memoryBytes()).isEqualTo(filter.bitSize() / 8);
+    }
+
+    @Test
+    @DisplayName("rejects out-of-range sizing")
+    void rejectsInvalidArguments() {
+        assertThatThrownBy(() -> new OptOutBloomFilter(0, 0.01))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("expectedInsertions");
+        assertThatThrownBy(() -> new OptOutBloomFilter(100, 1.0))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("falsePositiveRate");
+        assertThatThrownBy(() -> new OptOutBloomFilter(100, Double.NaN))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("falsePositiveRate");
+    }
+
+    @Test
+    @DisplayName("concurrent puts sharing words lose no bits")
+    void concurrentPuts() throws Exception {
+        // Small filter, so the threads keep hitting the same words
+        final OptOutBloomFilter filter = new OptOutBloomFilter(100, 0.1);
+        final List<List<UUID>> perThread = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            perThread.add(uuids(new Random(10 + t), 2_000));
+        }
+
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (List<UUID> batch : perThread) {
+                futures.add(pool.submit(() -> batch.forEach(filter::put)));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (List<UUID> batch : perThread) {
+            for (UUID uuid : batch) {
+                assertThat(filter.mightContain(uuid)).isTrue();
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.goobercraft.stormtrooperx.support.ManualPluginScheduler;
+
+/**
+ * Tests for {@link OptOutChangeFeed}: the start position, skipping this
+ * server's own entries, waiting at and skipping sequence gaps, paging, and
+ * config parsing. Storage calls run inline; polls are driven through a
+ * manual scheduler.
+ */
+@DisplayName("OptOutChangeFeed — cross-server opt-out sync")
+class OptOutChangeFeedTest {
+
+    private static final long ORIGIN = 42;
+    private static final long OTHER = 7;
+
+    private Logger logger;
+    private DatabaseManager databaseManager;
+    private ManualPluginScheduler scheduler;
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Map.Entry<UUID, Boolean>> received = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        logger = mock(Logger.class);
+        databaseManager = mock(DatabaseManager.class);
+        scheduler = new ManualPluginScheduler();
+    }
+
+    private OptOutChangeFeed feed(int maxChangesPerPoll) {
+        final AsyncStorage storage = new AsyncStorage(logger, databaseManager, Runnable::run);
+        return new OptOutChangeFeed(logger, storage, scheduler,
+            new OptOutChangeFeed.Settings(true, 1000, maxChangesPerPoll, 60), ORIGIN,
+            (uuid, optedOut) -> received.add(Map.entry(uuid, optedOut)), clock::get);
+    }
+
+    private OptOutChangeFeed startedAt(long latest, int maxChangesPerPoll) {
+        when(databaseManager.getLatestChangeSeq()).thenReturn(latest);
+        final OptOutChangeFeed feed = feed(maxChangesPerPoll);
+        feed.start().join();
+        return feed;
+    }
+
+    private static OptOutChangeFeed.Change change(long seq, UUID player, boolean optedOut, long origin) {
+        return new OptOutChangeFeed.Change(seq, player, optedOut, origin);
+    }
+
+    @Nested
+    @DisplayName("polling")
+    class Polling {
+
+        @Test
+        @DisplayName("starts after the log's current end and polls from there")
+        void startsAtLatest() {
+            final UUID player = UUID.randomUUID();
+            final OptOutChangeFeed feed = startedAt(10, 100);
+            when(databaseManager.getChangesSince(10, 100)).thenReturn(List.of(change(11, player, true, OTHER)));
+
+            assertThat(feed.cursor()).isEqualTo(10);
+            assertThat(scheduler.runPending()).isEqualTo(1);
+
+            assertThat(received).containsExactly(Map.entry(player, true));
+            assertThat(feed.cursor()).isEqualTo(11);
+            assertThat(feed.pollCount()).isEqualTo(1);
+            assertThat(scheduler.pendingCount()).as("next poll scheduled").isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("an unreadable log end is read again on the first poll")
+        void retriesStartPosition() {
+            when(databaseManager.getLatestChangeSeq()).thenReturn(-1L, 5L);
+            final OptOutChangeFeed feed = feed(100);
+
+            feed.start().join();
+            assertThat(feed.cursor()).isEqualTo(-1);
+            verify(logger).warning(contains("Could not read the opt-out change log"));
+
+            scheduler.runPending();
+            assertThat(feed.cursor()).isEqualTo(5);
+            verify(databaseManager, never()).getChangesSince(anyLong(), anyInt());
+        }
+
+        @Test
+        @DisplayName("this server's own entries advance the cursor but are not applied")
+        void skipsOwnChanges() {
+            final UUID mine = UUID.randomUUID();
+            final UUID theirs = UUID.randomUUID();
+            final OptOutChangeFeed feed = startedAt(0, 100);
+
+            feed.apply(List.of(change(1, mine, true, ORIGIN), change(2, theirs, false, OTHER)));
+
+            assertThat(received).containsExactly(Map.entry(theirs, false));
+            assertThat(feed.ownCount()).isEqualTo(1);
+            assertThat(feed.appliedCount()).isEqualTo(1);
+            assertThat(feed.cursor()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("a full page is followed by another poll straight away")
+        void fullPagePollsAgain() {
+            final OptOutChangeFeed feed = startedAt(0, 2);
+
+            assertThat(feed.apply(List.of(change(1, UUID.randomUUID(), true, OTHER),
+                change(2, UUID.randomUUID(), true, OTHER)))).isTrue();
+            assertThat(feed.apply(List.of(change(3, UUID.randomUUID(), true, OTHER)))).isFalse();
+        }
+
+        @Test
+        @DisplayName("a failed poll keeps the cursor and schedules the next one")
+        void failedPoll() {
+            final OptOutChangeFeed feed = startedAt(3, 100);
+            when(databaseManager.getChangesSince(3, 100)).thenThrow(new IllegalStateException("boom"));
+
+            scheduler.runPending();
+
+            assertThat(feed.cursor()).isEqualTo(3);
+            assertThat(feed.failedPollCount()).isEqualTo(1);
+            assertThat(scheduler.pendingCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("a closed feed schedules no further polls")
+        void close() {
+            final OptOutChangeFeed feed = startedAt(0, 100);
+            feed.close();
+
+            scheduler.runPending();
+
+            assertThat(scheduler.pendingCount()).isZero();
+            verify(databaseManager, never()).getChangesSince(anyLong(), anyInt());
+        }
+    }
+
+    @Nested
+    @DisplayName("gaps")
+    class Gaps {
+
+        @Test
+        @DisplayName("the cursor waits at a gap, and a late entry filling it is applied with what follows in order")
+        void waitsForGapThenReplays() {
+            final UUID player = UUID.randomUUID();
+            final UUID late = UUID.randomUUID();
+            final OptOutChangeFeed feed = startedAt(0, 100);
+
+            // Entry 2 is still committing; 3 is visible and applied at once
+            feed.apply(List.of(change(1, late, true, OTHER), change(3, player, false, OTHER)));
+            assertThat(feed.cursor()).isEqualTo(1);
+            assertThat(received).containsExactly(Map.entry(late, true), Map.entry(player, false));
+
+            // Re-read past the cursor: still missing, nothing re-applied
+            feed.apply(List.of(change(3, player, false, OTHER)));
+            assertThat(feed.cursor()).isEqualTo(1);
+            assertThat(received).hasSize(2);
+
+            feed.apply(List.of(change(2, player, true, OTHER), change(3, player, false, OTHER)));
+
+            // Entry 2 is superseded by 3 in the same batch; only the player's last state is replayed
+            assertThat(feed.cursor()).isEqualTo(3);
+            assertThat(received).containsExactly(Map.entry(late, true), Map.entry(player, false),
+                Map.entry(player, false));
+            assertThat(feed.missedCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("a replay never re-applies another server's change this server's own later write replaced")
+        void replaySkipsChangesSupersededByOwnWrites() {
+            final UUID player = UUID.randomUUID();
+            final OptOutChangeFeed feed = startedAt(9, 100);
+
+            // 10 is still committing; 11 (opted out elsewhere) is replaced by 12 (opted in here)
+            feed.apply(List.of(change(11, player, true, OTHER), change(12, player, false, ORIGIN)));
+            assertThat(received).isEmpty();
+
+            feed.apply(List.of(change(10, UUID.randomUUID(), false, ORIGIN), change(11, player, true, OTHER),
+                change(12, player, false, ORIGIN)));
+
+            assertThat(feed.cursor()).isEqualTo(12);
+            assertThat(received).isEmpty();
+            assertThat(feed.ownCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("a gap missing past the timeout is skipped with a warning")
+        void skipsAfterTimeout() {
+            final OptOutChangeFeed feed = startedAt(0, 100);
+            final List<OptOutChangeFeed.Change> changes = List.of(change(4, UUID.randomUUID(), true, OTHER));
+
+            feed.apply(changes);
+            assertThat(feed.cursor()).isZero();
+
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(OptOutChangeFeed.GAP_TIMEOUT_MILLIS));
+            feed.apply(changes);
+
+            assertThat(feed.cursor()).isEqualTo(4);
+            assertThat(feed.missedCount()).isEqualTo(3);
+            assertThat(received).hasSize(1);
+            verify(logger).fine(contains("Skipped opt-out changes 1-3"));
+        }
+    }
+
+    @Nested
+    @DisplayName("configuration")
+    class Configuration {
+
+        @Test
+        @DisplayName("disabled when the section is missing")
+        void defaults() {
+            final OptOutChangeFeed.Settings settings = OptOutChangeFeed.Settings.fromConfig(null, logger);
+
+            assertThat(settings.enabled()).isFalse();
+            assertThat(settings.pollIntervalMillis()).isEqualTo(OptOutChangeFeed.Settings.DEFAULT_POLL_INTERVAL_MILLIS);
+            assertThat(settings.maxChangesPerPoll()).isEqualTo(OptOutChangeFeed.Settings.DEFAULT_MAX_CHANGES_PER_POLL);
+            assertThat(settings.retentionMinutes()).isEqualTo(OptOutChangeFeed.Settings.DEFAULT_RETENTION_MINUTES);
+        }
+
+        @Test
+        @DisplayName("falls back to the default for out-of-range values")
+        void invalidValuesFallBack() {
+            final YamlConfiguration section = new YamlConfiguration();
+            section.set("enabled", true);
+            section.set("poll-interval-ms", 50);
+            section.set("max-changes-per-poll", 500);
+            section.set("retention-minutes", 20_000);
+
+            final OptOutChangeFeed.Settings settings = OptOutChangeFeed.Settings.fromConfig(section, logger);
+
+            assertThat(settings.enabled()).isTrue();
+            assertThat(settings.pollIntervalMillis()).isEqualTo(OptOutChangeFeed.Settings.DEFAULT_POLL_INTERVAL_MILLIS);
+            assertThat(settings.maxChangesPerPoll()).isEqualTo(500);
+            assertThat(settings.retentionMinutes()).isEqualTo(OptOutChangeFeed.Settings.DEFAULT_RETENTION_MINUTES);
+            verify(logger).warning(contains("sync.poll-interval-ms"));
+            verify(logger).warning(contains("sync.retention-minutes"));
+        }
+    }
+}
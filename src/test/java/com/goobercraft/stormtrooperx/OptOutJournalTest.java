@@ -0,0 +1,173 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link OptOutJournal}: append and recovery across reopen, torn
+ * tails, compaction and the file header.
+ */
+@DisplayName("OptOutJournal — local write-ahead journal for unwritten opt-outs")
+class OptOutJournalTest {
+
+    private final Logger logger = Logger.getLogger("TestLogger");
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+
+    @TempDir
+    Path tempDir;
+    private Path file;
+
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("optout-journal.dat");
+    }
+
+    private OptOutJournal open() throws IOException {
+        return new OptOutJournal(logger, file);
+    }
+
+    @Nested
+    @DisplayName("recovery")
+    class Recovery {
+
+        @Test
+        @DisplayName("a new journal is empty and holds only the header")
+        void newJournal() throws IOException {
+            try (OptOutJournal journal = open()) {
+                assertThat(journal.recovered()).isEmpty();
+                assertThat(journal.recordCount()).isZero();
+            }
+            assertThat(Files.size(file)).isEqualTo(OptOutJournal.HEADER_BYTES);
+        }
+
+        @Test
+        @DisplayName("appended changes are read back on reopen, latest state per player")
+        void latestStateWins() throws IOException {
+            try (OptOutJournal journal = open()) {
+                journal.append(Map.of(alice, true));
+                journal.append(Map.of(bob, false));
+                journal.append(Map.of(alice, false));
+                assertThat(journal.recordCount()).isEqualTo(3);
+            }
+
+            try (OptOutJournal journal = open()) {
+                assertThat(journal.recovered()).containsOnly(entry(alice, false), entry(bob, false));
+                assertThat(journal.recordCount()).isEqualTo(3);
+            }
+        }
+
+        @Test
+        @DisplayName("a torn tail is cut off and later appends stay readable")
+        void tornTail() throws IOException {
+            try (OptOutJournal journal = open()) {
+                journal.append(Map.of(alice, true));
+            }
+            Files.write(file, new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+
+            try (OptOutJournal journal = open()) {
+                assertThat(journal.recovered()).containsOnly(entry(alice, true));
+                journal.append(Map.of(bob, true));
+            }
+
+            try (OptOutJournal journal = open()) {
+                assertThat(journal.recovered()).containsOnly(entry(alice, true), entry(bob, true));
+            }
+        }
+
+        @Test
+        @DisplayName("a record with a bad checksum ends recovery there")
+        void corruptRecord() throws IOException {
+            try (OptOutJournal journal = open()) {
+                journal.append(Map.of(alice, true));
+                journal.append(Map.of(bob, true));
+            }
+            final byte[] bytes = Files.readAllBytes(file);
+            bytes[OptOutJournal.HEADER_BYTES + OptOutJournal.RECORD_BYTES] ^= 0x7F;
+            Files.write(file, bytes);
+
+            try (OptOutJournal journal = open()) {
+                assertThat(journal.recovered()).containsOnly(entry(alice, true));
+            }
+            assertThat(Files.size(file)).isEqualTo(OptOutJournal.HEADER_BYTES + OptOutJournal.RECORD_BYTES);
+        }
+
+        @Test
+        @DisplayName("a file that is not a journal is refused, not overwritten")
+        void wrongMagic() throws IOException {
+            final byte[] notAJournal = "hello".getBytes(StandardCharsets.US_ASCII);
+            Files.write(file, notAJournal);
+
+            assertThatThrownBy(OptOutJournalTest.this::open)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not an opt-out journal");
+            assertThat(Files.readAllBytes(file)).isEqualTo(notAJournal);
+        }
+    }
+
+    @Nested
+    @DisplayName("compaction")
+    class Compaction {
+
+        @Test
+        @DisplayName("compacting to nothing truncates the file to its header")
+        void truncates() throws IOException {
+            try (OptOutJournal journal = open()) {
+                journal.append(Map.of(alice, true, bob, false));
+                journal.compact(Map.of());
+                assertThat(journal.recordCount()).isZero();
+            }
+
+            assertThat(Files.size(file)).isEqualTo(OptOutJournal.HEADER_BYTES);
+            try (OptOutJournal journal = open()) {
+                assertThat(journal.recovered()).isEmpty();
+            }
+        }
+
+        @Test
+        @DisplayName("compacting keeps only the live changes, and appends continue after them")
+        void rewrites() throws IOException {
+            final UUID carol = UUID.randomUUID();
+            try (OptOutJournal journal = open()) {
+                journal.append(Map.of(alice, true));
+                journal.append(Map.of(bob, true));
+                journal.append(Map.of(alice, false));
+                journal.compact(Map.of(bob, true));
+                journal.append(Map.of(carol, true));
+                assertThat(journal.recordCount()).isEqualTo(2);
+            }
+
+            try (OptOutJournal journal = open()) {
+                assertThat(journal.recovered()).containsOnly(entry(bob, true), entry(carol, true));
+            }
+            assertThat(tempDir.resolve("optout-journal.dat.tmp")).doesNotExist();
+        }
+    }
+
+    @Test
+    @DisplayName("constructor rejects null arguments")
+    void validation() {
+        assertThatThrownBy(() -> new OptOutJournal(null, file))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("logger cannot be null");
+        assertThatThrownBy(() -> new OptOutJournal(logger, null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("file cannot be null");
+    }
+}
@@ -5,20 +5,29 @@
 
 import java.util.logging.Level;
 
+import java.nio.file.Path;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Logger;
 
 import org.bukkit.entity.Player;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import com.goobercraft.stormtrooperx.scheduler.PluginScheduler;
 import com.goobercraft.stormtrooperx.support.InlinePluginScheduler;
+import com.goobercraft.stormtrooperx.support.ManualPluginScheduler;
 
 /**
  * Unit tests for OptOutManager.
@@ -41,6 +50,9 @@ public class OptOutManagerTest {
     @Mock
     private PlayerQuitEvent quitEvent;
 
+    @TempDir
+    Path snapshotDir;
+
     private PluginScheduler scheduler;
     private OptOutManager optOutManager;
     private UUID testUUID;
@@ -50,6 +62,7 @@ public void setUp() {
         MockitoAnnotations.openMocks(this);
 
         scheduler = new InlinePluginScheduler();
+        when(databaseManager.setOptOuts(anyMap())).thenReturn(true);
 
         // Use typical server size for testing (100 players)
         optOutManager = new OptOutManager(logger, databaseManager, scheduler, 100);
@@ -136,7 +149,7 @@ public void testSetOptOut_OptIn() {
         optOutManager.setOptOut(playerUUID, true);
 
         // Verify database was updated
-        verify(databaseManager).setOptOut(playerUUID, true);
+        verify(databaseManager).setOptOuts(Map.of(playerUUID, true));
 
         // Verify cache was updated
         assertTrue(optOutManager.isOptedOut(playerUUID), "Player should be in cache after opting out");
@@ -154,7 +167,7 @@ public void testSetOptOut_OptOut() {
         optOutManager.setOptOut(playerUUID, false);
 
         // Verify database was updated
-        verify(databaseManager).setOptOut(playerUUID, false);
+        verify(databaseManager).setOptOuts(Map.of(playerUUID, false));
 
         // Verify cache was updated
         assertFalse(optOutManager.isOptedOut(playerUUID), "Player should be removed from cache after opting back in");
@@ -166,13 +179,13 @@ public void testSetOptOut_NullUUID() {
         optOutManager.setOptOut(null, true);
 
         // Verify database was not called
-        verify(databaseManager, never()).setOptOut(any(), anyBoolean());
+        verify(databaseManager, never()).setOptOuts(anyMap());
     }
 
     @Test
     public void testSetOptOut_databaseException_doesNotThrow() {
         UUID playerUUID = UUID.randomUUID();
-        doThrow(new RuntimeException("DB unavailable")).when(databaseManager).setOptOut(any(), anyBoolean());
+        doThrow(new RuntimeException("DB unavailable")).when(databaseManager).setOptOuts(anyMap());
 
         assertDoesNotThrow(() -> optOutManager.setOptOut(playerUUID, true));
     }
@@ -180,7 +193,7 @@ public void testSetOptOut_databaseException_doesNotThrow() {
     @Test
     public void testSetOptOut_databaseException_cacheRemainsConsistent() {
         UUID playerUUID = UUID.randomUUID();
-        doThrow(new RuntimeException("DB unavailable")).when(databaseManager).setOptOut(any(), anyBoolean());
+        doThrow(new RuntimeException("DB unavailable")).when(databaseManager).setOptOuts(anyMap());
 
         optOutManager.setOptOut(playerUUID, true);
 
@@ -202,7 +215,7 @@ public void testToggleOptOut_FromFalseToTrue() {
 
         assertTrue(newStatus, "Toggle should return true");
         assertTrue(optOutManager.isOptedOut(playerUUID), "Player should be opted out after toggle");
-        verify(databaseManager).setOptOut(playerUUID, true);
+        verify(databaseManager).setOptOuts(Map.of(playerUUID, true));
     }
 
     @Test
@@ -218,7 +231,7 @@ public void testToggleOptOut_FromTrueToFalse() {
 
         assertFalse(newStatus, "Toggle should return false");
         assertFalse(optOutManager.isOptedOut(playerUUID), "Player should not be opted out after toggle");
-        verify(databaseManager).setOptOut(playerUUID, false);
+        verify(databaseManager).setOptOuts(Map.of(playerUUID, false));
     }
 
     @Test
@@ -231,7 +244,7 @@ public void testToggleOptOut_NullUUID() {
     public void testOnPlayerJoin_OptedOut() {
         // Setup: Player is opted out in database
         when(joinEvent.getPlayer()).thenReturn(player);
-        when(databaseManager.isOptedOut(testUUID)).thenReturn(true);
+        when(databaseManager.readAllOptedOut(anyCollection())).thenReturn(Set.of(testUUID));
 
         // Initially cache should be empty
         assertEquals(0, optOutManager.getCacheSize());
@@ -248,7 +261,7 @@ public void testOnPlayerJoin_OptedOut() {
     public void testOnPlayerJoin_NotOptedOut() {
         // Setup: Player is NOT opted out in database
         when(joinEvent.getPlayer()).thenReturn(player);
-        when(databaseManager.isOptedOut(testUUID)).thenReturn(false);
+        when(databaseManager.readAllOptedOut(anyCollection())).thenReturn(Set.of());
 
         // Trigger join event
         optOutManager.onPlayerJoin(joinEvent);
@@ -261,7 +274,7 @@ public void testOnPlayerJoin_NotOptedOut() {
     @Test
     public void testOnPlayerJoin_OptedOut_SendsReminderMessage() {
         when(joinEvent.getPlayer()).thenReturn(player);
-        when(databaseManager.isOptedOut(testUUID)).thenReturn(true);
+        when(databaseManager.readAllOptedOut(anyCollection())).thenReturn(Set.of(testUUID));
         when(player.isOnline()).thenReturn(true);
 
         optOutManager.onPlayerJoin(joinEvent);
@@ -272,7 +285,7 @@ public void testOnPlayerJoin_OptedOut_SendsReminderMessage() {
     @Test
     public void testOnPlayerJoin_NotOptedOut_DoesNotSendMessage() {
         when(joinEvent.getPlayer()).thenReturn(player);
-        when(databaseManager.isOptedOut(testUUID)).thenReturn(false);
+        when(databaseManager.readAllOptedOut(anyCollection())).thenReturn(Set.of());
 
         optOutManager.onPlayerJoin(joinEvent);
 
@@ -283,7 +296,7 @@ public void testOnPlayerJoin_NotOptedOut_DoesNotSendMessage() {
     public void testOnPlayerJoin_OptedOut_PlayerDisconnectedBeforeNotice_DoesNotSend() {
         // Simulates the player disconnecting between the async DB load and the global-thread send
         when(joinEvent.getPlayer()).thenReturn(player);
-        when(databaseManager.isOptedOut(testUUID)).thenReturn(true);
+        when(databaseManager.readAllOptedOut(anyCollection())).thenReturn(Set.of(testUUID));
         when(player.isOnline()).thenReturn(false);
 
         optOutManager.onPlayerJoin(joinEvent);
@@ -297,7 +310,7 @@ public void testOnPlayerJoin_OptedOut_PlayerDisconnectedBeforeNotice_DoesNotSend
     public void testOnPlayerJoin_DatabaseException() {
         // Setup: Database throws exception
         when(joinEvent.getPlayer()).thenReturn(player);
-        when(databaseManager.isOptedOut(testUUID)).thenThrow(new RuntimeException("Database error"));
+        when(databaseManager.readAllOptedOut(anyCollection())).thenThrow(new RuntimeException("Database error"));
 
         // Should not throw exception
         assertDoesNotThrow(() -> optOutManager.onPlayerJoin(joinEvent));
@@ -308,6 +321,601 @@ public void testOnPlayerJoin_DatabaseException() {
         verify(logger).log(eq(Level.WARNING), anyString(), any(Throwable.class));
     }
 
+    @Test
+    public void testOnPlayerJoin_DatabaseUnavailable_RetriedInsteadOfCachedAsNotOptedOut() {
+        ManualPluginScheduler manual = new ManualPluginScheduler();
+        AsyncStorage direct = new AsyncStorage(logger, databaseManager, Runnable::run);
+        OptOutManager manager = new OptOutManager(logger, databaseManager, manual, 100,
+            OptOutSettings.defaults(), direct, null, null);
+        when(joinEvent.getPlayer()).thenReturn(player);
+        when(player.isOnline()).thenReturn(true);
+        // Null: the database could not answer (circuit open, read failed)
+        when(databaseManager.readAllOptedOut(anyCollection())).thenReturn(null, Set.of(testUUID));
+
+        manager.onPlayerJoin(joinEvent);
+        manual.runPending();
+
+        assertFalse(manager.isOptedOut(testUUID));
+        verify(logger).warning(contains("retrying in " + OptOutJoinLoader.RETRY_BASE_MILLIS + " ms"));
+        assertEquals(1, manual.pendingCount(), "The batch is retried later");
+
+        manual.runPending(); // back in the queue
+        manual.runPending(); // the next window loads it
+        assertTrue(manager.isOptedOut(testUUID), "Resolved by the retry");
+        verify(databaseManager, times(2)).readAllOptedOut(anyCollection());
+        assertEquals(2 * OptOutJoinLoader.RETRY_BASE_MILLIS, OptOutJoinLoader.retryDelayMillis(1));
+        assertEquals(OptOutJoinLoader.RETRY_MAX_MILLIS, OptOutJoinLoader.retryDelayMillis(20));
+    }
+
+    @Test
+    public void testOnPlayerJoin_DatabaseUnavailable_PlayerWhoLeftIsNotRetried() {
+        ManualPluginScheduler manual = new ManualPluginScheduler();
+        AsyncStorage direct = new AsyncStorage(logger, databaseManager, Runnable::run);
+        OptOutManager manager = new OptOutManager(logger, databaseManager, manual, 100,
+            OptOutSettings.defaults(), direct, null, null);
+        when(joinEvent.getPlayer()).thenReturn(player);
+        when(databaseManager.readAllOptedOut(anyCollection())).thenReturn(null);
+
+        manager.onPlayerJoin(joinEvent);
+        manual.runPending();
+        when(player.isOnline()).thenReturn(false);
+        manual.runPending();
+
+        assertEquals(0, manual.pendingCount());
+        verify(databaseManager, times(1)).readAllOptedOut(anyCollection());
+    }
+
+    @Test
+    public void testOnPlayerJoin_PendingWrite_WinsOverDatabase() {
+        // The write fails, so the change is still queued when the player rejoins
+        when(databaseManager.setOptOuts(anyMap())).thenReturn(false);
+        when(databaseManager.readAllOptedOut(anyCollection())).thenReturn(Set.of());
+        when(joinEvent.getPlayer()).thenReturn(player);
+        when(quitEvent.getPlayer()).thenReturn(player);
+
+        optOutManager.setOptOut(testUUID, true);
+        optOutManager.onPlayerQuit(quitEvent);
+        optOutManager.onPlayerJoin(joinEvent);
+
+        assertTrue(optOutManager.isOptedOut(testUUID), "Queued change is newer than the database row");
+    }
+
+    @Test
+    public void testOnPlayerJoin_JoinStorm_ResolvedWithOneBulkQuery() {
+        ManualPluginScheduler manual = new ManualPluginScheduler();
+        OptOutManager manager = new OptOutManager(logger, databaseManager, manual, 100);
+        Player p1 = mock(Player.class);
+        Player p2 = mock(Player.class);
+        UUID uuid1 = UUID.randomUUID();
+        UUID uuid2 = UUID.randomUUID();
+        when(p1.getUniqueId()).thenReturn(uuid1);
+        when(p2.getUniqueId()).thenReturn(uuid2);
+        when(player.isOnline()).thenReturn(true);
+        when(p1.isOnline()).thenReturn(true);
+        PlayerJoinEvent join1 = mock(PlayerJoinEvent.class);
+        PlayerJoinEvent join2 = mock(PlayerJoinEvent.class);
+        when(joinEvent.getPlayer()).thenReturn(player);
+        when(join1.getPlayer()).thenReturn(p1);
+        when(join2.getPlayer()).thenReturn(p2);
+        when(databaseManager.readAllOptedOut(anyCollection())).thenReturn(Set.of(testUUID, uuid1));
+
+        manager.onPlayerJoin(joinEvent);
+        manager.onPlayerJoin(join1);
+        manager.onPlayerJoin(join2);
+        assertEquals(1, manual.pendingCount(), "Joins within the window share one load");
+
+        manual.runPending();
+        verify(databaseManager, never()).readAllOptedOut(anyCollection());
+        // The window closed; the bulk query runs as one storage task
+        assertEquals(1, manual.pendingCount());
+        manual.runPending();
+
+        verify(databaseManager, times(1)).readAllOptedOut(anyCollection());
+        verify(databaseManager).readAllOptedOut(argThat(uuids -> uuids.containsAll(List.of(testUUID, uuid1, uuid2))));
+        assertTrue(manager.isOptedOut(testUUID));
+        assertTrue(manager.isOptedOut(uuid1));
+        assertFalse(manager.isOptedOut(uuid2));
+
+        // Reminders go out afterwards, in a single global-thread task
+        assertEquals(1, manual.pendingCount());
+        manual.runPending();
+        verify(player).sendMessage(contains("opted out of StormtrooperX"));
+        verify(p1).sendMessage(contains("opted out of StormtrooperX"));
+        verify(p2, never()).sendMessage(anyString());
+    }
+
+    @Test
+    public void testOnPlayerJoin_StorageSaturated_RetriedNextWindow() {
+        ManualPluginScheduler manual = new ManualPluginScheduler();
+        AsyncStorage saturated = new AsyncStorage(logger, databaseManager, task -> {
+            throw new RejectedExecutionException("queue full");
+        });
+        OptOutManager manager = new OptOutManager(logger, databaseManager, manual, 100,
+            OptOutSettings.defaults(), saturated, null, null);
+        when(joinEvent.getPlayer()).thenReturn(player);
+
+        manager.onPlayerJoin(joinEvent);
+        manual.runPending();
+
+        // Rejected before reaching the database; the player waits for the next window
+        verify(databaseManager, never()).readAllOptedOut(anyCollection());
+        assertEquals(1, saturated.rejectedCount());
+        assertEquals(1, manual.pendingCount());
+    }
+
+    private static OptOutSettings preloadSettings() {
+        return OptOutSettings.defaults().withPreload(true);
+    }
+
+    /** Makes forEachOptedOut stream the given players and succeed. */
+    @SuppressWarnings("unchecked")
+    private void stubPreload(UUID... optedOut) {
+        when(databaseManager.forEachOptedOut(any())).thenAnswer(invocation -> {
+            java.util.function.Consumer<UUID> sink = invocation.getArgument(0);
+            for (UUID uuid : optedOut) {
+                sink.accept(uuid);
+            }
+            return true;
+        });
+    }
+
+    @Test
+    public void testPreload_offlinePlayersResolve_andJoinSkipsDatabase() {
+        UUID offline = UUID.randomUUID();
+        stubPreload(offline, testUUID);
+        AsyncStorage direct = new AsyncStorage(logger, databaseManager, Runnable::run);
+        OptOutManager manager = new OptOutManager(logger, databaseManager, scheduler, 100,
+            preloadSettings(), direct, null, null);
+
+        assertTrue(manager.isPreloaded());
+        assertTrue(manager.isOptedOut(offline), "Offline players resolve once preloaded");
+        assertTrue(manager.preloadTableBytes() > 0);
+
+        when(joinEvent.getPlayer()).thenReturn(player);
+        when(player.isOnline()).thenReturn(true);
+        manager.onPlayerPreLogin(preLogin(AsyncPlayerPreLoginEvent.Result.ALLOWED));
+        manager.onPlayerJoin(joinEvent);
+
+        verify(databaseManager, never()).readOptedOut(any());
+        verify(databaseManager, never()).readAllOptedOut(anyCollection());
+        verify(player).sendMessage(contains("opted out of StormtrooperX"));
+
+        when(quitEvent.getPlayer()).thenReturn(player);
+        manager.onPlayerQuit(quitEvent);
+        assertTrue(manager.isOptedOut(testUUID), "Quit keeps preloaded entries");
+    }
+
+    @Test
+    public void testPreload_changesDuringLoadWinOverLoadedRows() {
+        UUID optedBackIn = UUID.randomUUID();
+        UUID newlyOptedOut = UUID.randomUUID();
+        stubPreload(optedBackIn);
+        List<Runnable> deferred = new java.util.ArrayList<>();
+        AsyncStorage storage = new AsyncStorage(logger, databaseManager, deferred::add);
+        OptOutManager manager = new OptOutManager(logger, databaseManager, scheduler, 100,
+            preloadSettings(), storage, null, null);
+        assertFalse(manager.isPreloaded());
+
+        manager.setOptOut(optedBackIn, false);
+        manager.setOptOut(newlyOptedOut, true);
+        deferred.remove(0).run();
+
+        assertTrue(manager.isPreloaded());
+        assertFalse(manager.isOptedOut(optedBackIn), "The opt-in is newer than the preloaded row");
+        assertTrue(manager.isOptedOut(newlyOptedOut));
+    }
+
+    @Test
+    public void testPreload_failureRetriedLater_joinsQueryMeanwhile() {
+        ManualPluginScheduler manual = new ManualPluginScheduler();
+        when(databaseManager.forEachOptedOut(any())).thenReturn(false);
+        AsyncStorage direct = new AsyncStorage(logger, databaseManager, Runnable::run);
+        OptOutManager manager = new OptOutManager(logger, databaseManager, manual, 100,
+            preloadSettings(), direct, null, null);
+
+        assertFalse(manager.isPreloaded());
+        when(databaseManager.readOptedOut(testUUID)).thenReturn(true);
+        manager.onPlayerPreLogin(preLogin(AsyncPlayerPreLoginEvent.Result.ALLOWED));
+        verify(databaseManager).readOptedOut(testUUID);
+
+        stubPreload(testUUID);
+        manual.runPending();
+        assertTrue(manager.isPreloaded());
+        assertTrue(manager.isOptedOut(testUUID));
+    }
+
+    /** Writes a snapshot of the given players at {@code watermark} and loads it back. */
+    private OptOutSnapshot loadSnapshot(OptOutSnapshot.Watermark watermark, UUID... optedOut) {
+        new OptOutSnapshot(logger, snapshotDir).write(new java.util.ArrayList<>(List.of(optedOut)), watermark);
+        OptOutSnapshot snapshot = new OptOutSnapshot(logger, snapshotDir);
+        assertTrue(snapshot.isLoaded());
+        return snapshot;
+    }
+
+    private OptOutManager snapshotManager(PluginScheduler scheduler, OptOutSettings settings, AsyncStorage storage,
+                                          OptOutSnapshot snapshot) {
+        when(databaseManager.getCircuitBreaker()).thenReturn(new DatabaseCircuitBreaker(logger));
+        return new OptOutManager(logger, databaseManager, scheduler, 100, settings, storage, null, snapshot);
+    }
+
+    @Test
+    public void testSnapshot_answersJoinsWhileDatabaseUnreachable() {
+        ManualPluginScheduler manual = new ManualPluginScheduler();
+        OptOutSnapshot snapshot = loadSnapshot(new OptOutSnapshot.Watermark(1, 1000), testUUID);
+        AsyncStorage direct = new AsyncStorage(logger, databaseManager, Runnable::run);
+        OptOutManager manager = snapshotManager(manual, OptOutSettings.defaults(), direct, snapshot);
+
+        assertEquals(OptOutManager.SnapshotState.UNVERIFIED, manager.getSnapshotState());
+        assertEquals(1, manual.pendingCount(), "The check is retried later");
+
+        when(joinEvent.getPlayer()).thenReturn(player);
+        when(player.isOnline()).thenReturn(true);
+        manager.onPlayerPreLogin(preLogin(AsyncPlayerPreLoginEvent.Result.ALLOWED));
+        manager.onPlayerJoin(joinEvent);
+
+        assertTrue(manager.isOptedOut(testUUID));
+        verify(databaseManager, never()).readOptedOut(any());
+        verify(databaseManager, never()).readAllOptedOut(anyCollection());
+
+        manual.runPending(); // reminder, and the retried check failing again
+        verify(player).sendMessage(contains("opted out of StormtrooperX"));
+        assertEquals(OptOutManager.SnapshotState.UNVERIFIED, manager.getSnapshotState());
+    }
+
+    @Test
+    public void testSnapshot_currentSnapshotIsThePreload() {
+        OptOutSnapshot.Watermark watermark = new OptOutSnapshot.Watermark(2, 1000);
+        UUID offline = UUID.randomUUID();
+        OptOutSnapshot snapshot = loadSnapshot(watermark, offline, testUUID);
+        when(databaseManager.getWatermark()).thenReturn(watermark);
+        AsyncStorage direct = new AsyncStorage(logger, databaseManager, Runnable::run);
+        OptOutManager manager = snapshotManager(scheduler, preloadSettings(), direct, snapshot);
+
+        assertEquals(OptOutManager.SnapshotState.CURRENT, manager.getSnapshotState());
+        assertTrue(manager.isPreloaded());
+        assertTrue(manager.isOptedOut(offline));
+        assertFalse(snapshot.isLoaded(), "Released once the preload holds its players");
+        verify(databaseManager, never()).forEachOptedOut(any());
+    }
+
+    @Test
+    public void testSnapshot_staleSnapshotRechecksServedPlayers() {
+        OptOutSnapshot snapshot = loadSnapshot(new OptOutSnapshot.Watermark(1, 1000), testUUID);
+        List<Runnable> deferred = new java.util.ArrayList<>();
+        AsyncStorage storage = new AsyncStorage(logger, databaseManager, deferred::add);
+        OptOutManager manager = snapshotManager(scheduler, OptOutSettings.defaults(), storage, snapshot);
+
+        when(joinEvent.getPlayer()).thenReturn(player);
+        when(player.isOnline()).thenReturn(true);
+        manager.onPlayerPreLogin(preLogin(AsyncPlayerPreLoginEvent.Result.ALLOWED));
+        manager.onPlayerJoin(joinEvent);
+        assertTrue(manager.isOptedOut(testUUID), "Answered from the snapshot");
+
+        // Opted back in on another server after the snapshot was written
+        when(databaseManager.getWatermark()).thenReturn(new OptOutSnapshot.Watermark(0, 2000));
+        when(databaseManager.readAllOptedOut(anyCollection())).thenReturn(Set.of());
+        while (!deferred.isEmpty()) {
+            deferred.remove(0).run();
+        }
+
+        assertEquals(OptOutManager.SnapshotState.STALE, manager.getSnapshotState());
+        assertFalse(manager.isOptedOut(testUUID), "Corrected from the database");
+        verify(databaseManager).readAllOptedOut(List.of(testUUID));
+    }
+
+    @Test
+    public void testSnapshot_failedRecheckKeepsSnapshotStatusAndRetries() {
+        ManualPluginScheduler manual = new ManualPluginScheduler();
+        OptOutSnapshot snapshot = loadSnapshot(new OptOutSnapshot.Watermark(1, 1000), testUUID);
+        List<Runnable> deferred = new java.util.ArrayList<>();
+        AsyncStorage storage = new AsyncStorage(logger, databaseManager, deferred::add);
+        OptOutManager manager = snapshotManager(manual, OptOutSettings.defaults(), storage, snapshot);
+
+        when(joinEvent.getPlayer()).thenReturn(player);
+        manager.onPlayerPreLogin(preLogin(AsyncPlayerPreLoginEvent.Result.ALLOWED));
+        manager.onPlayerJoin(joinEvent);
+
+        when(databaseManager.getWatermark()).thenReturn(new OptOutSnapshot.Watermark(0, 2000));
+        // Null: the database could not answer (circuit open, read failed)
+        when(databaseManager.readAllOptedOut(anyCollection())).thenReturn(null, Set.of());
+        while (!deferred.isEmpty()) {
+            deferred.remove(0).run();
+        }
+
+        assertEquals(OptOutManager.SnapshotState.STALE, manager.getSnapshotState());
+        assertTrue(manager.isOptedOut(testUUID), "Keeps the snapshot's status, not a failed read's");
+        verify(logger).warning(contains("Could not re-check 1 players"));
+
+        manual.runPending();
+        while (!deferred.isEmpty()) {
+            deferred.remove(0).run();
+        }
+        assertFalse(manager.isOptedOut(testUUID), "Corrected by the retry");
+        verify(databaseManager, times(2)).readAllOptedOut(List.of(testUUID));
+    }
+
+    @Test
+    public void testSnapshot_writtenOnShutdown() {
+        UUID other = UUID.randomUUID();
+        OptOutSnapshot.Watermark watermark = new OptOutSnapshot.Watermark(2, 5000);
+        stubPreload(testUUID, other);
+        when(databaseManager.getWatermark()).thenReturn(watermark);
+        OptOutSnapshot empty = new OptOutSnapshot(logger, snapshotDir);
+        AsyncStorage direct = new AsyncStorage(logger, databaseManager, Runnable::run);
+        OptOutManager manager = snapshotManager(scheduler, OptOutSettings.defaults(), direct, empty);
+        assertEquals(OptOutManager.SnapshotState.NONE, manager.getSnapshotState());
+
+        manager.shutdown();
+
+        OptOutSnapshot written = new OptOutSnapshot(logger, snapshotDir);
+        assertEquals(1, written.generation());
+        assertEquals(watermark, written.watermark());
+        assertTrue(written.contains(testUUID));
+        assertTrue(written.contains(other));
+    }
+
+    @Test
+    public void testSnapshot_circuitOpenOnShutdown_skipsTheRewrite() {
+        OptOutSnapshot snapshot = loadSnapshot(new OptOutSnapshot.Watermark(1, 1000), testUUID);
+        AsyncStorage direct = new AsyncStorage(logger, databaseManager, Runnable::run);
+        OptOutManager manager = snapshotManager(new ManualPluginScheduler(), OptOutSettings.defaults(), direct,
+            snapshot);
+        DatabaseCircuitBreaker breaker = new DatabaseCircuitBreaker(logger);
+        for (int i = 0; i < DatabaseCircuitBreaker.DEFAULT_FAILURE_THRESHOLD; i++) {
+            breaker.recordFailure();
+        }
+        when(databaseManager.getCircuitBreaker()).thenReturn(breaker);
+
+        manager.shutdown();
+
+        verify(logger).warning(contains("circuit is not closed"));
+        verify(databaseManager, never()).forEachOptedOut(any());
+        assertEquals(1, new OptOutSnapshot(logger, snapshotDir).generation());
+    }
+
+    @Test
+    public void testSnapshot_databaseUnreadableOnShutdown_keepsPrevious() {
+        OptOutSnapshot snapshot = loadSnapshot(new OptOutSnapshot.Watermark(1, 1000), testUUID);
+        AsyncStorage direct = new AsyncStorage(logger, databaseManager, Runnable::run);
+        OptOutManager manager = snapshotManager(new ManualPluginScheduler(), OptOutSettings.defaults(), direct,
+            snapshot);
+
+        manager.shutdown();
+
+        verify(logger).warning(contains("keeping the previous one"));
+        OptOutSnapshot reloaded = new OptOutSnapshot(logger, snapshotDir);
+        assertEquals(1, reloaded.generation());
+        assertTrue(reloaded.contains(testUUID));
+    }
+
+    private static OptOutNegativeCache.Settings negativeCacheSettings() {
+        return new OptOutNegativeCache.Settings(true, 1000, 0.01, 10);
+    }
+
+    @Test
+    public void testNegativeCache_skipsLookupsForPlayersRuledOut() {
+        UUID optedOut = UUID.randomUUID();
+        stubPreload(optedOut);
+        AsyncStorage direct = new AsyncStorage(logger, databaseManager, Runnable::run);
+        // Manual, so the scheduled rebuild does not run straight away
+        OptOutManager manager = new OptOutManager(logger, databaseManager, new ManualPluginScheduler(), 100,
+            OptOutSettings.defaults().withNegativeCache(negativeCacheSettings()), direct, null, null);
+        assertNotNull(manager.getNegativeCache().filter());
+
+        when(joinEvent.getPlayer()).thenReturn(player);
+        manager.onPlayerPreLogin(preLogin(AsyncPlayerPreLoginEvent.Result.ALLOWED));
+        manager.onPlayerJoin(joinEvent);
+
+        verify(databaseManager, never()).readOptedOut(any());
+        verify(databaseManager, never()).readAllOptedOut(anyCollection());
+        assertFalse(manager.isOptedOut(testUUID));
+        assertEquals(1, manager.getNegativeCache().skippedCount());
+        assertEquals(1, manager.getNegativeCache().negativeCount());
+    }
+
+    @Test
+    public void testNegativeCache_optOutMadeHereIsNeverRuledOut() {
+        stubPreload();
+        AsyncStorage direct = new AsyncStorage(logger, databaseManager, Runnable::run);
+        // Manual, so the scheduled rebuild does not run straight away
+        OptOutManager manager = new OptOutManager(logger, databaseManager, new ManualPluginScheduler(), 100,
+            OptOutSettings.defaults().withNegativeCache(negativeCacheSettings()), direct, null, null);
+
+        manager.setOptOut(testUUID, true);
+        when(databaseManager.readOptedOut(testUUID)).thenReturn(true);
+        manager.onPlayerPreLogin(preLogin(AsyncPlayerPreLoginEvent.Result.ALLOWED));
+
+        verify(databaseManager).readOptedOut(testUUID);
+    }
+
+    @Test
+    public void testNegativeCache_notUsedWhenPreloading() {
+        stubPreload();
+        AsyncStorage direct = new AsyncStorage(logger, databaseManager, Runnable::run);
+        // Manual, so the scheduled rebuild does not run straight away
+        OptOutManager manager = new OptOutManager(logger, databaseManager, new ManualPluginScheduler(), 100,
+            preloadSettings().withNegativeCache(negativeCacheSettings()), direct, null, null);
+
+        assertNull(manager.getNegativeCache());
+    }
+
+    private static OfflineOptOutCache.Settings offlineCacheSettings() {
+        return new OfflineOptOutCache.Settings(true, 100, 60, "false");
+    }
+
+    @Test
+    public void testResolveOptOut_offlinePlayerLoadsInBackground() {
+        List<Runnable> deferred = new java.util.ArrayList<>();
+        AsyncStorage storage = new AsyncStorage(logger, databaseManager, deferred::add);
+        OptOutManager manager = new OptOutManager(logger, databaseManager, new ManualPluginScheduler(), 100,
+            OptOutSettings.defaults().withOfflineCache(offlineCacheSettings()), storage, null, null);
+        when(databaseManager.readOptedOut(testUUID)).thenReturn(true);
+
+        assertNull(manager.resolveOptOut(testUUID, false), "Loading; the caller shows its placeholder");
+        assertNull(manager.resolveOptOut(testUUID, false));
+        assertEquals(1, deferred.size(), "Concurrent requests share one load");
+        deferred.remove(0).run();
+
+        assertEquals(Boolean.TRUE, manager.resolveOptOut(testUUID, false));
+        assertFalse(manager.isOptedOut(testUUID), "isOptedOut stays online-only");
+        assertEquals(Boolean.FALSE, manager.resolveOptOut(testUUID, true), "Online players use the join cache");
+        verify(databaseManager, times(1)).readOptedOut(testUUID);
+    }
+
+    @Test
+    public void testResolveOptOut_changeMadeHereWinsOverStoredState() {
+        List<Runnable> deferred = new java.util.ArrayList<>();
+        AsyncStorage storage = new AsyncStorage(logger, databaseManager, deferred::add);
+        OptOutManager manager = new OptOutManager(logger, databaseManager, new ManualPluginScheduler(), 100,
+            OptOutSettings.defaults().withOfflineCache(offlineCacheSettings()), storage, null, null);
+
+        manager.setOptOut(testUUID, true);
+
+        assertEquals(Boolean.TRUE, manager.resolveOptOut(testUUID, false));
+        verify(databaseManager, never()).readOptedOut(any());
+    }
+
+    @Test
+    public void testResolveOptOut_disabled_offlineReadsFalse() {
+        assertEquals(Boolean.FALSE, optOutManager.resolveOptOut(testUUID, false));
+        verify(databaseManager, never()).readOptedOut(any());
+    }
+
+    private AsyncPlayerPreLoginEvent preLogin(AsyncPlayerPreLoginEvent.Result result) {
+        AsyncPlayerPreLoginEvent event = mock(AsyncPlayerPreLoginEvent.class);
+        when(event.getUniqueId()).thenReturn(testUUID);
+        when(event.getName()).thenReturn("TestPlayer");
+        when(event.getLoginResult()).thenReturn(result);
+        return event;
+    }
+
+    @Test
+    public void testPreLogin_PrefetchPromotedOnJoin_WithoutDatabaseRoundTrip() {
+        when(databaseManager.readOptedOut(testUUID)).thenReturn(true);
+        when(joinEvent.getPlayer()).thenReturn(player);
+        when(player.isOnline()).thenReturn(true);
+
+        optOutManager.onPlayerPreLogin(preLogin(AsyncPlayerPreLoginEvent.Result.ALLOWED));
+        assertEquals(1, optOutManager.getPrefetchCount());
+
+        optOutManager.onPlayerJoin(joinEvent);
+
+        assertTrue(optOutManager.isOptedOut(testUUID));
+        assertEquals(0, optOutManager.getPrefetchCount(), "Join consumes the prefetch");
+        verify(databaseManager, never()).readAllOptedOut(anyCollection());
+        verify(player).sendMessage(contains("opted out of StormtrooperX"));
+    }
+
+    @Test
+    public void testPreLogin_DeniedLogin_IsNotPrefetched() {
+        optOutManager.onPlayerPreLogin(preLogin(AsyncPlayerPreLoginEvent.Result.KICK_BANNED));
+
+        assertEquals(0, optOutManager.getPrefetchCount());
+        verify(databaseManager, never()).readOptedOut(any());
+    }
+
+    @Test
+    public void testPreLogin_ExpiredPrefetch_FallsBackToBatchedLoad() {
+        when(databaseManager.readOptedOut(testUUID)).thenReturn(true);
+        when(databaseManager.readAllOptedOut(anyCollection())).thenReturn(Set.of());
+        when(joinEvent.getPlayer()).thenReturn(player);
+
+        optOutManager.onPlayerPreLogin(preLogin(AsyncPlayerPreLoginEvent.Result.ALLOWED));
+        optOutManager.expirePrefetches(System.nanoTime() + OptOutManager.PREFETCH_TTL_NANOS + 1);
+        assertEquals(0, optOutManager.getPrefetchCount(), "Login that never joined must not linger");
+
+        optOutManager.onPlayerJoin(joinEvent);
+
+        verify(databaseManager).readAllOptedOut(anyCollection());
+        assertFalse(optOutManager.isOptedOut(testUUID));
+    }
+
+    @Test
+    public void testPreLogin_DatabaseException_JoinFallsBack() {
+        when(databaseManager.readOptedOut(testUUID)).thenThrow(new RuntimeException("Database error"));
+        when(databaseManager.readAllOptedOut(anyCollection())).thenReturn(Set.of(testUUID));
+        when(joinEvent.getPlayer()).thenReturn(player);
+
+        assertDoesNotThrow(() -> optOutManager.onPlayerPreLogin(preLogin(AsyncPlayerPreLoginEvent.Result.ALLOWED)));
+        verify(logger).log(eq(Level.WARNING), anyString(), any(Throwable.class));
+
+        optOutManager.onPlayerJoin(joinEvent);
+
+        assertTrue(optOutManager.isOptedOut(testUUID));
+    }
+
+    @Test
+    public void testPreLogin_DatabaseUnavailable_IsNotPrefetched() {
+        // Null: the database could not answer (circuit open, read failed)
+        when(databaseManager.readOptedOut(testUUID)).thenReturn(null);
+        when(databaseManager.readAllOptedOut(anyCollection())).thenReturn(Set.of(testUUID));
+        when(joinEvent.getPlayer()).thenReturn(player);
+
+        optOutManager.onPlayerPreLogin(preLogin(AsyncPlayerPreLoginEvent.Result.ALLOWED));
+        assertEquals(0, optOutManager.getPrefetchCount(), "A failed read is not an answer");
+
+        optOutManager.onPlayerJoin(joinEvent);
+
+        verify(databaseManager).readAllOptedOut(anyCollection());
+        assertTrue(optOutManager.isOptedOut(testUUID));
+    }
+
+    @Test
+    public void testSetOptOut_CoalescesRepeatedChanges() {
+        ManualPluginScheduler manual = new ManualPluginScheduler();
+        OptOutManager manager = new OptOutManager(logger, databaseManager, manual, 100);
+
+        manager.setOptOut(testUUID, true);
+        manager.setOptOut(testUUID, false);
+        manager.setOptOut(testUUID, true);
+        manual.runPending(); // interval timer
+        manual.runPending(); // flush on the storage executor
+
+        verify(databaseManager, times(1)).setOptOuts(anyMap());
+        verify(databaseManager).setOptOuts(Map.of(testUUID, true));
+    }
+
+    @Test
+    public void testShutdown_FlushesQueuedWrites() {
+        ManualPluginScheduler manual = new ManualPluginScheduler();
+        OptOutManager manager = new OptOutManager(logger, databaseManager, manual, 100);
+
+        manager.setOptOut(testUUID, true);
+        verify(databaseManager, never()).setOptOuts(anyMap());
+
+        manager.shutdown();
+
+        verify(databaseManager).setOptOuts(Map.of(testUUID, true));
+        assertEquals(0, manager.getWriteQueue().queueDepth());
+    }
+
+    @Test
+    public void testShutdown_WriteFails_LogsUnpersistedChanges() {
+        ManualPluginScheduler manual = new ManualPluginScheduler();
+        OptOutManager manager = new OptOutManager(logger, databaseManager, manual, 100);
+        when(databaseManager.setOptOuts(anyMap())).thenReturn(false);
+
+        manager.setOptOut(testUUID, true);
+        manager.shutdown();
+
+        verify(logger).warning(contains("Could not persist 1 of 1 queued opt-out changes"));
+    }
+
+    @Test
+    public void testShutdown_IgnoresPendingTimers() {
+        ManualPluginScheduler manual = new ManualPluginScheduler();
+        OptOutManager manager = new OptOutManager(logger, databaseManager, manual, 100);
+        when(databaseManager.setOptOuts(anyMap())).thenReturn(true);
+
+        manager.setOptOut(testUUID, true);
+        manager.shutdown();
+        manual.runPending();
+        manual.runPending();
+
+        verify(databaseManager, times(1)).setOptOuts(anyMap());
+        verify(logger).info(contains("Flushed 1 queued opt-out changes on shutdown"));
+    }
+
     @Test
     public void testOnPlayerQuit_InCache() {
         // Setup: Add player to cache first
@@ -357,9 +965,7 @@ public void testLazyLoading_MultiplePlayersScenario() {
         when(p3.getName()).thenReturn("Player3");
 
         // Setup database: Player1 and Player3 are opted out
-        when(databaseManager.isOptedOut(player1)).thenReturn(true);
-        when(databaseManager.isOptedOut(player2)).thenReturn(false);
-        when(databaseManager.isOptedOut(player3)).thenReturn(true);
+        when(databaseManager.readAllOptedOut(anyCollection())).thenReturn(Set.of(player1, player3));
 
         // Simulate joins
         PlayerJoinEvent join1 = mock(PlayerJoinEvent.class);
@@ -397,16 +1003,16 @@ public void testCacheCoherency() {
         // Opt out
         optOutManager.setOptOut(playerUUID, true);
         assertTrue(optOutManager.isOptedOut(playerUUID), "Player should be opted out");
-        verify(databaseManager).setOptOut(playerUUID, true);
+        verify(databaseManager).setOptOuts(Map.of(playerUUID, true));
 
         // Opt back in
         optOutManager.setOptOut(playerUUID, false);
         assertFalse(optOutManager.isOptedOut(playerUUID), "Player should not be opted out");
-        verify(databaseManager).setOptOut(playerUUID, false);
+        verify(databaseManager).setOptOuts(Map.of(playerUUID, false));
 
         // Verify both cache and DB were updated
-        verify(databaseManager, times(1)).setOptOut(playerUUID, true);
-        verify(databaseManager, times(1)).setOptOut(playerUUID, false);
+        verify(databaseManager, times(1)).setOptOuts(Map.of(playerUUID, true));
+        verify(databaseManager, times(1)).setOptOuts(Map.of(playerUUID, false));
     }
 
     @Test
@@ -430,4 +1036,89 @@ public void testCacheSizing_MinimumCapacity() {
         OptOutManager tinyServerManager = new OptOutManager(logger, databaseManager, scheduler, 10);
         assertNotNull(tinyServerManager, "OptOutManager should initialize with minimum capacity");
     }
+
+    @Test
+    public void testSync_appliesOtherServersChangesToOnlinePlayers() {
+        ManualPluginScheduler manual = new ManualPluginScheduler();
+        AsyncStorage direct = new AsyncStorage(logger, databaseManager, Runnable::run);
+        OptOutManager manager = new OptOutManager(logger, databaseManager, manual, 100,
+            OptOutSettings.defaults().withSync(new OptOutChangeFeed.Settings(true, 1000, 1000, 60)), direct, null,
+            null);
+        when(joinEvent.getPlayer()).thenReturn(player);
+        manager.onPlayerJoin(joinEvent);
+        manual.runPending();
+        manual.runPending();
+        assertFalse(manager.isOptedOut(testUUID));
+
+        UUID offline = UUID.randomUUID();
+        long otherServer = databaseManager.changeOrigin() + 1;
+        when(databaseManager.getChangesSince(0, 1000)).thenReturn(List.of(
+            new OptOutChangeFeed.Change(1, testUUID, true, otherServer),
+            new OptOutChangeFeed.Change(2, offline, true, otherServer)));
+        manual.runPending();
+
+        assertTrue(manager.isOptedOut(testUUID), "Opted out on another server");
+        assertFalse(manager.isOptedOut(offline), "Only online players are cached");
+        assertEquals(2, manager.getChangeFeed().appliedCount());
+
+        when(databaseManager.getChangesSince(2, 1000)).thenReturn(List.of(
+            new OptOutChangeFeed.Change(3, testUUID, false, otherServer)));
+        manual.runPending();
+        assertFalse(manager.isOptedOut(testUUID), "Opted back in on another server");
+        manager.shutdown();
+    }
+
+    /** Runs both servers' queued tasks until neither has any left, or gives up after a few rounds. */
+    private static void drain(ManualPluginScheduler... schedulers) {
+        for (int round = 0; round < 10; round++) {
+            int ran = 0;
+            for (ManualPluginScheduler manual : schedulers) {
+                // Polls reschedule themselves; one round each keeps this bounded
+                ran += manual.runPending();
+            }
+            if (ran == 0) {
+                return;
+            }
+        }
+    }
+
+    @Test
+    public void testSync_twoServersOnOneDatabaseSeeEachOthersChanges() {
+        OptOutSettings settings = OptOutSettings.defaults()
+            .withSync(new OptOutChangeFeed.Settings(true, 1000, 1000, 60));
+        DatabaseManager databaseA = new DatabaseManager(logger, snapshotDir.toFile(), "h2", null, null,
+            new DatabaseCircuitBreaker(logger), settings);
+        DatabaseManager databaseB = new DatabaseManager(logger, snapshotDir.toFile(), "h2", null, null,
+            new DatabaseCircuitBreaker(logger), settings);
+        databaseA.initialize();
+        databaseB.initialize();
+        ManualPluginScheduler schedulerA = new ManualPluginScheduler();
+        ManualPluginScheduler schedulerB = new ManualPluginScheduler();
+        OptOutManager serverA = new OptOutManager(logger, databaseA, schedulerA, 100, settings,
+            new AsyncStorage(logger, databaseA, Runnable::run), null, null);
+        OptOutManager serverB = new OptOutManager(logger, databaseB, schedulerB, 100, settings,
+            new AsyncStorage(logger, databaseB, Runnable::run), null, null);
+        try {
+            when(joinEvent.getPlayer()).thenReturn(player);
+            serverB.onPlayerJoin(joinEvent);
+            drain(schedulerA, schedulerB);
+            assertFalse(serverB.isOptedOut(testUUID));
+
+            serverA.setOptOut(testUUID, true);
+            drain(schedulerA, schedulerB);
+            assertTrue(serverB.isOptedOut(testUUID), "Opt-out on A reaches the player online on B");
+
+            serverB.setOptOut(testUUID, false);
+            drain(schedulerA, schedulerB);
+            assertFalse(serverA.isOptedOut(testUUID), "Opt-in on B replaces A's own earlier opt-out");
+            assertFalse(serverB.isOptedOut(testUUID), "B's own change is not undone by its feed");
+            assertEquals(1, serverA.getChangeFeed().appliedCount());
+            assertEquals(1, serverB.getChangeFeed().appliedCount());
+        } finally {
+            serverA.shutdown();
+            serverB.shutdown();
+            databaseA.close();
+            databaseB.close();
+        }
+    }
 }
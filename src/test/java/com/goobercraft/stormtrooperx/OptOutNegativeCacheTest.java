@@ -0,0 +1,242 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.goobercraft.stormtrooperx.support.ManualPluginScheduler;
+
+/**
+ * Tests for {@link OptOutNegativeCache}: the build lifecycle on a deferred
+ * executor, opt-outs racing a build, rebuilds, failure retries, the
+ * counters, and config parsing.
+ */
+@DisplayName("OptOutNegativeCache — Bloom filter in front of join lookups")
+class OptOutNegativeCacheTest {
+
+    private Logger logger;
+    private DatabaseManager databaseManager;
+    private ManualPluginScheduler scheduler;
+    private List<Runnable> deferred;
+    private OptOutNegativeCache cache;
+    // What forEachOptedOut streams
+    private final Set<UUID> stored = new CopyOnWriteArraySet<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        logger = mock(Logger.class);
+        databaseManager = mock(DatabaseManager.class);
+        scheduler = new ManualPluginScheduler();
+        deferred = new ArrayList<>();
+        when(databaseManager.forEachOptedOut(any())).thenAnswer(invocation -> {
+            final Consumer<UUID> sink = invocation.getArgument(0);
+            stored.forEach(sink);
+            return true;
+        });
+        final AsyncStorage storage = new AsyncStorage(logger, databaseManager, deferred::add);
+        cache = new OptOutNegativeCache(logger, storage, scheduler,
+            new OptOutNegativeCache.Settings(true, 1_000, 0.01, 10));
+    }
+
+    private void runDeferred() {
+        final List<Runnable> tasks = new ArrayList<>(deferred);
+        deferred.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Nested
+    @DisplayName("lifecycle")
+    class Lifecycle {
+
+        @Test
+        @DisplayName("answers 'maybe' for everyone until the first build lands")
+        void maybeBeforeBuild() {
+            cache.start();
+
+            assertThat(cache.mightBeOptedOut(UUID.randomUUID())).isTrue();
+            assertThat(cache.filter()).isNull();
+            assertThat(cache.lookupCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("once built, rules out players who are not opted out")
+        void rulesOutAfterBuild() {
+            final UUID optedOut = UUID.randomUUID();
+            stored.add(optedOut);
+            cache.start();
+            runDeferred();
+
+            assertThat(cache.mightBeOptedOut(optedOut)).isTrue();
+            int skipped = 0;
+            for (int i = 0; i < 100; i++) {
+                if (!cache.mightBeOptedOut(UUID.randomUUID())) {
+                    skipped++;
+                }
+            }
+            assertThat(skipped).isGreaterThan(90);
+            assertThat(cache.skippedCount()).isEqualTo(skipped);
+            assertThat(cache.lookupCount()).isEqualTo(101);
+            assertThat(cache.buildCount()).isEqualTo(1);
+            assertThat(scheduler.pendingCount()).as("rebuild scheduled").isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("an opt-out made during a build is in the filter it produces")
+        void optOutDuringBuild() {
+            cache.start();
+            final UUID player = UUID.randomUUID();
+
+            cache.recordOptOut(player);
+            runDeferred();
+
+            assertThat(cache.mightBeOptedOut(player)).isTrue();
+        }
+
+        @Test
+        @DisplayName("an opt-out made since the last build seeds the next one, even if its row is not written yet")
+        void optOutSeedsNextBuild() {
+            cache.start();
+            runDeferred();
+            final UUID player = UUID.randomUUID();
+            cache.recordOptOut(player);
+
+            scheduler.runPending();
+            runDeferred();
+
+            assertThat(cache.buildCount()).isEqualTo(2);
+            assertThat(cache.mightBeOptedOut(player)).isTrue();
+        }
+
+        @Test
+        @DisplayName("a rebuild forgets players who opted back in")
+        void rebuildForgets() {
+            final UUID player = UUID.randomUUID();
+            stored.add(player);
+            cache.start();
+            runDeferred();
+            assertThat(cache.mightBeOptedOut(player)).isTrue();
+
+            stored.remove(player);
+            scheduler.runPending();
+            runDeferred();
+
+            assertThat(cache.mightBeOptedOut(player)).isFalse();
+        }
+
+        @Test
+        @DisplayName("a failed build is retried and keeps 'maybe' meanwhile")
+        void failedBuildRetried() {
+            when(databaseManager.forEachOptedOut(any())).thenReturn(false);
+            cache.start();
+            runDeferred();
+
+            assertThat(cache.filter()).isNull();
+            assertThat(scheduler.pendingCount()).isEqualTo(1);
+            verify(logger).warning(contains("build incomplete"));
+
+            when(databaseManager.forEachOptedOut(any())).thenReturn(true);
+            scheduler.runPending();
+            runDeferred();
+            assertThat(cache.filter()).isNotNull();
+        }
+
+        @Test
+        @DisplayName("close drops the filter and stops rebuilding")
+        void close() {
+            cache.start();
+            runDeferred();
+
+            cache.close();
+            scheduler.runPending();
+
+            assertThat(cache.filter()).isNull();
+            assertThat(deferred).isEmpty();
+            assertThat(cache.mightBeOptedOut(UUID.randomUUID())).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("observed false positives")
+    class ObservedFalsePositives {
+
+        @Test
+        @DisplayName("counts players who are not opted out but pass the filter")
+        void countsFalsePositives() {
+            final UUID optedBackIn = UUID.randomUUID();
+            stored.add(optedBackIn);
+            cache.start();
+            runDeferred();
+
+            cache.recordResolved(optedBackIn, false);
+            cache.recordResolved(UUID.randomUUID(), true);
+            for (int i = 0; i < 9; i++) {
+                cache.recordResolved(UUID.randomUUID(), false);
+            }
+
+            assertThat(cache.negativeCount()).isEqualTo(10);
+            assertThat(cache.falsePositiveCount()).isGreaterThanOrEqualTo(1);
+            assertThat(cache.observedFalsePositiveRate()).isGreaterThanOrEqualTo(0.1);
+        }
+
+        @Test
+        @DisplayName("ignores resolutions before the first build")
+        void ignoredBeforeBuild() {
+            cache.recordResolved(UUID.randomUUID(), false);
+
+            assertThat(cache.negativeCount()).isZero();
+            assertThat(cache.observedFalsePositiveRate()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("configuration")
+    class Configuration {
+
+        @Test
+        @DisplayName("defaults when the section is missing")
+        void defaults() {
+            final OptOutNegativeCache.Settings settings = OptOutNegativeCache.Settings.fromConfig(null, logger);
+
+            assertThat(settings.enabled()).isTrue();
+            assertThat(settings.expectedOptOuts()).isEqualTo(OptOutNegativeCache.Settings.DEFAULT_EXPECTED_OPT_OUTS);
+            assertThat(settings.falsePositiveRate()).isEqualTo(OptOutNegativeCache.Settings.DEFAULT_FALSE_POSITIVE_RATE);
+        }
+
+        @Test
+        @DisplayName("falls back to the default for out-of-range values")
+        void invalidValuesFallBack() {
+            final YamlConfiguration section = new YamlConfiguration();
+            section.set("enabled", false);
+            section.set("expected-opt-outs", 5);
+            section.set("false-positive-rate", 0.9);
+            section.set("rebuild-interval-minutes", 30);
+
+            final OptOutNegativeCache.Settings settings = OptOutNegativeCache.Settings.fromConfig(section, logger);
+
+            assertThat(settings.enabled()).isFalse();
+            assertThat(settings.expectedOptOuts()).isEqualTo(OptOutNegativeCache.Settings.DEFAULT_EXPECTED_OPT_OUTS);
+            assertThat(settings.falsePositiveRate()).isEqualTo(OptOutNegativeCache.Settings.DEFAULT_FALSE_POSITIVE_RATE);
+            assertThat(settings.rebuildIntervalMinutes()).isEqualTo(30);
+            verify(logger).warning(contains("negative-cache.expected-opt-outs"));
+            verify(logger).warning(contains("negative-cache.false-positive-rate"));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link OptOutSettings}: parsing the {@code database} section with
+ * its feature subsections, and the copies tests and the plugin derive from it.
+ */
+@DisplayName("OptOutSettings — database tuning")
+class OptOutSettingsTest {
+
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        logger = mock(Logger.class);
+    }
+
+    @Test
+    @DisplayName("defaults leave the optional caches and sync off")
+    void defaults() {
+        final OptOutSettings settings = OptOutSettings.defaults();
+
+        assertThat(settings.batchSize()).isEqualTo(OptOutSettings.DEFAULT_BATCH_SIZE);
+        assertThat(settings.preload()).isFalse();
+        assertThat(settings.negativeCache().enabled()).isFalse();
+        assertThat(settings.offlineCache().enabled()).isFalse();
+        assertThat(settings.sync().enabled()).isFalse();
+        assertThat(settings.readCoalescing().enabled()).isTrue();
+    }
+
+    @Test
+    @DisplayName("a missing section reads every key and subsection as its default")
+    void missingSection() {
+        final OptOutSettings settings = OptOutSettings.fromConfig(null, logger);
+
+        assertThat(settings.flushIntervalMillis()).isEqualTo(OptOutSettings.DEFAULT_FLUSH_INTERVAL_MILLIS);
+        assertThat(settings.negativeCache().enabled()).isEqualTo(OptOutNegativeCache.Settings.DEFAULT_ENABLED);
+        assertThat(settings.offlineCache().enabled()).isEqualTo(OfflineOptOutCache.Settings.DEFAULT_ENABLED);
+        assertThat(settings.sync().enabled()).isFalse();
+    }
+
+    @Test
+    @DisplayName("reads the feature subsections and falls back for out-of-range values")
+    void fromConfig() {
+        final YamlConfiguration database = new YamlConfiguration();
+        database.set("write-behind.batch-size", 0);
+        database.set("preload-opt-outs", true);
+        database.set("negative-cache.enabled", false);
+        database.set("offline-cache.max-entries", 500);
+        database.set("read-coalescing.batch-window-ms", 5);
+        database.set("sync.enabled", true);
+
+        final OptOutSettings settings = OptOutSettings.fromConfig(database, logger);
+
+        assertThat(settings.batchSize()).isEqualTo(OptOutSettings.DEFAULT_BATCH_SIZE);
+        assertThat(settings.preload()).isTrue();
+        assertThat(settings.negativeCache().enabled()).isFalse();
+        assertThat(settings.offlineCache().maxEntries()).isEqualTo(500);
+        assertThat(settings.readCoalescing().batchWindowMillis()).isEqualTo(5);
+        assertThat(settings.sync().enabled()).isTrue();
+        verify(logger).warning(contains("write-behind.batch-size"));
+    }
+
+    @Test
+    @DisplayName("copies change only the named part")
+    void copies() {
+        final OptOutSettings base = OptOutSettings.defaults().withPreload(true);
+        final OptOutSettings synced = base.withSync(new OptOutChangeFeed.Settings(true, 1000, 1000, 60));
+
+        assertThat(synced.sync().enabled()).isTrue();
+        assertThat(synced.preload()).isTrue();
+        assertThat(base.sync().enabled()).isFalse();
+        assertThat(base.withWriteBehind(0, 2).batchSize()).isEqualTo(2);
+        assertThatThrownBy(() -> base.withWriteBehind(0, 0))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("batchSize must be positive");
+        assertThatThrownBy(() -> base.withSync(null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("sync cannot be null");
+    }
+}
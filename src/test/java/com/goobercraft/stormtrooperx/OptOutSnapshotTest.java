@@ -0,0 +1,206 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link OptOutSnapshot}: round trips, lookups, deduplication,
+ * alternating slots, and falling back past a corrupt or torn slot. Files
+ * live in a per-test temporary folder.
+ */
+@DisplayName("OptOutSnapshot — memory-mapped warm-restart snapshot")
+class OptOutSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private Logger logger;
+    private final OptOutSnapshot.Watermark watermark = new OptOutSnapshot.Watermark(3, 1_700_000_000_123_456_789L, 42);
+
+    @BeforeEach
+    void setUp() {
+        logger = mock(Logger.class);
+    }
+
+    private static List<UUID> players(int count) {
+        final List<UUID> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            players.add(UUID.randomUUID());
+        }
+        return players;
+    }
+
+    private OptOutSnapshot reopen() {
+        return new OptOutSnapshot(logger, dir);
+    }
+
+    @Test
+    @DisplayName("nothing is loaded when no slot file exists")
+    void missingFiles() {
+        final OptOutSnapshot snapshot = reopen();
+
+        assertThat(snapshot.isLoaded()).isFalse();
+        assertThat(snapshot.contains(UUID.randomUUID())).isFalse();
+        assertThat(snapshot.generation()).isZero();
+        assertThat(snapshot.watermark()).isNull();
+    }
+
+    @Test
+    @DisplayName("a written snapshot loads back with every player and its watermark")
+    void roundTrip() {
+        final List<UUID> optedOut = players(5000);
+        final List<UUID> expected = List.copyOf(optedOut);
+
+        assertThat(reopen().write(optedOut, watermark)).isEqualTo(1);
+        final OptOutSnapshot snapshot = reopen();
+
+        assertThat(snapshot.isLoaded()).isTrue();
+        assertThat(snapshot.size()).isEqualTo(5000);
+        assertThat(snapshot.generation()).isEqualTo(1);
+        assertThat(snapshot.watermark()).isEqualTo(watermark);
+        assertThat(expected).allMatch(snapshot::contains);
+        assertThat(players(1000)).noneMatch(snapshot::contains);
+
+        final List<UUID> listed = new ArrayList<>();
+        snapshot.forEach(listed::add);
+        assertThat(listed).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    @DisplayName("an empty list writes a valid, empty snapshot")
+    void emptySnapshot() {
+        reopen().write(new ArrayList<>(), new OptOutSnapshot.Watermark(0, 0));
+        final OptOutSnapshot snapshot = reopen();
+
+        assertThat(snapshot.isLoaded()).isTrue();
+        assertThat(snapshot.size()).isZero();
+        assertThat(snapshot.contains(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    @DisplayName("duplicate players are stored once")
+    void deduplicates() {
+        final UUID player = UUID.randomUUID();
+        reopen().write(new ArrayList<>(List.of(player, player, player)), watermark);
+
+        final OptOutSnapshot snapshot = reopen();
+        assertThat(snapshot.size()).isEqualTo(1);
+        assertThat(snapshot.contains(player)).isTrue();
+    }
+
+    @Test
+    @DisplayName("a released snapshot answers nothing")
+    void release() {
+        final UUID player = UUID.randomUUID();
+        reopen().write(new ArrayList<>(List.of(player)), watermark);
+        final OptOutSnapshot snapshot = reopen();
+
+        snapshot.release();
+
+        assertThat(snapshot.isLoaded()).isFalse();
+        assertThat(snapshot.contains(player)).isFalse();
+    }
+
+    @Nested
+    @DisplayName("slots")
+    class Slots {
+
+        @Test
+        @DisplayName("each write goes to the slot that is not mapped, with the next generation")
+        void alternates() {
+            final UUID first = UUID.randomUUID();
+            final UUID second = UUID.randomUUID();
+            reopen().write(new ArrayList<>(List.of(first)), watermark);
+
+            final OptOutSnapshot loaded = reopen();
+            assertThat(loaded.write(new ArrayList<>(List.of(second)), watermark)).isEqualTo(2);
+            assertThat(loaded.contains(first)).as("the mapped slot is left alone").isTrue();
+
+            final OptOutSnapshot latest = reopen();
+            assertThat(latest.generation()).isEqualTo(2);
+            assertThat(latest.contains(second)).isTrue();
+            assertThat(latest.contains(first)).isFalse();
+            assertThat(dir.resolve(OptOutSnapshot.SLOT_FILES[0])).exists();
+            assertThat(dir.resolve(OptOutSnapshot.SLOT_FILES[1])).exists();
+        }
+
+        @Test
+        @DisplayName("a corrupt newest slot falls back to the older one")
+        void corruptNewestFallsBack() throws IOException {
+            final UUID older = UUID.randomUUID();
+            reopen().write(new ArrayList<>(List.of(older)), watermark);
+            reopen().write(players(10), watermark);
+            // Generation 1 went to slot 1, so generation 2 is in slot 0
+            final Path newest = dir.resolve(OptOutSnapshot.SLOT_FILES[0]);
+            try (RandomAccessFile file = new RandomAccessFile(newest.toFile(), "rw")) {
+                file.seek(OptOutSnapshot.HEADER_BYTES + 3);
+                final int original = file.read();
+                file.seek(OptOutSnapshot.HEADER_BYTES + 3);
+                file.write(original ^ 0xFF);
+            }
+
+            final OptOutSnapshot snapshot = reopen();
+
+            assertThat(snapshot.generation()).isEqualTo(1);
+            assertThat(snapshot.contains(older)).isTrue();
+            verify(logger).warning(contains("checksum mismatch"));
+        }
+
+        @Test
+        @DisplayName("a slot in an older format is ignored without a warning")
+        void olderFormatIgnored() throws IOException {
+            reopen().write(players(3), watermark);
+            // Generation 1 is in slot 1
+            final Path slot = dir.resolve(OptOutSnapshot.SLOT_FILES[1]);
+            try (RandomAccessFile file = new RandomAccessFile(slot.toFile(), "rw")) {
+                file.seek(Integer.BYTES);
+                file.writeInt(OptOutSnapshot.VERSION - 1);
+            }
+
+            final OptOutSnapshot snapshot = reopen();
+
+            assertThat(snapshot.isLoaded()).isFalse();
+            verify(logger).info(contains("format version " + (OptOutSnapshot.VERSION - 1)));
+            verify(logger, never()).warning(anyString());
+        }
+
+        @Test
+        @DisplayName("a truncated slot is ignored and the next write replaces it")
+        void truncatedSlotIgnored() throws IOException {
+            final UUID older = UUID.randomUUID();
+            reopen().write(new ArrayList<>(List.of(older)), watermark);
+            reopen().write(players(10), watermark);
+            final Path newest = dir.resolve(OptOutSnapshot.SLOT_FILES[0]);
+            Files.write(newest, Arrays.copyOf(Files.readAllBytes(newest), OptOutSnapshot.HEADER_BYTES + 5));
+
+            final OptOutSnapshot snapshot = reopen();
+            assertThat(snapshot.generation()).isEqualTo(1);
+            assertThat(snapshot.contains(older)).isTrue();
+            verify(logger).warning(contains("bad header or size"));
+
+            final UUID latest = UUID.randomUUID();
+            assertThat(snapshot.write(new ArrayList<>(List.of(latest)), watermark)).isEqualTo(2);
+            assertThat(reopen().contains(latest)).isTrue();
+        }
+    }
+}
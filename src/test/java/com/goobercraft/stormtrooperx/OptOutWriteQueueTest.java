@@ -0,0 +1,458 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.goobercraft.stormtrooperx.support.ManualPluginScheduler;
+
+/**
+ * Tests for {@link OptOutWriteQueue}: per-player coalescing, the interval and
+ * size flush triggers, batch splitting, failure re-queueing, the journal,
+ * the shutdown drain and the counters shown by {@code /stormtrooperx stats}.
+ */
+@DisplayName("OptOutWriteQueue — coalescing write-behind for opt-outs")
+class OptOutWriteQueueTest {
+
+    private DatabaseManager databaseManager;
+    private ManualPluginScheduler scheduler;
+    private List<Map<UUID, Boolean>> written;
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = mock(DatabaseManager.class);
+        scheduler = new ManualPluginScheduler();
+        written = new ArrayList<>();
+        when(databaseManager.setOptOuts(anyMap())).thenAnswer(invocation -> {
+            written.add(new HashMap<>(invocation.getArgument(0)));
+            return true;
+        });
+    }
+
+    private OptOutWriteQueue queue(int batchSize) {
+        return queue(batchSize, null);
+    }
+
+    private OptOutWriteQueue queue(int batchSize, OptOutJournal journal) {
+        final Logger logger = mock(Logger.class);
+        return new OptOutWriteQueue(logger, databaseManager, scheduler,
+            AsyncStorage.onScheduler(logger, databaseManager, scheduler), OptOutSettings.defaults().withWriteBehind(1000, batchSize),
+            journal);
+    }
+
+    /** Runs the interval timer, then the flush it hands to the storage executor. */
+    private void runTimerAndFlush() {
+        scheduler.runPending();
+        scheduler.runPending();
+    }
+
+    @Nested
+    @DisplayName("coalescing")
+    class Coalescing {
+
+        @Test
+        @DisplayName("repeated changes for one player reach the database once, as the latest state")
+        void latestStateWins() {
+            final OptOutWriteQueue queue = queue(100);
+            final UUID player = UUID.randomUUID();
+
+            queue.enqueue(player, true);
+            queue.enqueue(player, false);
+            queue.enqueue(player, true);
+
+            assertThat(queue.queueDepth()).isEqualTo(1);
+            assertThat(queue.pendingState(player)).isTrue();
+            assertThat(queue.coalescedCount()).isEqualTo(2);
+
+            runTimerAndFlush();
+
+            assertThat(written).containsExactly(Map.of(player, true));
+            assertThat(queue.queueDepth()).isZero();
+            assertThat(queue.pendingState(player)).isNull();
+        }
+
+        @Test
+        @DisplayName("a burst of changes arms a single delayed flush")
+        void oneTimerPerBurst() {
+            final OptOutWriteQueue queue = queue(100);
+
+            for (int i = 0; i < 10; i++) {
+                queue.enqueue(UUID.randomUUID(), true);
+            }
+
+            assertThat(scheduler.pendingCount()).isEqualTo(1);
+            runTimerAndFlush();
+            assertThat(written).hasSize(1);
+            assertThat(written.get(0)).hasSize(10);
+        }
+
+        @Test
+        @DisplayName("a change after a flush arms a new timer")
+        void rearmsAfterFlush() {
+            final OptOutWriteQueue queue = queue(100);
+
+            queue.enqueue(UUID.randomUUID(), true);
+            runTimerAndFlush();
+            queue.enqueue(UUID.randomUUID(), false);
+
+            assertThat(scheduler.pendingCount()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("batching")
+    class Batching {
+
+        @Test
+        @DisplayName("reaching batch-size dispatches an immediate flush")
+        void sizeTrigger() {
+            final OptOutWriteQueue queue = queue(3);
+
+            queue.enqueue(UUID.randomUUID(), true);
+            queue.enqueue(UUID.randomUUID(), true);
+            queue.enqueue(UUID.randomUUID(), true);
+
+            // The delayed flush from the first change, plus the size-triggered one
+            assertThat(scheduler.pendingCount()).isEqualTo(2);
+            scheduler.runPending();
+            assertThat(written).hasSize(1);
+            assertThat(written.get(0)).hasSize(3);
+        }
+
+        @Test
+        @DisplayName("a flush splits the pending changes into batches of batch-size")
+        void splitsBatches() {
+            final OptOutWriteQueue queue = queue(4);
+            for (int i = 0; i < 10; i++) {
+                queue.enqueue(UUID.randomUUID(), i % 2 == 0);
+            }
+
+            assertThat(queue.flush()).isTrue();
+
+            assertThat(written).extracting(Map::size).containsExactlyInAnyOrder(4, 4, 2);
+            assertThat(queue.batchCount()).isEqualTo(3);
+            assertThat(queue.rowsWrittenCount()).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("flush() with nothing pending does not touch the database")
+        void emptyFlush() {
+            assertThat(queue(100).flush()).isTrue();
+            verify(databaseManager, never()).setOptOuts(anyMap());
+        }
+    }
+
+    @Nested
+    @DisplayName("failures")
+    class Failures {
+
+        @Test
+        @DisplayName("a rejected batch is re-queued and retried on the next flush")
+        void requeuesOnFalse() {
+            final OptOutWriteQueue queue = queue(100);
+            final UUID player = UUID.randomUUID();
+            when(databaseManager.setOptOuts(anyMap())).thenReturn(false).thenReturn(true);
+
+            queue.enqueue(player, true);
+            assertThat(queue.flush()).isFalse();
+
+            assertThat(queue.pendingState(player)).isTrue();
+            assertThat(queue.failedBatchCount()).isEqualTo(1);
+            assertThat(scheduler.pendingCount()).as("retry armed").isEqualTo(1);
+
+            assertThat(queue.flush()).isTrue();
+            assertThat(queue.queueDepth()).isZero();
+            verify(databaseManager, times(2)).setOptOuts(Map.of(player, true));
+        }
+
+        @Test
+        @DisplayName("an exception from the database counts as a failed batch")
+        void requeuesOnException() {
+            final OptOutWriteQueue queue = queue(100);
+            final UUID player = UUID.randomUUID();
+            doThrow(new RuntimeException("DB unavailable")).when(databaseManager).setOptOuts(anyMap());
+
+            queue.enqueue(player, false);
+
+            assertThat(queue.flush()).isFalse();
+            assertThat(queue.pendingState(player)).isFalse();
+            assertThat(queue.rowsWrittenCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("a size flush rejected by a saturated executor falls back to the interval timer")
+        void saturatedExecutor() {
+            final Logger logger = mock(Logger.class);
+            final AsyncStorage saturated = new AsyncStorage(logger, databaseManager, task -> {
+                throw new RejectedExecutionException("queue full");
+            });
+            final OptOutWriteQueue queue = new OptOutWriteQueue(logger, databaseManager, scheduler,
+                saturated, OptOutSettings.defaults().withWriteBehind(1000, 2));
+
+            queue.enqueue(UUID.randomUUID(), true);
+            queue.enqueue(UUID.randomUUID(), true);
+
+            assertThat(written).isEmpty();
+            assertThat(queue.queueDepth()).isEqualTo(2);
+            assertThat(saturated.rejectedCount()).isEqualTo(1);
+            assertThat(scheduler.pendingCount()).as("interval timer still armed").isEqualTo(1);
+
+            // The timer's flush is rejected too; it re-arms instead of dropping the changes
+            scheduler.runPending();
+            assertThat(scheduler.pendingCount()).isEqualTo(1);
+            assertThat(queue.queueDepth()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("a change stays visible while its batch is being written, until it commits or is put back")
+        void inFlightChangeStaysVisible() {
+            final OptOutWriteQueue queue = queue(100);
+            final UUID player = UUID.randomUUID();
+            final List<Boolean> seenDuringWrite = new ArrayList<>();
+            when(databaseManager.setOptOuts(anyMap())).thenAnswer(invocation -> {
+                seenDuringWrite.add(queue.pendingState(player));
+                return false;
+            }).thenAnswer(invocation -> {
+                seenDuringWrite.add(queue.pendingState(player));
+                return true;
+            });
+
+            queue.enqueue(player, true);
+            assertThat(queue.flush()).isFalse();
+            assertThat(queue.pendingState(player)).as("put back").isTrue();
+            assertThat(queue.flush()).isTrue();
+
+            assertThat(seenDuringWrite).containsExactly(true, true);
+            assertThat(queue.pendingState(player)).as("committed").isNull();
+        }
+
+        @Test
+        @DisplayName("a newer change made during a failed flush is not overwritten by the retry")
+        void newerChangeSurvivesFailure() {
+            final OptOutWriteQueue queue = queue(100);
+            final UUID player = UUID.randomUUID();
+            when(databaseManager.setOptOuts(anyMap())).thenAnswer(invocation -> {
+                // The player toggles again while the batch is in flight
+                queue.enqueue(player, false);
+                return false;
+            });
+
+            queue.enqueue(player, true);
+            queue.flush();
+
+            assertThat(queue.pendingState(player)).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("journal")
+    class Journal {
+
+        @TempDir
+        Path tempDir;
+
+        private OptOutJournal openJournal() throws IOException {
+            return new OptOutJournal(mock(Logger.class), tempDir.resolve("optout-journal.dat"));
+        }
+
+        @Test
+        @DisplayName("a failed batch is journaled once, however often it is retried")
+        void journalsOncePerState() throws IOException {
+            when(databaseManager.setOptOuts(anyMap())).thenReturn(false);
+            try (OptOutJournal journal = openJournal()) {
+                final OptOutWriteQueue queue = queue(100, journal);
+                queue.enqueue(UUID.randomUUID(), true);
+
+                queue.flush();
+                queue.flush();
+                queue.flush();
+
+                assertThat(journal.recordCount()).isEqualTo(1);
+                assertThat(queue.journaledCount()).isEqualTo(1);
+            }
+        }
+
+        @Test
+        @DisplayName("once the retry succeeds the journal is compacted to nothing")
+        void compactsAfterWrite() throws IOException {
+            final UUID player = UUID.randomUUID();
+            when(databaseManager.setOptOuts(anyMap())).thenReturn(false).thenReturn(true);
+            try (OptOutJournal journal = openJournal()) {
+                final OptOutWriteQueue queue = queue(100, journal);
+                queue.enqueue(player, true);
+                queue.flush();
+                // The player changes their mind during the outage
+                queue.enqueue(player, false);
+
+                assertThat(queue.flush()).isTrue();
+
+                verify(databaseManager).setOptOuts(Map.of(player, false));
+                assertThat(journal.recordCount()).isZero();
+                assertThat(queue.journaledCount()).isZero();
+            }
+        }
+
+        @Test
+        @DisplayName("changes recovered on startup are written in batches and then compacted")
+        void replaysRecovered() throws IOException {
+            final UUID alice = UUID.randomUUID();
+            final UUID bob = UUID.randomUUID();
+            try (OptOutJournal previousRun = openJournal()) {
+                previousRun.append(Map.of(alice, true, bob, false));
+            }
+
+            try (OptOutJournal journal = openJournal()) {
+                final OptOutWriteQueue queue = queue(1, journal);
+                queue.recover(journal.recovered());
+
+                assertThat(queue.pendingState(alice)).isTrue();
+                assertThat(queue.journaledCount()).isEqualTo(2);
+                runTimerAndFlush();
+
+                assertThat(written).containsExactlyInAnyOrder(Map.of(alice, true), Map.of(bob, false));
+                assertThat(journal.recordCount()).isZero();
+            }
+        }
+
+        @Test
+        @DisplayName("a timed-out drain journals every unconfirmed change")
+        void drainTimeoutJournals() throws IOException {
+            final CountDownLatch release = new CountDownLatch(1);
+            when(databaseManager.setOptOuts(anyMap())).thenAnswer(invocation -> {
+                release.await(5, TimeUnit.SECONDS);
+                return true;
+            });
+            final UUID alice = UUID.randomUUID();
+            final UUID bob = UUID.randomUUID();
+            try (OptOutJournal journal = openJournal()) {
+                final OptOutWriteQueue queue = queue(100, journal);
+                queue.enqueue(alice, true);
+                queue.enqueue(bob, false);
+
+                final OptOutWriteQueue.DrainResult result = queue.drain(50);
+
+                assertThat(result.timedOut()).isTrue();
+                assertThat(result.journaled()).isEqualTo(2);
+                try (OptOutJournal nextStart = openJournal()) {
+                    assertThat(nextStart.recovered()).isEqualTo(Map.of(alice, true, bob, false));
+                }
+            } finally {
+                release.countDown();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("drain")
+    class Drain {
+
+        @Test
+        @DisplayName("writes everything pending as one batch, even above batch-size")
+        void singleBatch() {
+            final OptOutWriteQueue queue = queue(4);
+            for (int i = 0; i < 10; i++) {
+                queue.enqueue(UUID.randomUUID(), true);
+            }
+
+            final OptOutWriteQueue.DrainResult result = queue.drain(5000);
+
+            assertThat(written).hasSize(1);
+            assertThat(written.get(0)).hasSize(10);
+            assertThat(result.queued()).isEqualTo(10);
+            assertThat(result.flushed()).isEqualTo(10);
+            assertThat(result.dropped()).isZero();
+            assertThat(result.timedOut()).isFalse();
+        }
+
+        @Test
+        @DisplayName("timers and later changes no longer dispatch flushes")
+        void closesQueue() {
+            final OptOutWriteQueue queue = queue(2);
+            queue.enqueue(UUID.randomUUID(), true);
+
+            queue.drain(5000);
+            runTimerAndFlush();
+            queue.enqueue(UUID.randomUUID(), true);
+            queue.enqueue(UUID.randomUUID(), true);
+
+            assertThat(written).hasSize(1);
+            assertThat(scheduler.pendingCount()).isZero();
+            assertThat(queue.queueDepth()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("a failed write reports the changes as dropped")
+        void writeFails() {
+            when(databaseManager.setOptOuts(anyMap())).thenReturn(false);
+            final OptOutWriteQueue queue = queue(100);
+            queue.enqueue(UUID.randomUUID(), true);
+
+            final OptOutWriteQueue.DrainResult result = queue.drain(5000);
+
+            assertThat(result.flushed()).isZero();
+            assertThat(result.dropped()).isEqualTo(1);
+            assertThat(result.timedOut()).isFalse();
+        }
+
+        @Test
+        @DisplayName("gives up at the deadline and reports the unconfirmed batch as dropped")
+        void timesOut() {
+            final CountDownLatch release = new CountDownLatch(1);
+            when(databaseManager.setOptOuts(anyMap())).thenAnswer(invocation -> {
+                release.await(5, TimeUnit.SECONDS);
+                return true;
+            });
+            final OptOutWriteQueue queue = queue(100);
+            queue.enqueue(UUID.randomUUID(), true);
+            queue.enqueue(UUID.randomUUID(), false);
+
+            try {
+                final OptOutWriteQueue.DrainResult result = queue.drain(50);
+
+                assertThat(result.timedOut()).isTrue();
+                assertThat(result.queued()).isEqualTo(2);
+                assertThat(result.dropped()).isEqualTo(2);
+                assertThat(result.elapsedMillis()).isGreaterThanOrEqualTo(50);
+            } finally {
+                release.countDown();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("flush latency is tracked per batch")
+    void flushLatency() {
+        final OptOutWriteQueue queue = queue(100);
+        queue.enqueue(UUID.randomUUID(), true);
+
+        queue.flush();
+
+        assertThat(queue.lastFlushNanos()).isPositive();
+        assertThat(queue.maxFlushNanos()).isGreaterThanOrEqualTo(queue.lastFlushNanos());
+        assertThat(queue.meanFlushNanos()).isPositive();
+        assertThat(queue.enqueuedCount()).isEqualTo(1);
+    }
+}
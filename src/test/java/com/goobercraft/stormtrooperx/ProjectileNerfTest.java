@@ -2,8 +2,9 @@
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
-import java.util.function.Supplier;
+import java.lang.management.ManagementFactory;
 
 import org.bukkit.util.Vector;
 import org.junit.jupiter.api.DisplayName;
@@ -13,9 +14,13 @@
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import com.goobercraft.stormtrooperx.random.RandomSource;
+
 /**
- * Tests for {@link ProjectileNerf#perturb} — the speed-preserving direction
- * perturbation extracted from {@code StormtrooperX.onBowShoot}.
+ * Tests for {@link ProjectileNerf#perturb} — the allocation-free,
+ * speed-preserving direction perturbation extracted from
+ * {@code StormtrooperX.onBowShoot} — covering both the primitive engine and
+ * the {@link Vector} overload.
  *
  * <p>The random source is injected so every assertion is deterministic; no
  * Bukkit server or event mocking is required.</p>
@@ -26,8 +31,17 @@ class ProjectileNerfTest {
     /** Tolerance for floating-point length comparisons. */
     private static final double EPSILON = 1e-10;
 
-    /** Deterministic non-zero random source — fixed vector keeps tests reproducible. */
-    private static final Supplier<Vector> FIXED_RANDOM = () -> new Vector(0.5, 0.5, 0.5);
+    /** Deterministic non-zero random source — every draw is 0.5, keeping tests reproducible. */
+    private static final RandomSource FIXED_RANDOM = () -> 0.5;
+
+    /** Loads {@code (x, y, z)} into the calling thread's scratch. */
+    private static ProjectileNerf.Scratch scratchOf(double x, double y, double z) {
+        return ProjectileNerf.scratch().load(new Vector(x, y, z));
+    }
+
+    private static double speedOf(ProjectileNerf.Scratch scratch) {
+        return Math.sqrt(scratch.lengthSquared());
+    }
 
     @Nested
     @DisplayName("speed preservation")
@@ -44,23 +58,39 @@ class SpeedPreservation {
             "10.0, 10.0, 10.0",
         })
         void preservesOriginalSpeed(double x, double y, double z) {
-            final Vector velocity = new Vector(x, y, z);
-            final double originalSpeed = velocity.length();
+            final ProjectileNerf.Scratch scratch = scratchOf(x, y, z);
+            final double originalSpeed = speedOf(scratch);
 
-            ProjectileNerf.perturb(velocity, 0.7, FIXED_RANDOM);
+            assertThat(ProjectileNerf.perturb(scratch, 0.7, FIXED_RANDOM)).isTrue();
 
-            assertThat(velocity.length()).isCloseTo(originalSpeed, within(EPSILON));
+            assertThat(speedOf(scratch)).isCloseTo(originalSpeed, within(EPSILON));
         }
 
         @ParameterizedTest(name = "accuracy={0} still preserves speed")
         @ValueSource(doubles = {0.0, 0.1, 0.25, 0.5, 0.7, 1.0})
         void preservesSpeedAcrossAccuracyRange(double accuracy) {
-            final Vector velocity = new Vector(1.0, 0.5, 0.5);
-            final double originalSpeed = velocity.length();
+            final ProjectileNerf.Scratch scratch = scratchOf(1.0, 0.5, 0.5);
+            final double originalSpeed = speedOf(scratch);
+
+            ProjectileNerf.perturb(scratch, accuracy, FIXED_RANDOM);
 
-            ProjectileNerf.perturb(velocity, accuracy, FIXED_RANDOM);
+            assertThat(speedOf(scratch)).isCloseTo(originalSpeed, within(EPSILON));
+        }
+
+        @Test
+        @DisplayName("matches Vector add/normalize/multiply for the same random draws")
+        void matchesVectorMath() {
+            final Vector velocity = new Vector(1.0, 0.5, -0.25);
+            final double speed = velocity.length();
+            final Vector expected = velocity.clone().add(new Vector(0.5, 0.5, 0.5).multiply(0.7))
+                .normalize().multiply(speed);
 
-            assertThat(velocity.length()).isCloseTo(originalSpeed, within(EPSILON));
+            final ProjectileNerf.Scratch scratch = ProjectileNerf.scratch().load(velocity);
+            ProjectileNerf.perturb(scratch, 0.7, FIXED_RANDOM);
+
+            assertThat(scratch.x).isCloseTo(expected.getX(), within(EPSILON));
+            assertThat(scratch.y).isCloseTo(expected.getY(), within(EPSILON));
+            assertThat(scratch.z).isCloseTo(expected.getZ(), within(EPSILON));
         }
     }
 
@@ -69,29 +99,28 @@ void preservesSpeedAcrossAccuracyRange(double accuracy) {
     class ZeroVelocityGuard {
 
         @Test
-        @DisplayName("zero-length input is returned unchanged")
+        @DisplayName("zero-length input returns false and is left unchanged")
         void zeroLengthIsUnchanged() {
-            final Vector velocity = new Vector(0, 0, 0);
+            final ProjectileNerf.Scratch scratch = scratchOf(0, 0, 0);
 
-            final Vector result = ProjectileNerf.perturb(velocity, 0.7, FIXED_RANDOM);
+            assertThat(ProjectileNerf.perturb(scratch, 0.7, FIXED_RANDOM)).isFalse();
 
-            assertThat(result).isSameAs(velocity);
-            assertThat(result.getX()).isZero();
-            assertThat(result.getY()).isZero();
-            assertThat(result.getZ()).isZero();
+            assertThat(scratch.x).isZero();
+            assertThat(scratch.y).isZero();
+            assertThat(scratch.z).isZero();
         }
 
         @Test
         @DisplayName("zero-length input does not call the random source")
         void zeroLengthDoesNotCallRandomSource() {
-            final Vector velocity = new Vector(0, 0, 0);
+            final ProjectileNerf.Scratch scratch = scratchOf(0, 0, 0);
             final int[] callCount = {0};
-            final Supplier<Vector> counting = () -> {
+            final RandomSource counting = () -> {
                 callCount[0]++;
-                return new Vector(1, 1, 1);
+                return 1.0;
             };
 
-            ProjectileNerf.perturb(velocity, 0.7, counting);
+            ProjectileNerf.perturb(scratch, 0.7, counting);
 
             assertThat(callCount[0]).as("random source must be skipped on zero-length input").isZero();
         }
@@ -104,19 +133,67 @@ class ZeroAccuracy {
         @Test
         @DisplayName("zero accuracy yields a vector still pointing along the input direction")
         void zeroAccuracyPreservesDirection() {
-            final Vector velocity = new Vector(1.0, 0.0, 0.0);
+            final ProjectileNerf.Scratch scratch = scratchOf(1.0, 0.0, 0.0);
 
-            ProjectileNerf.perturb(velocity, 0.0, FIXED_RANDOM);
+            ProjectileNerf.perturb(scratch, 0.0, FIXED_RANDOM);
 
-            assertThat(velocity.getX()).isCloseTo(1.0, within(EPSILON));
-            assertThat(velocity.getY()).isCloseTo(0.0, within(EPSILON));
-            assertThat(velocity.getZ()).isCloseTo(0.0, within(EPSILON));
+            assertThat(scratch.x).isCloseTo(1.0, within(EPSILON));
+            assertThat(scratch.y).isCloseTo(0.0, within(EPSILON));
+            assertThat(scratch.z).isCloseTo(0.0, within(EPSILON));
         }
     }
 
     @Nested
-    @DisplayName("mutation semantics")
-    class MutationSemantics {
+    @DisplayName("scratch semantics")
+    class ScratchSemantics {
+
+        @Test
+        @DisplayName("each thread reuses one scratch")
+        void scratchIsPerThreadSingleton() {
+            assertThat(ProjectileNerf.scratch()).isSameAs(ProjectileNerf.scratch());
+        }
+
+        @Test
+        @DisplayName("clearScratch() drops the thread's scratch; the next call gets a fresh one")
+        void clearScratchReplacesInstance() {
+            final ProjectileNerf.Scratch before = ProjectileNerf.scratch();
+
+            ProjectileNerf.clearScratch();
+
+            assertThat(ProjectileNerf.scratch()).isNotSameAs(before);
+        }
+
+        @Test
+        @DisplayName("toVector() reuses one write-back vector and reflects the latest components")
+        void toVectorReusesInstance() {
+            final ProjectileNerf.Scratch scratch = scratchOf(1.0, 2.0, 3.0);
+
+            final Vector first = scratch.toVector();
+            scratch.load(new Vector(4.0, 5.0, 6.0));
+            final Vector second = scratch.toVector();
+
+            assertThat(second).isSameAs(first);
+            assertThat(second.getX()).isEqualTo(4.0);
+            assertThat(second.getY()).isEqualTo(5.0);
+            assertThat(second.getZ()).isEqualTo(6.0);
+        }
+
+        @Test
+        @DisplayName("calling perturb a second time still preserves speed")
+        void repeatedPerturbStillPreservesSpeed() {
+            final ProjectileNerf.Scratch scratch = scratchOf(2.0, 0.0, 0.0);
+            final double originalSpeed = speedOf(scratch);
+
+            ProjectileNerf.perturb(scratch, 0.5, FIXED_RANDOM);
+            ProjectileNerf.perturb(scratch, 0.5, FIXED_RANDOM);
+
+            assertThat(speedOf(scratch)).isCloseTo(originalSpeed, within(EPSILON));
+        }
+    }
+
+    @Nested
+    @DisplayName("Vector overload — perturb(Vector, double, RandomSource)")
+    class VectorOverload {
 
         @Test
         @DisplayName("input vector is mutated in place and the same reference is returned")
@@ -129,15 +206,154 @@ void returnsSameInstance() {
         }
 
         @Test
-        @DisplayName("calling perturb a second time still preserves speed")
-        void repeatedPerturbStillPreservesSpeed() {
-            final Vector velocity = new Vector(2.0, 0.0, 0.0);
-            final double originalSpeed = velocity.length();
+        @DisplayName("matches the primitive engine for the same random draws")
+        void matchesPrimitiveEngine() {
+            final ProjectileNerf.Scratch scratch = scratchOf(1.0, 0.5, -0.25);
+            ProjectileNerf.perturb(scratch, 0.7, FIXED_RANDOM);
+            final double x = scratch.x;
+            final double y = scratch.y;
+            final double z = scratch.z;
+
+            final Vector velocity = ProjectileNerf.perturb(new Vector(1.0, 0.5, -0.25), 0.7, FIXED_RANDOM);
 
-            ProjectileNerf.perturb(velocity, 0.5, FIXED_RANDOM);
-            ProjectileNerf.perturb(velocity, 0.5, FIXED_RANDOM);
+            assertThat(velocity.getX()).isCloseTo(x, within(EPSILON));
+            assertThat(velocity.getY()).isCloseTo(y, within(EPSILON));
+            assertThat(velocity.getZ()).isCloseTo(z, within(EPSILON));
+            assertThat(velocity.length()).isCloseTo(Math.sqrt(1.3125), within(EPSILON));
+        }
+
+        @Test
+        @DisplayName("zero-length input is returned unchanged")
+        void zeroLengthIsUnchanged() {
+            final Vector velocity = new Vector(0, 0, 0);
+
+            final Vector result = ProjectileNerf.perturb(velocity, 0.7, FIXED_RANDOM);
+
+            assertThat(result).isSameAs(velocity);
+            assertThat(result.getX()).isZero();
+            assertThat(result.getY()).isZero();
+            assertThat(result.getZ()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("random sources")
+    class RandomSources {
+
+        @Test
+        @DisplayName("thread-local source draws uniform doubles in [0, 1)")
+        void threadLocalInRange() {
+            final RandomSource source = RandomSource.threadLocal();
+            for (int i = 0; i < 1_000; i++) {
+                assertThat(source.nextDouble()).isGreaterThanOrEqualTo(0.0).isLessThan(1.0);
+            }
+        }
+
+        @Test
+        @DisplayName("same seed -> same sequence on a single thread")
+        void seededIsReproducible() {
+            final RandomSource first = RandomSource.seeded(42L);
+            final RandomSource second = RandomSource.seeded(42L);
+
+            for (int i = 0; i < 100; i++) {
+                assertThat(first.nextDouble()).isEqualTo(second.nextDouble());
+            }
+        }
+
+        @Test
+        @DisplayName("different seeds -> different sequences")
+        void differentSeedsDiverge() {
+            final RandomSource first = RandomSource.seeded(1L);
+            final RandomSource second = RandomSource.seeded(2L);
+
+            boolean diverged = false;
+            for (int i = 0; i < 10 && !diverged; i++) {
+                diverged = first.nextDouble() != second.nextDouble();
+            }
+            assertThat(diverged).isTrue();
+        }
+
+        @Test
+        @DisplayName("seeded source gives each thread its own stream")
+        void seededStreamsArePerThread() throws InterruptedException {
+            final RandomSource source = RandomSource.seeded(7L);
+            final double[] otherThread = new double[1];
+
+            final double mainFirst = source.nextDouble();
+            final Thread thread = new Thread(() -> otherThread[0] = source.nextDouble());
+            thread.start();
+            thread.join();
+
+            // The second thread splits a fresh child off the root instead of
+            // continuing the main thread's stream.
+            assertThat(otherThread[0]).isNotEqualTo(mainFirst);
+            assertThat(otherThread[0]).isGreaterThanOrEqualTo(0.0).isLessThan(1.0);
+        }
+
+        @Test
+        @DisplayName("seeded perturbation is reproducible end to end")
+        void seededPerturbIsReproducible() {
+            final ProjectileNerf.Scratch scratch = scratchOf(1.0, 0.5, 0.5);
+            ProjectileNerf.perturb(scratch, 0.7, RandomSource.seeded(99L));
+            final double x = scratch.x;
+            final double y = scratch.y;
+            final double z = scratch.z;
+
+            scratch.load(new Vector(1.0, 0.5, 0.5));
+            ProjectileNerf.perturb(scratch, 0.7, RandomSource.seeded(99L));
+
+            assertThat(scratch.x).isEqualTo(x);
+            assertThat(scratch.y).isEqualTo(y);
+            assertThat(scratch.z).isEqualTo(z);
+        }
+    }
+
+    @Nested
+    @DisplayName("allocation-free steady state")
+    class AllocationFree {
+
+        /** Shots measured for the allocation check; large enough that one byte per call would show. */
+        private static final int MEASURED_CALLS = 100_000;
+
+        /**
+         * Slack for bytes the measurement itself may allocate (MXBean plumbing),
+         * far below what even one small object per call would cost.
+         */
+        private static final long ALLOCATION_SLACK_BYTES = 4096;
+
+        @Test
+        @DisplayName("steady-state shots allocate no bytes (ThreadMXBean)")
+        void allocatesNothingPerCall() {
+            assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "per-thread allocation counters need the com.sun.management ThreadMXBean");
+            final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                "per-thread allocation accounting is unavailable on this JVM");
+            final long threadId = Thread.currentThread().getId();
+            final RandomSource source = RandomSource.threadLocal();
+
+            // Warm up: initialize the ThreadLocal scratch and let the JIT settle.
+            runShots(MEASURED_CALLS, source);
+
+            final long before = threads.getThreadAllocatedBytes(threadId);
+            runShots(MEASURED_CALLS, source);
+            final long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+            assertThat(allocated)
+                .as("bytes allocated across %d perturb calls", MEASURED_CALLS)
+                .isLessThan(ALLOCATION_SLACK_BYTES);
+        }
 
-            assertThat(velocity.length()).isCloseTo(originalSpeed, within(EPSILON));
+        /** Mirrors the onBowShoot sequence: fetch scratch, load components, perturb. */
+        private void runShots(int count, RandomSource source) {
+            for (int i = 0; i < count; i++) {
+                final ProjectileNerf.Scratch scratch = ProjectileNerf.scratch();
+                scratch.x = 1.0;
+                scratch.y = 0.5;
+                scratch.z = 0.5;
+                ProjectileNerf.perturb(scratch, 0.7, source);
+            }
         }
     }
 }
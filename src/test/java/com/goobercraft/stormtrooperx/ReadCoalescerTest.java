@@ -0,0 +1,282 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ReadCoalescer}: shared in-flight reads, batching within
+ * the window, bulk reads joining point reads, forgetting after a write,
+ * failures, and config parsing. Queries are fakes that can be held open.
+ */
+@DisplayName("ReadCoalescer — single-flight and batched opt-out reads")
+class ReadCoalescerTest {
+
+    private final Set<UUID> optedOut = new HashSet<>();
+    private final AtomicInteger pointQueries = new AtomicInteger();
+    private final List<List<UUID>> bulkQueries = new CopyOnWriteArrayList<>();
+    // Counted down to let a held query finish
+    private volatile CountDownLatch release = new CountDownLatch(0);
+    private final CountDownLatch queryStarted = new CountDownLatch(1);
+    private ExecutorService threads;
+
+    @BeforeEach
+    void setUp() {
+        threads = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        threads.shutdownNow();
+    }
+
+    private ReadCoalescer coalescer(long batchWindowMillis) {
+        return new ReadCoalescer(uuid -> {
+            pointQueries.incrementAndGet();
+            hold();
+            return optedOut.contains(uuid);
+        }, uuids -> {
+            bulkQueries.add(List.copyOf(uuids));
+            hold();
+            final Set<UUID> result = new HashSet<>(uuids);
+            result.retainAll(optedOut);
+            return result;
+        }, TimeUnit.MILLISECONDS.toNanos(batchWindowMillis));
+    }
+
+    private void hold() {
+        queryStarted.countDown();
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> T get(Future<T> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("a lone read uses the point lookup")
+    void loneRead() {
+        final UUID player = UUID.randomUUID();
+        optedOut.add(player);
+        final ReadCoalescer coalescer = coalescer(0);
+
+        assertThat(coalescer.read(player)).isTrue();
+        assertThat(coalescer.read(UUID.randomUUID())).isFalse();
+
+        assertThat(pointQueries).hasValue(2);
+        assertThat(bulkQueries).isEmpty();
+        assertThat(coalescer.queryCount()).isEqualTo(2);
+        assertThat(coalescer.savedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("concurrent reads of one player share one query and its result")
+    void sameKeyShared() throws Exception {
+        final UUID player = UUID.randomUUID();
+        optedOut.add(player);
+        release = new CountDownLatch(1);
+        final ReadCoalescer coalescer = coalescer(0);
+
+        final Future<Boolean> first = threads.submit(() -> coalescer.read(player));
+        assertThat(queryStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        final List<Future<Boolean>> others = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            others.add(threads.submit(() -> coalescer.read(player)));
+        }
+        while (coalescer.sharedCount() < 5) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(get(first)).isTrue();
+        for (Future<Boolean> other : others) {
+            assertThat(get(other)).isTrue();
+        }
+        assertThat(pointQueries).hasValue(1);
+        assertThat(coalescer.readCount()).isEqualTo(6);
+        assertThat(coalescer.savedCount()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("reads of different players within the window run as one bulk lookup")
+    void differentKeysBatched() throws Exception {
+        final List<UUID> players = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            players.add(UUID.randomUUID());
+        }
+        optedOut.add(players.get(2));
+        // Long enough for every thread to join the first one's batch
+        final ReadCoalescer coalescer = coalescer(500);
+
+        final List<Future<Boolean>> results = new ArrayList<>();
+        for (UUID player : players) {
+            results.add(threads.submit(() -> coalescer.read(player)));
+        }
+
+        for (int i = 0; i < players.size(); i++) {
+            assertThat(get(results.get(i))).isEqualTo(i == 2);
+        }
+        assertThat(pointQueries).hasValue(0);
+        assertThat(bulkQueries).hasSize(1);
+        assertThat(bulkQueries.get(0)).containsExactlyInAnyOrderElementsOf(players);
+        assertThat(coalescer.batchedCount()).isEqualTo(3);
+        assertThat(coalescer.queryCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("a point read for a player in a running bulk read shares it")
+    void pointReadJoinsBulkRead() throws Exception {
+        final UUID player = UUID.randomUUID();
+        optedOut.add(player);
+        release = new CountDownLatch(1);
+        final ReadCoalescer coalescer = coalescer(0);
+
+        final Future<Set<UUID>> bulk = threads.submit(() -> coalescer.readAll(List.of(player, UUID.randomUUID())));
+        assertThat(queryStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        final Future<Boolean> point = threads.submit(() -> coalescer.read(player));
+        while (coalescer.sharedCount() < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(get(bulk)).containsExactly(player);
+        assertThat(get(point)).isTrue();
+        assertThat(pointQueries).hasValue(0);
+        assertThat(bulkQueries).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("a bulk read skips players already in flight and waits for their result")
+    void bulkReadSharesInFlight() throws Exception {
+        final UUID inFlight = UUID.randomUUID();
+        final UUID other = UUID.randomUUID();
+        optedOut.add(inFlight);
+        release = new CountDownLatch(1);
+        final ReadCoalescer coalescer = coalescer(0);
+
+        final Future<Boolean> point = threads.submit(() -> coalescer.read(inFlight));
+        assertThat(queryStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        final Future<Set<UUID>> bulk = threads.submit(() -> coalescer.readAll(List.of(inFlight, other)));
+        while (coalescer.sharedCount() < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(get(bulk)).containsExactly(inFlight);
+        assertThat(get(point)).isTrue();
+        assertThat(pointQueries).as("one for each player, neither repeated").hasValue(2);
+    }
+
+    @Test
+    @DisplayName("after forget, a new read does not share the query already in flight")
+    void forgetStartsNewQuery() throws Exception {
+        final UUID player = UUID.randomUUID();
+        release = new CountDownLatch(1);
+        final ReadCoalescer coalescer = coalescer(0);
+
+        final Future<Boolean> stale = threads.submit(() -> coalescer.read(player));
+        assertThat(queryStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        optedOut.add(player);
+        coalescer.forget(player);
+        final Future<Boolean> fresh = threads.submit(() -> coalescer.read(player));
+        while (pointQueries.get() < 2) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(get(fresh)).isTrue();
+        get(stale);
+        assertThat(coalescer.sharedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("a failing query fails every read sharing it, and the next read queries again")
+    void failurePropagates() throws Exception {
+        final UUID player = UUID.randomUUID();
+        final AtomicInteger calls = new AtomicInteger();
+        final ReadCoalescer coalescer = new ReadCoalescer(uuid -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("boom");
+            }
+            return true;
+        }, uuids -> Set.of(), 0);
+
+        assertThatThrownBy(() -> coalescer.read(player)).isInstanceOf(IllegalStateException.class);
+        assertThat(coalescer.read(player)).isTrue();
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("a query the database could not answer answers null to every read sharing it")
+    void unansweredQueryReadsNull() {
+        final UUID player = UUID.randomUUID();
+        final ReadCoalescer coalescer = new ReadCoalescer(uuid -> null, uuids -> null, 0);
+
+        assertThat(coalescer.read(player)).isNull();
+        assertThat(coalescer.readAll(List.of(player, UUID.randomUUID()))).isNull();
+    }
+
+    @Nested
+    @DisplayName("configuration")
+    class Configuration {
+
+        @Test
+        @DisplayName("defaults when the section is missing")
+        void defaults() {
+            final ReadCoalescer.Settings settings = ReadCoalescer.Settings.fromConfig(null, mock(Logger.class));
+
+            assertThat(settings.enabled()).isTrue();
+            assertThat(settings.batchWindowMillis()).isEqualTo(ReadCoalescer.Settings.DEFAULT_BATCH_WINDOW_MILLIS);
+        }
+
+        @Test
+        @DisplayName("falls back to the default for an out-of-range window")
+        void invalidWindowFallsBack() {
+            final Logger logger = mock(Logger.class);
+            final YamlConfiguration section = new YamlConfiguration();
+            section.set("enabled", false);
+            section.set("batch-window-ms", 500);
+
+            final ReadCoalescer.Settings settings = ReadCoalescer.Settings.fromConfig(section, logger);
+
+            assertThat(settings.enabled()).isFalse();
+            assertThat(settings.batchWindowMillis()).isEqualTo(ReadCoalescer.Settings.DEFAULT_BATCH_WINDOW_MILLIS);
+            verify(logger).warning(contains("read-coalescing.batch-window-ms"));
+        }
+
+        @Test
+        @DisplayName("rejects a negative window")
+        void rejectsNegativeWindow() {
+            assertThatThrownBy(() -> new ReadCoalescer(uuid -> false, uuids -> Set.of(), -1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("batchWindowNanos");
+        }
+    }
+}
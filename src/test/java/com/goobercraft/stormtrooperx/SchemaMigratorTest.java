@@ -0,0 +1,267 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SchemaMigrator} against an in-memory H2 database:
+ * ordering, version bookkeeping, re-runs, downgrade refusal, and the
+ * background chunk queue.
+ */
+@DisplayName("SchemaMigrator — versioned schema migrations")
+class SchemaMigratorTest {
+
+    private Connection connection;
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+            "jdbc:h2:mem:migrator-" + UUID.randomUUID() + ";MODE=MySQL", "sa", "");
+        logger = mock(Logger.class);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    private List<Integer> recordedVersions() throws SQLException {
+        final List<Integer> versions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                 "SELECT version FROM " + SchemaMigrator.VERSION_TABLE + " ORDER BY version")) {
+            while (resultSet.next()) {
+                versions.add(resultSet.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    private boolean tableExists(String table) throws SQLException {
+        try (ResultSet tables = connection.getMetaData().getTables(null, null, table.toUpperCase(), null)) {
+            return tables.next();
+        }
+    }
+
+    @Nested
+    @DisplayName("migrate")
+    class Migrate {
+
+        @Test
+        @DisplayName("applies every step in order on a fresh database and records each version")
+        void appliesInOrder() throws SQLException {
+            final SchemaMigrator migrator = new SchemaMigrator(logger, List.of(
+                SchemaMigration.sql(1, "Create a", "CREATE TABLE IF NOT EXISTS a (id INT PRIMARY KEY)"),
+                SchemaMigration.sql(2, "Add a.name", "ALTER TABLE a ADD COLUMN IF NOT EXISTS name VARCHAR(16)")));
+
+            assertThat(migrator.migrate(connection, true)).isEqualTo(2);
+
+            assertThat(recordedVersions()).containsExactly(1, 2);
+            assertThat(SchemaMigrator.currentVersion(connection)).isEqualTo(2);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("INSERT INTO a (id, name) VALUES (1, 'x')");
+            }
+        }
+
+        @Test
+        @DisplayName("a second run applies only the steps added since")
+        void appliesOnlyNewSteps() throws SQLException {
+            final List<Integer> applied = new ArrayList<>();
+            final SchemaMigration first = recording(1, applied);
+            new SchemaMigrator(logger, List.of(first)).migrate(connection, true);
+
+            new SchemaMigrator(logger, List.of(first, recording(2, applied))).migrate(connection, true);
+
+            assertThat(applied).containsExactly(1, 2);
+            assertThat(recordedVersions()).containsExactly(1, 2);
+        }
+
+        @Test
+        @DisplayName("re-running an up-to-date schema is a no-op")
+        void idempotent() throws SQLException {
+            final List<Integer> applied = new ArrayList<>();
+            final SchemaMigrator migrator = new SchemaMigrator(logger, List.of(recording(1, applied)));
+
+            migrator.migrate(connection, true);
+            migrator.migrate(connection, true);
+
+            assertThat(applied).containsExactly(1);
+        }
+
+        @Test
+        @DisplayName("a failing step is not recorded and stops later steps")
+        void failureStops() throws SQLException {
+            final List<Integer> applied = new ArrayList<>();
+            final SchemaMigrator migrator = new SchemaMigrator(logger, List.of(
+                recording(1, applied),
+                SchemaMigration.sql(2, "Broken", "THIS IS NOT SQL"),
+                recording(3, applied)));
+
+            assertThatThrownBy(() -> migrator.migrate(connection, true)).isInstanceOf(SQLException.class);
+
+            assertThat(applied).containsExactly(1);
+            assertThat(recordedVersions()).containsExactly(1);
+        }
+
+        @Test
+        @DisplayName("a database newer than this build is refused")
+        void refusesDowngrade() throws SQLException {
+            new SchemaMigrator(logger, List.of(recording(1, new ArrayList<>()), recording(2, new ArrayList<>())))
+                .migrate(connection, true);
+
+            final SchemaMigrator older = new SchemaMigrator(logger, List.of(recording(1, new ArrayList<>())));
+
+            assertThatThrownBy(() -> older.migrate(connection, true))
+                .isInstanceOf(SQLException.class)
+                .hasMessageContaining("newer than this build");
+        }
+    }
+
+    @Nested
+    @DisplayName("background work")
+    class Background {
+
+        @Test
+        @DisplayName("chunks run oldest step first until every step reports done")
+        void runsChunksInOrder() throws SQLException {
+            final List<String> chunks = new ArrayList<>();
+            final SchemaMigrator migrator = new SchemaMigrator(logger, List.of(
+                chunked(1, 2, chunks), chunked(2, 1, chunks)));
+            migrator.migrate(connection, true);
+            assertThat(migrator.hasBackgroundWork()).isTrue();
+
+            while (migrator.migrateChunk(connection)) {
+                // drain
+            }
+
+            assertThat(chunks).containsExactly("1:2", "1:1", "1:0", "2:1", "2:0");
+            assertThat(migrator.hasBackgroundWork()).isFalse();
+        }
+
+        @Test
+        @DisplayName("background work of an already-applied step is resumed on the next start")
+        void resumesAfterRestart() throws SQLException {
+            final List<String> chunks = new ArrayList<>();
+            new SchemaMigrator(logger, List.of(chunked(1, 1, chunks))).migrate(connection, true);
+
+            // Restart before any chunk ran
+            final SchemaMigrator restarted = new SchemaMigrator(logger, List.of(chunked(1, 1, chunks)));
+            restarted.migrate(connection, true);
+
+            assertThat(restarted.hasBackgroundWork()).isTrue();
+            assertThat(recordedVersions()).containsExactly(1);
+        }
+
+        @Test
+        @DisplayName("nothing is queued when no step has background work")
+        void noneQueued() throws SQLException {
+            final SchemaMigrator migrator = new SchemaMigrator(logger, List.of(recording(1, new ArrayList<>())));
+            migrator.migrate(connection, true);
+
+            assertThat(migrator.hasBackgroundWork()).isFalse();
+            assertThat(migrator.migrateChunk(connection)).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("versions must start at 1 with no gaps")
+    void validatesVersions() {
+        assertThatThrownBy(() -> new SchemaMigrator(logger, List.of(recording(2, new ArrayList<>()))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SchemaMigrator(logger,
+                List.of(recording(1, new ArrayList<>()), recording(3, new ArrayList<>()))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SchemaMigrator(logger, List.of()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("migrations cannot be null or empty");
+    }
+
+    @Test
+    @DisplayName("the production steps bring a fresh database to the binary schema")
+    void productionSteps() throws SQLException {
+        final SchemaMigrator migrator = new SchemaMigrator(logger, List.of(
+            SchemaMigration.sql(1, "Create player_optouts", DatabaseManager.CREATE_OPTOUTS_TABLE),
+            new BinaryUuidMigration(logger)));
+
+        migrator.migrate(connection, true);
+
+        assertThat(recordedVersions()).containsExactly(1, 2);
+        assertThat(tableExists("player_optouts")).isTrue();
+        assertThat(tableExists(BinaryUuidMigration.LEGACY_TABLE)).isFalse();
+        assertThat(migrator.hasBackgroundWork()).isFalse();
+    }
+
+    private static SchemaMigration recording(int version, List<Integer> applied) {
+        return new SchemaMigration() {
+            @Override
+            public int version() {
+                return version;
+            }
+
+            @Override
+            public String description() {
+                return "Step " + version;
+            }
+
+            @Override
+            public void apply(Connection connection, boolean isH2) {
+                applied.add(version);
+            }
+        };
+    }
+
+    /** A step whose background work takes {@code chunks} calls, logging "version:remaining". */
+    private static SchemaMigration chunked(int version, int chunks, List<String> log) {
+        return new SchemaMigration() {
+            private int remaining = chunks;
+
+            @Override
+            public int version() {
+                return version;
+            }
+
+            @Override
+            public String description() {
+                return "Chunked " + version;
+            }
+
+            @Override
+            public void apply(Connection connection, boolean isH2) {
+                // Schema change is instant; the work is in the chunks
+            }
+
+            @Override
+            public boolean hasBackgroundWork(Connection connection) {
+                return remaining > 0;
+            }
+
+            @Override
+            public boolean migrateChunk(Connection connection) {
+                log.add(version + ":" + remaining);
+                if (remaining == 0) {
+                    return false;
+                }
+                remaining--;
+                return true;
+            }
+        };
+    }
+}
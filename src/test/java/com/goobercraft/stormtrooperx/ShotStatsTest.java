@@ -0,0 +1,137 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.entity.EntityType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests for {@link ShotStats}: outcome/entity counters, reset, concurrent
+ * recording, and the log-linear latency histogram behind the percentiles.
+ */
+@DisplayName("ShotStats — striped shot counters + latency histogram")
+class ShotStatsTest {
+
+    @Nested
+    @DisplayName("counters")
+    class Counters {
+
+        @Test
+        @DisplayName("record() bumps the outcome, the entity type and the shot total")
+        void recordCounts() {
+            final ShotStats stats = new ShotStats();
+
+            stats.record(EntityType.SKELETON, ShotStats.Outcome.NERFED, 50);
+            stats.record(EntityType.SKELETON, ShotStats.Outcome.OPTED_OUT, 50);
+            stats.record(EntityType.PILLAGER, ShotStats.Outcome.NERFED, 50);
+
+            final ShotStats.Snapshot snapshot = stats.snapshot();
+            assertThat(snapshot.shotsSeen()).isEqualTo(3);
+            assertThat(snapshot.count(ShotStats.Outcome.NERFED)).isEqualTo(2);
+            assertThat(snapshot.count(ShotStats.Outcome.OPTED_OUT)).isEqualTo(1);
+            assertThat(snapshot.count(ShotStats.Outcome.ZERO_VELOCITY)).isZero();
+            assertThat(snapshot.count(EntityType.SKELETON)).isEqualTo(2);
+            assertThat(snapshot.count(EntityType.PILLAGER)).isEqualTo(1);
+            assertThat(snapshot.meanNanos()).isEqualTo(50);
+        }
+
+        @Test
+        @DisplayName("reset() zeroes everything and moves the window start forward")
+        void resetZeroes() throws InterruptedException {
+            final ShotStats stats = new ShotStats();
+            stats.record(EntityType.STRAY, ShotStats.Outcome.NERFED, 1_000);
+            final long before = stats.snapshot().sinceMillis();
+            Thread.sleep(5);
+
+            stats.reset();
+
+            final ShotStats.Snapshot snapshot = stats.snapshot();
+            assertThat(snapshot.shotsSeen()).isZero();
+            assertThat(snapshot.count(ShotStats.Outcome.NERFED)).isZero();
+            assertThat(snapshot.count(EntityType.STRAY)).isZero();
+            assertThat(snapshot.meanNanos()).isZero();
+            assertThat(snapshot.percentileNanos(0.99)).isZero();
+            assertThat(snapshot.sinceMillis()).isGreaterThan(before);
+        }
+
+        @Test
+        @DisplayName("concurrent recording from many threads loses no counts")
+        void concurrentRecording() throws InterruptedException {
+            final ShotStats stats = new ShotStats();
+            final int threads = 8;
+            final int perThread = 10_000;
+            final List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final Thread worker = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        stats.record(EntityType.SKELETON, ShotStats.Outcome.NERFED, i);
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+
+            final ShotStats.Snapshot snapshot = stats.snapshot();
+            assertThat(snapshot.shotsSeen()).isEqualTo((long) threads * perThread);
+            assertThat(snapshot.count(EntityType.SKELETON)).isEqualTo((long) threads * perThread);
+        }
+    }
+
+    @Nested
+    @DisplayName("latency histogram")
+    class Histogram {
+
+        @ParameterizedTest(name = "{0} ns falls inside its bucket's bounds")
+        @ValueSource(longs = {0, 1, 3, 4, 7, 8, 100, 1_000, 65_535, 1_000_000, Long.MAX_VALUE})
+        void bucketContainsValue(long nanos) {
+            final int bucket = ShotStats.bucketOf(nanos);
+
+            assertThat(ShotStats.bucketUpperBound(bucket)).isGreaterThanOrEqualTo(nanos);
+            if (bucket > 0) {
+                assertThat(ShotStats.bucketUpperBound(bucket - 1)).isLessThan(nanos);
+            }
+        }
+
+        @Test
+        @DisplayName("bucket upper bounds overestimate by at most 25%")
+        void boundedError() {
+            for (long nanos = 4; nanos < 1_000_000; nanos += 37) {
+                final long upper = ShotStats.bucketUpperBound(ShotStats.bucketOf(nanos));
+                assertThat((double) upper / nanos).isLessThanOrEqualTo(1.25);
+            }
+        }
+
+        @Test
+        @DisplayName("negative durations land in bucket 0")
+        void negativeIsClamped() {
+            assertThat(ShotStats.bucketOf(-5)).isZero();
+        }
+
+        @Test
+        @DisplayName("percentiles pick the bucket holding the nearest rank")
+        void percentiles() {
+            final ShotStats stats = new ShotStats();
+            for (int i = 0; i < 990; i++) {
+                stats.record(EntityType.SKELETON, ShotStats.Outcome.NERFED, 100);
+            }
+            for (int i = 0; i < 10; i++) {
+                stats.record(EntityType.SKELETON, ShotStats.Outcome.NERFED, 10_000);
+            }
+
+            final ShotStats.Snapshot snapshot = stats.snapshot();
+            assertThat(snapshot.percentileNanos(0.50)).isBetween(100L, 125L);
+            assertThat(snapshot.percentileNanos(0.99)).isBetween(100L, 125L);
+            assertThat(snapshot.percentileNanos(0.999)).isBetween(10_000L, 12_500L);
+        }
+    }
+}
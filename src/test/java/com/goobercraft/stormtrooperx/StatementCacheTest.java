@@ -0,0 +1,177 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link StatementCache} against an in-memory H2 database: reuse,
+ * per-connection isolation, LRU eviction, invalidation, reconnects and the
+ * hit rate.
+ */
+@DisplayName("StatementCache — per-connection prepared statement reuse")
+class StatementCacheTest {
+
+    private static final String SELECT = "SELECT v FROM t WHERE k = ?";
+
+    private String url;
+    private Connection connection;
+    private StatementCache cache;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        // DB_CLOSE_DELAY keeps the in-memory database alive between connections
+        url = "jdbc:h2:mem:statements-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        connection = DriverManager.getConnection(url, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t (k INT PRIMARY KEY, v INT)");
+            statement.execute("INSERT INTO t VALUES (1, 10), (2, 20)");
+        }
+        cache = new StatementCache(mock(Logger.class), 2);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        cache.clear();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+    private static int select(PreparedStatement statement, int key) throws SQLException {
+        statement.setInt(1, key);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getInt(1) : -1;
+        }
+    }
+
+    @Nested
+    @DisplayName("reuse")
+    class Reuse {
+
+        @Test
+        @DisplayName("the same SQL on the same connection returns the same statement")
+        void hit() throws SQLException {
+            final PreparedStatement first = cache.prepare(connection, SELECT);
+            assertThat(select(first, 1)).isEqualTo(10);
+
+            final PreparedStatement second = cache.prepare(connection, SELECT);
+
+            assertThat(second).isSameAs(first);
+            assertThat(select(second, 2)).isEqualTo(20);
+            assertThat(cache.hitCount()).isEqualTo(1);
+            assertThat(cache.missCount()).isEqualTo(1);
+            assertThat(cache.hitRate()).isEqualTo(0.5);
+        }
+
+        @Test
+        @DisplayName("a reused statement comes back with its parameters cleared")
+        void clearsParameters() throws SQLException {
+            cache.prepare(connection, SELECT).setInt(1, 1);
+
+            final PreparedStatement reused = cache.prepare(connection, SELECT);
+
+            assertThatThrownBy(reused::executeQuery).isInstanceOf(SQLException.class);
+        }
+
+        @Test
+        @DisplayName("each connection gets its own statements")
+        void perConnection() throws SQLException {
+            try (Connection other = DriverManager.getConnection(url, "sa", "")) {
+                final PreparedStatement mine = cache.prepare(connection, SELECT);
+                final PreparedStatement theirs = cache.prepare(other, SELECT);
+
+                assertThat(theirs).isNotSameAs(mine);
+                assertThat(theirs.getConnection()).isSameAs(other);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("lifecycle")
+    class Lifecycle {
+
+        @Test
+        @DisplayName("beyond capacity the least recently used statement is closed")
+        void evictsLeastRecentlyUsed() throws SQLException {
+            final PreparedStatement a = cache.prepare(connection, SELECT);
+            final PreparedStatement b = cache.prepare(connection, "SELECT k FROM t WHERE v = ?");
+            cache.prepare(connection, SELECT);
+
+            cache.prepare(connection, "SELECT COUNT(*) FROM t WHERE k > ?");
+
+            assertThat(a.isClosed()).isFalse();
+            assertThat(b.isClosed()).isTrue();
+        }
+
+        @Test
+        @DisplayName("invalidate closes the connection's statements and the next prepare misses")
+        void invalidate() throws SQLException {
+            final PreparedStatement first = cache.prepare(connection, SELECT);
+
+            cache.invalidate(connection);
+
+            assertThat(first.isClosed()).isTrue();
+            assertThat(cache.prepare(connection, SELECT)).isNotSameAs(first);
+            assertThat(cache.missCount()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("a replacement connection starts cold and the closed one is forgotten")
+        void reconnect() throws SQLException {
+            final Connection retired = DriverManager.getConnection(url, "sa", "");
+            final PreparedStatement old = cache.prepare(retired, SELECT);
+            retired.close();
+
+            try (Connection replacement = DriverManager.getConnection(url, "sa", "")) {
+                final PreparedStatement fresh = cache.prepare(replacement, SELECT);
+
+                assertThat(old.isClosed()).isTrue();
+                assertThat(fresh).isNotSameAs(old);
+                assertThat(select(fresh, 1)).isEqualTo(10);
+            }
+        }
+
+        @Test
+        @DisplayName("clear closes everything")
+        void clear() throws SQLException {
+            final PreparedStatement statement = cache.prepare(connection, SELECT);
+
+            cache.clear();
+
+            assertThat(statement.isClosed()).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("hit rate is zero before the first lookup")
+    void emptyHitRate() {
+        assertThat(cache.hitRate()).isZero();
+    }
+
+    @Test
+    @DisplayName("constructor rejects a null logger and a non-positive capacity")
+    void validation() {
+        assertThatThrownBy(() -> new StatementCache(null, 1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("logger cannot be null");
+        assertThatThrownBy(() -> new StatementCache(mock(Logger.class), 0))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("capacity must be positive, got: 0");
+    }
+}
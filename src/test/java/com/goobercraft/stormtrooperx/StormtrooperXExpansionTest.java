@@ -81,7 +81,7 @@ void testOnRequest_optoutPlaceholder_optedOut_returnsTrue() {
         OfflinePlayer player = mock(OfflinePlayer.class);
         UUID uuid = UUID.randomUUID();
         when(player.getUniqueId()).thenReturn(uuid);
-        when(optOutManager.isOptedOut(uuid)).thenReturn(true);
+        when(optOutManager.resolveOptOut(uuid, false)).thenReturn(true);
 
         assertEquals("true", expansion.onRequest(player, "optout"));
     }
@@ -91,7 +91,7 @@ void testOnRequest_optoutPlaceholder_notOptedOut_returnsFalse() {
         OfflinePlayer player = mock(OfflinePlayer.class);
         UUID uuid = UUID.randomUUID();
         when(player.getUniqueId()).thenReturn(uuid);
-        when(optOutManager.isOptedOut(uuid)).thenReturn(false);
+        when(optOutManager.resolveOptOut(uuid, false)).thenReturn(false);
 
         assertEquals("false", expansion.onRequest(player, "optout"));
     }
@@ -101,12 +101,40 @@ void testOnRequest_caseInsensitive() {
         OfflinePlayer player = mock(OfflinePlayer.class);
         UUID uuid = UUID.randomUUID();
         when(player.getUniqueId()).thenReturn(uuid);
-        when(optOutManager.isOptedOut(uuid)).thenReturn(true);
+        when(optOutManager.resolveOptOut(uuid, false)).thenReturn(true);
 
         assertEquals("true", expansion.onRequest(player, "OptOut"));
         assertEquals("true", expansion.onRequest(player, "OPTOUT"));
     }
 
+    @Test
+    void testOnRequest_onlinePlayer_resolvedAsOnline() {
+        OfflinePlayer player = mock(OfflinePlayer.class);
+        UUID uuid = UUID.randomUUID();
+        when(player.getUniqueId()).thenReturn(uuid);
+        when(player.isOnline()).thenReturn(true);
+        when(optOutManager.resolveOptOut(uuid, true)).thenReturn(true);
+
+        assertEquals("true", expansion.onRequest(player, "optout"));
+    }
+
+    @Test
+    void testOnRequest_offlineLoadPending_returnsLoadingPlaceholder() {
+        OfflinePlayer player = mock(OfflinePlayer.class);
+        UUID uuid = UUID.randomUUID();
+        when(player.getUniqueId()).thenReturn(uuid);
+        when(optOutManager.resolveOptOut(uuid, false)).thenReturn(null);
+
+        assertEquals("false", expansion.onRequest(player, "optout"), "Defaults to the safe answer");
+        assertEquals("...", new StormtrooperXExpansion(plugin, optOutManager, "...").onRequest(player, "optout"));
+    }
+
+    @Test
+    void testConstructor_nullLoadingPlaceholder_throws() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new StormtrooperXExpansion(plugin, optOutManager, null));
+    }
+
     @Test
     void testOnRequest_unknownPlaceholder_returnsNull() {
         OfflinePlayer player = mock(OfflinePlayer.class);
@@ -0,0 +1,180 @@
+package com.goobercraft.stormtrooperx;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ThreadPerCallStorageExecutor}, with a platform thread
+ * factory so they run on any JDK; the gating, rejection and shutdown logic is
+ * the same for virtual threads. Also checks {@link VirtualThreads} against the
+ * running JVM.
+ */
+@DisplayName("ThreadPerCallStorageExecutor — one thread per call, gated to the pool size")
+class ThreadPerCallStorageExecutorTest {
+
+    private static final ThreadFactory DAEMON_THREADS = task -> {
+        final Thread thread = new Thread(task, "test-storage");
+        thread.setDaemon(true);
+        return thread;
+    };
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPerCallStorageExecutor executor;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private Runnable blocking(AtomicInteger running, AtomicInteger maxRunning) {
+        return () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+        };
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError("Condition not met within 5 seconds");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    @Nested
+    @DisplayName("bounds")
+    class Bounds {
+
+        @Test
+        @DisplayName("no more than parallelism calls run at once; the rest wait as the queue")
+        void gatesToParallelism() throws InterruptedException {
+            executor = new ThreadPerCallStorageExecutor(DAEMON_THREADS, false, 2, 10);
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+
+            for (int i = 0; i < 5; i++) {
+                executor.execute(blocking(running, maxRunning));
+            }
+            awaitTrue(() -> executor.activeCount() == 2);
+
+            assertThat(executor.queueDepth()).isEqualTo(3);
+            release.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(maxRunning.get()).isEqualTo(2);
+            assertThat(executor.queueDepth()).isZero();
+        }
+
+        @Test
+        @DisplayName("beyond parallelism + queueCapacity in flight, calls are rejected")
+        void rejectsWhenFull() {
+            executor = new ThreadPerCallStorageExecutor(DAEMON_THREADS, false, 1, 1);
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+            executor.execute(blocking(running, maxRunning));
+            executor.execute(blocking(running, maxRunning));
+
+            assertThatThrownBy(() -> executor.execute(() -> { }))
+                .isInstanceOf(RejectedExecutionException.class)
+                .hasMessageContaining("saturated");
+        }
+    }
+
+    @Nested
+    @DisplayName("shutdown")
+    class Shutdown {
+
+        @Test
+        @DisplayName("shutdown rejects new calls and lets accepted ones finish")
+        void drains() throws InterruptedException {
+            executor = new ThreadPerCallStorageExecutor(DAEMON_THREADS, false, 1, 10);
+            final AtomicBoolean ran = new AtomicBoolean();
+            executor.execute(blocking(new AtomicInteger(), new AtomicInteger()));
+            executor.execute(() -> ran.set(true));
+
+            executor.shutdown();
+
+            assertThat(executor.isShutdown()).isTrue();
+            assertThatThrownBy(() -> executor.execute(() -> { }))
+                .isInstanceOf(RejectedExecutionException.class);
+            assertThat(executor.awaitTermination(50, TimeUnit.MILLISECONDS)).isFalse();
+            release.countDown();
+            assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(ran).isTrue();
+        }
+
+        @Test
+        @DisplayName("shutdownNow drops waiting calls and reports how many")
+        void dropsWaiting() throws InterruptedException {
+            executor = new ThreadPerCallStorageExecutor(DAEMON_THREADS, false, 1, 10);
+            final AtomicBoolean ran = new AtomicBoolean();
+            executor.execute(blocking(new AtomicInteger(), new AtomicInteger()));
+            executor.execute(() -> ran.set(true));
+            awaitTrue(() -> executor.activeCount() == 1 && executor.queueDepth() == 1);
+
+            assertThat(executor.shutdownNow()).isEqualTo(1);
+
+            assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(ran).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("constructor rejects a null factory and non-positive sizes")
+    void validation() {
+        assertThatThrownBy(() -> new ThreadPerCallStorageExecutor(null, false, 1, 1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("threadFactory cannot be null");
+        assertThatThrownBy(() -> new ThreadPerCallStorageExecutor(DAEMON_THREADS, false, 0, 1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("parallelism must be positive, got: 0");
+        assertThatThrownBy(() -> new ThreadPerCallStorageExecutor(DAEMON_THREADS, false, 1, 0))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("queueCapacity must be positive, got: 0");
+    }
+
+    @Test
+    @DisplayName("virtual threads are reported available exactly on Java 21+")
+    void virtualThreadsMatchRuntime() throws Exception {
+        final boolean java21 = Runtime.version().feature() >= 21;
+        assertThat(VirtualThreads.isAvailable()).isEqualTo(java21);
+        if (!java21) {
+            assertThat(VirtualThreads.factory("x")).isNull();
+            return;
+        }
+
+        final Thread thread = VirtualThreads.factory("test-v").newThread(() -> { });
+        assertThat(thread.getName()).isEqualTo("test-v1");
+        assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+        final AsyncStorage storage = AsyncStorage.virtual(Logger.getLogger("test"), mock(DatabaseManager.class), 2, 10);
+        assertThat(storage.usesVirtualThreads()).isTrue();
+        storage.shutdown(1, TimeUnit.SECONDS);
+    }
+}
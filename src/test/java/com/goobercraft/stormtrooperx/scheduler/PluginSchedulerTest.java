@@ -4,6 +4,7 @@
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.verify;
 
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import org.bukkit.Bukkit;
@@ -95,4 +96,40 @@ void testLegacyRunGlobal_delegatesToBukkit() {
             verify(bukkitScheduler).runTask(plugin, task);
         }
     }
+
+    @Test
+    void testLegacyRunAsyncLater_nullTask_throws() {
+        final LegacyBukkitScheduler scheduler = new LegacyBukkitScheduler(plugin);
+        Exception ex = assertThrows(IllegalArgumentException.class,
+            () -> scheduler.runAsyncLater(null, 1, TimeUnit.SECONDS));
+        assertEquals("task cannot be null", ex.getMessage());
+    }
+
+    @Test
+    void testLegacyRunAsyncLater_nullUnit_throws() {
+        final LegacyBukkitScheduler scheduler = new LegacyBukkitScheduler(plugin);
+        Exception ex = assertThrows(IllegalArgumentException.class,
+            () -> scheduler.runAsyncLater(() -> { }, 1, null));
+        assertEquals("unit cannot be null", ex.getMessage());
+    }
+
+    @Test
+    void testLegacyRunAsyncLater_delegatesToBukkitInTicks() {
+        try (org.mockito.MockedStatic<Bukkit> bukkit = org.mockito.Mockito.mockStatic(Bukkit.class)) {
+            bukkit.when(Bukkit::getScheduler).thenReturn(bukkitScheduler);
+            final LegacyBukkitScheduler scheduler = new LegacyBukkitScheduler(plugin);
+            final Runnable task = () -> { };
+            scheduler.runAsyncLater(task, 1, TimeUnit.SECONDS);
+            verify(bukkitScheduler).runTaskLaterAsynchronously(plugin, task, 20L);
+        }
+    }
+
+    @Test
+    void testToTicks_roundsUpToWholeTicks() {
+        assertEquals(0, LegacyBukkitScheduler.toTicks(0, TimeUnit.MILLISECONDS));
+        assertEquals(1, LegacyBukkitScheduler.toTicks(1, TimeUnit.MILLISECONDS));
+        assertEquals(1, LegacyBukkitScheduler.toTicks(50, TimeUnit.MILLISECONDS));
+        assertEquals(2, LegacyBukkitScheduler.toTicks(51, TimeUnit.MILLISECONDS));
+        assertEquals(20, LegacyBukkitScheduler.toTicks(1, TimeUnit.SECONDS));
+    }
 }
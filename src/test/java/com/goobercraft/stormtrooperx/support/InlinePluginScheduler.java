@@ -1,5 +1,7 @@
 package com.goobercraft.stormtrooperx.support;
 
+import java.util.concurrent.TimeUnit;
+
 import com.goobercraft.stormtrooperx.scheduler.PluginScheduler;
 
 /**
@@ -14,6 +16,12 @@ public void runAsync(Runnable task) {
         task.run();
     }
 
+    /** Ignores the delay and runs the task immediately. */
+    @Override
+    public void runAsyncLater(Runnable task, long delay, TimeUnit unit) {
+        task.run();
+    }
+
     @Override
     public void runGlobal(Runnable task) {
         task.run();
@@ -0,0 +1,55 @@
+package com.goobercraft.stormtrooperx.support;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import com.goobercraft.stormtrooperx.scheduler.PluginScheduler;
+
+/**
+ * {@link PluginScheduler} that queues every task until the test runs it with
+ * {@link #runPending()}. Complements {@link InlinePluginScheduler} for code
+ * whose behavior depends on work being deferred — e.g. writes coalescing while
+ * a delayed flush is still waiting.
+ *
+ * <p>Delays are ignored; queued tasks run in submission order. Not
+ * thread-safe — drive it from the test thread only.</p>
+ */
+public final class ManualPluginScheduler implements PluginScheduler {
+
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+
+    @Override
+    public void runAsync(Runnable task) {
+        pending.add(task);
+    }
+
+    @Override
+    public void runAsyncLater(Runnable task, long delay, TimeUnit unit) {
+        pending.add(task);
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        pending.add(task);
+    }
+
+    /** Number of tasks waiting to run. */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Runs the tasks queued so far, in order. Tasks they enqueue stay queued
+     * for the next call, so a task that keeps rescheduling itself cannot spin.
+     *
+     * @return the number of tasks run
+     */
+    public int runPending() {
+        final int count = pending.size();
+        for (int i = 0; i < count; i++) {
+            pending.poll().run();
+        }
+        return count;
+    }
+}